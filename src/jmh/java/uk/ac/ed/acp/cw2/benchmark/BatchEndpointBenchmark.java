@@ -0,0 +1,104 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.ac.ed.acp.cw2.Application;
+import uk.ac.ed.acp.cw2.dto.DistanceRequest;
+import uk.ac.ed.acp.cw2.dto.NextPositionRequest;
+import uk.ac.ed.acp.cw2.dto.Position;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time per item of the single geometry endpoints against their /api/v1/batch variants, over HTTP to the embedded
+ * server started in the benchmark JVM. The client sends one request at a time on a kept-alive HTTP/1.1 connection,
+ * so each item of a single endpoint pays a whole request: HTTP, JSON binding, validation and the response. A batch
+ * of BATCH_SIZE items pays those once, and is reported per item so it compares directly with the single endpoint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchEndpointBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ConfigurableApplicationContext context;
+    private HttpRequest distanceTo;
+    private HttpRequest distanceToBatch;
+    private HttpRequest nextPosition;
+    private HttpRequest nextPositionBatch;
+
+    @Setup
+    public void setUp() throws Exception {
+        // As arguments, so they override application.yml; no drone catalog refresh goes upstream during the run
+        context = new SpringApplicationBuilder(Application.class).run("--server.port=0", "--logging.level.root=WARN",
+                "--ilp.logging.access.sample-rate=0", "--ilp.drones.cache.ttl=PT24H");
+        String base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/v1";
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        DistanceRequest distanceRequest = new DistanceRequest(new Position(-3.192473, 55.946233), new Position(-3.184319, 55.942617));
+        NextPositionRequest positionRequest = new NextPositionRequest(new Position(-3.192473, 55.946233), 45.0);
+        List<DistanceRequest> distanceRequests = new ArrayList<>(BATCH_SIZE);
+        List<NextPositionRequest> positionRequests = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            distanceRequests.add(distanceRequest);
+            positionRequests.add(positionRequest);
+        }
+        distanceTo = post(base + "/distanceTo", objectMapper.writeValueAsBytes(distanceRequest));
+        distanceToBatch = post(base + "/batch/distanceTo", objectMapper.writeValueAsBytes(distanceRequests));
+        nextPosition = post(base + "/nextPosition", objectMapper.writeValueAsBytes(positionRequest));
+        nextPositionBatch = post(base + "/batch/nextPosition", objectMapper.writeValueAsBytes(positionRequests));
+    }
+
+    private static HttpRequest post(String uri, byte[] body) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private byte[] send(HttpRequest request) throws Exception {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) throw new IllegalStateException(request.uri() + ": " + response.statusCode());
+        return response.body();
+    }
+
+    @Benchmark
+    public byte[] distanceTo() throws Exception {
+        return send(distanceTo);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] distanceToBatch() throws Exception {
+        return send(distanceToBatch);
+    }
+
+    @Benchmark
+    public byte[] nextPosition() throws Exception {
+        return send(nextPosition);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] nextPositionBatch() throws Exception {
+        return send(nextPositionBatch);
+    }
+}
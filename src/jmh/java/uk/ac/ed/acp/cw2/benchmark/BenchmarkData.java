@@ -0,0 +1,54 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test data shared by the benchmarks: regular polygons around Edinburgh and points relative to them.
+ */
+public final class BenchmarkData {
+    static final double CENTER_LNG = -3.19, CENTER_LAT = 55.94, RADIUS = 0.01;
+
+    /**
+     * Where a query point lies relative to the polygon.
+     */
+    public enum PointKind { INSIDE, OUTSIDE, EDGE, VERTEX }
+
+    private BenchmarkData() {}
+
+    /**
+     * Builds a closed regular polygon with the given number of distinct vertices.
+     */
+    static Region regularPolygon(int vertexCount) {
+        List<Position> vertices = new ArrayList<>(vertexCount + 1);
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            vertices.add(new Position(CENTER_LNG + RADIUS * Math.cos(angle), CENTER_LAT + RADIUS * Math.sin(angle)));
+        }
+        vertices.add(vertices.getFirst());
+        return new Region("benchmark-" + vertexCount, vertices);
+    }
+
+    /**
+     * Returns a point of the given kind for a polygon built by {@link #regularPolygon}.
+     */
+    static Position point(Region region, PointKind kind) {
+        return switch (kind) {
+            case INSIDE -> new Position(CENTER_LNG + RADIUS * 0.3, CENTER_LAT - RADIUS * 0.2);
+            case OUTSIDE -> new Position(CENTER_LNG + RADIUS * 0.9, CENTER_LAT + RADIUS * 0.9);
+            case EDGE -> {
+                // The midpoint of the second edge, on that edge only (within rounding) and away from its vertices
+                Position start = region.vertices().get(1), end = region.vertices().get(2);
+                yield new Position((start.lng() + end.lng()) / 2, (start.lat() + end.lat()) / 2);
+            }
+            case VERTEX -> {
+                // The start of the second edge, which lies on two edges
+                Position vertex = region.vertices().get(1);
+                yield new Position(vertex.lng(), vertex.lat());
+            }
+        };
+    }
+}
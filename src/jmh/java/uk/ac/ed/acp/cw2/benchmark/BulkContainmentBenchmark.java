@@ -0,0 +1,82 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.geometry.BulkContainment;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the bulk isInRegion engine: the scalar kernel (PreparedPolygon.contains per point) against the
+ * Vector API kernel, on one core and on all of them. The points are spread uniformly over the bounding box.
+ * The vector variants need the JVM flag {@code --add-modules jdk.incubator.vector}, which the benchmark profile sets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class BulkContainmentBenchmark {
+    @Param({"1000", "100000"})
+    public int vertices;
+
+    @Param({"1000000"})
+    public int points;
+
+    private PreparedPolygon polygon;
+    private double[] coords;
+    private BulkContainment scalar;
+    private BulkContainment vector;
+    private int cores;
+
+    @Setup
+    public void setUp() {
+        List<Position> region = BenchmarkData.regularPolygon(vertices).vertices();
+        double[] vertexCoords = new double[2 * region.size()];
+        for (int i = 0; i < region.size(); i++) {
+            vertexCoords[2 * i] = region.get(i).lng();
+            vertexCoords[2 * i + 1] = region.get(i).lat();
+        }
+        polygon = new PreparedPolygon(vertexCoords);
+        Random random = new Random(5);
+        coords = new double[2 * points];
+        for (int i = 0; i < points; i++) {
+            coords[2 * i] = polygon.minX() + random.nextDouble() * (polygon.maxX() - polygon.minX());
+            coords[2 * i + 1] = polygon.minY() + random.nextDouble() * (polygon.maxY() - polygon.minY());
+        }
+        cores = Runtime.getRuntime().availableProcessors();
+        scalar = new BulkContainment(cores, false);
+        vector = new BulkContainment(cores, true);
+        if (!vector.vectorEnabled()) throw new IllegalStateException("Vector API not available");
+    }
+
+    @TearDown
+    public void tearDown() {
+        scalar.close();
+        vector.close();
+    }
+
+    @Benchmark
+    public boolean[] scalarOneCore() {
+        return scalar.contains(polygon, coords, 1);
+    }
+
+    @Benchmark
+    public boolean[] vectorOneCore() {
+        return vector.contains(polygon, coords, 1);
+    }
+
+    @Benchmark
+    public boolean[] scalarAllCores() {
+        return scalar.contains(polygon, coords, cores);
+    }
+
+    @Benchmark
+    public boolean[] vectorAllCores() {
+        return vector.contains(polygon, coords, cores);
+    }
+}
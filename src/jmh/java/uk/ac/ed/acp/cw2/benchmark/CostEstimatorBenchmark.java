@@ -0,0 +1,93 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.DroneCostTable;
+import uk.ac.ed.acp.cw2.dto.DeliveryCostRequest;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.service.CostEstimatorService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to find the cheapest drone for a batch of orders: the pruned search of {@link DroneCostTable} against a scan
+ * over all drones per order. The orders go up to about 1500 moves from the centre of Edinburgh.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CostEstimatorBenchmark {
+    @Param({"100000"})
+    public int orders;
+
+    @Param({"1000"})
+    public int drones;
+
+    private List<Drone> droneList;
+    private DroneCostTable table;
+    private int[] moves;
+    private double[] capacity;
+    private boolean[] cooling, heating;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(16);
+        droneList = new ArrayList<>(drones);
+        for (int i = 0; i < drones; i++) {
+            droneList.add(new Drone((long) i, "Drone " + i, new Drone.Capability(random.nextBoolean(), random.nextBoolean(),
+                    1.0 + random.nextInt(20), 500 + 250 * random.nextInt(10), 0.005 + random.nextDouble() * 0.05,
+                    random.nextDouble() * 10, random.nextDouble() * 10)));
+        }
+        table = DroneCostTable.of(new DroneCatalog(droneList, 1, null, null, Instant.now()), null);
+
+        moves = new int[orders];
+        capacity = new double[orders];
+        cooling = new boolean[orders];
+        heating = new boolean[orders];
+        for (int i = 0; i < orders; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI, distance = random.nextDouble() * 0.225;
+            Position from = new Position(BenchmarkData.CENTER_LNG, BenchmarkData.CENTER_LAT);
+            Position to = new Position(from.lng() + distance * Math.cos(angle), from.lat() + distance * Math.sin(angle));
+            DeliveryCostRequest order = new DeliveryCostRequest(from, to, 1.0 + random.nextInt(15),
+                    random.nextInt(4) == 0, random.nextInt(4) == 0);
+            moves[i] = CostEstimatorService.estimateMoves(order);
+            capacity[i] = order.capacity();
+            cooling[i] = order.cooling();
+            heating[i] = order.heating();
+        }
+    }
+
+    @Benchmark
+    public double pruned() {
+        double total = 0;
+        for (int i = 0; i < orders; i++) {
+            int entry = table.cheapest(moves[i], capacity[i], cooling[i], heating[i]);
+            if (entry >= 0) total += table.cost(entry, moves[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double scan() {
+        double total = 0;
+        for (int i = 0; i < orders; i++) {
+            double best = Double.POSITIVE_INFINITY;
+            for (Drone drone : droneList) {
+                Drone.Capability c = drone.capability();
+                if (c.capacity() < capacity[i] || c.maxMoves() < moves[i]) continue;
+                if ((cooling[i] && !c.cooling()) || (heating[i] && !c.heating())) continue;
+                best = Math.min(best, c.costInitial() + c.costFinal() + c.costPerMove() * moves[i]);
+            }
+            if (best < Double.POSITIVE_INFINITY) total += best;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Containment checks of the double-precision {@link PreparedPolygon} against the exact {@link FixedPointPolygon},
+ * for points spread uniformly over the bounding box, and the preparation of both.
+ * The footprint of each prepared polygon is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FixedPointBenchmark {
+    @Param({"100", "10000"})
+    public int vertices;
+
+    // Points per containment invocation
+    private static final int POINTS = 1024;
+
+    private double[] vertexCoords;
+    private PreparedPolygon prepared;
+    private FixedPointPolygon fixedPoint;
+    private double[] points;
+
+    @Setup
+    public void setUp() {
+        List<Position> region = BenchmarkData.regularPolygon(vertices).vertices();
+        vertexCoords = new double[2 * region.size()];
+        for (int i = 0; i < region.size(); i++) {
+            vertexCoords[2 * i] = region.get(i).lng();
+            vertexCoords[2 * i + 1] = region.get(i).lat();
+        }
+        prepared = new PreparedPolygon(vertexCoords);
+        fixedPoint = new FixedPointPolygon(vertexCoords);
+        Random random = new Random(11);
+        points = new double[2 * POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            points[2 * i] = prepared.minX() + random.nextDouble() * (prepared.maxX() - prepared.minX());
+            points[2 * i + 1] = prepared.minY() + random.nextDouble() * (prepared.maxY() - prepared.minY());
+        }
+        System.out.printf("%nFootprint of a %d-vertex polygon: PreparedPolygon %d bytes, FixedPointPolygon %d bytes%n",
+                vertices + 1, prepared.footprintBytes(), fixedPoint.footprintBytes());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int containsDouble() {
+        int inside = 0;
+        for (int i = 0; i < POINTS; i++) if (prepared.contains(points[2 * i], points[2 * i + 1])) inside++;
+        return inside;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int containsFixedPoint() {
+        int inside = 0;
+        for (int i = 0; i < POINTS; i++) if (fixedPoint.contains(points[2 * i], points[2 * i + 1])) inside++;
+        return inside;
+    }
+
+    @Benchmark
+    public PreparedPolygon prepareDouble() {
+        return new PreparedPolygon(vertexCoords);
+    }
+
+    @Benchmark
+    public FixedPointPolygon prepareFixedPoint() {
+        return new FixedPointPolygon(vertexCoords);
+    }
+}
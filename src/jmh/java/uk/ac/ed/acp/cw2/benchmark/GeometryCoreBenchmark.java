@@ -0,0 +1,124 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.GeometryCore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boxed polygons (a List of Position records) against the flat coordinate arrays of {@link GeometryCore}:
+ * JSON binding of the vertices and an unprepared containment check over every edge.
+ * Run with {@code -prof gc} for the allocation per operation; the retained heap per polygon is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryCoreBenchmark {
+    @Param({"100000"})
+    public int vertices;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<Position> boxedVertices;
+    private double[] coords;
+    private Position point;
+    private byte[] regionJson;
+    private byte[] verticesJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        Region region = BenchmarkData.regularPolygon(vertices);
+        boxedVertices = new ArrayList<>(region.vertices());
+        point = BenchmarkData.point(region, BenchmarkData.PointKind.INSIDE);
+        regionJson = objectMapper.writeValueAsBytes(region);
+        verticesJson = objectMapper.writeValueAsBytes(region.vertices());
+        coords = ((PositionList) objectMapper.readValue(regionJson, Region.class).vertices()).coords();
+
+        long boxed = retainedBytes(() -> objectMapper.readValue(verticesJson, new TypeReference<List<Position>>() {}));
+        long flat = retainedBytes(() -> objectMapper.readValue(regionJson, Region.class));
+        System.out.printf("%nRetained heap per %d-vertex polygon: boxed List<Position> %d bytes, PositionList %d bytes%n",
+                vertices + 1, boxed, flat);
+    }
+
+    private interface Allocation {
+        Object allocate() throws Exception;
+    }
+
+    /**
+     * Estimates the retained heap of one object graph from the heap growth of holding several of them.
+     */
+    private static long retainedBytes(Allocation allocation) throws Exception {
+        final int copies = 20;
+        Object[] held = new Object[copies];
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < copies; i++) held[i] = allocation.allocate();
+        long after = usedHeapAfterGc();
+        if (held[copies - 1] == null) throw new IllegalStateException();
+        return (after - before) / copies;
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The vertices bound as a plain list: a Position and two Doubles per vertex.
+     */
+    @Benchmark
+    public List<Position> bindVerticesBoxed() throws Exception {
+        return objectMapper.readValue(verticesJson, new TypeReference<>() {});
+    }
+
+    /**
+     * The whole region, with the vertices bound into a PositionList.
+     */
+    @Benchmark
+    public Region bindRegionFlat() throws Exception {
+        return objectMapper.readValue(regionJson, Region.class);
+    }
+
+    /**
+     * The original ray-casting loop of PositionService.isInRegion, on Position records.
+     */
+    @Benchmark
+    public boolean containsBoxed() {
+        List<Position> vertices = boxedVertices;
+        if (vertices.contains(point)) return true;
+        int n = vertices.size();
+        double x = point.lng(), y = point.lat();
+        int count = 0;
+        for (int current = 0, previous = n - 1; current < n; previous = current++) {
+            double currentX = vertices.get(current).lng(), currentY = vertices.get(current).lat();
+            double previousX = vertices.get(previous).lng(), previousY = vertices.get(previous).lat();
+            double cross = (y - currentY) * (previousX - currentX) - (previousY - currentY) * (x - currentX);
+            if (Math.abs(cross) < 1e-12 &&
+                    x >= Math.min(currentX, previousX) - 1e-12 && x <= Math.max(currentX, previousX) + 1e-12 &&
+                    y >= Math.min(currentY, previousY) - 1e-12 && y <= Math.max(currentY, previousY) + 1e-12) {
+                return true;
+            }
+            boolean rayBetweenEdgeY = (y < currentY) != (y < previousY);
+            double xIntersect = currentX + ((y - currentY) / (previousY - currentY)) * (previousX - currentX);
+            if (rayBetweenEdgeY && x < xIntersect) count += 1;
+        }
+        return count % 2 == 1;
+    }
+
+    @Benchmark
+    public boolean containsFlat() {
+        return GeometryCore.contains(coords, point.lng(), point.lat());
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.geometry.Directions;
+import uk.ac.ed.acp.cw2.geometry.PathValidator;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to validate one legal path of drone moves, so every segment has to be checked, against a 6 x 6 field of
+ * restricted areas: the grid of {@link PathValidator} against testing each segment against each polygon.
+ * Building the validator is part of the measured time, as /validatePath builds one per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathValidatorBenchmark {
+    @Param({"5000"})
+    public int moves;
+
+    @Param({"16"})
+    public int vertices;
+
+    private PreparedPolygon[] polygons;
+    private double[] path;
+
+    @Setup
+    public void setUp() {
+        polygons = new PreparedPolygon[36];
+        for (int i = 0; i < polygons.length; i++) {
+            double centerX = BenchmarkData.CENTER_LNG + (i % 6) * 0.003, centerY = BenchmarkData.CENTER_LAT + (i / 6) * 0.003;
+            double[] coords = new double[2 * (vertices + 1)];
+            for (int v = 0; v <= vertices; v++) {
+                double angle = 2 * Math.PI * (v % vertices) / vertices;
+                coords[2 * v] = centerX + 0.001 * Math.cos(angle);
+                coords[2 * v + 1] = centerY + 0.001 * Math.sin(angle);
+            }
+            polygons[i] = new PreparedPolygon(coords);
+        }
+
+        // A random walk through the corridors between the areas that never enters one
+        PathValidator validator = new PathValidator(polygons);
+        Random random = new Random(17);
+        path = new double[2 * (moves + 1)];
+        path[0] = BenchmarkData.CENTER_LNG + 0.0015;
+        path[1] = BenchmarkData.CENTER_LAT + 0.0015;
+        for (int i = 1; i <= moves; i++) {
+            do {
+                int direction = random.nextInt(Directions.COUNT);
+                path[2 * i] = path[2 * i - 2] + Directions.deltaLng(direction);
+                path[2 * i + 1] = path[2 * i - 1] + Directions.deltaLat(direction);
+            } while (validator.firstViolation(new double[]{path[2 * i - 2], path[2 * i - 1], path[2 * i], path[2 * i + 1]}) != null);
+        }
+        if (validator.firstViolation(path) != null) throw new IllegalStateException("Path is not legal");
+    }
+
+    @Benchmark
+    public PathValidator.Violation grid() {
+        return new PathValidator(polygons).firstViolation(path);
+    }
+
+    @Benchmark
+    public int everyPolygon() {
+        for (int segment = 0; segment < moves; segment++) {
+            for (int p = 0; p < polygons.length; p++) {
+                if (polygons[p].intersectsSegment(path[2 * segment], path[2 * segment + 1],
+                        path[2 * segment + 2], path[2 * segment + 3])) return segment;
+            }
+        }
+        return -1;
+    }
+}
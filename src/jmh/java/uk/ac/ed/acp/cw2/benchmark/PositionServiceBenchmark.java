@@ -0,0 +1,68 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the {@link PositionService} calculations, without the HTTP and JSON layers.
+ * isInRegion goes through the prepared polygon cache (as in the service); isInRegionColdCache
+ * prepares the polygon on every call, which is the cost of a region seen for the first time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PositionServiceBenchmark {
+    @Param({"4", "100", "10000", "100000"})
+    public int vertices;
+
+    @Param({"INSIDE", "OUTSIDE", "EDGE", "VERTEX"})
+    public BenchmarkData.PointKind pointKind;
+
+    private PositionService service;
+    private PositionService coldService;
+    private RegionRequest regionRequest;
+    private DistanceRequest distanceRequest;
+    private NextPositionRequest nextPositionRequest;
+
+    @Setup
+    public void setUp() {
+        service = new PositionService(new PreparedPolygonCache(16, 100_000), false);
+        coldService = new PositionService(new PreparedPolygonCache(0, 100_000), false);
+        Region region = BenchmarkData.regularPolygon(vertices);
+        regionRequest = new RegionRequest(BenchmarkData.point(region, pointKind), region);
+        distanceRequest = new DistanceRequest(new Position(-3.192473, 55.946233), new Position(-3.184319, 55.942617));
+        nextPositionRequest = new NextPositionRequest(new Position(-3.192473, 55.946233), 67.5);
+    }
+
+    @Benchmark
+    public boolean isInRegion() {
+        return service.isInRegion(regionRequest);
+    }
+
+    @Benchmark
+    public boolean isInRegionColdCache() {
+        return coldService.isInRegion(regionRequest);
+    }
+
+    @Benchmark
+    public String validateRegion() {
+        return service.validateRegion(regionRequest);
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        return service.calculateDistance(distanceRequest);
+    }
+
+    @Benchmark
+    public Position calculateNextPosition() {
+        return service.calculateNextPosition(nextPositionRequest);
+    }
+}
@@ -0,0 +1,107 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the request pipeline in front of the calculations:
+ * JSON deserialization of the DTO records followed by Bean Validation, as done for @RequestBody @Valid,
+ * and the same with the hand-written {@link RequestValidator} (the *FastValidation benchmarks).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBindingBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"4", "100", "10000"})
+    public int vertices;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private RequestValidator requestValidator;
+    private byte[] distanceJson;
+    private byte[] distanceBatchJson;
+    private byte[] regionJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        requestValidator = new RequestValidator(validator);
+        DistanceRequest distanceRequest = new DistanceRequest(new Position(-3.192473, 55.946233), new Position(-3.184319, 55.942617));
+        distanceJson = objectMapper.writeValueAsBytes(distanceRequest);
+        List<DistanceRequest> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) batch.add(distanceRequest);
+        distanceBatchJson = objectMapper.writeValueAsBytes(batch);
+        Region region = BenchmarkData.regularPolygon(vertices);
+        regionJson = objectMapper.writeValueAsBytes(new RegionRequest(BenchmarkData.point(region, BenchmarkData.PointKind.INSIDE), region));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<DistanceRequest>> distanceRequest() throws Exception {
+        return validator.validate(objectMapper.readValue(distanceJson, DistanceRequest.class));
+    }
+
+    /**
+     * One batch of BATCH_SIZE items, reported per item so it compares directly with distanceRequest.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int distanceRequestBatch() throws Exception {
+        List<DistanceRequest> batch = objectMapper.readValue(distanceBatchJson, new TypeReference<>() {});
+        int violations = 0;
+        for (DistanceRequest request : batch) violations += validator.validate(request).size();
+        return violations;
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegionRequest>> regionRequest() throws Exception {
+        return validator.validate(objectMapper.readValue(regionJson, RegionRequest.class));
+    }
+
+    @Benchmark
+    public RegionRequest regionRequestDeserializeOnly() throws Exception {
+        return objectMapper.readValue(regionJson, RegionRequest.class);
+    }
+
+    @Benchmark
+    public List<RequestValidator.FieldViolation> distanceRequestFastValidation() throws Exception {
+        return requestValidator.validate(objectMapper.readValue(distanceJson, DistanceRequest.class));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int distanceRequestBatchFastValidation() throws Exception {
+        List<DistanceRequest> batch = objectMapper.readValue(distanceBatchJson, new TypeReference<>() {});
+        int violations = 0;
+        for (DistanceRequest request : batch) violations += requestValidator.validate(request).size();
+        return violations;
+    }
+
+    @Benchmark
+    public List<RequestValidator.FieldViolation> regionRequestFastValidation() throws Exception {
+        return requestValidator.validate(objectMapper.readValue(regionJson, RegionRequest.class));
+    }
+}
@@ -0,0 +1,122 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+/**
+ * Time from launching the packaged application in a new JVM to its first successful request (GET /api/v1/uid),
+ * as a new replica would see it. The baseline runs the jar as the plain Dockerfile does; fast-startup runs it as
+ * the fast-startup Dockerfile target does: extracted, with an AppCDS archive from a training run, Spring AOT and
+ * lazy initialization. Runs after package, and fast-startup needs the jar built with -Pfast-startup:
+ * mvn -Pfast-startup,benchmark -DskipTests verify -Djmh.args="StartupBenchmark"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    private static final String JVM = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+    private static final String AOT_INITIALIZER = "BOOT-INF/classes/uk/ac/ed/acp/cw2/Application__ApplicationContextInitializer.class";
+
+    @Param({"baseline", "fast-startup"})
+    public String mode;
+
+    private List<String> command;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path target = Path.of("target");
+        Path jar;
+        try (Stream<Path> files = Files.list(target)) {
+            jar = files.filter(file -> file.getFileName().toString().matches("ilp_submission_.*\\.jar"))
+                    .findFirst().orElseThrow(() -> new IllegalStateException("No application jar in " + target.toAbsolutePath()));
+        }
+        command = new ArrayList<>(List.of(JVM, "--add-modules", "jdk.incubator.vector"));
+        if (mode.equals("baseline")) {
+            command.addAll(List.of("-jar", jar.toString()));
+            return;
+        }
+
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            if (zip.getEntry(AOT_INITIALIZER) == null) {
+                throw new IllegalStateException("The jar has no AOT classes, build it with -Pfast-startup");
+            }
+        }
+        // The same steps as the fast-startup Dockerfile target
+        Path extracted = target.resolve("startup-benchmark");
+        run(List.of(JVM, "-Djarmode=tools", "-jar", jar.toString(), "extract", "--force", "--destination", extracted.toString()));
+        Path archive = extracted.resolve("app.jsa");
+        Files.deleteIfExists(archive);
+        command.addAll(List.of("-Dspring.aot.enabled=true", "-Dspring.profiles.active=fast-startup"));
+        List<String> training = new ArrayList<>(command);
+        training.addAll(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh",
+                "-jar", extracted.resolve(jar.getFileName()).toString()));
+        run(training);
+        command.addAll(List.of("-XX:SharedArchiveFile=" + archive, "-jar", extracted.resolve(jar.getFileName()).toString()));
+    }
+
+    @Benchmark
+    public int firstRequest() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> launch = new ArrayList<>(command);
+        launch.add("--server.port=" + port);
+        process = start(launch);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/uid")).build();
+        while (true) {
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) return port;
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            if (!process.isAlive()) throw new IllegalStateException("The application exited with " + process.exitValue());
+            Thread.sleep(5);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stop() throws InterruptedException {
+        if (process == null) return;
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly().waitFor();
+        process = null;
+    }
+
+    private static Process start(List<String> command) throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        // Without a snapshot, so every launch starts from the same state
+        builder.environment().put("ILP_SNAPSHOT_PATH", "");
+        return builder.start();
+    }
+
+    private static void run(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(new File("target/startup-benchmark.log")));
+        builder.environment().put("ILP_SNAPSHOT_PATH", "");
+        int exitCode = builder.start().waitFor();
+        if (exitCode != 0) throw new IllegalStateException(command + " exited with " + exitCode + ", see target/startup-benchmark.log");
+    }
+}
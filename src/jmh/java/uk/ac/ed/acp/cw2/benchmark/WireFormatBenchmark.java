@@ -0,0 +1,136 @@
+package uk.ac.ed.acp.cw2.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of JSON against the {@link GeoBinaryFormat}: decode the request, validate it, calculate
+ * and encode the response, as the controllers do (without the servlet stack in front).
+ * The request sizes in bytes are printed at setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"4", "1000"})
+    public int vertices;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PositionService service = new PositionService(new PreparedPolygonCache(16, 100_000), false);
+    private RequestValidator requestValidator;
+
+    private byte[] distanceJson, distanceBinary;
+    private byte[] distanceBatchJson, distanceBatchBinary;
+    private byte[] regionJson, regionBinary;
+
+    @Setup
+    public void setUp() throws Exception {
+        // The hand-written checks of the geometry DTOs never reach the fallback
+        requestValidator = new RequestValidator(null);
+        Position a = new Position(-3.192473, 55.946233), b = new Position(-3.184319, 55.942617);
+        distanceJson = objectMapper.writeValueAsBytes(new DistanceRequest(a, b));
+        distanceBinary = GeoBinaryFormat.encodeDoubles(a.lng(), a.lat(), b.lng(), b.lat());
+
+        List<DistanceRequest> batch = new ArrayList<>(BATCH_SIZE);
+        double[] records = new double[BATCH_SIZE * GeoBinaryFormat.DISTANCE_RECORD];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Position c = new Position(a.lng() + i * 1e-6, a.lat() - i * 1e-6);
+            batch.add(new DistanceRequest(c, b));
+            System.arraycopy(new double[]{c.lng(), c.lat(), b.lng(), b.lat()}, 0, records, 4 * i, 4);
+        }
+        distanceBatchJson = objectMapper.writeValueAsBytes(batch);
+        distanceBatchBinary = GeoBinaryFormat.encodeBatch(records, GeoBinaryFormat.DISTANCE_RECORD);
+
+        Region region = BenchmarkData.regularPolygon(vertices);
+        Position point = BenchmarkData.point(region, BenchmarkData.PointKind.INSIDE);
+        regionJson = objectMapper.writeValueAsBytes(new RegionRequest(point, region));
+        double[] coords = new double[2 * region.vertices().size()];
+        for (int i = 0; i < region.vertices().size(); i++) {
+            coords[2 * i] = region.vertices().get(i).lng();
+            coords[2 * i + 1] = region.vertices().get(i).lat();
+        }
+        regionBinary = GeoBinaryFormat.encodeRegion(point.lng(), point.lat(), coords);
+
+        System.out.printf("%nBytes: distance json=%d binary=%d, batch json=%d binary=%d, region json=%d binary=%d%n",
+                distanceJson.length, distanceBinary.length, distanceBatchJson.length, distanceBatchBinary.length,
+                regionJson.length, regionBinary.length);
+    }
+
+    @Benchmark
+    public byte[] distanceToJson() throws Exception {
+        DistanceRequest request = objectMapper.readValue(distanceJson, DistanceRequest.class);
+        requestValidator.requireValid(request, "distanceRequest");
+        return objectMapper.writeValueAsBytes(service.calculateDistance(request));
+    }
+
+    @Benchmark
+    public byte[] distanceToBinary() {
+        double[] record = GeoBinaryFormat.decodeRecord(distanceBinary, GeoBinaryFormat.DISTANCE_RECORD);
+        if (!RequestValidator.isValidCoordinate(record[0], record[1]) || !RequestValidator.isValidCoordinate(record[2], record[3])) {
+            throw new IllegalStateException();
+        }
+        return GeoBinaryFormat.encodeDoubles(service.calculateDistancesPacked(record));
+    }
+
+    /**
+     * Reported per item, so it compares directly with distanceToJson.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] distanceToBatchJson() throws Exception {
+        List<DistanceRequest> batch = objectMapper.readValue(distanceBatchJson, new TypeReference<>() {});
+        List<BatchResult<Double>> results = new ArrayList<>(batch.size());
+        for (DistanceRequest request : batch) {
+            results.add(requestValidator.validate(request).isEmpty()
+                    ? BatchResult.ok(service.calculateDistance(request)) : BatchResult.error("INVALID_REQUEST", ""));
+        }
+        return objectMapper.writeValueAsBytes(results);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] distanceToBatchBinary() {
+        double[] records = GeoBinaryFormat.decodeBatch(distanceBatchBinary, GeoBinaryFormat.DISTANCE_RECORD);
+        byte[] status = new byte[records.length / GeoBinaryFormat.DISTANCE_RECORD];
+        for (int i = 0, r = 0; i < status.length; i++, r += 4) {
+            if (!RequestValidator.isValidCoordinate(records[r], records[r + 1])
+                    || !RequestValidator.isValidCoordinate(records[r + 2], records[r + 3])) {
+                status[i] = GeoBinaryFormat.STATUS_INVALID_REQUEST;
+            }
+        }
+        return GeoBinaryFormat.encodeBatchResult(status, service.calculateDistancesPacked(records));
+    }
+
+    @Benchmark
+    public byte[] isInRegionJson() throws Exception {
+        RegionRequest request = objectMapper.readValue(regionJson, RegionRequest.class);
+        requestValidator.requireValid(request, "regionRequest");
+        if (service.validateRegion(request) != null) throw new IllegalStateException();
+        return objectMapper.writeValueAsBytes(service.isInRegion(request));
+    }
+
+    @Benchmark
+    public byte[] isInRegionBinary() {
+        GeoBinaryFormat.RegionFrame frame = GeoBinaryFormat.decodeRegion(regionBinary);
+        List<RequestValidator.FieldViolation> violations = new ArrayList<>(0);
+        RequestValidator.validateCoordinate(frame.lng(), frame.lat(), "position.", violations);
+        RequestValidator.validateVertices(frame.coords(), "region.", violations);
+        if (!violations.isEmpty() || service.validatePolygonCoords(frame.coords()) != null) throw new IllegalStateException();
+        return GeoBinaryFormat.encodeBoolean(service.isInRegion(frame.lng(), frame.lat(), frame.coords()));
+    }
+}
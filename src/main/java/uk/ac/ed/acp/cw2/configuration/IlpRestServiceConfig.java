@@ -3,12 +3,19 @@ package uk.ac.ed.acp.cw2.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import uk.ac.ed.acp.cw2.data.RuntimeEnvironment;
 
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
 
 @Configuration
 @EnableScheduling
@@ -16,13 +23,15 @@ public class IlpRestServiceConfig {
 
     /**
      * Bean to retrieve the ILP REST Service URL from an environment variable or default value.
+     * ILP_ENDPOINT is read through the Spring environment, so tests can set it as a property,
+     * e.g. to point the application at a local stub.
+     * @param endpoint the ILP_ENDPOINT environment variable or property (empty if unset)
      * @return the ILP REST Service URL
      * @throws Exception if the URL is invalid
      */
     @Bean
-    public URL ilpRestServiceUrl() throws Exception  {
+    public URL ilpRestServiceUrl(@Value("${ILP_ENDPOINT:}") String endpoint) throws Exception  {
         String defaultURL = "https://ilp-rest-2025-bvh6e9hschfagrgy.ukwest-01.azurewebsites.net";
-        String endpoint = System.getenv("ILP_ENDPOINT");
 
         String urlString;
         // if the endpoint is not set then use the default
@@ -34,4 +43,51 @@ public class IlpRestServiceConfig {
         return new URI(urlString).toURL();
     }
 
+    /**
+     * Bean for the HTTP client used for all calls to the ILP REST Service.
+     * The JDK client keeps connections alive and reuses them, negotiates HTTP/2 where the server supports it,
+     * and runs its asynchronous work on virtual threads.
+     * @param connectTimeout the maximum time to establish a connection
+     * @return the shared HTTP client
+     */
+    @Bean
+    public HttpClient ilpHttpClient(@Value("${ilp.upstream.connect-timeout:PT2S}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Bean for the RestTemplate used to call the ILP REST Service, backed by the shared HTTP client.
+     * @param ilpHttpClient the HTTP client
+     * @param readTimeout the maximum time to wait for a response
+     * @return the RestTemplate
+     */
+    @Bean
+    public RestTemplate ilpRestTemplate(HttpClient ilpHttpClient,
+                                        @Value("${ilp.upstream.read-timeout:PT5S}") Duration readTimeout) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(ilpHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Bean for the WebClient used by the reactive handlers to call the ILP REST Service, backed by the same
+     * HTTP client as the RestTemplate, so both share its connections.
+     * @param webClientBuilder the builder configured by Spring Boot (codecs, ObjectMapper)
+     * @param ilpHttpClient the HTTP client
+     * @param readTimeout the maximum time to wait for a response
+     * @return the WebClient
+     */
+    @Bean
+    public WebClient ilpWebClient(WebClient.Builder webClientBuilder, HttpClient ilpHttpClient,
+                                  @Value("${ilp.upstream.read-timeout:PT5S}") Duration readTimeout) {
+        JdkClientHttpConnector connector = new JdkClientHttpConnector(ilpHttpClient);
+        connector.setReadTimeout(readTimeout);
+        return webClientBuilder.clientConnector(connector).build();
+    }
+
 }
@@ -0,0 +1,25 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the reactive mode (Spring profile reactive, see application-reactive.yml).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    /**
+     * Bean for the Netty server. Tomcat is on the class path for the Spring MVC mode and Spring Boot would prefer
+     * it for WebFlux as well, which would put every connection on the servlet container again.
+     * The server.* properties are applied to it as usual.
+     * @return the server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
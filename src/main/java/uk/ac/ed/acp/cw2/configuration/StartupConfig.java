@@ -0,0 +1,28 @@
+package uk.ac.ed.acp.cw2.configuration;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import uk.ac.ed.acp.cw2.Application;
+
+/**
+ * Configuration for the fast-startup profile, which turns on spring.main.lazy-initialization so that springdoc,
+ * the actuator endpoints and the rest of the auto-configuration are only created when they are first used.
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Bean keeping the beans of this application eager under lazy initialization: the controllers and services
+     * are needed by the first request anyway, and the catalog refresh and snapshot restore must start at startup.
+     * Static, as it is used by a bean factory post-processor.
+     * @return the filter excluding beans declared in this application's packages
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter applicationBeansLazyInitializationExcludeFilter() {
+        String applicationPackage = Application.class.getPackageName();
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (beanType.getPackageName().equals(applicationPackage)
+                || beanType.getPackageName().startsWith(applicationPackage + "."));
+    }
+}
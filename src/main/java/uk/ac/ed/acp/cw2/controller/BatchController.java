@@ -0,0 +1,159 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.acp.cw2.dto.BatchResult;
+import uk.ac.ed.acp.cw2.dto.DistanceRequest;
+import uk.ac.ed.acp.cw2.dto.NextPositionRequest;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Controller class for the batch variants of the geometry endpoints.
+ * Each endpoint takes an array of requests and returns an array of results in the same order.
+ * Invalid items do not fail the whole batch: they get an error code in their result instead.
+ */
+@RestController()
+@RequestMapping("/api/v1/batch")
+public class BatchController {
+    static final String INVALID_REQUEST = "INVALID_REQUEST";
+    static final String INVALID_ANGLE = "INVALID_ANGLE";
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Validates each item on its own, so one bad item only rejects itself
+    private final RequestValidator requestValidator;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // The largest number of items accepted in one batch
+    private final int maxBatchSize;
+
+    public BatchController(PositionService positionService, RequestValidator requestValidator,
+                           RequestEventLog requestLog,
+                           @Value("${ilp.batch.max-size:10000}") int maxBatchSize) {
+        this.positionService = positionService;
+        this.requestValidator = requestValidator;
+        this.requestLog = requestLog;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * POST endpoint to calculate the Euclidean distances for a batch of position pairs.
+     * @param distanceRequests the DistanceRequests
+     * @return 200 OK with a result per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/distanceTo")
+    public ResponseEntity<List<BatchResult<Double>>> distanceTo(@RequestBody List<DistanceRequest> distanceRequests) {
+        if (isInvalidBatch("distanceTo", distanceRequests)) return ResponseEntity.badRequest().build();
+        BatchResult<Double>[] results = newResults(distanceRequests.size());
+        List<Integer> validIndexes = validateItems(distanceRequests, results);
+        double[] distances = positionService.calculateDistances(select(distanceRequests, validIndexes));
+        for (int i = 0; i < distances.length; i++) {
+            results[validIndexes.get(i)] = BatchResult.ok(distances[i]);
+        }
+        logInvalidItems("distanceTo", results.length - validIndexes.size());
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * POST endpoint to check for a batch of position pairs if they are close to each other.
+     * @param distanceRequests the DistanceRequests
+     * @return 200 OK with a result per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/isCloseTo")
+    public ResponseEntity<List<BatchResult<Boolean>>> isCloseTo(@RequestBody List<DistanceRequest> distanceRequests) {
+        if (isInvalidBatch("isCloseTo", distanceRequests)) return ResponseEntity.badRequest().build();
+        BatchResult<Boolean>[] results = newResults(distanceRequests.size());
+        List<Integer> validIndexes = validateItems(distanceRequests, results);
+        boolean[] close = positionService.areCloseTo(select(distanceRequests, validIndexes), 0.00015);
+        for (int i = 0; i < close.length; i++) {
+            results[validIndexes.get(i)] = BatchResult.ok(close[i]);
+        }
+        logInvalidItems("isCloseTo", results.length - validIndexes.size());
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * POST endpoint to calculate the next drone positions for a batch of start positions and angles.
+     * @param positionRequests the NextPositionRequests
+     * @return 200 OK with a result per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/nextPosition")
+    public ResponseEntity<List<BatchResult<Position>>> nextPosition(@RequestBody List<NextPositionRequest> positionRequests) {
+        if (isInvalidBatch("nextPosition", positionRequests)) return ResponseEntity.badRequest().build();
+        BatchResult<Position>[] results = newResults(positionRequests.size());
+        List<Integer> validIndexes = validateItems(positionRequests, results);
+        // The angle check only makes sense for items that passed validation
+        List<Integer> validAngleIndexes = new ArrayList<>(validIndexes.size());
+        for (int index : validIndexes) {
+            String errorMsg = positionService.validateNextPositionAngle(positionRequests.get(index));
+            if (errorMsg == null) validAngleIndexes.add(index);
+            else results[index] = BatchResult.error(INVALID_ANGLE, errorMsg);
+        }
+        Position[] positions = positionService.calculateNextPositions(select(positionRequests, validAngleIndexes));
+        for (int i = 0; i < positions.length; i++) {
+            results[validAngleIndexes.get(i)] = BatchResult.ok(positions[i]);
+        }
+        logInvalidItems("nextPosition", results.length - validAngleIndexes.size());
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    private boolean isInvalidBatch(String requestName, List<?> items) {
+        return BatchRejections.isInvalidBatch(requestLog, requestName, items, maxBatchSize, "items");
+    }
+
+    private void logInvalidItems(String requestName, int invalidCount) {
+        BatchRejections.logInvalidItems(requestLog, requestName, invalidCount);
+    }
+
+    /**
+     * Validates every item with the request validator and stores an error result for the invalid ones.
+     * @param items the items of the batch
+     * @param results the results array to store the errors in
+     * @return the indexes of the valid items, in ascending order
+     */
+    private <T> List<Integer> validateItems(List<T> items, BatchResult<?>[] results) {
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            if (item == null) {
+                results[i] = BatchResult.error(INVALID_REQUEST, "Item is required!");
+                continue;
+            }
+            List<RequestValidator.FieldViolation> violations = requestValidator.validate(item);
+            if (violations.isEmpty()) {
+                validIndexes.add(i);
+                continue;
+            }
+            StringBuilder errorMsg = new StringBuilder();
+            for (RequestValidator.FieldViolation violation : violations) {
+                if (!errorMsg.isEmpty()) errorMsg.append("; ");
+                // Example output: "position1.lat: Latitude must be provided!"
+                errorMsg.append(violation.field()).append(": ").append(violation.message());
+            }
+            results[i] = BatchResult.error(INVALID_REQUEST, errorMsg.toString());
+        }
+        return validIndexes;
+    }
+
+    private static <T> List<T> select(List<T> items, List<Integer> indexes) {
+        List<T> selected = new ArrayList<>(indexes.size());
+        for (int index : indexes) selected.add(items.get(index));
+        return selected;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BatchResult<T>[] newResults(int size) {
+        return (BatchResult<T>[]) new BatchResult[size];
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+
+import java.util.List;
+
+/**
+ * The rejections shared by the batch endpoints under /api/v1/batch: a batch that is invalid as a whole, and the
+ * invalid items of a batch, which are counted and logged as one event.
+ */
+final class BatchRejections {
+    private BatchRejections() {
+    }
+
+    /**
+     * Helper method to check if a batch as a whole is invalid (missing or too large), rejecting it if so.
+     * @param requestLog the log counting the rejection
+     * @param requestName the name of the request, e.g. "distanceTo"
+     * @param items the items of the batch
+     * @param maxCount the largest number of items accepted
+     * @param unit what the items are called in the message, e.g. "items"
+     * @return true if invalid, false otherwise
+     */
+    static boolean isInvalidBatch(RequestEventLog requestLog, String requestName, List<?> items, int maxCount,
+                                  String unit) {
+        if (items != null) return isInvalidBatch(requestLog, requestName, items.size(), maxCount, unit);
+        reject(requestLog, requestName, maxCount, unit);
+        return true;
+    }
+
+    /**
+     * Helper method to check if a batch as a whole is invalid (too large), rejecting it if so.
+     * @param requestLog the log counting the rejection
+     * @param requestName the name of the request
+     * @param count the number of items of the batch
+     * @param maxCount the largest number of items accepted
+     * @param unit what the items are called in the message
+     * @return true if invalid, false otherwise
+     */
+    static boolean isInvalidBatch(RequestEventLog requestLog, String requestName, int count, int maxCount,
+                                  String unit) {
+        if (count <= maxCount) return false;
+        reject(requestLog, requestName, maxCount, unit);
+        return true;
+    }
+
+    /**
+     * Counts and logs the invalid items of a batch, if there are any.
+     * @param requestLog the log counting the rejections
+     * @param requestName the name of the request
+     * @param invalidCount the number of invalid items
+     */
+    static void logInvalidItems(RequestEventLog requestLog, String requestName, int invalidCount) {
+        if (invalidCount > 0) {
+            requestLog.rejected(endpoint(requestName), "invalid_item", invalidCount,
+                    "Invalid items in batch {} request: {}", requestName, invalidCount);
+        }
+    }
+
+    static String endpoint(String requestName) {
+        return "/api/v1/batch/" + requestName;
+    }
+
+    private static void reject(RequestEventLog requestLog, String requestName, int maxCount, String unit) {
+        requestLog.rejected(endpoint(requestName), "invalid_batch", "Invalid batch {} request: expected at most {} {}",
+                requestName, maxCount, unit);
+    }
+}
@@ -0,0 +1,216 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.acp.cw2.geometry.Directions;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.InvalidRequestException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.validation.RequestValidator.FieldViolation;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.ac.ed.acp.cw2.wire.GeoBinaryFormat.*;
+
+/**
+ * Controller class for the geometry endpoints in the compact {@link GeoBinaryFormat}.
+ * Serves the same paths as {@link ServiceController} and {@link BatchController}, but only for requests
+ * with Content-Type application/x-ilp-geo, so JSON stays the default. Validation and error handling are the same
+ * as for JSON; invalid batch items get a status byte instead of an error code.
+ */
+@RestController()
+@RequestMapping(path = "/api/v1", consumes = MEDIA_TYPE_VALUE, produces = MEDIA_TYPE_VALUE)
+public class BinaryGeometryController {
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Distribution of the polygon sizes
+    private final ApiMetrics apiMetrics;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // The largest number of items accepted in one batch, same as for JSON batches
+    private final int maxBatchSize;
+
+    public BinaryGeometryController(PositionService positionService, ApiMetrics apiMetrics, RequestEventLog requestLog,
+                                    @Value("${ilp.batch.max-size:10000}") int maxBatchSize) {
+        this.positionService = positionService;
+        this.apiMetrics = apiMetrics;
+        this.requestLog = requestLog;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * POST endpoint to calculate the Euclidean distance between two positions.
+     * @param body lng1 lat1 lng2 lat2
+     * @return 200 OK with the distance, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/distanceTo")
+    public ResponseEntity<byte[]> distanceTo(@RequestBody byte[] body) {
+        double[] record = decodeRecord(body, DISTANCE_RECORD);
+        requireValidDistanceRecord(record);
+        return ResponseEntity.ok(encodeDoubles(positionService.calculateDistancesPacked(record)));
+    }
+
+    /**
+     * POST endpoint to check if two positions are close to each other.
+     * @param body lng1 lat1 lng2 lat2
+     * @return 200 OK with 1 if close and 0 otherwise, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/isCloseTo")
+    public ResponseEntity<byte[]> isCloseTo(@RequestBody byte[] body) {
+        double[] record = decodeRecord(body, DISTANCE_RECORD);
+        requireValidDistanceRecord(record);
+        return ResponseEntity.ok(encodeBoolean(positionService.calculateDistancesPacked(record)[0] < Directions.STEP_SIZE));
+    }
+
+    /**
+     * POST endpoint to calculate the next drone position from a start position and angle.
+     * @param body lng lat angle
+     * @return 200 OK with the next lng lat, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/nextPosition")
+    public ResponseEntity<byte[]> nextPosition(@RequestBody byte[] body) {
+        double[] record = decodeRecord(body, NEXT_POSITION_RECORD);
+        List<FieldViolation> violations = new ArrayList<>(0);
+        RequestValidator.validateCoordinate(record[0], record[1], "start.", violations);
+        RequestValidator.validateAngle(record[2], violations);
+        if (!violations.isEmpty()) throw new InvalidRequestException("nextPositionRequest", violations);
+        String errorMsg = positionService.validateAngle(record[2]);
+        if (errorMsg != null) {
+            requestLog.rejected("/api/v1/nextPosition", "invalid_angle", "Invalid nextPosition request: {}", errorMsg);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(encodeDoubles(positionService.calculateNextPositionsPacked(record)));
+    }
+
+    /**
+     * POST endpoint to check whether a position is inside a region.
+     * @param body lng lat, the number of vertices and their lng lat pairs
+     * @return 200 OK with 1 if inside and 0 otherwise, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/isInRegion")
+    public ResponseEntity<byte[]> isInRegion(@RequestBody byte[] body) {
+        RegionFrame frame = decodeRegion(body);
+        List<FieldViolation> violations = new ArrayList<>(0);
+        RequestValidator.validateCoordinate(frame.lng(), frame.lat(), "position.", violations);
+        RequestValidator.validateVertices(frame.coords(), "region.", violations);
+        if (!violations.isEmpty()) throw new InvalidRequestException("regionRequest", violations);
+        String errorMsg = positionService.validatePolygonCoords(frame.coords());
+        if (errorMsg != null) {
+            requestLog.rejected("/api/v1/isInRegion", "open_polygon", "Invalid isInRegion request: {}", errorMsg);
+            return ResponseEntity.badRequest().build();
+        }
+        apiMetrics.recordRegionVertices(frame.coords().length / POSITION_RECORD);
+        return ResponseEntity.ok(encodeBoolean(positionService.isInRegion(frame.lng(), frame.lat(), frame.coords())));
+    }
+
+    /**
+     * POST endpoint to calculate the Euclidean distances for a batch of position pairs.
+     * @param body the count followed by lng1 lat1 lng2 lat2 per item
+     * @return 200 OK with a status and distance per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/batch/distanceTo")
+    public ResponseEntity<byte[]> batchDistanceTo(@RequestBody byte[] body) {
+        double[] records = decodeBatch(body, DISTANCE_RECORD);
+        if (isInvalidBatch("distanceTo", records.length / DISTANCE_RECORD)) return ResponseEntity.badRequest().build();
+        byte[] status = validateDistanceRecords(records, "distanceTo");
+        double[] distances = positionService.calculateDistancesPacked(records);
+        for (int i = 0; i < status.length; i++) {
+            if (status[i] != STATUS_OK) distances[i] = Double.NaN;
+        }
+        return ResponseEntity.ok(encodeBatchResult(status, distances));
+    }
+
+    /**
+     * POST endpoint to check for a batch of position pairs if they are close to each other.
+     * @param body the count followed by lng1 lat1 lng2 lat2 per item
+     * @return 200 OK with a status and 0 or 1 per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/batch/isCloseTo")
+    public ResponseEntity<byte[]> batchIsCloseTo(@RequestBody byte[] body) {
+        double[] records = decodeBatch(body, DISTANCE_RECORD);
+        if (isInvalidBatch("isCloseTo", records.length / DISTANCE_RECORD)) return ResponseEntity.badRequest().build();
+        byte[] status = validateDistanceRecords(records, "isCloseTo");
+        double[] distances = positionService.calculateDistancesPacked(records);
+        boolean[] close = new boolean[status.length];
+        for (int i = 0; i < status.length; i++) {
+            close[i] = status[i] == STATUS_OK && distances[i] < Directions.STEP_SIZE;
+        }
+        return ResponseEntity.ok(encodeBatchResult(status, close));
+    }
+
+    /**
+     * POST endpoint to calculate the next drone positions for a batch of start positions and angles.
+     * @param body the count followed by lng lat angle per item
+     * @return 200 OK with a status and next lng lat per item, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/batch/nextPosition")
+    public ResponseEntity<byte[]> batchNextPosition(@RequestBody byte[] body) {
+        double[] records = decodeBatch(body, NEXT_POSITION_RECORD);
+        int count = records.length / NEXT_POSITION_RECORD;
+        if (isInvalidBatch("nextPosition", count)) return ResponseEntity.badRequest().build();
+        byte[] status = new byte[count];
+        int invalidCount = 0;
+        for (int i = 0, r = 0; i < count; i++, r += NEXT_POSITION_RECORD) {
+            double angle = records[r + 2];
+            if (!RequestValidator.isValidCoordinate(records[r], records[r + 1]) || !(angle >= 0 && angle <= 360)) {
+                status[i] = STATUS_INVALID_REQUEST;
+            } else if (Directions.indexOf(angle) < 0) {
+                status[i] = STATUS_INVALID_ANGLE;
+            } else continue;
+            invalidCount++;
+        }
+        double[] positions = positionService.calculateNextPositionsPacked(records);
+        for (int i = 0; i < count; i++) {
+            if (status[i] != STATUS_OK) positions[2 * i] = positions[2 * i + 1] = Double.NaN;
+        }
+        logInvalidItems("nextPosition", invalidCount);
+        return ResponseEntity.ok(encodeBatchResult(status, positions));
+    }
+
+    private static void requireValidDistanceRecord(double[] record) {
+        if (RequestValidator.isValidCoordinate(record[0], record[1]) && RequestValidator.isValidCoordinate(record[2], record[3])) {
+            return;
+        }
+        List<FieldViolation> violations = new ArrayList<>(0);
+        RequestValidator.validateCoordinate(record[0], record[1], "position1.", violations);
+        RequestValidator.validateCoordinate(record[2], record[3], "position2.", violations);
+        throw new InvalidRequestException("distanceRequest", violations);
+    }
+
+    /**
+     * Checks the coordinates of every item of a distance batch.
+     * @param records the decoded records
+     * @param requestName the name of the request, for the log
+     * @return byte[]: the status of each item
+     */
+    private byte[] validateDistanceRecords(double[] records, String requestName) {
+        byte[] status = new byte[records.length / DISTANCE_RECORD];
+        int invalidCount = 0;
+        for (int i = 0, r = 0; i < status.length; i++, r += DISTANCE_RECORD) {
+            if (!RequestValidator.isValidCoordinate(records[r], records[r + 1])
+                    || !RequestValidator.isValidCoordinate(records[r + 2], records[r + 3])) {
+                status[i] = STATUS_INVALID_REQUEST;
+                invalidCount++;
+            }
+        }
+        logInvalidItems(requestName, invalidCount);
+        return status;
+    }
+
+    private boolean isInvalidBatch(String requestName, int count) {
+        return BatchRejections.isInvalidBatch(requestLog, requestName, count, maxBatchSize, "items");
+    }
+
+    private void logInvalidItems(String requestName, int invalidCount) {
+        BatchRejections.logInvalidItems(requestLog, requestName, invalidCount);
+    }
+}
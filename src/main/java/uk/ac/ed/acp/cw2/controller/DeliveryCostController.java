@@ -0,0 +1,108 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.acp.cw2.dto.BatchResult;
+import uk.ac.ed.acp.cw2.dto.CostEstimate;
+import uk.ac.ed.acp.cw2.dto.DeliveryCostRequest;
+import uk.ac.ed.acp.cw2.service.CostEstimatorService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.validation.RequestValidator.FieldViolation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Controller class for estimating the cheapest drone for a batch of delivery orders, e.g. for dispatch planning.
+ * As for the other batch endpoints, an invalid order only rejects itself; an order no drone can carry gets
+ * the error code NO_ELIGIBLE_DRONE.
+ */
+@RestController()
+@RequestMapping("/api/v1/batch")
+public class DeliveryCostController {
+    static final String NO_ELIGIBLE_DRONE = "NO_ELIGIBLE_DRONE";
+
+    // Service that finds the cheapest drone for each order
+    private final CostEstimatorService costEstimatorService;
+    // Validates each order on its own
+    private final RequestValidator requestValidator;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // The largest number of orders accepted in one request
+    private final int maxOrders;
+
+    public DeliveryCostController(CostEstimatorService costEstimatorService, RequestValidator requestValidator,
+                                  RequestEventLog requestLog,
+                                  @Value("${ilp.cost.max-orders:100000}") int maxOrders) {
+        this.costEstimatorService = costEstimatorService;
+        this.requestValidator = requestValidator;
+        this.requestLog = requestLog;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * POST endpoint to estimate the cheapest drone and its cost for a batch of orders.
+     * @param costRequests the DeliveryCostRequests
+     * @return 200 OK with a result per order, or 400 Bad Request if the batch itself is invalid
+     */
+    @PostMapping("/deliveryCost")
+    public ResponseEntity<List<BatchResult<CostEstimate>>> deliveryCost(@RequestBody List<DeliveryCostRequest> costRequests) {
+        if (BatchRejections.isInvalidBatch(requestLog, "deliveryCost", costRequests, maxOrders, "orders")) {
+            return ResponseEntity.badRequest().build();
+        }
+        BatchResult<CostEstimate>[] results = newResults(costRequests.size());
+        List<DeliveryCostRequest> validRequests = new ArrayList<>(costRequests.size());
+        List<Integer> validIndexes = new ArrayList<>(costRequests.size());
+        for (int i = 0; i < costRequests.size(); i++) {
+            DeliveryCostRequest request = costRequests.get(i);
+            List<FieldViolation> violations = request == null ? null : requestValidator.validate(request);
+            if (request == null) {
+                results[i] = BatchResult.error(BatchController.INVALID_REQUEST, "Item is required!");
+            } else if (!violations.isEmpty()) {
+                results[i] = BatchResult.error(BatchController.INVALID_REQUEST, errorMessage(violations));
+            } else {
+                validRequests.add(request);
+                validIndexes.add(i);
+            }
+        }
+        int invalidCount = results.length - validIndexes.size();
+
+        CostEstimate[] estimates = costEstimatorService.estimate(validRequests);
+        int ineligibleCount = 0;
+        for (int i = 0; i < estimates.length; i++) {
+            if (estimates[i] != null) {
+                results[validIndexes.get(i)] = BatchResult.ok(estimates[i]);
+            } else {
+                results[validIndexes.get(i)] = BatchResult.error(NO_ELIGIBLE_DRONE, "No drone can deliver this order!");
+                ineligibleCount++;
+            }
+        }
+        BatchRejections.logInvalidItems(requestLog, "deliveryCost", invalidCount);
+        if (ineligibleCount > 0) {
+            requestLog.rejected("/api/v1/batch/deliveryCost", "no_eligible_drone", ineligibleCount,
+                    "Orders no drone can deliver in batch deliveryCost request: {}", ineligibleCount);
+        }
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    private static String errorMessage(List<FieldViolation> violations) {
+        StringBuilder errorMsg = new StringBuilder();
+        for (FieldViolation violation : violations) {
+            if (!errorMsg.isEmpty()) errorMsg.append("; ");
+            // Example output: "capacity: Capacity cannot be negative!"
+            errorMsg.append(violation.field()).append(": ").append(violation.message());
+        }
+        return errorMsg.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BatchResult<T>[] newResults(int size) {
+        return (BatchResult<T>[]) new BatchResult[size];
+    }
+}
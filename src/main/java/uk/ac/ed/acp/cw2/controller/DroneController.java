@@ -0,0 +1,72 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
+import uk.ac.ed.acp.cw2.service.DroneService;
+
+import java.util.List;
+
+/**
+ * Controller class for the drone lookups in the Spring MVC mode.
+ * The reactive mode serves the same endpoints from {@link ReactiveDroneController}, which never blocks on the
+ * ILP REST Service.
+ */
+@RestController()
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class DroneController {
+
+    // Warning header of an answer from a drone catalog past its staleness limit (RFC 7234, 5.5.1)
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    // Service that handles all drone-related calculations and validations
+    private final DroneService droneService;
+
+    /**
+     * GET endpoint to retrieve a list of drones-ids which support cooling (state is true) or not (false)
+     * @param state the state to filter by
+     * @return 200 OK with the list of drones if valid, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/dronesWithCooling/{state}")
+    public ResponseEntity<List<Long>> dronesWithCooling(@PathVariable Boolean state) {
+        return answer(droneService.getDronesWithCooling(state), droneService.isServingStale());
+    }
+
+    /**
+     * GET endpoint to retrieve a list of drones-ids matching a compound capability query,
+     * e.g. /drones/query?cooling=true&minCapacity=8&maxCostPerMove=0.05
+     * @param query the criteria as query parameters, see DroneQuery
+     * @return 200 OK with the list of drones-ids in catalog order
+     */
+    @GetMapping("/drones/query")
+    public ResponseEntity<List<Long>> queryDrones(@ModelAttribute DroneQuery query) {
+        return answer(droneService.queryDrones(query), droneService.isServingStale());
+    }
+
+    /**
+     * POST endpoint to retrieve a list of drones-ids matching a compound capability query.
+     * @param query the criteria as JSON, see DroneQuery
+     * @return 200 OK with the list of drones-ids in catalog order
+     */
+    @PostMapping("/drones/query")
+    public ResponseEntity<List<Long>> queryDronesPost(@RequestBody DroneQuery query) {
+        return answer(droneService.queryDrones(query), droneService.isServingStale());
+    }
+
+    /**
+     * Returns 200 OK with the drones-ids, with a Warning header if they were looked up in a stale catalog
+     * because the ILP REST Service is unavailable.
+     * @param ids the drones-ids
+     * @param stale whether the catalog was past its staleness limit
+     * @return the response
+     */
+    static ResponseEntity<List<Long>> answer(List<Long> ids, boolean stale) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (stale) response.header("Warning", STALE_WARNING);
+        return response.body(ids);
+    }
+}
@@ -0,0 +1,124 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.acp.cw2.dto.DeliveryPath;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathRequest;
+import uk.ac.ed.acp.cw2.dto.PathValidation;
+import uk.ac.ed.acp.cw2.dto.PathValidationRequest;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.dto.Trajectory;
+import uk.ac.ed.acp.cw2.dto.TrajectoryRequest;
+import uk.ac.ed.acp.cw2.service.PathPlannerService;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.List;
+
+/**
+ * Controller class for the endpoints working on whole flight paths.
+ */
+@RestController()
+@RequestMapping("/api/v1")
+public class PathController {
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Service that plans flight paths
+    private final PathPlannerService pathPlannerService;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // Validates the path requests without Bean Validation walking every position
+    private final RequestValidator requestValidator;
+    // The largest number of moves accepted by /trajectory
+    private final int maxTrajectoryMoves;
+    // The largest number of positions accepted by /validatePath
+    private final int maxPathPositions;
+
+    public PathController(PositionService positionService, PathPlannerService pathPlannerService,
+                          RequestEventLog requestLog, RequestValidator requestValidator,
+                          @Value("${ilp.trajectory.max-moves:100000}") int maxTrajectoryMoves,
+                          @Value("${ilp.validate-path.max-positions:100000}") int maxPathPositions) {
+        this.positionService = positionService;
+        this.pathPlannerService = pathPlannerService;
+        this.requestLog = requestLog;
+        this.requestValidator = requestValidator;
+        this.maxTrajectoryMoves = maxTrajectoryMoves;
+        this.maxPathPositions = maxPathPositions;
+    }
+
+    /**
+     * POST endpoint to plan a flight path between two positions around the restricted areas.
+     * @param pathRequest a DeliveryPathRequest containing the positions and restricted areas
+     * @return 200 OK with the planned path (found is false if the search budget ran out),
+     * or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/calcDeliveryPath")
+    public ResponseEntity<DeliveryPath> calcDeliveryPath(@RequestBody DeliveryPathRequest pathRequest) {
+        requestValidator.requireValid(pathRequest, "deliveryPathRequest");
+        if (pathRequest.restrictedAreas() != null) {
+            for (Region region : pathRequest.restrictedAreas()) {
+                String errorMsg = region == null ? "Restricted area is required!" : positionService.validatePolygon(region);
+                if (errorMsg != null) {
+                    requestLog.rejected("/api/v1/calcDeliveryPath", "open_polygon",
+                            "Invalid calcDeliveryPath request: {}", errorMsg);
+                    return ResponseEntity.badRequest().build();
+                }
+            }
+        }
+        return ResponseEntity.ok(pathPlannerService.calculateDeliveryPath(pathRequest));
+    }
+
+    /**
+     * POST endpoint to simulate a whole flight: the start position moved by each angle in turn.
+     * @param trajectoryRequest a TrajectoryRequest containing the start position and angles
+     * @return 200 OK with all positions of the flight, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/trajectory")
+    public ResponseEntity<Trajectory> trajectory(@RequestBody TrajectoryRequest trajectoryRequest) {
+        requestValidator.requireValid(trajectoryRequest, "trajectoryRequest");
+        boolean tooLong = trajectoryRequest.angles().length > maxTrajectoryMoves;
+        String errorMsg = tooLong
+                ? "Too many moves: " + trajectoryRequest.angles().length
+                : positionService.validateTrajectory(trajectoryRequest);
+        if (errorMsg != null) {
+            requestLog.rejected("/api/v1/trajectory", tooLong ? "too_many_moves" : "invalid_angle",
+                    "Invalid trajectory request: {}", errorMsg);
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(positionService.calculateTrajectory(trajectoryRequest));
+    }
+
+    /**
+     * POST endpoint to check that a flight path never enters a restricted area, also between two positions.
+     * @param pathRequest a PathValidationRequest containing the path and restricted areas
+     * @return 200 OK with the first violating segment (valid is true if there is none),
+     * or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/validatePath")
+    public ResponseEntity<PathValidation> validatePath(@RequestBody PathValidationRequest pathRequest) {
+        requestValidator.requireValid(pathRequest, "pathValidationRequest");
+        List<Position> path = pathRequest.path();
+        if (path.size() > maxPathPositions || (!(path instanceof PositionList) && path.contains(null))) {
+            requestLog.rejected("/api/v1/validatePath", "invalid_path",
+                    "Invalid validatePath request: expected at most {} positions, none missing", maxPathPositions);
+            return ResponseEntity.badRequest().build();
+        }
+        for (Region region : pathRequest.restrictedAreas()) {
+            String errorMsg = region == null ? "Restricted area is required!" : positionService.validatePolygon(region);
+            if (errorMsg != null) {
+                requestLog.rejected("/api/v1/validatePath", "open_polygon", "Invalid validatePath request: {}",
+                        errorMsg);
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        return ResponseEntity.ok(positionService.validatePath(pathRequest));
+    }
+}
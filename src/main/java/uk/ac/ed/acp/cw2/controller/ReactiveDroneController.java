@@ -0,0 +1,56 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
+import uk.ac.ed.acp.cw2.service.DroneService;
+
+import java.util.List;
+
+/**
+ * Controller class for the drone lookups in the reactive mode, with the same endpoints as {@link DroneController}.
+ * The handlers return a Mono, so they run on the event loop; a cold or stale catalog is fetched through the
+ * WebClient of {@link DroneService} while the event loop serves other requests.
+ */
+@RestController()
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDroneController {
+
+    // Service that handles all drone-related calculations and validations
+    private final DroneService droneService;
+
+    /**
+     * POST endpoint to retrieve a list of drones-ids which support cooling (state is true) or not (false)
+     * @param state the state to filter by
+     * @return 200 OK with the list of drones
+     */
+    @PostMapping("/dronesWithCooling/{state}")
+    public Mono<ResponseEntity<List<Long>>> dronesWithCooling(@PathVariable Boolean state) {
+        return droneService.getDronesWithCoolingAsync(state).map(ids -> DroneController.answer(ids, droneService.isServingStale()));
+    }
+
+    /**
+     * GET endpoint to retrieve a list of drones-ids matching a compound capability query.
+     * @param query the criteria as query parameters, see DroneQuery
+     * @return 200 OK with the list of drones-ids in catalog order
+     */
+    @GetMapping("/drones/query")
+    public Mono<ResponseEntity<List<Long>>> queryDrones(@ModelAttribute DroneQuery query) {
+        return droneService.queryDronesAsync(query).map(ids -> DroneController.answer(ids, droneService.isServingStale()));
+    }
+
+    /**
+     * POST endpoint to retrieve a list of drones-ids matching a compound capability query.
+     * @param query the criteria as JSON, see DroneQuery
+     * @return 200 OK with the list of drones-ids in catalog order
+     */
+    @PostMapping("/drones/query")
+    public Mono<ResponseEntity<List<Long>>> queryDronesPost(@RequestBody DroneQuery query) {
+        return droneService.queryDronesAsync(query).map(ids -> DroneController.answer(ids, droneService.isServingStale()));
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.UpstreamUnavailableException;
+import uk.ac.ed.acp.cw2.validation.InvalidRequestException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormatException;
+
+/**
+ * Global exception handler for the reactive mode, the counterpart of {@link RestExceptionHandler}.
+ * WebFlux reports unreadable bodies as ServerWebInputException and failed @Valid checks as
+ * WebExchangeBindException; both are answered with HTTP 400 (Bad Request) and counted like in Spring MVC.
+ * An unavailable ILP REST Service is answered with HTTP 503 (Service Unavailable), as there.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+
+    /**
+     * Handles bodies and parameters that cannot be read, e.g. malformed JSON.
+     * @param exception the ServerWebInputException to handle
+     * @param exchange the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<String> handleServerWebInputException(ServerWebInputException exception,
+                                                                ServerWebExchange exchange) {
+        String endpoint = endpointOf(exchange);
+        requestLog.rejected(endpoint, "malformed_json", "Malformed JSON in request: {}",
+                exception.getMostSpecificCause().getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles bodies in the binary wire format that do not have the expected layout.
+     * @param exception the GeoBinaryFormatException to handle
+     * @param exchange the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(GeoBinaryFormatException.class)
+    public ResponseEntity<String> handleGeoBinaryFormatException(GeoBinaryFormatException exception,
+                                                                 ServerWebExchange exchange) {
+        String endpoint = endpointOf(exchange);
+        requestLog.rejected(endpoint, "malformed_binary", "Malformed binary request: {}", exception.getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles validation exceptions of @Valid request bodies.
+     * @param exception the WebExchangeBindException to handle
+     * @param exchange the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<String> handleValidationException(WebExchangeBindException exception,
+                                                            ServerWebExchange exchange) {
+        String endpoint = endpointOf(exchange);
+        requestLog.rejected(endpoint, "validation", () -> {
+            StringBuilder logMessage = new StringBuilder("Validation error: \n");
+            for (FieldError fieldError : exception.getBindingResult().getFieldErrors()) {
+                RestExceptionHandler.appendFieldError(logMessage, fieldError.getObjectName(), fieldError.getField(),
+                        fieldError.getDefaultMessage());
+            }
+            return logMessage.toString();
+        });
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles failures of the hand-written request validation, in the same way as bean validation failures.
+     * @param exception the InvalidRequestException to handle
+     * @param exchange the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequestException(InvalidRequestException exception,
+                                                                ServerWebExchange exchange) {
+        String endpoint = endpointOf(exchange);
+        requestLog.rejected(endpoint, "validation", () -> RestExceptionHandler.validationMessage(exception));
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles calls to the ILP REST Service that were not made because its circuit breaker is open, or gave up
+     * at their deadline, while there is no drone catalog to fall back on.
+     * @param exception the UpstreamUnavailableException to handle
+     * @param exchange the request that failed
+     * @return a ResponseEntity with HTTP 503 (Service Unavailable)
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<String> handleUpstreamUnavailableException(UpstreamUnavailableException exception,
+                                                                     ServerWebExchange exchange) {
+        requestLog.unavailable(endpointOf(exchange), "ILP REST Service unavailable: {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * Returns the mapped path pattern of the request (e.g. /api/v1/regions/{name}), which keeps the metric tags bounded.
+     * @param exchange the request
+     * @return the path pattern, or "unknown" if the request was not mapped to a handler
+     */
+    private static String endpointOf(ServerWebExchange exchange) {
+        Object pattern = exchange.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "unknown" : pattern.toString();
+    }
+}
@@ -0,0 +1,132 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import uk.ac.ed.acp.cw2.dto.BatchResult;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.PolygonContainment;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+/**
+ * Controller class for the NDJSON isInRegion stream in the reactive mode, see {@link RegionStreamController}.
+ * The request lines arrive as a Flux and every result line is emitted as soon as its position is read, with
+ * backpressure from the client; an invalid region fails the Flux before anything is written, so it still ends
+ * in a 400 Bad Request.
+ */
+@RestController()
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRegionStreamController {
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Reflection-free validation of the region and each position
+    private final RequestValidator requestValidator;
+    // Distribution of the polygon sizes
+    private final ApiMetrics apiMetrics;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader regionReader;
+    private final ObjectReader positionReader;
+
+    public ReactiveRegionStreamController(PositionService positionService, RequestValidator requestValidator,
+                                          ApiMetrics apiMetrics, RequestEventLog requestLog, ObjectMapper objectMapper) {
+        this.positionService = positionService;
+        this.requestValidator = requestValidator;
+        this.apiMetrics = apiMetrics;
+        this.requestLog = requestLog;
+        this.objectMapper = objectMapper;
+        this.regionReader = objectMapper.readerFor(Region.class);
+        this.positionReader = objectMapper.readerFor(Position.class);
+    }
+
+    /**
+     * POST endpoint to check for a stream of positions whether they are inside a region.
+     * @param lines the request body, the region followed by the positions, one JSON document per line
+     * @return a {"value": true/false} line per position (or an error line for an invalid one),
+     *         or 400 Bad Request if the region is missing or invalid
+     */
+    @PostMapping(path = "/isInRegion", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<String> isInRegionStream(@RequestBody Flux<String> lines) {
+        return lines.filter(line -> !line.isBlank())
+                .switchOnFirst((first, all) -> {
+                    if (first.isOnError()) return all;
+                    PolygonContainment polygon = prepareRegion(first.get());
+                    long[] counts = new long[2]; // positions, invalid positions
+                    return all.skip(1)
+                            .map(line -> classify(line, polygon, counts))
+                            .doOnComplete(() -> {
+                                if (counts[1] > 0) {
+                                    requestLog.rejected("/api/v1/isInRegion", "invalid_item",
+                                            (int) Math.min(counts[1], Integer.MAX_VALUE),
+                                            "Invalid items in isInRegion stream request: {} of {}", counts[1], counts[0]);
+                                }
+                            });
+                });
+    }
+
+    /**
+     * Reads, validates and prepares the region of the first line.
+     * @param line the first line, or null if the body is empty
+     * @return the prepared polygon
+     */
+    private PolygonContainment prepareRegion(String line) {
+        Region region;
+        try {
+            if (line == null) throw new ServerWebInputException("Invalid region line: Region is required!");
+            region = regionReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new ServerWebInputException("Invalid region line: " + e.getOriginalMessage());
+        }
+        requestValidator.requireValid(region, "region");
+        String errorMsg = positionService.validatePolygon(region);
+        if (errorMsg != null) {
+            requestLog.rejected("/api/v1/isInRegion", "open_polygon", "Invalid isInRegion stream request: {}",
+                    errorMsg);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorMsg);
+        }
+        apiMetrics.recordRegionVertices(region.vertices().size());
+        return positionService.prepareRegion(region);
+    }
+
+    /**
+     * Returns the result line for one position line, counting it in counts.
+     */
+    private String classify(String line, PolygonContainment polygon, long[] counts) {
+        counts[0]++;
+        String errorMsg;
+        try {
+            Position position = positionReader.readValue(line);
+            errorMsg = position == null ? "Position is required!"
+                    : RegionStreamController.errorMessage(requestValidator.validate(position));
+            if (errorMsg == null) {
+                return polygon.contains(position.lng(), position.lat())
+                        ? RegionStreamController.INSIDE : RegionStreamController.OUTSIDE;
+            }
+        } catch (JsonProcessingException e) {
+            errorMsg = "Malformed JSON: " + e.getOriginalMessage();
+        }
+        counts[1]++;
+        try {
+            return objectMapper.writeValueAsString(BatchResult.error(BatchController.INVALID_REQUEST, errorMsg)) + "\n";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
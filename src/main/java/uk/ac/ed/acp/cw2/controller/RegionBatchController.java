@@ -0,0 +1,204 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ed.acp.cw2.dto.BatchResult;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.dto.RegionBatchRequest;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RegionBatchService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.InvalidRequestException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.validation.RequestValidator.FieldViolation;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat.RegionBatchFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Controller class for checking many positions against one region, e.g. for offline geofence audits.
+ * Served in JSON and in the {@link GeoBinaryFormat}; both run on the bulk engine of {@link RegionBatchService}.
+ * The optional parallelism parameter limits the number of cores a request uses.
+ * As for the other batch endpoints, an invalid position only rejects itself.
+ */
+@RestController()
+@RequestMapping("/api/v1/batch")
+public class RegionBatchController {
+
+    // Service that validates the region
+    private final PositionService positionService;
+    // Service that runs the bulk containment check
+    private final RegionBatchService regionBatchService;
+    // Validates the region and each position
+    private final RequestValidator requestValidator;
+    // Distribution of the polygon sizes
+    private final ApiMetrics apiMetrics;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // The largest number of positions accepted in one request
+    private final int maxPositions;
+
+    public RegionBatchController(PositionService positionService, RegionBatchService regionBatchService,
+                                 RequestValidator requestValidator, ApiMetrics apiMetrics, RequestEventLog requestLog,
+                                 @Value("${ilp.geometry.bulk.max-positions:1000000}") int maxPositions) {
+        this.positionService = positionService;
+        this.regionBatchService = regionBatchService;
+        this.requestValidator = requestValidator;
+        this.apiMetrics = apiMetrics;
+        this.requestLog = requestLog;
+        this.maxPositions = maxPositions;
+    }
+
+    /**
+     * POST endpoint to check for a batch of positions whether they are inside a region.
+     * @param batchRequest the region and the positions
+     * @param parallelism the largest number of cores to use (default and upper bound: ilp.geometry.bulk.parallelism)
+     * @return 200 OK with a result per position, or 400 Bad Request if the region or the batch itself is invalid
+     */
+    @PostMapping("/isInRegion")
+    public ResponseEntity<List<BatchResult<Boolean>>> isInRegion(@RequestBody RegionBatchRequest batchRequest,
+                                                                 @RequestParam(required = false) Integer parallelism) {
+        requestValidator.requireValid(batchRequest, "regionBatchRequest");
+        if (isInvalidBatch(batchRequest.positions().size())) return ResponseEntity.badRequest().build();
+        Region region = batchRequest.region();
+        if (isOpenPolygon(positionService.validatePolygon(region))) return ResponseEntity.badRequest().build();
+        apiMetrics.recordRegionVertices(region.vertices().size());
+
+        List<Position> positions = batchRequest.positions();
+        BatchResult<Boolean>[] results = newResults(positions.size());
+        int[] validIndexes = validatePositions(positions, results);
+        double[] points = validPoints(positions, validIndexes);
+        boolean[] inside = regionBatchService.isInRegion(region, points, workers(parallelism));
+        for (int i = 0; i < inside.length; i++) {
+            results[validIndexes[i]] = BatchResult.ok(inside[i]);
+        }
+        logInvalidItems(results.length - validIndexes.length);
+        return ResponseEntity.ok(Arrays.asList(results));
+    }
+
+    /**
+     * POST endpoint to check for a batch of positions whether they are inside a region, in the binary format.
+     * @param body the number of vertices and their lng lat pairs, then the count and lng lat of each position
+     * @param parallelism the largest number of cores to use (default and upper bound: ilp.geometry.bulk.parallelism)
+     * @return 200 OK with a status and 0 or 1 per position, or 400 Bad Request if the region or the batch is invalid
+     */
+    @PostMapping(path = "/isInRegion", consumes = GeoBinaryFormat.MEDIA_TYPE_VALUE, produces = GeoBinaryFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> isInRegionBinary(@RequestBody byte[] body,
+                                                   @RequestParam(required = false) Integer parallelism) {
+        RegionBatchFrame frame = GeoBinaryFormat.decodeRegionBatch(body);
+        List<FieldViolation> violations = new ArrayList<>(0);
+        RequestValidator.validateVertices(frame.coords(), "region.", violations);
+        if (!violations.isEmpty()) throw new InvalidRequestException("regionBatchRequest", violations);
+        double[] points = frame.points();
+        int count = points.length / GeoBinaryFormat.POSITION_RECORD;
+        if (isInvalidBatch(count)) return ResponseEntity.badRequest().build();
+        if (isOpenPolygon(positionService.validatePolygonCoords(frame.coords()))) return ResponseEntity.badRequest().build();
+        apiMetrics.recordRegionVertices(frame.coords().length / GeoBinaryFormat.POSITION_RECORD);
+
+        boolean[] inside = regionBatchService.isInRegion(frame.coords(), points, workers(parallelism));
+        byte[] status = new byte[count];
+        int invalidCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (!RequestValidator.isValidCoordinate(points[2 * i], points[2 * i + 1])) {
+                status[i] = GeoBinaryFormat.STATUS_INVALID_REQUEST;
+                inside[i] = false;
+                invalidCount++;
+            }
+        }
+        logInvalidItems(invalidCount);
+        return ResponseEntity.ok(GeoBinaryFormat.encodeBatchResult(status, inside));
+    }
+
+    /**
+     * Validates every position and stores an error result for the invalid ones.
+     * @param positions the positions of the batch
+     * @param results the results array to store the errors in
+     * @return the indexes of the valid positions, in ascending order
+     */
+    private int[] validatePositions(List<Position> positions, BatchResult<?>[] results) {
+        int[] validIndexes = new int[positions.size()];
+        int validCount = 0;
+        if (positions instanceof PositionList positionList) {
+            // No null positions or coordinates possible, so only the ranges need checking
+            double[] coords = positionList.coords();
+            for (int i = 0; i < validIndexes.length; i++) {
+                if (RequestValidator.isValidCoordinate(coords[2 * i], coords[2 * i + 1])) validIndexes[validCount++] = i;
+                else results[i] = invalidResult(requestValidator.validate(positionList.get(i)));
+            }
+            return Arrays.copyOf(validIndexes, validCount);
+        }
+        for (int i = 0; i < validIndexes.length; i++) {
+            Position position = positions.get(i);
+            if (position == null) {
+                results[i] = BatchResult.error(BatchController.INVALID_REQUEST, "Item is required!");
+                continue;
+            }
+            List<FieldViolation> violations = requestValidator.validate(position);
+            if (violations.isEmpty()) validIndexes[validCount++] = i;
+            else results[i] = invalidResult(violations);
+        }
+        return Arrays.copyOf(validIndexes, validCount);
+    }
+
+    private static BatchResult<Boolean> invalidResult(List<FieldViolation> violations) {
+        StringBuilder errorMsg = new StringBuilder();
+        for (FieldViolation violation : violations) {
+            if (!errorMsg.isEmpty()) errorMsg.append("; ");
+            // Example output: "lat: Latitude cannot be over 90!"
+            errorMsg.append(violation.field()).append(": ").append(violation.message());
+        }
+        return BatchResult.error(BatchController.INVALID_REQUEST, errorMsg.toString());
+    }
+
+    /**
+     * Collects the coordinates of the valid positions, without copying when all of a PositionList are valid.
+     */
+    private static double[] validPoints(List<Position> positions, int[] validIndexes) {
+        if (positions instanceof PositionList positionList && validIndexes.length == positions.size()) {
+            return positionList.coords();
+        }
+        double[] points = new double[validIndexes.length * 2];
+        for (int i = 0; i < validIndexes.length; i++) {
+            Position position = positions.get(validIndexes[i]);
+            points[2 * i] = position.lng();
+            points[2 * i + 1] = position.lat();
+        }
+        return points;
+    }
+
+    private int workers(Integer parallelism) {
+        int max = regionBatchService.maxParallelism();
+        return parallelism == null ? max : Math.clamp(parallelism, 1, max);
+    }
+
+    private boolean isInvalidBatch(int count) {
+        return BatchRejections.isInvalidBatch(requestLog, "isInRegion", count, maxPositions, "positions");
+    }
+
+    private boolean isOpenPolygon(String errorMsg) {
+        if (errorMsg == null) return false;
+        requestLog.rejected("/api/v1/batch/isInRegion", "open_polygon", "Invalid batch isInRegion request: {}",
+                errorMsg);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> BatchResult<T>[] newResults(int size) {
+        return (BatchResult<T>[]) new BatchResult[size];
+    }
+
+    private void logInvalidItems(int invalidCount) {
+        BatchRejections.logInvalidItems(requestLog, "isInRegion", invalidCount);
+    }
+}
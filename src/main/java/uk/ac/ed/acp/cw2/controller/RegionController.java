@@ -0,0 +1,115 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RegionRegistryService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.List;
+
+/**
+ * Controller class for the registry of named regions.
+ * Provides CRUD endpoints for the regions and a query for all regions containing a position.
+ */
+@RestController()
+@RequestMapping("/api/v1/regions")
+@RequiredArgsConstructor
+public class RegionController {
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Service that holds the registered regions
+    private final RegionRegistryService regionRegistryService;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // Reflection-free validation of the request bodies, see RequestValidator
+    private final RequestValidator requestValidator;
+
+    /**
+     * GET endpoint to retrieve all registered regions.
+     * @return 200 OK with the regions, ordered by name
+     */
+    @GetMapping
+    public ResponseEntity<List<Region>> getRegions() {
+        return ResponseEntity.ok(regionRegistryService.getRegions());
+    }
+
+    /**
+     * GET endpoint to retrieve one registered region.
+     * @param name the region name
+     * @return 200 OK with the region, or 404 Not Found if there is none with that name
+     */
+    @GetMapping("/{name}")
+    public ResponseEntity<Region> getRegion(@PathVariable String name) {
+        return ResponseEntity.of(regionRegistryService.getRegion(name));
+    }
+
+    /**
+     * POST endpoint to register a new region.
+     * @param region the region to register
+     * @return 201 Created, 409 Conflict if the name is taken, or 400 Bad Request if the region is invalid
+     */
+    @PostMapping
+    public ResponseEntity<Region> createRegion(@RequestBody Region region) {
+        requestValidator.requireValid(region, "region");
+        if (isInvalidRegion(region, "/api/v1/regions")) return ResponseEntity.badRequest().build();
+        if (!regionRegistryService.addRegion(region)) return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        return ResponseEntity.status(HttpStatus.CREATED).body(region);
+    }
+
+    /**
+     * PUT endpoint to register or replace the region with the given name.
+     * @param name the region name, must match the name in the body
+     * @param region the region to store
+     * @return 201 Created if new, 200 OK if replaced, or 400 Bad Request if the region is invalid
+     */
+    @PutMapping("/{name}")
+    public ResponseEntity<Region> putRegion(@PathVariable String name, @RequestBody Region region) {
+        requestValidator.requireValid(region, "region");
+        if (!name.equals(region.name())) {
+            requestLog.rejected("/api/v1/regions/{name}", "name_mismatch",
+                    "Invalid region request: name {} does not match path {}", region.name(), name);
+            return ResponseEntity.badRequest().build();
+        }
+        if (isInvalidRegion(region, "/api/v1/regions/{name}")) return ResponseEntity.badRequest().build();
+        boolean added = regionRegistryService.putRegion(region);
+        return ResponseEntity.status(added ? HttpStatus.CREATED : HttpStatus.OK).body(region);
+    }
+
+    /**
+     * DELETE endpoint to remove a registered region.
+     * @param name the region name
+     * @return 204 No Content, or 404 Not Found if there is none with that name
+     */
+    @DeleteMapping("/{name}")
+    public ResponseEntity<Void> deleteRegion(@PathVariable String name) {
+        if (!regionRegistryService.removeRegion(name)) return ResponseEntity.notFound().build();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * POST endpoint to find all registered regions containing a position (borders count as inside).
+     * @param position the position to check
+     * @return 200 OK with the names of the matching regions, or 400 Bad Request if input is invalid
+     */
+    @PostMapping("/containing")
+    public ResponseEntity<List<String>> regionsContaining(@RequestBody Position position) {
+        requestValidator.requireValid(position, "position");
+        return ResponseEntity.ok(regionRegistryService.getRegionsContaining(position));
+    }
+
+    private boolean isInvalidRegion(Region region, String endpoint) {
+        String errorMsg = positionService.validatePolygon(region);
+        if (errorMsg != null) {
+            requestLog.rejected(endpoint, "open_polygon", "Invalid region request: {}", errorMsg);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+package uk.ac.ed.acp.cw2.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ed.acp.cw2.dto.BatchResult;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.PolygonContainment;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Controller class for classifying a stream of positions against one region.
+ * Requests to /api/v1/isInRegion with Content-Type application/x-ndjson are served here instead of by
+ * {@link ServiceController}: the first line is the Region, every following line a Position. The response is
+ * one line per position, written while the request is still being read, so memory use does not grow with the
+ * number of positions and the polygon is prepared only once.
+ * The reactive mode serves the same stream from {@link ReactiveRegionStreamController}.
+ */
+@RestController()
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RegionStreamController {
+    // Results are flushed at least this often, and whenever no more input is buffered
+    private static final int FLUSH_INTERVAL = 1024;
+    static final String INSIDE = "{\"value\":true}\n";
+    static final String OUTSIDE = "{\"value\":false}\n";
+
+    // Service that handles all position-related calculations and validations
+    private final PositionService positionService;
+    // Reflection-free validation of the region and each position
+    private final RequestValidator requestValidator;
+    // Distribution of the polygon sizes
+    private final ApiMetrics apiMetrics;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader positionReader;
+
+    public RegionStreamController(PositionService positionService, RequestValidator requestValidator,
+                                  ApiMetrics apiMetrics, RequestEventLog requestLog, ObjectMapper objectMapper) {
+        this.positionService = positionService;
+        this.requestValidator = requestValidator;
+        this.apiMetrics = apiMetrics;
+        this.requestLog = requestLog;
+        this.objectMapper = objectMapper;
+        this.positionReader = objectMapper.readerFor(Position.class);
+    }
+
+    /**
+     * POST endpoint to check for a stream of positions whether they are inside a region.
+     * @param request the request, whose body is the region followed by the positions, one JSON document per line
+     * @return 200 OK with a {"value": true/false} line per position (or an error line for an invalid one),
+     *         or 400 Bad Request if the region is missing or invalid
+     */
+    @PostMapping(path = "/isInRegion", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> isInRegionStream(HttpServletRequest request) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        Region region = readRegion(reader, request);
+        requestValidator.requireValid(region, "region");
+        String errorMsg = positionService.validatePolygon(region);
+        if (errorMsg != null) {
+            requestLog.rejected("/api/v1/isInRegion", "open_polygon", "Invalid isInRegion stream request: {}",
+                    errorMsg);
+            return ResponseEntity.badRequest().build();
+        }
+        apiMetrics.recordRegionVertices(region.vertices().size());
+        PolygonContainment polygon = positionService.prepareRegion(region);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> classify(reader, polygon, output));
+    }
+
+    private Region readRegion(BufferedReader reader, HttpServletRequest request) throws IOException {
+        String line = nextLine(reader);
+        try {
+            if (line == null) throw new IOException("Region is required!");
+            return objectMapper.readValue(line, Region.class);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid region line: " + e.getMessage(), e,
+                    new ServletServerHttpRequest(request));
+        }
+    }
+
+    /**
+     * Reads the positions and writes a result line for each of them.
+     * @param reader the request body after the region line
+     * @param polygon the prepared polygon of the region
+     * @param output the response body
+     */
+    private void classify(BufferedReader reader, PolygonContainment polygon, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        long count = 0, invalidCount = 0;
+        String line;
+        while ((line = nextLine(reader)) != null) {
+            String errorMsg;
+            try {
+                Position position = positionReader.readValue(line);
+                errorMsg = position == null ? "Position is required!" : errorMessage(requestValidator.validate(position));
+                if (errorMsg == null) {
+                    writer.write(polygon.contains(position.lng(), position.lat()) ? INSIDE : OUTSIDE);
+                }
+            } catch (JsonProcessingException e) {
+                errorMsg = "Malformed JSON: " + e.getOriginalMessage();
+            }
+            if (errorMsg != null) {
+                writer.write(objectMapper.writeValueAsString(BatchResult.error(BatchController.INVALID_REQUEST, errorMsg)));
+                writer.write('\n');
+                invalidCount++;
+            }
+            if (++count % FLUSH_INTERVAL == 0 || !reader.ready()) writer.flush();
+        }
+        writer.flush();
+        if (invalidCount > 0) {
+            requestLog.rejected("/api/v1/isInRegion", "invalid_item", (int) Math.min(invalidCount, Integer.MAX_VALUE),
+                    "Invalid items in isInRegion stream request: {} of {}", invalidCount, count);
+        }
+    }
+
+    /**
+     * Returns the next line that is not blank, or null at the end of the stream.
+     */
+    private static String nextLine(BufferedReader reader) throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+        } while (line != null && line.isBlank());
+        return line;
+    }
+
+    static String errorMessage(List<RequestValidator.FieldViolation> violations) {
+        if (violations.isEmpty()) return null;
+        StringBuilder errorMsg = new StringBuilder();
+        for (RequestValidator.FieldViolation violation : violations) {
+            if (!errorMsg.isEmpty()) errorMsg.append("; ");
+            errorMsg.append(violation.field()).append(": ").append(violation.message());
+        }
+        return errorMsg.toString();
+    }
+}
@@ -1,52 +1,141 @@
 package uk.ac.ed.acp.cw2.controller;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.UpstreamUnavailableException;
+import uk.ac.ed.acp.cw2.validation.InvalidRequestException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormatException;
 
 /**
  * Global exception handler for REST controllers.
  * Catches malformed or unreadable JSON requests
- * and returns HTTP 400 (Bad Request) response
+ * and returns HTTP 400 (Bad Request) response.
+ * An unavailable ILP REST Service is answered with HTTP 503 (Service Unavailable).
+ * The reactive mode uses {@link ReactiveExceptionHandler} instead.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RestExceptionHandler {
-    private static final Logger logger = LoggerFactory.getLogger(RestExceptionHandler.class);
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
 
     /**
      * Handles HTTP message not readable exceptions and logs the error message.
      * @param exception the HttpMessageNotReadableException to handle
+     * @param request the request that failed
      * @return a ResponseEntity with HTTP 400 (Bad Request)
      */
     @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<String> handleHttpMessageNotReadableException(HttpMessageNotReadableException exception) {
-        logger.warn("Malformed JSON in request: {}", exception.getMessage());
+    public ResponseEntity<String> handleHttpMessageNotReadableException(HttpMessageNotReadableException exception,
+                                                                        HttpServletRequest request) {
+        String endpoint = endpointOf(request);
+        requestLog.rejected(endpoint, "malformed_json", "Malformed JSON in request: {}", exception.getMessage());
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles bodies in the binary wire format that do not have the expected layout.
+     * @param exception the GeoBinaryFormatException to handle
+     * @param request the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(GeoBinaryFormatException.class)
+    public ResponseEntity<String> handleGeoBinaryFormatException(GeoBinaryFormatException exception,
+                                                                 HttpServletRequest request) {
+        String endpoint = endpointOf(request);
+        requestLog.rejected(endpoint, "malformed_binary", "Malformed binary request: {}", exception.getMessage());
         return ResponseEntity.badRequest().build();
     }
 
     /**
      * Handles validation exceptions and logs the error message.
      * @param exception the MethodArgumentNotValidException to handle
+     * @param request the request that failed
      * @return a ResponseEntity with HTTP 400 (Bad Request)
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException exception) {
-        StringBuilder logMessage = new StringBuilder();
-        for (FieldError fieldError : exception.getBindingResult().getFieldErrors()) {
-            // Example output: "position1.lat: Latitude must be provided!"
-            logMessage.append(fieldError.getObjectName())
-                    .append(".")
-                    .append(fieldError.getField())
-                    .append(": ")
-                    .append(fieldError.getDefaultMessage())
-                    .append("\n");
-        }
-        logger.warn("Validation error: \n{}", logMessage.toString());
+    public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException exception,
+                                                            HttpServletRequest request) {
+        String endpoint = endpointOf(request);
+        requestLog.rejected(endpoint, "validation", () -> {
+            StringBuilder logMessage = new StringBuilder("Validation error: \n");
+            for (FieldError fieldError : exception.getBindingResult().getFieldErrors()) {
+                // Example output: "position1.lat: Latitude must be provided!"
+                appendFieldError(logMessage, fieldError.getObjectName(), fieldError.getField(),
+                        fieldError.getDefaultMessage());
+            }
+            return logMessage.toString();
+        });
         return ResponseEntity.badRequest().build();
     }
+
+    /**
+     * Handles failures of the hand-written request validation, in the same way as bean validation failures.
+     * @param exception the InvalidRequestException to handle
+     * @param request the request that failed
+     * @return a ResponseEntity with HTTP 400 (Bad Request)
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> handleInvalidRequestException(InvalidRequestException exception,
+                                                                HttpServletRequest request) {
+        String endpoint = endpointOf(request);
+        requestLog.rejected(endpoint, "validation", () -> validationMessage(exception));
+        return ResponseEntity.badRequest().build();
+    }
+
+    /**
+     * Handles calls to the ILP REST Service that were not made because its circuit breaker is open, or gave up
+     * at their deadline, while there is no drone catalog to fall back on.
+     * @param exception the UpstreamUnavailableException to handle
+     * @param request the request that failed
+     * @return a ResponseEntity with HTTP 503 (Service Unavailable)
+     */
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<String> handleUpstreamUnavailableException(UpstreamUnavailableException exception,
+                                                                     HttpServletRequest request) {
+        requestLog.unavailable(endpointOf(request), "ILP REST Service unavailable: {}", exception.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * Builds the log message of a failed hand-written validation, with a line per field.
+     */
+    static String validationMessage(InvalidRequestException exception) {
+        StringBuilder logMessage = new StringBuilder("Validation error: \n");
+        for (RequestValidator.FieldViolation violation : exception.getViolations()) {
+            appendFieldError(logMessage, exception.getObjectName(), violation.field(), violation.message());
+        }
+        return logMessage.toString();
+    }
+
+    static void appendFieldError(StringBuilder logMessage, String objectName, String field, String message) {
+        logMessage.append(objectName)
+                .append(".")
+                .append(field)
+                .append(": ")
+                .append(message)
+                .append("\n");
+    }
+
+    /**
+     * Returns the mapped path pattern of the request (e.g. /api/v1/regions/{name}), which keeps the metric tags bounded.
+     * @param request the request
+     * @return the path pattern, or "unknown" if the request was not mapped to a handler
+     */
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? "unknown" : pattern.toString();
+    }
 }
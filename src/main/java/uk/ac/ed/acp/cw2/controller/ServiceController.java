@@ -1,20 +1,18 @@
 package uk.ac.ed.acp.cw2.controller;
 
-import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import uk.ac.ed.acp.cw2.dto.DistanceRequest;
 import uk.ac.ed.acp.cw2.dto.NextPositionRequest;
 import uk.ac.ed.acp.cw2.dto.Position;
 import uk.ac.ed.acp.cw2.dto.RegionRequest;
-import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
 import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
 
 import java.net.URL;
-import java.util.List;
 
 /**
  * Controller class that handles various HTTP endpoints for the application.
@@ -28,10 +26,12 @@ public class ServiceController {
 
     // Service that handles all position-related calculations and validations
     private final PositionService positionService;
-    // Service that handles all drone-related calculations and validations
-    private final DroneService droneService;
-
-    private static final Logger logger = LoggerFactory.getLogger(ServiceController.class);
+    // Distribution of the polygon sizes
+    private final ApiMetrics apiMetrics;
+    // Counts the rejected requests, and keeps an asynchronous, rate-limited log of them
+    private final RequestEventLog requestLog;
+    // Reflection-free validation of the request bodies, see RequestValidator
+    private final RequestValidator requestValidator;
 
     //@Value("${ilp.service.url}")
     //public URL serviceUrl;
@@ -53,12 +53,13 @@ public class ServiceController {
     /**
      * Helper method to check if a request is invalid.
      * @param requestName the name of the request
+     * @param reason the metrics tag for the kind of error
      * @param errorMsg the error message if invalid
      * @return true if invalid, false otherwise
      */
-    private boolean isInvalidRequest(String requestName, String errorMsg) {
+    private boolean isInvalidRequest(String requestName, String reason, String errorMsg) {
         if (errorMsg != null) {
-            logger.warn("Invalid {} request: {}", requestName, errorMsg);
+            requestLog.rejected("/api/v1/" + requestName, reason, "Invalid {} request: {}", requestName, errorMsg);
             return true; }
         return false; // If no error message, the request is valid
     }
@@ -69,7 +70,8 @@ public class ServiceController {
      * @return 200 OK with the distance if valid, or 400 Bad Request if input is invalid
      */
     @PostMapping("/distanceTo")
-    public ResponseEntity<Double> distanceTo(@RequestBody @Valid DistanceRequest distanceRequest) {
+    public ResponseEntity<Double> distanceTo(@RequestBody DistanceRequest distanceRequest) {
+        requestValidator.requireValid(distanceRequest, "distanceRequest");
         return ResponseEntity.ok(positionService.calculateDistance(distanceRequest));
     }
 
@@ -79,7 +81,8 @@ public class ServiceController {
      * @return 200 OK with true/false if valid, or 400 Bad Request if input is invalid
      */
     @PostMapping("/isCloseTo")
-    public ResponseEntity<Boolean> isCloseTo(@RequestBody @Valid DistanceRequest distanceRequest) {
+    public ResponseEntity<Boolean> isCloseTo(@RequestBody DistanceRequest distanceRequest) {
+        requestValidator.requireValid(distanceRequest, "distanceRequest");
         return ResponseEntity.ok(positionService.isCloseTo(distanceRequest, 0.00015));
     }
 
@@ -89,9 +92,10 @@ public class ServiceController {
      * @return 200 OK with the next Position if valid, or 400 Bad Request if input is invalid
      */
     @PostMapping("/nextPosition")
-    public ResponseEntity<Position> nextPosition(@RequestBody @Valid NextPositionRequest positionRequest) {
+    public ResponseEntity<Position> nextPosition(@RequestBody NextPositionRequest positionRequest) {
+        requestValidator.requireValid(positionRequest, "nextPositionRequest");
         String errorMsg = positionService.validateNextPositionAngle(positionRequest);
-        if (isInvalidRequest("nextPosition", errorMsg)) return ResponseEntity.badRequest().build();
+        if (isInvalidRequest("nextPosition", "invalid_angle", errorMsg)) return ResponseEntity.badRequest().build();
         return ResponseEntity.ok(positionService.calculateNextPosition(positionRequest));
     }
 
@@ -101,21 +105,12 @@ public class ServiceController {
      * @return 200 OK with true/false if valid, or 400 Bad Request if input is invalid
      */
     @PostMapping("/isInRegion")
-    public ResponseEntity<Boolean> isInRegion(@RequestBody @Valid RegionRequest regionRequest) {
+    public ResponseEntity<Boolean> isInRegion(@RequestBody RegionRequest regionRequest) {
+        requestValidator.requireValid(regionRequest, "regionRequest");
         String errorMsg = positionService.validateRegion(regionRequest);
-        if (isInvalidRequest("isInRegion", errorMsg)) return ResponseEntity.badRequest().build();
+        if (isInvalidRequest("isInRegion", "open_polygon", errorMsg)) return ResponseEntity.badRequest().build();
+        apiMetrics.recordRegionVertices(regionRequest.region().vertices().size());
         return ResponseEntity.ok(positionService.isInRegion(regionRequest));
     }
 
-    /**
-     * GET endpoint to retrieve a list of drones-ids which support cooling (state is true) or not (false)
-     * @param state the state to filter by
-     * @return 200 OK with the list of drones if valid, or 400 Bad Request if input is invalid
-     */
-    @PostMapping("/dronesWithCooling/{state}")
-    public ResponseEntity<List<Long>> dronesWithCooling(@PathVariable Boolean state) {
-        return ResponseEntity.ok(droneService.getDronesWithCooling(state));
-    }
-
-
 }
@@ -0,0 +1,44 @@
+package uk.ac.ed.acp.cw2.data;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Immutable, versioned snapshot of the drone list fetched from the ILP REST service.
+ * A new instance is swapped in on every refresh, so readers never see a half-updated catalog.
+ * @param drones the drones returned by the upstream /drones endpoint
+ * @param version increases by one every time the content of the catalog changes
+ * @param etag the ETag header of the last 200 response (null if the upstream sent none)
+ * @param lastModified the Last-Modified header of the last 200 response (null if the upstream sent none)
+ * @param fetchedAt when the content was last confirmed by the upstream (200 or 304)
+ */
+public record DroneCatalog(
+        List<Drone> drones,
+        long version,
+        String etag,
+        String lastModified,
+        Instant fetchedAt
+) {
+    /**
+     * Returns a copy of this catalog with the same content, confirmed as fresh at the given time.
+     * Used when the upstream answers 304 Not Modified.
+     * @param now the time of the revalidation
+     * @return the revalidated catalog (same version)
+     */
+    public DroneCatalog revalidated(Instant now) {
+        return new DroneCatalog(drones, version, etag, lastModified, now);
+    }
+
+    /**
+     * Checks if the catalog was last confirmed longer ago than the given age.
+     * @param maxAge the maximum allowed age
+     * @param now the current time
+     * @return true if the catalog is older than maxAge, false otherwise
+     */
+    public boolean isOlderThan(Duration maxAge, Instant now) {
+        return fetchedAt.plus(maxAge).isBefore(now);
+    }
+}
@@ -0,0 +1,142 @@
+package uk.ac.ed.acp.cw2.data;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The cost structure of the drones of one {@link DroneCatalog} version, prepared for finding the cheapest drone.
+ * The cost of a delivery of m moves is {@code fixedCost + costPerMove * m}, with fixedCost = costInitial + costFinal.
+ * <p>
+ * The drones are sorted by costPerMove, and for each position the minimum fixed cost of it and all later drones is
+ * kept. Since every later drone costs at least {@code minFixedCost[i] + costPerMove[i] * m}, the search stops as soon
+ * as that bound exceeds the best cost found. Drones with a missing cost, capacity or maxMoves can never be chosen and
+ * are left out.
+ */
+public final class DroneCostTable {
+    private final long version;
+    // Drone ids in catalog order
+    private final List<Long> ids;
+
+    // One entry per drone that has all cost fields, in ascending order of costPerMove
+    private final double[] costPerMove;
+    private final double[] fixedCost;
+    private final double[] minFixedCostFrom;
+    private final double[] capacity;
+    private final int[] maxMoves;
+    private final boolean[] cooling, heating;
+    // The catalog position of each entry
+    private final int[] drone;
+
+    private DroneCostTable(DroneCatalog catalog) {
+        List<Drone> drones = catalog.drones();
+        this.version = catalog.version();
+        this.ids = drones.stream().map(Drone::id).toList();
+
+        List<Integer> entries = new ArrayList<>(drones.size());
+        for (int i = 0; i < drones.size(); i++) {
+            if (isCostable(drones.get(i).capability())) entries.add(i);
+        }
+        // Ties are kept in catalog order, so the entry order is deterministic
+        entries.sort(Comparator.comparingDouble(i -> drones.get(i).capability().costPerMove()));
+
+        int n = entries.size();
+        this.costPerMove = new double[n];
+        this.fixedCost = new double[n];
+        this.minFixedCostFrom = new double[n];
+        this.capacity = new double[n];
+        this.maxMoves = new int[n];
+        this.cooling = new boolean[n];
+        this.heating = new boolean[n];
+        this.drone = new int[n];
+        for (int k = 0; k < n; k++) {
+            Drone.Capability c = drones.get(entries.get(k)).capability();
+            drone[k] = entries.get(k);
+            costPerMove[k] = c.costPerMove();
+            fixedCost[k] = c.costInitial() + c.costFinal();
+            capacity[k] = c.capacity();
+            maxMoves[k] = c.maxMoves();
+            cooling[k] = Boolean.TRUE.equals(c.cooling());
+            heating[k] = Boolean.TRUE.equals(c.heating());
+        }
+        double min = Double.POSITIVE_INFINITY;
+        for (int k = n - 1; k >= 0; k--) {
+            min = Math.min(min, fixedCost[k]);
+            minFixedCostFrom[k] = min;
+        }
+    }
+
+    private static boolean isCostable(Drone.Capability c) {
+        return c != null && c.costPerMove() != null && c.costInitial() != null && c.costFinal() != null
+                && c.capacity() != null && c.maxMoves() != null
+                && Double.isFinite(c.costPerMove()) && Double.isFinite(c.costInitial() + c.costFinal());
+    }
+
+    /**
+     * Returns the cost table of a catalog, reusing the previous one if the catalog version is the same.
+     * @param catalog the current catalog
+     * @param previous the table of an earlier catalog (null if there is none)
+     * @return the cost table of the catalog
+     */
+    public static DroneCostTable of(DroneCatalog catalog, DroneCostTable previous) {
+        if (previous != null && previous.version == catalog.version()) return previous;
+        return new DroneCostTable(catalog);
+    }
+
+    /**
+     * @return the version of the catalog this table was built from
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Finds the cheapest drone that can carry an order. Of drones with the same cost, the first in the catalog wins.
+     * A drone whose cost overflows (costPerMove * moves is infinite) cannot be priced and is not chosen.
+     * @param moves the estimated number of moves of the delivery (not negative)
+     * @param requiredCapacity the capacity the order needs
+     * @param needsCooling whether the drone must support cooling
+     * @param needsHeating whether the drone must support heating
+     * @return the entry of the cheapest eligible drone, or -1 if no drone is eligible
+     */
+    public int cheapest(int moves, double requiredCapacity, boolean needsCooling, boolean needsHeating) {
+        int best = -1;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < costPerMove.length; k++) {
+            // No later drone can be cheaper than this bound (an equal one may still win the tie)
+            if (minFixedCostFrom[k] + costPerMove[k] * moves > bestCost) break;
+            // Written as !(>=) so that a NaN capacity matches no drone
+            if (!(capacity[k] >= requiredCapacity) || maxMoves[k] < moves
+                    || (needsCooling && !cooling[k]) || (needsHeating && !heating[k])) {
+                continue;
+            }
+            double cost = cost(k, moves);
+            if (!Double.isFinite(cost)) continue;
+            if (cost < bestCost || (cost == bestCost && drone[k] < drone[best])) {
+                best = k;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Calculates the cost of a delivery by the drone of an entry.
+     * @param entry the entry, as returned by {@link #cheapest}
+     * @param moves the number of moves
+     * @return fixedCost + costPerMove * moves
+     */
+    public double cost(int entry, int moves) {
+        return fixedCost[entry] + costPerMove[entry] * moves;
+    }
+
+    /**
+     * @param entry the entry, as returned by {@link #cheapest}
+     * @return the id of the drone of the entry
+     */
+    public Long droneId(int entry) {
+        return ids.get(drone[entry]);
+    }
+}
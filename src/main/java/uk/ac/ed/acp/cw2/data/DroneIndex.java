@@ -0,0 +1,182 @@
+package uk.ac.ed.acp.cw2.data;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable query index over the capabilities of one {@link DroneCatalog} version.
+ * Drones are numbered by their position in the catalog. The boolean attributes are bitsets of those numbers and the
+ * numeric attributes are sorted arrays of values with the drone of each value, so a compound query is a few binary
+ * searches and bitset intersections instead of a scan over the drones.
+ */
+public final class DroneIndex {
+    private final long version;
+    private final List<Long> ids;
+    // Drones with the attribute true / false; a drone with a missing value is in neither
+    private final BitSet cooling, notCooling, heating, notHeating;
+    private final NumericIndex capacity, maxMoves, costPerMove, costInitial, costFinal;
+
+    private DroneIndex(DroneCatalog catalog, DroneIndex previous) {
+        List<Drone> drones = catalog.drones();
+        this.version = catalog.version();
+        this.ids = drones.stream().map(Drone::id).toList();
+        this.cooling = booleans(drones, Drone.Capability::cooling, true);
+        this.notCooling = booleans(drones, Drone.Capability::cooling, false);
+        this.heating = booleans(drones, Drone.Capability::heating, true);
+        this.notHeating = booleans(drones, Drone.Capability::heating, false);
+        this.capacity = NumericIndex.of(drones, Drone.Capability::capacity, previous == null ? null : previous.capacity);
+        this.maxMoves = NumericIndex.of(drones, Drone.Capability::maxMoves, previous == null ? null : previous.maxMoves);
+        this.costPerMove = NumericIndex.of(drones, Drone.Capability::costPerMove, previous == null ? null : previous.costPerMove);
+        this.costInitial = NumericIndex.of(drones, Drone.Capability::costInitial, previous == null ? null : previous.costInitial);
+        this.costFinal = NumericIndex.of(drones, Drone.Capability::costFinal, previous == null ? null : previous.costFinal);
+    }
+
+    /**
+     * Returns the index of a catalog, reusing what it can of the previous index: the same catalog version reuses it
+     * as is, and a numeric attribute whose values did not change keeps its sorted index. Everything else is built
+     * anew; the boolean attributes are one pass over the drones.
+     * @param catalog the current catalog
+     * @param previous the index of an earlier catalog (null if there is none)
+     * @return the index of the catalog
+     */
+    public static DroneIndex of(DroneCatalog catalog, DroneIndex previous) {
+        if (previous != null && previous.version == catalog.version()) return previous;
+        return new DroneIndex(catalog, previous);
+    }
+
+    /**
+     * @return the version of the catalog this index was built from
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns the ids of the drones matching all criteria of a query.
+     * @param query the query
+     * @return List<Long> of drone ids, in catalog order
+     */
+    public List<Long> query(DroneQuery query) {
+        BitSet matches = new BitSet(ids.size());
+        matches.set(0, ids.size());
+        if (query.cooling() != null) matches.and(query.cooling() ? cooling : notCooling);
+        if (query.heating() != null) matches.and(query.heating() ? heating : notHeating);
+        capacity.and(matches, query.minCapacity(), query.maxCapacity());
+        maxMoves.and(matches, query.minMaxMoves(), query.maxMaxMoves());
+        costPerMove.and(matches, query.minCostPerMove(), query.maxCostPerMove());
+        costInitial.and(matches, query.minCostInitial(), query.maxCostInitial());
+        costFinal.and(matches, query.minCostFinal(), query.maxCostFinal());
+        return idsOf(matches);
+    }
+
+    /**
+     * Returns the ids of the drones which support cooling (state is true) or not (false).
+     * @param state true or false
+     * @return List<Long> of drone ids, in catalog order
+     */
+    public List<Long> withCooling(boolean state) {
+        return idsOf(state ? cooling : notCooling);
+    }
+
+    private List<Long> idsOf(BitSet drones) {
+        List<Long> result = new ArrayList<>(drones.cardinality());
+        for (int drone = drones.nextSetBit(0); drone >= 0; drone = drones.nextSetBit(drone + 1)) {
+            result.add(ids.get(drone));
+        }
+        return result;
+    }
+
+    private static BitSet booleans(List<Drone> drones, Function<Drone.Capability, Boolean> attribute, boolean state) {
+        BitSet bits = new BitSet(drones.size());
+        for (int drone = 0; drone < drones.size(); drone++) {
+            Drone.Capability capability = drones.get(drone).capability();
+            Boolean value = capability == null ? null : attribute.apply(capability);
+            if (value != null && value == state) bits.set(drone);
+        }
+        return bits;
+    }
+
+    /**
+     * Sorted index of one numeric attribute: the values in ascending order, and the drone of each value.
+     * Drones with a missing value are not in the index.
+     */
+    private static final class NumericIndex {
+        // The value of each drone in catalog order (NaN if missing), to detect unchanged attributes
+        private final double[] column;
+        private final double[] sorted;
+        private final int[] drones;
+
+        private NumericIndex(double[] column) {
+            this.column = column;
+            double[] values = new double[column.length];
+            int count = 0;
+            for (double value : column) {
+                if (!Double.isNaN(value)) values[count++] = value;
+            }
+            values = Arrays.copyOf(values, count);
+            Arrays.sort(values);
+            // Sorted as primitives: each present drone as (rank of its value << 32 | drone), so ties stay in catalog order
+            long[] order = new long[count];
+            int next = 0;
+            for (int drone = 0; drone < column.length; drone++) {
+                if (Double.isNaN(column[drone])) continue;
+                // The first of equal values, so equal values get the same rank
+                int rank = firstNotBelow(values, column[drone]);
+                order[next++] = (long) rank << 32 | drone;
+            }
+            Arrays.sort(order);
+            this.sorted = values;
+            this.drones = new int[count];
+            for (int i = 0; i < count; i++) drones[i] = (int) order[i];
+        }
+
+        static NumericIndex of(List<Drone> drones, Function<Drone.Capability, ? extends Number> attribute,
+                               NumericIndex previous) {
+            double[] column = new double[drones.size()];
+            for (int drone = 0; drone < column.length; drone++) {
+                Drone.Capability capability = drones.get(drone).capability();
+                Number value = capability == null ? null : attribute.apply(capability);
+                column[drone] = value == null ? Double.NaN : value.doubleValue();
+            }
+            if (previous != null && Arrays.equals(previous.column, column)) return previous;
+            return new NumericIndex(column);
+        }
+
+        /**
+         * Keeps only the drones whose value is between min and max (inclusive) in matches.
+         * @param matches the drones matching so far
+         * @param min the lower bound (null if none)
+         * @param max the upper bound (null if none)
+         */
+        void and(BitSet matches, Number min, Number max) {
+            if (min == null && max == null) return;
+            double low = min == null ? Double.NEGATIVE_INFINITY : min.doubleValue();
+            double high = max == null ? Double.POSITIVE_INFINITY : max.doubleValue();
+            BitSet inRange = new BitSet(column.length);
+            // A NaN bound matches nothing, as value >= NaN is false
+            if (!Double.isNaN(low) && !Double.isNaN(high)) {
+                for (int i = firstNotBelow(sorted, low); i < sorted.length && sorted[i] <= high; i++) inRange.set(drones[i]);
+            }
+            matches.and(inRange);
+        }
+
+        /**
+         * Binary search for the first sorted value that is not below the bound.
+         */
+        private static int firstNotBelow(double[] sorted, double bound) {
+            int low = 0, high = sorted.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < bound) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package uk.ac.ed.acp.cw2.data;
+
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of the last-known upstream data: the drone catalog and the registered regions.
+ * Lets a new instance serve the last-known data at startup, before the upstream has answered.
+ * Everything is little-endian, as in the GeoBinaryFormat; strings are an int byte length (-1 for null) and UTF-8.
+ * <pre>
+ * header    int magic "ILPS", int format version, int payload length, int CRC32 of the payload
+ * catalog   byte present, then long version, long fetchedAt (epoch ms), string etag, string lastModified,
+ *           int count, count x drone
+ * drone     byte flags (bit 0: id, bit 1: capability), [long id], string name, [capability]
+ * capability byte presence (bit i: field i of Drone.Capability), byte booleans (bit 0: cooling, bit 1: heating),
+ *           then the present numeric fields in order: double capacity, int maxMoves, double costPerMove,
+ *           double costInitial, double costFinal
+ * regions   int count, count x (string name, int n, n x (lng lat))
+ * </pre>
+ * A snapshot is read through a read-only memory mapping and rejected as a whole if the header or checksum does not
+ * match. It is written to a temporary file next to the target and moved over it, so readers see the old or the new
+ * snapshot, never a partial one.
+ */
+public final class SnapshotFile {
+    static final int MAGIC = 0x53504C49; // "ILPS" in little-endian byte order
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The contents of a snapshot.
+     * @param catalog the drone catalog (null if there was none yet)
+     * @param regions the registered regions
+     */
+    public record Contents(DroneCatalog catalog, List<Region> regions) {}
+
+    private SnapshotFile() {}
+
+    /**
+     * Reads a snapshot through a memory mapping of the file.
+     * @param path the snapshot file
+     * @return the contents of the snapshot
+     * @throws StreamCorruptedException if the file is not a complete snapshot of this format version
+     * @throws IOException if the file cannot be read
+     */
+    public static Contents read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) throw new StreamCorruptedException("Invalid snapshot size: " + size);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(mapped.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    /**
+     * Decodes a snapshot, e.g. a mapped file.
+     * @param buffer the snapshot bytes, from position to limit; read in little-endian order
+     * @return the contents of the snapshot
+     * @throws StreamCorruptedException if the bytes are not a complete snapshot of this format version
+     */
+    static Contents decode(ByteBuffer buffer) throws StreamCorruptedException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES) throw new StreamCorruptedException("Snapshot header is incomplete");
+        if (buffer.getInt() != MAGIC) throw new StreamCorruptedException("Not a snapshot file");
+        int formatVersion = buffer.getInt();
+        if (formatVersion != FORMAT_VERSION) throw new StreamCorruptedException("Unsupported snapshot version: " + formatVersion);
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length != buffer.remaining()) throw new StreamCorruptedException("Snapshot length mismatch: " + length);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if ((int) crc.getValue() != checksum) throw new StreamCorruptedException("Snapshot checksum mismatch");
+
+        try {
+            DroneCatalog catalog = buffer.get() == 0 ? null : readCatalog(buffer);
+            int regionCount = count(buffer, 8);
+            List<Region> regions = new ArrayList<>(regionCount);
+            for (int i = 0; i < regionCount; i++) {
+                String name = readString(buffer);
+                double[] coords = new double[2 * count(buffer, 16)];
+                buffer.asDoubleBuffer().get(coords);
+                buffer.position(buffer.position() + 8 * coords.length);
+                regions.add(new Region(name, new PositionList(coords)));
+            }
+            if (buffer.hasRemaining()) throw new StreamCorruptedException("Unexpected data after the snapshot");
+            return new Contents(catalog, regions);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // The checksum matched, so the writer produced this: still reject it rather than fail later
+            throw new StreamCorruptedException("Invalid snapshot content: " + e);
+        }
+    }
+
+    private static DroneCatalog readCatalog(ByteBuffer buffer) throws StreamCorruptedException {
+        long version = buffer.getLong();
+        Instant fetchedAt = Instant.ofEpochMilli(buffer.getLong());
+        String etag = readString(buffer);
+        String lastModified = readString(buffer);
+        int droneCount = count(buffer, 5);
+        List<Drone> drones = new ArrayList<>(droneCount);
+        for (int i = 0; i < droneCount; i++) {
+            byte flags = buffer.get();
+            Long id = (flags & 1) != 0 ? buffer.getLong() : null;
+            String name = readString(buffer);
+            drones.add(new Drone(id, name, (flags & 2) != 0 ? readCapability(buffer) : null));
+        }
+        return new DroneCatalog(List.copyOf(drones), version, etag, lastModified, fetchedAt);
+    }
+
+    private static Drone.Capability readCapability(ByteBuffer buffer) {
+        int present = buffer.get(), booleans = buffer.get();
+        return new Drone.Capability(
+                (present & 1) != 0 ? (booleans & 1) != 0 : null,
+                (present & 2) != 0 ? (booleans & 2) != 0 : null,
+                (present & 4) != 0 ? buffer.getDouble() : null,
+                (present & 8) != 0 ? buffer.getInt() : null,
+                (present & 16) != 0 ? buffer.getDouble() : null,
+                (present & 32) != 0 ? buffer.getDouble() : null,
+                (present & 64) != 0 ? buffer.getDouble() : null);
+    }
+
+    /**
+     * Reads a count and checks it against the bytes left, so a bad count cannot cause a huge allocation.
+     */
+    private static int count(ByteBuffer buffer, int minBytesPerItem) throws StreamCorruptedException {
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * minBytesPerItem > buffer.remaining()) {
+            throw new StreamCorruptedException("Invalid count in snapshot: " + count);
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) throws StreamCorruptedException {
+        int length = buffer.getInt();
+        if (length == -1) return null;
+        if (length < 0 || length > buffer.remaining()) throw new StreamCorruptedException("Invalid string length in snapshot: " + length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a snapshot and atomically replaces the file with it.
+     * The data is forced to the disk before the move, so a crash leaves the old or the new snapshot.
+     * @param path the snapshot file
+     * @param contents the contents to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Contents contents) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) Files.createDirectories(directory);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = encode(contents);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Encodes a snapshot, header included.
+     * @param contents the contents to encode
+     * @return the snapshot bytes, from position 0 to the limit
+     */
+    static ByteBuffer encode(Contents contents) {
+        Writer writer = new Writer();
+        writer.skip(HEADER_BYTES);
+        DroneCatalog catalog = contents.catalog();
+        writer.putByte(catalog == null ? 0 : 1);
+        if (catalog != null) {
+            writer.putLong(catalog.version());
+            writer.putLong(catalog.fetchedAt().toEpochMilli());
+            writer.putString(catalog.etag());
+            writer.putString(catalog.lastModified());
+            writer.putInt(catalog.drones().size());
+            for (Drone drone : catalog.drones()) writeDrone(writer, drone);
+        }
+        writer.putInt(contents.regions().size());
+        for (Region region : contents.regions()) {
+            writer.putString(region.name());
+            writer.putInt(region.vertices().size());
+            for (Position vertex : region.vertices()) {
+                writer.putDouble(vertex.lng());
+                writer.putDouble(vertex.lat());
+            }
+        }
+
+        ByteBuffer buffer = writer.finish();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(HEADER_BYTES, buffer.limit() - HEADER_BYTES));
+        buffer.putInt(0, MAGIC).putInt(4, FORMAT_VERSION)
+                .putInt(8, buffer.limit() - HEADER_BYTES).putInt(12, (int) crc.getValue());
+        return buffer;
+    }
+
+    private static void writeDrone(Writer writer, Drone drone) {
+        Drone.Capability c = drone.capability();
+        writer.putByte((drone.id() != null ? 1 : 0) | (c != null ? 2 : 0));
+        if (drone.id() != null) writer.putLong(drone.id());
+        writer.putString(drone.name());
+        if (c == null) return;
+        int present = (c.cooling() != null ? 1 : 0) | (c.heating() != null ? 2 : 0) | (c.capacity() != null ? 4 : 0)
+                | (c.maxMoves() != null ? 8 : 0) | (c.costPerMove() != null ? 16 : 0)
+                | (c.costInitial() != null ? 32 : 0) | (c.costFinal() != null ? 64 : 0);
+        writer.putByte(present);
+        writer.putByte((Boolean.TRUE.equals(c.cooling()) ? 1 : 0) | (Boolean.TRUE.equals(c.heating()) ? 2 : 0));
+        if (c.capacity() != null) writer.putDouble(c.capacity());
+        if (c.maxMoves() != null) writer.putInt(c.maxMoves());
+        if (c.costPerMove() != null) writer.putDouble(c.costPerMove());
+        if (c.costInitial() != null) writer.putDouble(c.costInitial());
+        if (c.costFinal() != null) writer.putDouble(c.costFinal());
+    }
+
+    /**
+     * A little-endian buffer that grows as needed.
+     */
+    private static final class Writer {
+        private ByteBuffer buffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() >= bytes) return;
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + bytes))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            larger.put(buffer.flip());
+            buffer = larger;
+        }
+
+        void skip(int bytes) { ensure(bytes); buffer.position(buffer.position() + bytes); }
+        void putByte(int value) { ensure(1); buffer.put((byte) value); }
+        void putInt(int value) { ensure(4); buffer.putInt(value); }
+        void putLong(long value) { ensure(8); buffer.putLong(value); }
+        void putDouble(double value) { ensure(8); buffer.putDouble(value); }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        ByteBuffer finish() {
+            return buffer.flip();
+        }
+    }
+}
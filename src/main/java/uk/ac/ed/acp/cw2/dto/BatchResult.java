@@ -0,0 +1,21 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents the outcome of one item of a batch request.
+ * Exactly one of value and errorCode is set.
+ * @param value the result of the item (null if the item was invalid)
+ * @param errorCode the reason the item was rejected, e.g. INVALID_REQUEST (null if valid)
+ * @param errorMessage a human-readable description of the error (null if valid)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchResult<T>(T value, String errorCode, String errorMessage) {
+    public static <T> BatchResult<T> ok(T value) {
+        return new BatchResult<>(value, null, null);
+    }
+
+    public static <T> BatchResult<T> error(String errorCode, String errorMessage) {
+        return new BatchResult<>(null, errorCode, errorMessage);
+    }
+}
@@ -0,0 +1,9 @@
+package uk.ac.ed.acp.cw2.dto;
+
+/**
+ * Represents the cheapest eligible drone for an order.
+ * @param droneId the id of the drone
+ * @param moves the estimated number of moves of the delivery
+ * @param cost the estimated cost: costInitial + costFinal + costPerMove * moves
+ */
+public record CostEstimate(Long droneId, int moves, double cost) {}
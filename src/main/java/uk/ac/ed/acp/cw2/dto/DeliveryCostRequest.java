@@ -0,0 +1,26 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Represents an order to estimate the delivery cost for: where it goes, how much capacity it needs,
+ * and whether it needs cooling or heating (null counts as not needed).
+ */
+public record DeliveryCostRequest(
+        @NotNull(message = "From position is required!")
+        @Valid
+        Position from,
+
+        @NotNull(message = "To position is required!")
+        @Valid
+        Position to,
+
+        @NotNull(message = "Capacity is required!")
+        @PositiveOrZero(message = "Capacity cannot be negative!")
+        Double capacity,
+
+        Boolean cooling,
+        Boolean heating
+) {}
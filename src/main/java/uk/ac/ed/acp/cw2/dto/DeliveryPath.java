@@ -0,0 +1,13 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import java.util.List;
+
+/**
+ * Represents a planned flight path.
+ * @param found true if a path to the target was found within the search budget
+ * @param moves the number of moves of the path
+ * @param angles the angle of each move, in order
+ * @param path the positions of the path, from the start to the position close to the target
+ * @param nodesExpanded the number of search nodes expanded
+ */
+public record DeliveryPath(boolean found, int moves, double[] angles, List<Position> path, int nodesExpanded) {}
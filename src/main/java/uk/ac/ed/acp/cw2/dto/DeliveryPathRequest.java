@@ -0,0 +1,23 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Represents a request to plan a flight path from a start position to a target position,
+ * avoiding the given restricted areas.
+ */
+public record DeliveryPathRequest(
+        @NotNull(message = "From position is required!")
+        @Valid
+        Position from,
+
+        @NotNull(message = "To position is required!")
+        @Valid
+        Position to,
+
+        @Valid
+        List<Region> restrictedAreas
+) {}
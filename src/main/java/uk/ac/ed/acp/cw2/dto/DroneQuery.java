@@ -0,0 +1,22 @@
+package uk.ac.ed.acp.cw2.dto;
+
+/**
+ * Represents a compound query over the capabilities of the drones.
+ * Every criterion is optional; a drone matches if it meets all given criteria. Ranges are inclusive, and a drone
+ * whose value for a criterion is missing does not match that criterion.
+ * Example: cooling=true, heating=true, minCapacity=8, minMaxMoves=1500, maxCostPerMove=0.05
+ */
+public record DroneQuery(
+        Boolean cooling,
+        Boolean heating,
+        Double minCapacity,
+        Double maxCapacity,
+        Integer minMaxMoves,
+        Integer maxMaxMoves,
+        Double minCostPerMove,
+        Double maxCostPerMove,
+        Double minCostInitial,
+        Double maxCostInitial,
+        Double minCostFinal,
+        Double maxCostFinal
+) {}
@@ -0,0 +1,19 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents the outcome of a path validation. Only valid is set if the path enters no restricted area.
+ * @param valid true if no segment of the path enters a restricted area
+ * @param segment the index of the first violating segment, which runs from path[segment] to path[segment + 1]
+ * @param from the start of the violating segment
+ * @param to the end of the violating segment
+ * @param areaIndex the index of the restricted area it enters (the lowest if it enters several)
+ * @param areaName the name of that restricted area
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PathValidation(boolean valid, Integer segment, Position from, Position to, Integer areaIndex, String areaName) {
+    public static PathValidation ok() {
+        return new PathValidation(true, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,25 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Represents a request to check that a flight path never enters any of the given restricted areas,
+ * neither at a position nor between two consecutive positions.
+ */
+public record PathValidationRequest(
+        @NotNull(message = "Path is required!")
+        @Size(min = 1, message = "Path must have at least 1 position!")
+        @Valid
+        // Bound to a flat PositionList, which the path check reads without copying
+        @JsonDeserialize(using = PositionList.Deserializer.class)
+        List<Position> path,
+
+        @NotNull(message = "Restricted areas are required!")
+        @Valid
+        List<Region> restrictedAreas
+) {}
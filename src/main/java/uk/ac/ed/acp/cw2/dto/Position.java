@@ -4,6 +4,8 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.Objects;
+
 /**
  * Represents a geographic position with longitude and latitude in degrees.
  */
@@ -17,4 +19,12 @@ public record Position(
         @Min(value = -90, message = "Latitude cannot be under 90!")
         @Max(value = 90, message = "Latitude cannot be over 90!")
         Double lat
-) {}
\ No newline at end of file
+) {
+    /**
+     * The hash of the record, written out so that {@link PositionList} can compute the same from its coordinates.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hashCode(lng) + Objects.hashCode(lat);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of positions stored as one flat array (lng0, lat0, lng1, lat1, ...).
+ * Used for the vertices of a {@link Region}: a polygon of n vertices is one double[] instead of
+ * n Position objects and 2n boxed doubles. Positions are created on access, so code that only needs the
+ * coordinates should use {@link #coords()}.
+ */
+public final class PositionList extends AbstractList<Position> implements RandomAccess {
+    private final double[] coords;
+
+    /**
+     * @param coords the positions as (lng, lat) pairs; the array is kept, not copied, and must not be modified
+     */
+    public PositionList(double[] coords) {
+        if (coords.length % 2 != 0) throw new IllegalArgumentException("Coordinates must be (lng, lat) pairs");
+        this.coords = coords;
+    }
+
+    /**
+     * Returns the flat coordinates without copying them; they must not be modified.
+     * @return double[]: the positions as (lng, lat) pairs
+     */
+    public double[] coords() {
+        return coords;
+    }
+
+    @Override
+    public Position get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException(index);
+        return new Position(coords[2 * index], coords[2 * index + 1]);
+    }
+
+    @Override
+    public int size() {
+        return coords.length / 2;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other instanceof PositionList list) return Arrays.equals(coords, list.coords);
+        return super.equals(other);
+    }
+
+    /**
+     * The hash defined by {@link List#hashCode()}, with the hash of each {@link Position}, computed from the
+     * coordinates without creating the positions.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < coords.length; i += 2) {
+            hash = 31 * hash + 31 * Double.hashCode(coords[i]) + Double.hashCode(coords[i + 1]);
+        }
+        return hash;
+    }
+
+    /**
+     * Deserializes a JSON array of positions into a PositionList.
+     * Every element is bound as a {@link Position} first, so coercions and errors are the same as for a plain list.
+     * If an element or one of its coordinates is null, the result is a plain list instead, so that validation
+     * still reports it as missing.
+     */
+    public static final class Deserializer extends JsonDeserializer<List<Position>> {
+        @Override
+        public List<Position> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartArrayToken()) {
+                return context.reportInputMismatch(List.class, "Expected an array of positions");
+            }
+            double[] coords = new double[16];
+            List<Position> withNulls = null;
+            int size = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Position position = parser.currentToken() == JsonToken.VALUE_NULL ? null : context.readValue(parser, Position.class);
+                if (withNulls == null && (position == null || position.lng() == null || position.lat() == null)) {
+                    withNulls = new ArrayList<>(new PositionList(Arrays.copyOf(coords, 2 * size)));
+                }
+                if (withNulls != null) {
+                    withNulls.add(position);
+                    continue;
+                }
+                if (2 * size == coords.length) coords = Arrays.copyOf(coords, coords.length * 2);
+                coords[2 * size] = position.lng();
+                coords[2 * size + 1] = position.lat();
+                size++;
+            }
+            return withNulls != null ? withNulls : new PositionList(Arrays.copyOf(coords, 2 * size));
+        }
+    }
+}
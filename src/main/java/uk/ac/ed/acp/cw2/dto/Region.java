@@ -1,5 +1,6 @@
 package uk.ac.ed.acp.cw2.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -16,5 +17,7 @@ public record Region(
         @NotNull(message = "Vertices are required!")
         @Size(min = 4, message = "Region must have at least 4 vertices!")
         @Valid
+        // Bound to a flat PositionList rather than a Position per vertex
+        @JsonDeserialize(using = PositionList.Deserializer.class)
         List<Position> vertices
 ) {}
@@ -0,0 +1,22 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Represents a request to check for many positions if they are inside one region.
+ * The positions are validated one by one, so an invalid position only rejects itself.
+ */
+public record RegionBatchRequest(
+        @NotNull(message = "Region is required!")
+        @Valid
+        Region region,
+
+        @NotNull(message = "Positions are required!")
+        // Bound to a flat PositionList, which the bulk engine reads without copying
+        @JsonDeserialize(using = PositionList.Deserializer.class)
+        List<Position> positions
+) {}
@@ -0,0 +1,9 @@
+package uk.ac.ed.acp.cw2.dto;
+
+/**
+ * Represents the positions of a simulated flight as parallel coordinate arrays.
+ * Index 0 is the start position, index i the position after move i.
+ * @param lng the longitudes
+ * @param lat the latitudes
+ */
+public record Trajectory(double[] lng, double[] lat) {}
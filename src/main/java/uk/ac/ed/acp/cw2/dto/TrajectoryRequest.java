@@ -0,0 +1,16 @@
+package uk.ac.ed.acp.cw2.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Represents a request to simulate a flight from a start position through a sequence of move angles.
+ */
+public record TrajectoryRequest(
+        @NotNull(message = "Position is required!")
+        @Valid
+        Position start,
+
+        @NotNull(message = "Angles are required!")
+        double[] angles
+) {}
@@ -0,0 +1,148 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Engine for checking many points against one {@link PreparedPolygon} or {@link FixedPointPolygon}.
+ * The points are split into contiguous ranges, one per requested worker, which run on a fork-join pool.
+ * Each range runs the SIMD kernel of {@link VectorContainment} if the Vector API is available,
+ * or {@link PreparedPolygon#contains} point by point otherwise. Both give identical results.
+ * <p>
+ * The Vector API is an incubator module in Java 21, so it is only used when the JVM runs with
+ * {@code --add-modules jdk.incubator.vector} and the CPU has vectors of at least two doubles.
+ */
+public final class BulkContainment implements AutoCloseable {
+    // Ranges smaller than this are not split further: below it the fork costs more than it saves
+    static final int MIN_RANGE = 4096;
+
+    private final ForkJoinPool pool;
+    private final boolean vector;
+
+    /**
+     * @param parallelism the number of worker threads, and the largest parallelism a call may ask for
+     * @param useVector whether to use the Vector API if it is available
+     */
+    public BulkContainment(int parallelism, boolean useVector) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.pool = new ForkJoinPool(parallelism);
+        this.vector = useVector && vectorAvailable();
+    }
+
+    /**
+     * Checks if the Vector API module is present in this JVM and the CPU supports vectors of at least two doubles.
+     * @return true if the SIMD kernel can be used
+     */
+    public static boolean vectorAvailable() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return VectorContainment.lanes() >= 2;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the SIMD kernel is used, false if the scalar one is
+     */
+    public boolean vectorEnabled() {
+        return vector;
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int parallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Checks for every point if it is inside (or on the border) of the polygon, see {@link PreparedPolygon#contains}.
+     * @param polygon the prepared polygon
+     * @param points the points as (lng, lat) pairs
+     * @param parallelism the largest number of workers to use, capped at {@link #parallelism()}
+     * @return boolean[]: true for each point inside the polygon, in the same order
+     */
+    public boolean[] contains(PreparedPolygon polygon, double[] points, int parallelism) {
+        return contains(points, parallelism, (inside, from, to) -> contains(polygon, points, inside, from, to));
+    }
+
+    /**
+     * Checks for every point if it is inside (or on the border) of a fixed-point polygon,
+     * see {@link FixedPointPolygon#contains}. There is no SIMD kernel for fixed point; the ranges run point by point.
+     * @param polygon the fixed-point polygon
+     * @param points the points as (lng, lat) pairs
+     * @param parallelism the largest number of workers to use, capped at {@link #parallelism()}
+     * @return boolean[]: true for each point inside the polygon, in the same order
+     */
+    public boolean[] contains(FixedPointPolygon polygon, double[] points, int parallelism) {
+        return contains(points, parallelism, (inside, from, to) -> {
+            for (int i = from; i < to; i++) inside[i] = polygon.contains(points[2 * i], points[2 * i + 1]);
+        });
+    }
+
+    private boolean[] contains(double[] points, int parallelism, RangeKernel kernel) {
+        if (points.length % 2 != 0) throw new IllegalArgumentException("Coordinates must be (lng, lat) pairs");
+        int count = points.length / 2;
+        boolean[] inside = new boolean[count];
+        int workers = Math.clamp(Math.min(parallelism, count / MIN_RANGE), 1, pool.getParallelism());
+        if (workers == 1) {
+            kernel.contains(inside, 0, count);
+        } else {
+            pool.invoke(new RangeTask(kernel, inside, 0, count, workers));
+        }
+        return inside;
+    }
+
+    private void contains(PreparedPolygon polygon, double[] points, boolean[] inside, int from, int to) {
+        if (vector) {
+            VectorContainment.contains(polygon, points, inside, from, to);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            inside[i] = polygon.contains(points[2 * i], points[2 * i + 1]);
+        }
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Checks the points of one range, writing the results to {@code inside[from .. to-1]}.
+     */
+    private interface RangeKernel {
+        void contains(boolean[] inside, int from, int to);
+    }
+
+    /**
+     * Splits a range of points into {@code parts} ranges of about the same size,
+     * so that at most that many workers run at the same time.
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private final RangeKernel kernel;
+        private final boolean[] inside;
+        private final int from, to, parts;
+
+        private RangeTask(RangeKernel kernel, boolean[] inside, int from, int to, int parts) {
+            this.kernel = kernel;
+            this.inside = inside;
+            this.from = from;
+            this.to = to;
+            this.parts = parts;
+        }
+
+        @Override
+        protected void compute() {
+            if (parts == 1) {
+                kernel.contains(inside, from, to);
+                return;
+            }
+            int leftParts = parts / 2;
+            int middle = from + (int) ((long) (to - from) * leftParts / parts);
+            invokeAll(new RangeTask(kernel, inside, from, middle, leftParts),
+                    new RangeTask(kernel, inside, middle, to, parts - leftParts));
+        }
+    }
+}
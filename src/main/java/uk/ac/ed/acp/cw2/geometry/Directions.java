@@ -0,0 +1,47 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * The 16 legal drone move directions (multiples of 22.5°) and their precomputed step deltas.
+ * Angles are interpreted as 0° = East, 90° = North, 180° = West, 270° = South.
+ */
+public final class Directions {
+    public static final double STEP_SIZE = 0.00015;
+    public static final double ANGLE_STEP = 22.5;
+    public static final int COUNT = 16;
+
+    // Change of longitude / latitude of one step in each direction, indexed by angle / 22.5
+    private static final double[] DELTA_LNG = new double[COUNT];
+    private static final double[] DELTA_LAT = new double[COUNT];
+
+    static {
+        for (int direction = 0; direction < COUNT; direction++) {
+            double radians = Math.toRadians(direction * ANGLE_STEP);
+            DELTA_LNG[direction] = STEP_SIZE * Math.cos(radians); // cos(angle) adjusts longitude
+            DELTA_LAT[direction] = STEP_SIZE * Math.sin(radians); // sin(angle) adjusts latitude
+        }
+    }
+
+    private Directions() {}
+
+    /**
+     * Returns the direction index of an angle.
+     * @param angle the angle in degrees
+     * @return the index 0..15 (360° is the same direction as 0°), or -1 if the angle is not a multiple of 22.5
+     */
+    public static int indexOf(double angle) {
+        if (angle % ANGLE_STEP != 0) return -1;
+        return (int) Math.floorMod((long) (angle / ANGLE_STEP), COUNT);
+    }
+
+    public static double deltaLng(int direction) {
+        return DELTA_LNG[direction];
+    }
+
+    public static double deltaLat(int direction) {
+        return DELTA_LAT[direction];
+    }
+
+    public static double angleOf(int direction) {
+        return direction * ANGLE_STEP;
+    }
+}
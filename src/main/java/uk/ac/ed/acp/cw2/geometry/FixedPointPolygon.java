@@ -0,0 +1,183 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A polygon prepared for repeated point-in-polygon queries in fixed point.
+ * The vertices are quantized to int units of {@link #UNIT} degrees (about 1 cm), and the on-edge and ray tests use
+ * exact long cross products, so there is no epsilon: a point is on an edge iff its quantized position is collinear
+ * with the edge and between its vertices. The vertices take half the memory of a {@link PreparedPolygon}.
+ * <p>
+ * Apart from the quantization, the results are those of {@link PreparedPolygon#contains}: a point on the border is
+ * inside, otherwise the even-odd rule applies. Edge i connects vertex i with vertex i-1.
+ * <p>
+ * Longitudes must be within [-180, 180] and latitudes within [-90, 90], as the request validation ensures.
+ * The differences of two coordinates then fit in 32 bits (x) and 31 bits (y), so the products of an x and a
+ * y difference fit in a long, and two such products are compared instead of subtracted.
+ */
+public final class FixedPointPolygon implements PolygonContainment {
+    // Units per degree
+    public static final int SCALE = 10_000_000;
+    // The size of one unit in degrees
+    public static final double UNIT = 1.0 / SCALE;
+    // An edge may be listed in this many bands per vertex on average before the bands get coarser
+    private static final int MAX_ENTRIES_PER_EDGE = 8;
+
+    private final int[] coords;
+    private final int vertexCount;
+    private final int minX, maxX, minY, maxY;
+
+    // Edge index: the edges of band b are bandEdges[bandStart[b] .. bandStart[b+1]-1]
+    private final int bandCount;
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    /**
+     * Prepares a polygon from its flat coordinates in degrees, quantized with {@link #toFixed(double)}.
+     * @param coords the vertices as (lng, lat) pairs
+     * @throws IllegalArgumentException if a coordinate is out of range
+     */
+    public FixedPointPolygon(double[] coords) {
+        if (coords.length < 2 || coords.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be (lng, lat) pairs");
+        }
+        this.vertexCount = coords.length / 2;
+        this.coords = new int[coords.length];
+        int lowX = Integer.MAX_VALUE, highX = Integer.MIN_VALUE, lowY = Integer.MAX_VALUE, highY = Integer.MIN_VALUE;
+        for (int i = 0; i < vertexCount; i++) {
+            int x = toFixed(coords[2 * i], 180), y = toFixed(coords[2 * i + 1], 90);
+            this.coords[2 * i] = x;
+            this.coords[2 * i + 1] = y;
+            lowX = Math.min(lowX, x);
+            highX = Math.max(highX, x);
+            lowY = Math.min(lowY, y);
+            highY = Math.max(highY, y);
+        }
+        this.minX = lowX; this.maxX = highX; this.minY = lowY; this.maxY = highY;
+
+        int bands = vertexCount;
+        while (bands > 1 && countEntries(bands) > (long) MAX_ENTRIES_PER_EDGE * vertexCount) bands /= 2;
+        this.bandCount = bands;
+        this.bandStart = new int[bands + 1];
+        this.bandEdges = new int[(int) countEntries(bands)];
+        buildBands();
+    }
+
+    /**
+     * Quantizes a coordinate in degrees to the nearest unit.
+     * @param degrees the longitude or latitude
+     * @return the coordinate in units of {@link #UNIT} degrees
+     * @throws IllegalArgumentException if the coordinate is not within [-180, 180]
+     */
+    public static int toFixed(double degrees) {
+        return toFixed(degrees, 180);
+    }
+
+    private static int toFixed(double degrees, int limit) {
+        if (!(degrees >= -limit && degrees <= limit)) {
+            throw new IllegalArgumentException("Coordinate out of range for fixed point: " + degrees);
+        }
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public double lng(int vertex) {
+        return coords[2 * vertex] * UNIT;
+    }
+
+    public double lat(int vertex) {
+        return coords[2 * vertex + 1] * UNIT;
+    }
+
+    @Override public double minX() { return minX * UNIT; }
+    @Override public double maxX() { return maxX * UNIT; }
+    @Override public double minY() { return minY * UNIT; }
+    @Override public double maxY() { return maxY * UNIT; }
+
+    /**
+     * Checks if the point is inside (or on the border) of the polygon, after quantizing it like the vertices.
+     * @param x the longitude of the point
+     * @param y the latitude of the point
+     * @return true if the point is inside or on the border, false otherwise
+     */
+    @Override
+    public boolean contains(double x, double y) {
+        // Out of range (or NaN) points cannot be inside, and would not quantize
+        if (!(x >= -180 && x <= 180 && y >= -90 && y <= 90)) return false;
+        return containsFixed(Math.round(x * SCALE), Math.round(y * SCALE));
+    }
+
+    /**
+     * Checks if the point given in units of {@link #UNIT} degrees is inside (or on the border) of the polygon.
+     * @param x the longitude of the point in units
+     * @param y the latitude of the point in units
+     * @return true if the point is inside or on the border, false otherwise
+     */
+    public boolean containsFixed(long x, long y) {
+        // Outside the bounding box no edge is touched; inside it all differences below stay within the box
+        if (x < minX || x > maxX || y < minY || y > maxY) return false;
+
+        int band = bandOf(y, bandCount);
+        int count = 0;
+        for (int k = bandStart[band], end = bandStart[band + 1]; k < end; k++) {
+            int current = bandEdges[k];
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            long currentX = coords[2 * current], currentY = coords[2 * current + 1];
+            long previousX = coords[2 * previous], previousY = coords[2 * previous + 1];
+
+            // Cross product of the edge and the point, as the comparison of its two terms
+            int cross = Long.compare((y - currentY) * (previousX - currentX), (previousY - currentY) * (x - currentX));
+            if (cross == 0 && x >= Math.min(currentX, previousX) && x <= Math.max(currentX, previousX)
+                    && y >= Math.min(currentY, previousY) && y <= Math.max(currentY, previousY)) {
+                return true;
+            }
+            // The ray to the right crosses the edge if the point is between its y-coordinates and left of it,
+            // i.e. on the left of the edge directed upwards
+            if ((y < currentY) != (y < previousY) && (previousY > currentY ? cross > 0 : cross < 0)) count += 1;
+        }
+        return count % 2 == 1;
+    }
+
+    @Override
+    public long footprintBytes() {
+        return 4L * coords.length + 4L * bandStart.length + 4L * bandEdges.length;
+    }
+
+    /**
+     * Returns the band of a y-coordinate; the bands split [minY, maxY] into equal parts.
+     */
+    private int bandOf(long y, int bands) {
+        long band = (y - minY) * bands / ((long) maxY - minY + 1);
+        return (int) Math.clamp(band, 0, bands - 1);
+    }
+
+    private long countEntries(int bands) {
+        long entries = 0;
+        for (int current = 0; current < vertexCount; current++) {
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            int currentY = coords[2 * current + 1], previousY = coords[2 * previous + 1];
+            entries += bandOf(Math.max(currentY, previousY), bands) - bandOf(Math.min(currentY, previousY), bands) + 1;
+        }
+        return entries;
+    }
+
+    private void buildBands() {
+        int[] firstBand = new int[vertexCount], lastBand = new int[vertexCount];
+        for (int current = 0; current < vertexCount; current++) {
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            int currentY = coords[2 * current + 1], previousY = coords[2 * previous + 1];
+            firstBand[current] = bandOf(Math.min(currentY, previousY), bandCount);
+            lastBand[current] = bandOf(Math.max(currentY, previousY), bandCount);
+            for (int b = firstBand[current]; b <= lastBand[current]; b++) bandStart[b + 1]++;
+        }
+        for (int b = 0; b < bandCount; b++) bandStart[b + 1] += bandStart[b];
+
+        int[] next = Arrays.copyOf(bandStart, bandCount);
+        for (int edge = 0; edge < vertexCount; edge++) {
+            for (int b = firstBand[edge]; b <= lastBand[edge]; b++) bandEdges[next[b]++] = edge;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * The geometry operations of the service on primitive doubles and flat coordinate arrays.
+ * Positions are (lng, lat) pairs and polygons are arrays (lng0, lat0, lng1, lat1, ...), so no operation
+ * needs Position objects or boxed doubles; the DTOs are converted at the boundary, in PositionService.
+ * <p>
+ * Distances are Euclidean in degrees. Angles are interpreted as 0° = East, 90° = North, 180° = West, 270° = South.
+ */
+public final class GeometryCore {
+    // Tolerance of the on-edge test of the containment check
+    public static final double EPSILON = 1e-12;
+
+    private GeometryCore() {}
+
+    /**
+     * Calculates the Euclidean distance between two positions in degrees.
+     */
+    public static double distance(double lng1, double lat1, double lng2, double lat2) {
+        double lngDistance = lng1 - lng2, latDistance = lat1 - lat2;
+        return Math.sqrt(lngDistance * lngDistance + latDistance * latDistance);
+    }
+
+    /**
+     * Checks if the distance between two positions is less than a threshold.
+     */
+    public static boolean isCloseTo(double lng1, double lat1, double lng2, double lat2, double threshold) {
+        return distance(lng1, lat1, lng2, lat2) < threshold;
+    }
+
+    /**
+     * Calculates the distances of position pairs.
+     * @param records (lng1, lat1, lng2, lat2) for each pair
+     * @param distances the array to write the distance of each pair to
+     */
+    public static void distances(double[] records, double[] distances) {
+        for (int i = 0, r = 0; i < distances.length; i++, r += 4) {
+            distances[i] = distance(records[r], records[r + 1], records[r + 2], records[r + 3]);
+        }
+    }
+
+    /**
+     * Calculates the position one step of {@link Directions#STEP_SIZE} away at an angle.
+     * The 16 legal angles use the precomputed deltas of the {@link Directions} table, others are computed directly.
+     * @param lng the longitude of the start
+     * @param lat the latitude of the start
+     * @param angle the angle in degrees
+     * @param out the array to write the next (lng, lat) to
+     * @param offset the index of the lng in out
+     */
+    public static void nextPosition(double lng, double lat, double angle, double[] out, int offset) {
+        int direction = Directions.indexOf(angle);
+        if (direction >= 0) {
+            out[offset] = lng + Directions.deltaLng(direction);
+            out[offset + 1] = lat + Directions.deltaLat(direction);
+            return;
+        }
+        double radians = Math.toRadians(angle);
+        out[offset] = lng + Directions.STEP_SIZE * Math.cos(radians); // cos(angle) adjusts longitude
+        out[offset + 1] = lat + Directions.STEP_SIZE * Math.sin(radians); // sin(angle) adjusts latitude
+    }
+
+    /**
+     * Calculates the next positions of start positions and angles.
+     * @param records (lng, lat, angle) for each start
+     * @param positions the array to write the next (lng, lat) of each start to
+     */
+    public static void nextPositions(double[] records, double[] positions) {
+        for (int r = 0, p = 0; p < positions.length; r += 3, p += 2) {
+            nextPosition(records[r], records[r + 1], records[r + 2], positions, p);
+        }
+    }
+
+    /**
+     * Checks if two positions are the same, with the semantics of Double.equals (so -0.0 differs from 0.0).
+     */
+    public static boolean samePosition(double lng1, double lat1, double lng2, double lat2) {
+        return Double.doubleToLongBits(lng1) == Double.doubleToLongBits(lng2)
+                && Double.doubleToLongBits(lat1) == Double.doubleToLongBits(lat2);
+    }
+
+    /**
+     * Checks if a polygon is closed: its first and last vertices are the same.
+     * @param coords the vertices (at least one)
+     * @return true if closed
+     */
+    public static boolean isClosed(double[] coords) {
+        int last = coords.length - 2;
+        return samePosition(coords[0], coords[1], coords[last], coords[last + 1]);
+    }
+
+    /**
+     * Checks if a point lies on the edge from (currentX, currentY) to (previousX, previousY), within {@link #EPSILON}.
+     */
+    public static boolean isOnEdge(double x, double y, double currentX, double currentY, double previousX, double previousY) {
+        // Cross product of the edge and the point: (nearly) zero if collinear
+        double cross = (y - currentY) * (previousX - currentX) - (previousY - currentY) * (x - currentX);
+        return Math.abs(cross) < EPSILON &&
+                // Check if the point is between the vertices
+                x >= Math.min(currentX, previousX) - EPSILON && x <= Math.max(currentX, previousX) + EPSILON &&
+                y >= Math.min(currentY, previousY) - EPSILON && y <= Math.max(currentY, previousY) + EPSILON;
+    }
+
+    /**
+     * Checks if a ray cast from the point to the right crosses the edge from (currentX, currentY) to (previousX, previousY).
+     */
+    public static boolean crossesRay(double x, double y, double currentX, double currentY, double previousX, double previousY) {
+        if ((y < currentY) == (y < previousY)) return false; // Ray is not between the edge's y-coords
+        // The x-coordinate where the edge intersects the ray
+        double xIntersect = currentX + ((y - currentY) / (previousY - currentY)) * (previousX - currentX);
+        return x < xIntersect;
+    }
+
+    /**
+     * Checks if a point is inside (or on the border) of a polygon with the ray-casting algorithm (even–odd rule).
+     * A point on a vertex or within {@link #EPSILON} of an edge is inside.
+     * Tests every edge, so use a {@link PreparedPolygon} for repeated queries against the same polygon.
+     * @param coords the vertices as (lng, lat) pairs
+     * @param x the longitude of the point
+     * @param y the latitude of the point
+     * @return true if inside, false otherwise
+     */
+    public static boolean contains(double[] coords, double x, double y) {
+        int n = coords.length / 2;
+        for (int i = 0; i < n; i++) {
+            if (samePosition(coords[2 * i], coords[2 * i + 1], x, y)) return true;
+        }
+        int count = 0;
+        for (int current = 0, previous = n - 1; current < n; previous = current++) {
+            double currentX = coords[2 * current], currentY = coords[2 * current + 1];
+            double previousX = coords[2 * previous], previousY = coords[2 * previous + 1];
+            if (isOnEdge(x, y, currentX, currentY, previousX, previousY)) return true;
+            if (crossesRay(x, y, currentX, currentY, previousX, previousY)) count += 1;
+        }
+        return count % 2 == 1;
+    }
+}
@@ -0,0 +1,192 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Weighted A* search over the drone move lattice: from every position the drone can move one step of 0.00015°
+ * in one of the 16 directions at multiples of 22.5°. The goal is reached when the drone is close to the target
+ * (distance below one step), and no move may end in or cross one of the obstacle polygons.
+ * <p>
+ * The 16 directions do not form an exact grid, so positions are snapped to cells of a quarter step to detect
+ * revisits. Cells are packed into long keys and all node state is kept in primitive arrays.
+ * An instance holds the search state and is not thread-safe: use one per search.
+ */
+public final class LatticePathPlanner {
+    public static final double STEP_SIZE = Directions.STEP_SIZE;
+    private static final double CELL_SIZE = STEP_SIZE / 4;
+
+    /**
+     * Outcome of a search.
+     * @param found true if the goal was reached
+     * @param path the positions from the start to the last position as (lng, lat) pairs (empty if not found)
+     * @param angles the angle of each move, one less than the number of positions (empty if not found)
+     * @param nodesExpanded the number of nodes taken from the open set
+     */
+    public record Result(boolean found, double[] path, double[] angles, int nodesExpanded) {}
+
+    private final PreparedPolygon[] obstacles;
+    private final double heuristicWeight;
+
+    // Node state, indexed by node id
+    private double[] lng = new double[1024], lat = new double[1024];
+    private int[] parent = new int[1024], moves = new int[1024];
+    private byte[] direction = new byte[1024];
+    private boolean[] closed = new boolean[1024];
+    private int nodeCount;
+
+    // Open set: binary min-heap of node ids by f-value. Stale entries are skipped when popped (lazy deletion).
+    private double[] heapKeys = new double[1024];
+    private int[] heapNodes = new int[1024];
+    private int heapSize;
+
+    /**
+     * Creates a planner.
+     * @param obstacles the polygons the path must stay out of
+     * @param heuristicWeight the weight of the heuristic (1 = plain A*, above 1 = faster but possibly longer paths)
+     */
+    public LatticePathPlanner(PreparedPolygon[] obstacles, double heuristicWeight) {
+        this.obstacles = obstacles;
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Searches a path from the start to the goal.
+     * @param startLng the longitude of the start
+     * @param startLat the latitude of the start
+     * @param goalLng the longitude of the goal
+     * @param goalLat the latitude of the goal
+     * @param maxNodes the maximum number of nodes to expand
+     * @param deadlineNanos the {@link System#nanoTime()} after which the search gives up
+     * @return the result of the search
+     */
+    public Result search(double startLng, double startLat, double goalLng, double goalLat, int maxNodes, long deadlineNanos) {
+        LongIntHashMap cells = new LongIntHashMap(1024);
+        int start = addNode(startLng, startLat, -1, 0, (byte) -1);
+        cells.put(cellOf(startLng, startLat), start);
+        push(heuristicWeight * heuristic(startLng, startLat, goalLng, goalLat), start);
+
+        int expanded = 0;
+        while (heapSize > 0) {
+            int node = pop();
+            if (closed[node]) continue;
+            closed[node] = true;
+            expanded++;
+
+            if (distance(lng[node], lat[node], goalLng, goalLat) < STEP_SIZE) return toResult(node, expanded);
+            // Checking the clock is not free, so only do it every 256 nodes
+            if (expanded >= maxNodes || ((expanded & 0xFF) == 0 && System.nanoTime() > deadlineNanos)) break;
+
+            for (int d = 0; d < Directions.COUNT; d++) {
+                double nextLng = lng[node] + Directions.deltaLng(d), nextLat = lat[node] + Directions.deltaLat(d);
+                int nextMoves = moves[node] + 1;
+                long cell = cellOf(nextLng, nextLat);
+                int existing = cells.get(cell);
+                if (existing >= 0 && (closed[existing] || moves[existing] <= nextMoves)) continue;
+                if (isBlocked(lng[node], lat[node], nextLng, nextLat)) continue;
+
+                int next;
+                if (existing < 0) {
+                    next = addNode(nextLng, nextLat, node, nextMoves, (byte) d);
+                    cells.put(cell, next);
+                } else {
+                    // A shorter way into an open cell: the node has no children yet, so it can simply be moved
+                    next = existing;
+                    lng[next] = nextLng; lat[next] = nextLat;
+                    parent[next] = node; moves[next] = nextMoves; direction[next] = (byte) d;
+                }
+                push(nextMoves + heuristicWeight * heuristic(nextLng, nextLat, goalLng, goalLat), next);
+            }
+        }
+        return new Result(false, new double[0], new double[0], expanded);
+    }
+
+    private boolean isBlocked(double fromLng, double fromLat, double toLng, double toLat) {
+        for (PreparedPolygon obstacle : obstacles) {
+            if (obstacle.intersectsSegment(fromLng, fromLat, toLng, toLat)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Lower bound of the remaining moves: the goal counts as reached one step before the target.
+     */
+    private static double heuristic(double lng, double lat, double goalLng, double goalLat) {
+        return Math.max(0, distance(lng, lat, goalLng, goalLat) - STEP_SIZE) / STEP_SIZE;
+    }
+
+    private static double distance(double lng1, double lat1, double lng2, double lat2) {
+        double lngDistance = lng1 - lng2, latDistance = lat1 - lat2;
+        return Math.sqrt(lngDistance * lngDistance + latDistance * latDistance);
+    }
+
+    private static long cellOf(double lng, double lat) {
+        long cellX = Math.round(lng / CELL_SIZE), cellY = Math.round(lat / CELL_SIZE);
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    private Result toResult(int goal, int expanded) {
+        int length = moves[goal] + 1;
+        double[] path = new double[2 * length];
+        double[] angles = new double[length - 1];
+        for (int node = goal, i = length - 1; node >= 0; node = parent[node], i--) {
+            path[2 * i] = lng[node];
+            path[2 * i + 1] = lat[node];
+            if (i > 0) angles[i - 1] = Directions.angleOf(direction[node]);
+        }
+        return new Result(true, path, angles, expanded);
+    }
+
+    private int addNode(double nodeLng, double nodeLat, int nodeParent, int nodeMoves, byte nodeDirection) {
+        if (nodeCount == lng.length) {
+            int capacity = nodeCount * 2;
+            lng = Arrays.copyOf(lng, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            closed = Arrays.copyOf(closed, capacity);
+        }
+        lng[nodeCount] = nodeLng;
+        lat[nodeCount] = nodeLat;
+        parent[nodeCount] = nodeParent;
+        moves[nodeCount] = nodeMoves;
+        direction[nodeCount] = nodeDirection;
+        return nodeCount++;
+    }
+
+    private void push(double key, int node) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) break;
+            heapKeys[i] = heapKeys[up];
+            heapNodes[i] = heapNodes[up];
+            i = up;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        double key = heapKeys[--heapSize];
+        int node = heapNodes[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) child++;
+            if (key <= heapKeys[child]) break;
+            heapKeys[i] = heapKeys[child];
+            heapNodes[i] = heapNodes[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+        return top;
+    }
+}
@@ -0,0 +1,81 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to non-negative int values, without boxing.
+ * Used by the path planner to map packed lattice cells to node ids. Entries cannot be removed.
+ */
+public final class LongIntHashMap {
+    private static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns the value for a key.
+     * @param key the key
+     * @return the value, or -1 if the key is not in the map
+     */
+    public int get(long key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING) return MISSING;
+            if (keys[slot] == key) return values[slot];
+        }
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value.
+     * @param key the key
+     * @param value the value, must not be negative
+     */
+    public void put(long key, int value) {
+        if (value < 0) throw new IllegalArgumentException("Value must not be negative: " + value);
+        if (2 * (size + 1) > keys.length) grow();
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            if (values[slot] == MISSING) {
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+                return;
+            }
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slotOf(long key) {
+        // Fibonacci hashing spreads the packed coordinates over the table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Checks whole flight paths against a fixed set of prepared polygons.
+ * The bounding boxes of the polygons are bucketed into a uniform grid, so each segment of a path is only tested
+ * against the polygons listed in the cells its own bounding box overlaps; within a polygon,
+ * {@link PreparedPolygon#intersectsSegment} only tests the edges of the y-bands the segment spans.
+ * A path of short moves therefore costs a few array lookups per segment away from the polygons,
+ * instead of a test against every edge of every polygon.
+ * <p>
+ * Segment i runs from position i to position i+1. It violates a polygon if it touches or crosses an edge or ends
+ * inside, so a path that starts inside a polygon violates it with segment 0. A path of one position is checked as
+ * the segment from that position to itself.
+ */
+public final class PathValidator {
+    private static final double EPSILON = GeometryCore.EPSILON;
+    // The grid has at most this many columns and rows
+    private static final int MAX_CELLS_PER_AXIS = 64;
+
+    /**
+     * The first segment of a path that enters a polygon.
+     * @param segment the index of the segment, i.e. of its start position
+     * @param polygon the index of the polygon (the lowest one if the segment enters several)
+     */
+    public record Violation(int segment, int polygon) {}
+
+    private final PreparedPolygon[] polygons;
+    // The grid covers the bounding boxes of all polygons, widened by EPSILON
+    private final double minX, minY, maxX, maxY, cellWidth, cellHeight;
+    private final int columns, rows;
+    // The polygons of cell c are cellPolygons[cellStart[c] .. cellStart[c+1]-1], in ascending order
+    private final int[] cellStart;
+    private final int[] cellPolygons;
+
+    /**
+     * Builds the grid over the bounding boxes of the polygons.
+     * @param polygons the polygons to check paths against; the array is kept, not copied
+     */
+    public PathValidator(PreparedPolygon[] polygons) {
+        this.polygons = polygons;
+        double lowX = Double.POSITIVE_INFINITY, highX = Double.NEGATIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+        for (PreparedPolygon polygon : polygons) {
+            lowX = Math.min(lowX, polygon.minX());
+            highX = Math.max(highX, polygon.maxX());
+            lowY = Math.min(lowY, polygon.minY());
+            highY = Math.max(highY, polygon.maxY());
+        }
+        this.minX = lowX - EPSILON;
+        this.minY = lowY - EPSILON;
+        this.maxX = highX + EPSILON;
+        this.maxY = highY + EPSILON;
+        // About four cells per polygon, so most cells list only the polygons really near them
+        int cells = Math.clamp((long) Math.ceil(2 * Math.sqrt(polygons.length)), 1, MAX_CELLS_PER_AXIS);
+        this.columns = polygons.length == 0 ? 1 : cells;
+        this.rows = columns;
+        this.cellWidth = cellSize(maxX - minX, columns);
+        this.cellHeight = cellSize(maxY - minY, rows);
+
+        this.cellStart = new int[columns * rows + 1];
+        for (PreparedPolygon polygon : polygons) {
+            forEachCell(polygon, cell -> cellStart[cell + 1]++);
+        }
+        for (int cell = 0; cell < columns * rows; cell++) cellStart[cell + 1] += cellStart[cell];
+        this.cellPolygons = new int[cellStart[columns * rows]];
+        int[] next = Arrays.copyOf(cellStart, columns * rows);
+        for (int p = 0; p < polygons.length; p++) {
+            int polygon = p;
+            forEachCell(polygons[p], cell -> cellPolygons[next[cell]++] = polygon);
+        }
+    }
+
+    private static double cellSize(double extent, int count) {
+        double size = extent / count;
+        return size > 0 ? size : 1;
+    }
+
+    private void forEachCell(PreparedPolygon polygon, IntConsumer consumer) {
+        int firstColumn = column(polygon.minX() - EPSILON), lastColumn = column(polygon.maxX() + EPSILON);
+        int firstRow = row(polygon.minY() - EPSILON), lastRow = row(polygon.maxY() + EPSILON);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) consumer.accept(r * columns + c);
+        }
+    }
+
+    private int column(double x) {
+        int column = (int) ((x - minX) / cellWidth);
+        return column < 0 ? 0 : Math.min(column, columns - 1);
+    }
+
+    private int row(double y) {
+        int row = (int) ((y - minY) / cellHeight);
+        return row < 0 ? 0 : Math.min(row, rows - 1);
+    }
+
+    /**
+     * Finds the first segment of a path that enters one of the polygons.
+     * @param path the positions of the path as (lng, lat) pairs
+     * @return the first violation, or null if the path enters no polygon (or is empty)
+     */
+    public Violation firstViolation(double[] path) {
+        int positions = path.length / 2;
+        if (positions == 0 || polygons.length == 0) return null;
+        // The last segment a polygon was tested against plus one, so a polygon listed in several cells is tested once
+        int[] testedAt = new int[polygons.length];
+
+        for (int segment = 0, segments = Math.max(positions - 1, 1); segment < segments; segment++) {
+            int end = Math.min(segment + 1, positions - 1);
+            double x1 = path[2 * segment], y1 = path[2 * segment + 1];
+            double x2 = path[2 * end], y2 = path[2 * end + 1];
+            double lowX = Math.min(x1, x2), highX = Math.max(x1, x2);
+            double lowY = Math.min(y1, y2), highY = Math.max(y1, y2);
+            if (highX < minX || lowX > maxX || highY < minY || lowY > maxY) continue;
+
+            int hit = Integer.MAX_VALUE;
+            for (int r = row(lowY), lastRow = row(highY); r <= lastRow; r++) {
+                for (int c = column(lowX), lastColumn = column(highX); c <= lastColumn; c++) {
+                    int cell = r * columns + c;
+                    for (int k = cellStart[cell], stop = cellStart[cell + 1]; k < stop; k++) {
+                        int polygon = cellPolygons[k];
+                        // Cells list the polygons in ascending order, so none after a hit can be lower
+                        if (polygon >= hit) break;
+                        if (testedAt[polygon] == segment + 1) continue;
+                        testedAt[polygon] = segment + 1;
+                        if (polygons[polygon].intersectsSegment(x1, y1, x2, y2)) hit = polygon;
+                    }
+                }
+            }
+            if (hit != Integer.MAX_VALUE) return new Violation(segment, hit);
+        }
+        return null;
+    }
+}
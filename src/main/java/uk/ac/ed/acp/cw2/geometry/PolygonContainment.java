@@ -0,0 +1,28 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+/**
+ * A polygon prepared for repeated point-in-polygon queries, in double precision ({@link PreparedPolygon})
+ * or in fixed point ({@link FixedPointPolygon}).
+ */
+public interface PolygonContainment {
+
+    /**
+     * Checks if the point is inside (or on the border) of the polygon.
+     * @param x the longitude of the point
+     * @param y the latitude of the point
+     * @return true if the point is inside or on the border, false otherwise
+     */
+    boolean contains(double x, double y);
+
+    // The bounding box of the vertices, in degrees
+    double minX();
+    double maxX();
+    double minY();
+    double maxY();
+
+    /**
+     * Approximate heap footprint of the prepared polygon in bytes (arrays only).
+     * @return the size in bytes
+     */
+    long footprintBytes();
+}
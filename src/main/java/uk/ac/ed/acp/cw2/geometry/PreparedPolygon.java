@@ -0,0 +1,244 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.Arrays;
+
+/**
+ * A polygon prepared for repeated point-in-polygon queries.
+ * Holds the vertices as one flat array (lng0, lat0, lng1, lat1, ...), the bounding box for fast rejection,
+ * and an index of the edges by y-band, so that a query only tests the edges whose y-interval contains the point.
+ * <p>
+ * The results are identical to {@link GeometryCore#contains}:
+ * a point on a vertex or within 1e-12 of an edge is inside, otherwise the even-odd rule applies.
+ * Edge i connects vertex i with vertex i-1 (edge 0 connects vertex 0 with the last vertex).
+ */
+public final class PreparedPolygon implements PolygonContainment {
+    // Tolerance for the on-edge test, same as the original ray-casting loop
+    public static final double EPSILON = GeometryCore.EPSILON;
+    // An edge may be listed in this many bands per vertex on average before the bands get coarser
+    private static final int MAX_ENTRIES_PER_EDGE = 8;
+
+    private final double[] coords;
+    private final int vertexCount;
+    private final double minX, maxX, minY, maxY;
+
+    // Edge index: the edges of band b are bandEdges[bandStart[b] .. bandStart[b+1]-1], sorted by their lower y
+    private final int bandCount;
+    private final double bandHeight;
+    private final int[] bandStart;
+    private final int[] bandEdges;
+
+    /**
+     * Prepares a polygon from its flat coordinates.
+     * @param coords the vertices as (lng, lat) pairs; the array is kept, not copied
+     */
+    public PreparedPolygon(double[] coords) {
+        if (coords.length < 2 || coords.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be (lng, lat) pairs");
+        }
+        this.coords = coords;
+        this.vertexCount = coords.length / 2;
+
+        double lowX = Double.POSITIVE_INFINITY, highX = Double.NEGATIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vertexCount; i++) {
+            lowX = Math.min(lowX, coords[2 * i]);
+            highX = Math.max(highX, coords[2 * i]);
+            lowY = Math.min(lowY, coords[2 * i + 1]);
+            highY = Math.max(highY, coords[2 * i + 1]);
+        }
+        this.minX = lowX; this.maxX = highX; this.minY = lowY; this.maxY = highY;
+
+        // Start with one band per edge and make the bands coarser while long edges would be listed too often
+        int bands = vertexCount;
+        while (bands > 1 && countEntries(bands) > (long) MAX_ENTRIES_PER_EDGE * vertexCount) bands /= 2;
+        this.bandCount = bands;
+        this.bandHeight = bandHeightFor(bands);
+        this.bandStart = new int[bands + 1];
+        this.bandEdges = new int[(int) countEntries(bands)];
+        buildBands();
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public double lng(int vertex) {
+        return coords[2 * vertex];
+    }
+
+    public double lat(int vertex) {
+        return coords[2 * vertex + 1];
+    }
+
+    @Override public double minX() { return minX; }
+    @Override public double maxX() { return maxX; }
+    @Override public double minY() { return minY; }
+    @Override public double maxY() { return maxY; }
+
+    /**
+     * Checks if the point is inside (or on the border) of the polygon.
+     * @param x the longitude of the point
+     * @param y the latitude of the point
+     * @return true if the point is inside or on the border, false otherwise
+     */
+    @Override
+    public boolean contains(double x, double y) {
+        // Outside the bounding box no edge can be touched, and a ray from there crosses the border an even number of times
+        if (!inBounds(x, y)) return false;
+
+        int band = bandOf(y);
+        int count = 0;
+        for (int k = bandStart[band], end = bandStart[band + 1]; k < end; k++) {
+            int current = bandEdges[k];
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            double currentX = coords[2 * current], currentY = coords[2 * current + 1];
+            double previousX = coords[2 * previous], previousY = coords[2 * previous + 1];
+
+            if (GeometryCore.isOnEdge(x, y, currentX, currentY, previousX, previousY)) return true;
+            if (GeometryCore.crossesRay(x, y, currentX, currentY, previousX, previousY)) count += 1;
+        }
+        return count % 2 == 1;
+    }
+
+    /**
+     * Checks if the segment from (x1, y1) to (x2, y2) enters the polygon:
+     * either its end point is inside (or on the border), or it touches or crosses an edge.
+     * A segment starting inside and ending inside without touching an edge also counts, via the end point.
+     * @param x1 the longitude of the start
+     * @param y1 the latitude of the start
+     * @param x2 the longitude of the end
+     * @param y2 the latitude of the end
+     * @return true if the segment enters the polygon, false otherwise
+     */
+    public boolean intersectsSegment(double x1, double y1, double x2, double y2) {
+        double lowX = Math.min(x1, x2), highX = Math.max(x1, x2);
+        double lowY = Math.min(y1, y2), highY = Math.max(y1, y2);
+        if (highX < minX - EPSILON || lowX > maxX + EPSILON || highY < minY - EPSILON || lowY > maxY + EPSILON) return false;
+        if (contains(x2, y2)) return true;
+
+        // An edge may be listed in several of the bands the segment spans; testing it twice is harmless
+        for (int band = bandOf(lowY), lastBand = bandOf(highY); band <= lastBand; band++) {
+            for (int k = bandStart[band], end = bandStart[band + 1]; k < end; k++) {
+                int current = bandEdges[k];
+                int previous = current == 0 ? vertexCount - 1 : current - 1;
+                if (segmentsIntersect(x1, y1, x2, y2,
+                        coords[2 * current], coords[2 * current + 1], coords[2 * previous], coords[2 * previous + 1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the closed segments AB and CD touch or cross, using orientation tests.
+     * @return true if they have at least one point in common
+     */
+    public static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                            double cx, double cy, double dx, double dy) {
+        double o1 = orientation(ax, ay, bx, by, cx, cy), o2 = orientation(ax, ay, bx, by, dx, dy);
+        double o3 = orientation(cx, cy, dx, dy, ax, ay), o4 = orientation(cx, cy, dx, dy, bx, by);
+        if (o1 == 0 && o2 == 0) {
+            // Collinear: the segments intersect if their bounding boxes overlap
+            return Math.max(ax, bx) >= Math.min(cx, dx) && Math.max(cx, dx) >= Math.min(ax, bx) &&
+                    Math.max(ay, by) >= Math.min(cy, dy) && Math.max(cy, dy) >= Math.min(ay, by);
+        }
+        return ((o1 <= 0 && o2 >= 0) || (o1 >= 0 && o2 <= 0)) && ((o3 <= 0 && o4 >= 0) || (o3 >= 0 && o4 <= 0));
+    }
+
+    private static double orientation(double ax, double ay, double bx, double by, double px, double py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    /**
+     * Checks if the point is within {@link #EPSILON} of the bounding box; no point outside it is contained.
+     */
+    boolean inBounds(double x, double y) {
+        return !(x < minX - EPSILON || x > maxX + EPSILON || y < minY - EPSILON || y > maxY + EPSILON);
+    }
+
+    // Edge index accessors for BulkContainment, which tests the points of one band together
+
+    int bandCount() {
+        return bandCount;
+    }
+
+    /**
+     * Returns the index of the first entry of a band in the edge list; the band ends where the next one starts.
+     */
+    int bandStart(int band) {
+        return bandStart[band];
+    }
+
+    /**
+     * Returns the edge of an entry of the edge list: the index of its current vertex.
+     */
+    int bandEdge(int entry) {
+        return bandEdges[entry];
+    }
+
+    /**
+     * Approximate heap footprint of this prepared polygon in bytes (arrays only).
+     * @return the size in bytes
+     */
+    @Override
+    public long footprintBytes() {
+        return 8L * coords.length + 4L * bandStart.length + 4L * bandEdges.length;
+    }
+
+    private double bandHeightFor(int bands) {
+        double height = (maxY - minY + 2 * EPSILON) / bands;
+        return height > 0 ? height : 1;
+    }
+
+    private int bandOf(double y, double height, int bands) {
+        int band = (int) ((y - (minY - EPSILON)) / height);
+        return band < 0 ? 0 : Math.min(band, bands - 1);
+    }
+
+    int bandOf(double y) {
+        return bandOf(y, bandHeight, bandCount);
+    }
+
+    private long countEntries(int bands) {
+        double height = bandHeightFor(bands);
+        long entries = 0;
+        for (int current = 0; current < vertexCount; current++) {
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            double lowY = Math.min(coords[2 * current + 1], coords[2 * previous + 1]);
+            double highY = Math.max(coords[2 * current + 1], coords[2 * previous + 1]);
+            entries += bandOf(highY + EPSILON, height, bands) - bandOf(lowY - EPSILON, height, bands) + 1;
+        }
+        return entries;
+    }
+
+    /**
+     * Fills the band index. Edges are added in order of their lower y,
+     * so within each band the candidates are sorted by y-interval.
+     */
+    private void buildBands() {
+        int[] firstBand = new int[vertexCount], lastBand = new int[vertexCount];
+        Integer[] byLowY = new Integer[vertexCount];
+        for (int current = 0; current < vertexCount; current++) {
+            int previous = current == 0 ? vertexCount - 1 : current - 1;
+            double lowY = Math.min(coords[2 * current + 1], coords[2 * previous + 1]);
+            double highY = Math.max(coords[2 * current + 1], coords[2 * previous + 1]);
+            firstBand[current] = bandOf(lowY - EPSILON);
+            lastBand[current] = bandOf(highY + EPSILON);
+            for (int b = firstBand[current]; b <= lastBand[current]; b++) bandStart[b + 1]++;
+            byLowY[current] = current;
+        }
+        for (int b = 0; b < bandCount; b++) bandStart[b + 1] += bandStart[b];
+
+        Arrays.sort(byLowY, (a, b) -> Double.compare(lowY(a), lowY(b)));
+        int[] next = Arrays.copyOf(bandStart, bandCount);
+        for (int edge : byLowY) {
+            for (int b = firstBand[edge]; b <= lastBand[edge]; b++) bandEdges[next[b]++] = edge;
+        }
+    }
+
+    private double lowY(int current) {
+        int previous = current == 0 ? vertexCount - 1 : current - 1;
+        return Math.min(coords[2 * current + 1], coords[2 * previous + 1]);
+    }
+}
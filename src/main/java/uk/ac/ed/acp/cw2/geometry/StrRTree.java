@@ -0,0 +1,133 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Static R-tree over axis-aligned boxes, bulk-loaded with Sort-Tile-Recursive (STR) packing.
+ * Every level is stored as flat arrays; the entries of a node are consecutive in the level below,
+ * so the tree needs no node objects. The tree is immutable: rebuild it when the boxes change.
+ * <p>
+ * Reference: Leutenegger, Lopez, Edgington, "STR: A Simple and Efficient Algorithm for R-Tree Packing" (1997).
+ */
+public final class StrRTree {
+    // Maximum number of entries per node
+    private static final int NODE_CAPACITY = 16;
+
+    // levels.get(0) holds the items, the last level holds the entries of the root
+    private final List<Level> levels = new ArrayList<>();
+
+    /**
+     * One level of the tree. For items, payload is the item id; for nodes, it is the index
+     * of the first child in the level below (a node has at most NODE_CAPACITY children).
+     */
+    private record Level(double[] minX, double[] minY, double[] maxX, double[] maxY, int[] payload) {
+        int size() {
+            return payload.length;
+        }
+    }
+
+    /**
+     * Builds the tree. Box i gets the id i.
+     * @param minX the lower longitude of each box
+     * @param minY the lower latitude of each box
+     * @param maxX the upper longitude of each box
+     * @param maxY the upper latitude of each box
+     */
+    public StrRTree(double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int[] ids = new int[minX.length];
+        for (int i = 0; i < ids.length; i++) ids[i] = i;
+        Level level = pack(new Level(minX.clone(), minY.clone(), maxX.clone(), maxY.clone(), ids));
+        levels.add(level);
+        while (level.size() > NODE_CAPACITY) {
+            level = pack(parentsOf(level));
+            levels.add(level);
+        }
+    }
+
+    public int size() {
+        return levels.getFirst().size();
+    }
+
+    /**
+     * Calls the consumer with the id of every box containing the point (borders included).
+     * @param x the longitude of the point
+     * @param y the latitude of the point
+     * @param consumer receives the matching ids, in no particular order
+     */
+    public void search(double x, double y, IntConsumer consumer) {
+        Level top = levels.getLast();
+        search(levels.size() - 1, 0, top.size(), x, y, consumer);
+    }
+
+    private void search(int depth, int from, int to, double x, double y, IntConsumer consumer) {
+        Level level = levels.get(depth);
+        for (int i = from; i < to; i++) {
+            if (x < level.minX[i] || x > level.maxX[i] || y < level.minY[i] || y > level.maxY[i]) continue;
+            if (depth == 0) {
+                consumer.accept(level.payload[i]);
+            } else {
+                int firstChild = level.payload[i];
+                int lastChild = Math.min(firstChild + NODE_CAPACITY, levels.get(depth - 1).size());
+                search(depth - 1, firstChild, lastChild, x, y, consumer);
+            }
+        }
+    }
+
+    /**
+     * Reorders the entries of a level with STR: sort by x-center into vertical slices,
+     * then sort each slice by y-center, so consecutive runs of NODE_CAPACITY entries are close together.
+     */
+    private static Level pack(Level level) {
+        int n = level.size();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(level.minX[a] + level.maxX[a], level.minX[b] + level.maxX[b]));
+
+        int nodeCount = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+        int sliceSize = sliceCount * NODE_CAPACITY;
+        for (int start = 0; start < n; start += sliceSize) {
+            Arrays.sort(order, start, Math.min(start + sliceSize, n),
+                    (a, b) -> Double.compare(level.minY[a] + level.maxY[a], level.minY[b] + level.maxY[b]));
+        }
+
+        Level packed = new Level(new double[n], new double[n], new double[n], new double[n], new int[n]);
+        for (int i = 0; i < n; i++) {
+            int from = order[i];
+            packed.minX[i] = level.minX[from];
+            packed.minY[i] = level.minY[from];
+            packed.maxX[i] = level.maxX[from];
+            packed.maxY[i] = level.maxY[from];
+            packed.payload[i] = level.payload[from];
+        }
+        return packed;
+    }
+
+    /**
+     * Groups consecutive runs of NODE_CAPACITY entries into parent nodes covering their boxes.
+     */
+    private static Level parentsOf(Level children) {
+        int n = (children.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        Level parents = new Level(new double[n], new double[n], new double[n], new double[n], new int[n]);
+        for (int node = 0; node < n; node++) {
+            int first = node * NODE_CAPACITY, last = Math.min(first + NODE_CAPACITY, children.size());
+            double lowX = Double.POSITIVE_INFINITY, lowY = Double.POSITIVE_INFINITY;
+            double highX = Double.NEGATIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+            for (int i = first; i < last; i++) {
+                lowX = Math.min(lowX, children.minX[i]);
+                lowY = Math.min(lowY, children.minY[i]);
+                highX = Math.max(highX, children.maxX[i]);
+                highY = Math.max(highY, children.maxY[i]);
+            }
+            parents.minX[node] = lowX;
+            parents.minY[node] = lowY;
+            parents.maxX[node] = highX;
+            parents.maxY[node] = highY;
+            parents.payload[node] = first;
+        }
+        return parents;
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ed.acp.cw2.geometry;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * The SIMD kernel of {@link BulkContainment}, on the incubating Vector API.
+ * The points are grouped by the y-band of the {@link PreparedPolygon} they fall into, and each edge of a band is
+ * tested against all points of the band, one vector of points at a time. Every lane runs exactly the arithmetic of
+ * {@link GeometryCore#isOnEdge} and {@link GeometryCore#crossesRay} (no fused multiply-add), so the results are
+ * identical to {@link PreparedPolygon#contains}.
+ * <p>
+ * Only loaded when the JVM runs with {@code --add-modules jdk.incubator.vector}, see {@link BulkContainment}.
+ */
+final class VectorContainment {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final double EPSILON = GeometryCore.EPSILON;
+
+    private VectorContainment() {}
+
+    /**
+     * Returns the number of doubles per vector on this CPU; 1 means there is no SIMD support worth using.
+     */
+    static int lanes() {
+        return LANES;
+    }
+
+    /**
+     * Checks for the points from index {@code from} (inclusive) to {@code to} (exclusive) if they are inside the polygon.
+     * @param polygon the prepared polygon
+     * @param points the points as (lng, lat) pairs
+     * @param inside the array to write the result of each point to
+     */
+    static void contains(PreparedPolygon polygon, double[] points, boolean[] inside, int from, int to) {
+        // Counting sort of the points by band; each band starts on a vector boundary and is padded with NaN,
+        // for which every comparison is false, so padding lanes never touch an edge or cross a ray
+        int bands = polygon.bandCount();
+        int[] bandOfPoint = new int[to - from];
+        int[] bandSlots = new int[bands + 1];
+        for (int i = from; i < to; i++) {
+            double x = points[2 * i], y = points[2 * i + 1];
+            if (polygon.inBounds(x, y)) {
+                int band = polygon.bandOf(y);
+                bandOfPoint[i - from] = band;
+                bandSlots[band + 1]++;
+            } else {
+                bandOfPoint[i - from] = -1;
+                inside[i] = false;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            bandSlots[b + 1] = bandSlots[b] + (bandSlots[b + 1] + LANES - 1) / LANES * LANES;
+        }
+        int slots = bandSlots[bands];
+        double[] xs = new double[slots], ys = new double[slots];
+        Arrays.fill(xs, Double.NaN);
+        Arrays.fill(ys, Double.NaN);
+        int[] pointOfSlot = new int[slots];
+        int[] bandEnd = Arrays.copyOf(bandSlots, bands);
+        for (int i = from; i < to; i++) {
+            int band = bandOfPoint[i - from];
+            if (band < 0) continue;
+            int slot = bandEnd[band]++;
+            xs[slot] = points[2 * i];
+            ys[slot] = points[2 * i + 1];
+            pointOfSlot[slot] = i;
+        }
+
+        // Bit l of word w belongs to slot w * LANES + l, as VectorMask.toLong numbers the lanes
+        long[] onBorder = new long[slots / LANES], crossings = new long[slots / LANES];
+        for (int b = 0; b < bands; b++) {
+            if (bandEnd[b] == bandSlots[b]) continue;
+            for (int k = polygon.bandStart(b), end = polygon.bandStart(b + 1); k < end; k++) {
+                testEdge(polygon, polygon.bandEdge(k), xs, ys, bandSlots[b], bandSlots[b + 1], onBorder, crossings);
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            for (int slot = bandSlots[b]; slot < bandEnd[b]; slot++) {
+                int word = slot / LANES;
+                inside[pointOfSlot[slot]] = (((onBorder[word] | crossings[word]) >>> (slot % LANES)) & 1) != 0;
+            }
+        }
+    }
+
+    /**
+     * Tests one edge against the points of the slots from start to end (both multiples of the vector length).
+     * Sets the bit of each point on the edge in onBorder, and flips its bit in crossings if its ray crosses the edge.
+     */
+    private static void testEdge(PreparedPolygon polygon, int current, double[] xs, double[] ys, int start, int end,
+                                 long[] onBorder, long[] crossings) {
+        int previous = current == 0 ? polygon.vertexCount() - 1 : current - 1;
+        double currentX = polygon.lng(current), currentY = polygon.lat(current);
+        double previousX = polygon.lng(previous), previousY = polygon.lat(previous);
+        double edgeX = previousX - currentX, edgeY = previousY - currentY;
+        double lowX = Math.min(currentX, previousX) - EPSILON, highX = Math.max(currentX, previousX) + EPSILON;
+        double lowY = Math.min(currentY, previousY) - EPSILON, highY = Math.max(currentY, previousY) + EPSILON;
+
+        for (int slot = start; slot < end; slot += LANES) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, xs, slot), y = DoubleVector.fromArray(SPECIES, ys, slot);
+            DoubleVector fromCurrentY = y.sub(currentY);
+            // Cross product of the edge and the point, as in GeometryCore.isOnEdge
+            DoubleVector cross = fromCurrentY.mul(edgeX).sub(x.sub(currentX).mul(edgeY));
+            long onEdge = cross.abs().lt(EPSILON)
+                    .and(x.compare(VectorOperators.GE, lowX)).and(x.compare(VectorOperators.LE, highX))
+                    .and(y.compare(VectorOperators.GE, lowY)).and(y.compare(VectorOperators.LE, highY))
+                    .toLong();
+            // Ray between the edge's y-coords, as in GeometryCore.crossesRay
+            long between = y.lt(currentY).toLong() ^ y.lt(previousY).toLong();
+            int word = slot / LANES;
+            onBorder[word] |= onEdge;
+            if (between != 0) {
+                DoubleVector xIntersect = fromCurrentY.div(edgeY).mul(edgeX).add(currentX);
+                crossings[word] ^= between & x.lt(xIntersect).toLong();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ed.acp.cw2.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application metrics on top of the auto-configured Micrometer registry.
+ * Endpoint latencies come from Spring's own http.server.requests timer; this class adds
+ * the upstream calls, rejected requests by reason, suppressed log events and the size of isInRegion polygons.
+ */
+@Component
+public class ApiMetrics {
+    private final MeterRegistry registry;
+    private final DistributionSummary regionVertices;
+    // The rejection counters by endpoint and reason, so a rejection does not build and look up its meter
+    private final ConcurrentMap<RejectedKey, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    private record RejectedKey(String endpoint, String reason) {}
+
+    public ApiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.regionVertices = DistributionSummary.builder("ilp.region.vertices")
+                .description("Number of polygon vertices per isInRegion request")
+                .baseUnit("vertices")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Records one call to the ILP REST Service.
+     * @param resource the upstream resource, e.g. "drones"
+     * @param outcome the result, e.g. "ok", "not_modified" or "error"
+     * @param nanos the duration of the call
+     */
+    public void recordUpstreamCall(String resource, String outcome, long nanos) {
+        Timer.builder("ilp.upstream.requests")
+                .description("Duration of calls to the ILP REST Service")
+                .tag("resource", resource)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a failed call to the ILP REST Service.
+     * @param resource the upstream resource, e.g. "drones"
+     * @param exception the simple class name of the exception
+     */
+    public void recordUpstreamError(String resource, String exception) {
+        Counter.builder("ilp.upstream.errors")
+                .description("Failed calls to the ILP REST Service")
+                .tag("resource", resource)
+                .tag("exception", exception)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts a request answered from a stale cache because the ILP REST Service failed or did not answer in time.
+     * @param resource the upstream resource, e.g. "drones"
+     */
+    public void recordStaleServed(String resource) {
+        Counter.builder("ilp.upstream.stale")
+                .description("Requests answered from a stale cache while the ILP REST Service was unavailable")
+                .tag("resource", resource)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts rejected (400 Bad Request) requests, or rejected items of a batch.
+     * @param endpoint the path pattern of the endpoint, as tagged in http.server.requests, e.g. "/api/v1/isInRegion"
+     * @param reason the reason, e.g. "validation" or "invalid_angle"
+     * @param count the number of rejections
+     */
+    public void recordRejected(String endpoint, String reason, int count) {
+        rejectedCounters.computeIfAbsent(new RejectedKey(endpoint, reason), this::rejectedCounter).increment(count);
+    }
+
+    public void recordRejected(String endpoint, String reason) {
+        recordRejected(endpoint, reason, 1);
+    }
+
+    private Counter rejectedCounter(RejectedKey key) {
+        return Counter.builder("ilp.requests.rejected")
+                .description("Requests rejected as invalid, by reason")
+                .tag("endpoint", key.endpoint())
+                .tag("reason", key.reason())
+                .register(registry);
+    }
+
+    /**
+     * Counts request log events that were not written: over the rate limit of their reason, or with the
+     * log buffer full. See RequestEventLog.
+     * @param reason the reason of the events, e.g. "validation", or "access"
+     * @param count the number of suppressed events
+     */
+    public void recordSuppressedLogEvents(String reason, long count) {
+        Counter.builder("ilp.log.suppressed")
+                .description("Request log events suppressed by rate limiting or a full buffer")
+                .tag("reason", reason)
+                .register(registry)
+                .increment(count);
+    }
+
+    /**
+     * Records the number of vertices of the polygon of an isInRegion request.
+     * @param vertices the number of vertices
+     */
+    public void recordRegionVertices(int vertices) {
+        regionVertices.record(vertices);
+    }
+}
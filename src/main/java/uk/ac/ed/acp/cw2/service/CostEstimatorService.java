@@ -0,0 +1,68 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.data.DroneCostTable;
+import uk.ac.ed.acp.cw2.dto.CostEstimate;
+import uk.ac.ed.acp.cw2.dto.DeliveryCostRequest;
+import uk.ac.ed.acp.cw2.geometry.Directions;
+import uk.ac.ed.acp.cw2.geometry.GeometryCore;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service class estimating the cheapest drone for delivery orders.
+ * The number of moves of an order is the straight-line distance in steps of {@link Directions#STEP_SIZE},
+ * rounded up; the cost of each drone then follows from its cost fields, see {@link DroneCostTable}.
+ */
+@Service
+public class CostEstimatorService {
+    private final DroneService droneService;
+    // The cost table of the latest catalog version used (null until the first estimate)
+    private final AtomicReference<DroneCostTable> table = new AtomicReference<>();
+
+    public CostEstimatorService(DroneService droneService) {
+        this.droneService = droneService;
+    }
+
+    /**
+     * Estimates the number of moves of a delivery.
+     * @param request a valid order
+     * @return the distance between from and to in steps, rounded up
+     */
+    public static int estimateMoves(DeliveryCostRequest request) {
+        double distance = GeometryCore.distance(request.from().lng(), request.from().lat(),
+                request.to().lng(), request.to().lat());
+        return (int) Math.ceil(distance / Directions.STEP_SIZE);
+    }
+
+    /**
+     * Returns the cost table of the current catalog, updating it if the catalog version changed.
+     * As with {@link DroneService#getIndex()}, two threads may both build the same table.
+     * @return the current cost table
+     */
+    public DroneCostTable getCostTable() {
+        DroneCostTable previous = table.get();
+        DroneCostTable updated = DroneCostTable.of(droneService.getCatalog(), previous);
+        if (updated != previous) table.set(updated);
+        return updated;
+    }
+
+    /**
+     * Finds the cheapest eligible drone for each order. All orders of a call use the same catalog version.
+     * @param requests the orders, all valid
+     * @return CostEstimate[] in the order of the requests, with null where no drone is eligible
+     */
+    public CostEstimate[] estimate(List<DeliveryCostRequest> requests) {
+        DroneCostTable costTable = getCostTable();
+        CostEstimate[] estimates = new CostEstimate[requests.size()];
+        for (int i = 0; i < estimates.length; i++) {
+            DeliveryCostRequest request = requests.get(i);
+            int moves = estimateMoves(request);
+            int entry = costTable.cheapest(moves, request.capacity(),
+                    Boolean.TRUE.equals(request.cooling()), Boolean.TRUE.equals(request.heating()));
+            if (entry >= 0) estimates[i] = new CostEstimate(costTable.droneId(entry), moves, costTable.cost(entry, moves));
+        }
+        return estimates;
+    }
+}
@@ -1,28 +1,344 @@
 package uk.ac.ed.acp.cw2.service;
 
-import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.DroneIndex;
 import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
 
 import java.net.URL;
-import java.util.ArrayList;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service class providing functionality for drone stuff.
+ * The drone list is kept in an in-memory {@link DroneCatalog} that is refreshed in the background,
+ * so request threads only touch the network while the cache is cold or past its staleness limit.
+ * Queries run on a {@link DroneIndex} of the catalog, which is updated when the catalog version changes.
+ * The reactive handlers use the *Async methods, which fetch through a WebClient instead and never block.
+ * Concurrent fetches of either kind are coalesced by a {@link SingleFlight}: however many callers find the
+ * catalog stale at the same time, one call goes to the ILP REST Service and they all share its outcome.
+ * The call itself goes through the {@link UpstreamPolicy} (deadline, hedged request, circuit breaker); if it fails,
+ * requests are answered from the last good catalog, however old, which {@link #isServingStale()} reports.
+ * The catalog is published as the "droneService" component of the actuator health endpoint.
  */
-@RequiredArgsConstructor
 @Service
-public class DroneService {
+public class DroneService implements HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(DroneService.class);
+    // The key of the /drones calls in upstreamCalls
+    private static final String DRONES = "drones";
+
     private final URL serviceURl;
-    private final RestTemplate restTemplate = new RestTemplate();
+    // Pooled client for the ILP REST Service, see IlpRestServiceConfig.ilpRestTemplate
+    private final RestTemplate restTemplate;
+    // The same for the reactive handlers, see IlpRestServiceConfig.ilpWebClient
+    private final WebClient webClient;
+    // How old the catalog may get before a request thread refreshes it itself instead of using it
+    private final Duration maxStaleness;
+    // Timers and error counters for the upstream calls
+    private final ApiMetrics apiMetrics;
+    // Deadline, hedging and circuit breaker of the upstream calls
+    private final UpstreamPolicy upstreamPolicy;
+
+    // The current catalog, replaced as a whole on every change (null until the first successful fetch)
+    private final AtomicReference<DroneCatalog> catalog = new AtomicReference<>();
+    // The upstream calls in flight, shared by blocking and reactive callers
+    private final SingleFlight<String, DroneCatalog> upstreamCalls;
+    // The index of the latest catalog version queried (null until the first query)
+    private final AtomicReference<DroneIndex> index = new AtomicReference<>();
+
+    public DroneService(URL serviceURl, RestTemplate restTemplate, WebClient webClient, ApiMetrics apiMetrics,
+                        UpstreamPolicy upstreamPolicy,
+                        @Value("${ilp.drones.cache.max-staleness:PT10M}") Duration maxStaleness) {
+        this.serviceURl = serviceURl;
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.apiMetrics = apiMetrics;
+        this.upstreamPolicy = upstreamPolicy;
+        this.maxStaleness = maxStaleness;
+        // Only a backstop: the deadline of the policy passes first and fails the call as unavailable (503)
+        this.upstreamCalls = new SingleFlight<>(upstreamPolicy.deadline().multipliedBy(2));
+    }
+
+    /**
+     * Scheduled task which revalidates the catalog every TTL period.
+     * Failures are only logged: the previous catalog stays in place until the staleness limit.
+     */
+    @Scheduled(initialDelayString = "PT0S", fixedDelayString = "${ilp.drones.cache.ttl:PT30S}")
+    public void refreshInBackground() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Background refresh of drone catalog failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches the drones from the ILP REST service and swaps the new catalog in.
+     * Sends If-None-Match / If-Modified-Since when the previous response carried an ETag / Last-Modified,
+     * so an unchanged catalog costs a 304 without a body.
+     * Callers arriving while a fetch is in flight share it instead of starting another one.
+     * @return the catalog after the refresh
+     */
+    public DroneCatalog refresh() {
+        return upstreamCalls.execute(DRONES, this::fetch);
+    }
 
-    private List<Drone> getDrones() {
+    /**
+     * Fetches the drones like {@link #refresh()}, but through the WebClient and without blocking.
+     * @return the catalog after the refresh
+     */
+    public Mono<DroneCatalog> refreshAsync() {
+        return Mono.fromFuture(() -> upstreamCalls.executeAsync(DRONES, this::fetchAsync));
+    }
+
+    private DroneCatalog fetch() {
+        DroneCatalog previous = catalog.get();
+        return update(previous, upstreamPolicy.executeBlocking(() -> request(previous)));
+    }
+
+    private CompletableFuture<DroneCatalog> fetchAsync() {
+        DroneCatalog previous = catalog.get();
+        return upstreamPolicy.execute(() -> requestAsync(previous).toFuture())
+                .thenApply(response -> update(previous, response));
+    }
+
+    /**
+     * Sends one /drones request through the RestTemplate; the upstream policy may send two for a call.
+     */
+    private ResponseEntity<Drone[]> request(DroneCatalog previous) {
         String endpoint  = serviceURl + "/drones";
-        Drone[] drones = restTemplate.getForObject(endpoint, Drone[].class);
-        if (drones == null) {return List.of();}
-        return List.of(drones);
+        long start = System.nanoTime();
+        ResponseEntity<Drone[]> response;
+        try {
+            response = restTemplate.exchange(endpoint, HttpMethod.GET, new HttpEntity<>(conditionalHeaders(previous)), Drone[].class);
+        } catch (RuntimeException e) {
+            // The request lost to a hedged one, or the deadline passed
+            if (Thread.currentThread().isInterrupted()) recordCancelled(start);
+            else recordFailure(e, start);
+            throw e;
+        }
+        recordSuccess(response, start);
+        return response;
+    }
+
+    private Mono<ResponseEntity<Drone[]>> requestAsync(DroneCatalog previous) {
+        long start = System.nanoTime();
+        return webClient.get()
+                .uri(serviceURl + "/drones")
+                .headers(headers -> headers.addAll(conditionalHeaders(previous)))
+                .retrieve()
+                .toEntity(Drone[].class)
+                .doOnError(e -> recordFailure(e, start))
+                .doOnCancel(() -> recordCancelled(start))
+                .doOnNext(response -> recordSuccess(response, start));
+    }
+
+    /**
+     * Returns If-None-Match / If-Modified-Since headers for the ETag / Last-Modified of the previous response.
+     */
+    private static HttpHeaders conditionalHeaders(DroneCatalog previous) {
+        HttpHeaders headers = new HttpHeaders();
+        if (previous != null && previous.etag() != null) headers.setIfNoneMatch(previous.etag());
+        if (previous != null && previous.lastModified() != null) headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+        return headers;
+    }
+
+    private void recordSuccess(ResponseEntity<Drone[]> response, long start) {
+        boolean notModified = response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED);
+        apiMetrics.recordUpstreamCall("drones", notModified ? "not_modified" : "ok", System.nanoTime() - start);
+    }
+
+    private void recordFailure(Throwable e, long start) {
+        apiMetrics.recordUpstreamCall("drones", "error", System.nanoTime() - start);
+        apiMetrics.recordUpstreamError("drones", e.getClass().getSimpleName());
+    }
+
+    private void recordCancelled(long start) {
+        apiMetrics.recordUpstreamCall("drones", "cancelled", System.nanoTime() - start);
+    }
+
+    /**
+     * Swaps in the catalog built from the response that won the upstream call.
+     */
+    private DroneCatalog update(DroneCatalog previous, ResponseEntity<Drone[]> response) {
+        DroneCatalog updated = toCatalog(previous, response, Instant.now());
+        catalog.set(updated);
+        return updated;
+    }
+
+    /**
+     * Builds the catalog that follows the previous one for an upstream response.
+     * The version is only increased if the drones actually changed.
+     * @param previous the current catalog (null if there is none yet)
+     * @param response the upstream response
+     * @param now the time of the response
+     * @return the new catalog
+     */
+    private DroneCatalog toCatalog(DroneCatalog previous, ResponseEntity<Drone[]> response, Instant now) {
+        if (previous != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return previous.revalidated(now);
+        }
+        Drone[] body = response.getBody();
+        List<Drone> drones = body == null ? List.of() : List.of(body);
+        String etag = response.getHeaders().getETag();
+        String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+        if (previous == null) return new DroneCatalog(drones, 1, etag, lastModified, now);
+        long version = previous.drones().equals(drones) ? previous.version() : previous.version() + 1;
+        return new DroneCatalog(drones, version, etag, lastModified, now);
+    }
+
+    /**
+     * Returns the current drone catalog.
+     * Only blocks on the network if there is no catalog yet or it is older than the staleness limit.
+     * If that refresh fails, e.g. because the circuit breaker is open, the last good catalog is returned instead.
+     * @return the current catalog
+     * @throws RuntimeException the error of the refresh if there is no catalog at all
+     */
+    public DroneCatalog getCatalog() {
+        DroneCatalog current = catalog.get();
+        if (isFresh(current)) return current;
+        try {
+            return upstreamCalls.execute(DRONES, () -> {
+                // A call that ended since the check above may have refreshed it already
+                DroneCatalog latest = catalog.get();
+                return isFresh(latest) ? latest : fetch();
+            });
+        } catch (RuntimeException e) {
+            return lastGoodCatalog(e);
+        }
+    }
+
+    /**
+     * Returns the current drone catalog like {@link #getCatalog()}, but refreshes it through the WebClient
+     * without blocking if there is no catalog yet or it is older than the staleness limit.
+     * @return the current catalog
+     */
+    public Mono<DroneCatalog> getCatalogAsync() {
+        DroneCatalog current = catalog.get();
+        if (isFresh(current)) return Mono.just(current);
+        return Mono.fromFuture(() -> upstreamCalls.executeAsync(DRONES, () -> {
+            DroneCatalog latest = catalog.get();
+            return isFresh(latest) ? CompletableFuture.completedFuture(latest) : fetchAsync();
+        })).onErrorResume(RuntimeException.class, e -> Mono.fromSupplier(() -> lastGoodCatalog(e)));
+    }
+
+    private boolean isFresh(DroneCatalog current) {
+        return current != null && !current.isOlderThan(maxStaleness, Instant.now());
+    }
+
+    /**
+     * Returns the catalog a request is answered from when the refresh failed.
+     * @param failure the error of the refresh, rethrown if there is no catalog yet
+     */
+    private DroneCatalog lastGoodCatalog(RuntimeException failure) {
+        DroneCatalog last = catalog.get();
+        if (last == null) throw failure;
+        logger.debug("Serving the drone catalog of {} after a failed refresh: {}", last.fetchedAt(), failure.getMessage());
+        apiMetrics.recordStaleServed("drones");
+        return last;
+    }
+
+    /**
+     * Checks if requests are currently answered from a catalog past its staleness limit, which happens while
+     * the ILP REST Service fails or the circuit breaker is open.
+     * @return true if the current catalog is stale, false if it is fresh or there is none
+     */
+    public boolean isServingStale() {
+        DroneCatalog current = catalog.get();
+        return current != null && !isFresh(current);
+    }
+
+    @Override
+    public Health health() {
+        DroneCatalog current = catalog.get();
+        if (current == null) return Health.unknown().withDetail("catalog", "not fetched yet").build();
+        boolean stale = !isFresh(current);
+        return (stale ? Health.status(UpstreamPolicy.DEGRADED) : Health.up())
+                .withDetail("catalogVersion", current.version())
+                .withDetail("drones", current.drones().size())
+                .withDetail("fetchedAt", current.fetchedAt().toString())
+                .withDetail("ageSeconds", Duration.between(current.fetchedAt(), Instant.now()).toSeconds())
+                .withDetail("stale", stale)
+                .build();
+    }
+
+    /**
+     * Returns the current catalog as it is, without checking its age or touching the network.
+     * @return the current catalog, or null if there is none yet
+     */
+    public DroneCatalog getCachedCatalog() {
+        return catalog.get();
+    }
+
+    /**
+     * Installs a catalog restored from a local snapshot, unless a catalog was already fetched.
+     * The restored catalog counts as confirmed now, so it is served for up to the staleness limit
+     * while the background refresh revalidates it with its ETag / Last-Modified.
+     * @param restored the catalog read from the snapshot
+     * @return true if it was installed, false if the upstream already answered
+     */
+    public boolean restoreCatalog(DroneCatalog restored) {
+        return catalog.compareAndSet(null, restored.revalidated(Instant.now()));
+    }
+
+    /**
+     * Returns the query index of the current catalog, updating it if the catalog version changed.
+     * Two threads may update it at the same time; both build the same index, so the race is harmless.
+     * @return the current index
+     */
+    public DroneIndex getIndex() {
+        return indexOf(getCatalog());
+    }
+
+    /**
+     * Returns the query index of the current catalog like {@link #getIndex()}, without blocking.
+     * @return the current index
+     */
+    public Mono<DroneIndex> getIndexAsync() {
+        return getCatalogAsync().map(this::indexOf);
+    }
+
+    private DroneIndex indexOf(DroneCatalog current) {
+        DroneIndex previous = index.get();
+        DroneIndex updated = DroneIndex.of(current, previous);
+        if (updated != previous) index.set(updated);
+        return updated;
+    }
+
+    /**
+     * Returns a list of drones-ids matching all criteria of a query, see {@link DroneQuery}.
+     * @param query the query
+     * @return List<Long> of drones-ids, in catalog order
+     */
+    public List<Long> queryDrones(DroneQuery query) {
+        return getIndex().query(query);
+    }
+
+    /**
+     * Returns a list of drones-ids matching all criteria of a query, without blocking.
+     * @param query the query
+     * @return List<Long> of drones-ids, in catalog order
+     */
+    public Mono<List<Long>> queryDronesAsync(DroneQuery query) {
+        return getIndexAsync().map(current -> current.query(query));
     }
 
     /**
@@ -31,14 +347,18 @@ public class DroneService {
      * @return List<Long> of drones-ids
      */
     public List<Long> getDronesWithCooling(Boolean state) {
-        List<Drone> drones = getDrones();
-        if (drones.isEmpty()) {return List.of();}
-        List<Long> ids = new ArrayList<>();
-        for (Drone drone : drones) {
-            if (!drone.capability().cooling().equals(state)) {continue;}
-            ids.add(drone.id());
-        }
-        return ids;
+        if (state == null) return List.of();
+        return getIndex().withCooling(state);
+    }
+
+    /**
+     * Returns a list of drones-ids which support cooling (state is true) or not (false), without blocking.
+     * @param state "true" or "false"
+     * @return List<Long> of drones-ids
+     */
+    public Mono<List<Long>> getDronesWithCoolingAsync(Boolean state) {
+        if (state == null) return Mono.just(List.of());
+        return getIndexAsync().map(current -> current.withCooling(state));
     }
 
 }
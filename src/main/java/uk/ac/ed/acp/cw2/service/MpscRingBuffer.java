@@ -0,0 +1,81 @@
+package uk.ac.ed.acp.cw2.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, on a ring of slots with sequence numbers.
+ * A producer claims a slot with one compare-and-set of the tail and publishes its element by advancing the
+ * sequence of the slot; the consumer takes elements in order and hands the slots back the same way.
+ * Producers never wait: {@link #offer(Object)} returns false at once when the ring is full.
+ * @param <E> the element type
+ */
+public class MpscRingBuffer<E> {
+    private final Object[] elements;
+    // Per slot: equal to the position of the next write when free, to that position + 1 once published
+    private final AtomicLongArray sequences;
+    private final int mask;
+    // The position of the next write, shared by the producers
+    private final AtomicLong tail = new AtomicLong();
+    // The position of the next read, only touched by the consumer
+    private long head;
+
+    /**
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("The capacity must be positive");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        elements = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) sequences.set(i, i);
+        mask = size - 1;
+    }
+
+    /**
+     * Adds an element, from any thread.
+     * @param element the element (not null)
+     * @return true if it was added, false if the ring is full
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long sequence = sequences.getAcquire(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements[slot] = element;
+                    sequences.setRelease(slot, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // The consumer has not handed this slot back yet
+                return false;
+            }
+            // Another producer claimed the position first; try the next one
+        }
+    }
+
+    /**
+     * Removes the oldest element; only to be called by the single consumer thread.
+     * @return the element, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int slot = (int) head & mask;
+        if (sequences.getAcquire(slot) != head + 1) return null;
+        E element = (E) elements[slot];
+        elements[slot] = null;
+        sequences.setRelease(slot, head + elements.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * Returns the number of slots.
+     * @return the capacity
+     */
+    public int capacity() {
+        return elements.length;
+    }
+}
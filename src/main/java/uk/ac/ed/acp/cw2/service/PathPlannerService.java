@@ -0,0 +1,63 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.DeliveryPath;
+import uk.ac.ed.acp.cw2.dto.DeliveryPathRequest;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.LatticePathPlanner;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class planning drone flight paths on the 16-direction move lattice of
+ * {@link PositionService#calculateNextPosition}, see {@link LatticePathPlanner}.
+ */
+@Service
+public class PathPlannerService {
+    private final PreparedPolygonCache polygonCache;
+    // Search budget: the maximum number of expanded nodes and the maximum time per search
+    private final int maxNodes;
+    private final long maxMillis;
+    private final double heuristicWeight;
+
+    public PathPlannerService(PreparedPolygonCache polygonCache,
+                              @Value("${ilp.planner.max-nodes:200000}") int maxNodes,
+                              @Value("${ilp.planner.max-millis:500}") long maxMillis,
+                              @Value("${ilp.planner.heuristic-weight:1.2}") double heuristicWeight) {
+        this.polygonCache = polygonCache;
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    /**
+     * Plans a path from the start to close to the target, avoiding the restricted areas.
+     * The restricted areas must already be validated (closed polygons).
+     * @param pathRequest the DeliveryPathRequest containing the positions and restricted areas
+     * @return the planned path; found is false if the budget ran out first
+     */
+    public DeliveryPath calculateDeliveryPath(DeliveryPathRequest pathRequest) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+        List<Region> restrictedAreas = pathRequest.restrictedAreas() == null ? List.of() : pathRequest.restrictedAreas();
+        PreparedPolygon[] obstacles = new PreparedPolygon[restrictedAreas.size()];
+        for (int i = 0; i < obstacles.length; i++) {
+            obstacles[i] = polygonCache.get(restrictedAreas.get(i));
+        }
+
+        LatticePathPlanner planner = new LatticePathPlanner(obstacles, heuristicWeight);
+        LatticePathPlanner.Result result = planner.search(pathRequest.from().lng(), pathRequest.from().lat(),
+                pathRequest.to().lng(), pathRequest.to().lat(), maxNodes, deadline);
+
+        double[] coords = result.path();
+        List<Position> path = new ArrayList<>(coords.length / 2);
+        for (int i = 0; i < coords.length; i += 2) {
+            path.add(new Position(coords[i], coords[i + 1]));
+        }
+        return new DeliveryPath(result.found(), result.angles().length, result.angles(), path, result.nodesExpanded());
+    }
+}
@@ -1,10 +1,23 @@
 package uk.ac.ed.acp.cw2.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.ac.ed.acp.cw2.dto.DistanceRequest;
 import uk.ac.ed.acp.cw2.dto.NextPositionRequest;
+import uk.ac.ed.acp.cw2.dto.PathValidation;
+import uk.ac.ed.acp.cw2.dto.PathValidationRequest;
 import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
 import uk.ac.ed.acp.cw2.dto.RegionRequest;
+import uk.ac.ed.acp.cw2.dto.Trajectory;
+import uk.ac.ed.acp.cw2.dto.TrajectoryRequest;
+import uk.ac.ed.acp.cw2.geometry.Directions;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.GeometryCore;
+import uk.ac.ed.acp.cw2.geometry.PathValidator;
+import uk.ac.ed.acp.cw2.geometry.PolygonContainment;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
 
 import java.util.List;
 
@@ -13,18 +26,31 @@ import java.util.List;
  * - Validating positions, distances, and regions
  * - Calculating distances between positions
  * - Calculating next drone positions
+ * The calculations run on primitive doubles in {@link GeometryCore}; this class converts the DTOs at the boundary.
+ * With ilp.geometry.fixed-point.enabled, isInRegion runs on {@link FixedPointPolygon}s instead, with exact integer
+ * edge tests; path validation stays in double precision.
  */
 @Service
 public class PositionService {
+    // Prepared polygons of recently seen regions, so repeated regions skip the preparation
+    private final PreparedPolygonCache polygonCache;
+    // Whether isInRegion quantizes the region and the position to fixed point
+    private final boolean fixedPoint;
+
+    public PositionService(PreparedPolygonCache polygonCache,
+                           @Value("${ilp.geometry.fixed-point.enabled:false}") boolean fixedPoint) {
+        this.polygonCache = polygonCache;
+        this.fixedPoint = fixedPoint;
+    }
+
     /**
      * Calculates the Euclidean distance between two positions in degrees.
      * @param distanceRequest: the DistanceRequest containing position1 and position2
      * @return double: the distance between the two positions
      */
     public double calculateDistance(DistanceRequest distanceRequest) {
-        double lngDistance = distanceRequest.position1().lng() - distanceRequest.position2().lng(); // The longitude difference
-        double latDistance = distanceRequest.position1().lat() - distanceRequest.position2().lat(); // The latitude difference
-        return Math.sqrt(lngDistance * lngDistance + latDistance * latDistance);
+        Position position1 = distanceRequest.position1(), position2 = distanceRequest.position2();
+        return GeometryCore.distance(position1.lng(), position1.lat(), position2.lng(), position2.lat());
     }
 
     /**
@@ -34,8 +60,49 @@ public class PositionService {
      * @return true if the distance is less than threshold, false otherwise
      */
     public boolean isCloseTo(DistanceRequest distanceRequest, double threshold) {
-        double distance = calculateDistance(distanceRequest);
-        return distance < threshold;
+        Position position1 = distanceRequest.position1(), position2 = distanceRequest.position2();
+        return GeometryCore.isCloseTo(position1.lng(), position1.lat(), position2.lng(), position2.lat(), threshold);
+    }
+
+    /**
+     * Calculates the Euclidean distances for a batch of requests in one pass.
+     * @param distanceRequests the (already validated) DistanceRequests
+     * @return double[]: the distance for each request, in the same order
+     */
+    public double[] calculateDistances(List<DistanceRequest> distanceRequests) {
+        double[] distances = new double[distanceRequests.size()];
+        int i = 0;
+        for (DistanceRequest distanceRequest : distanceRequests) {
+            distances[i++] = calculateDistance(distanceRequest);
+        }
+        return distances;
+    }
+
+    /**
+     * Checks for a batch of requests if the two positions are closer than a given threshold.
+     * @param distanceRequests the (already validated) DistanceRequests
+     * @param threshold the distance threshold
+     * @return boolean[]: true for each request whose distance is less than threshold
+     */
+    public boolean[] areCloseTo(List<DistanceRequest> distanceRequests, double threshold) {
+        double[] distances = calculateDistances(distanceRequests);
+        boolean[] close = new boolean[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            close[i] = distances[i] < threshold;
+        }
+        return close;
+    }
+
+    /**
+     * Calculates the Euclidean distances for a batch of position pairs packed into one array,
+     * as decoded from the binary wire format.
+     * @param records (lng1, lat1, lng2, lat2) for each request
+     * @return double[]: the distance for each request, in the same order
+     */
+    public double[] calculateDistancesPacked(double[] records) {
+        double[] distances = new double[records.length / 4];
+        GeometryCore.distances(records, distances);
+        return distances;
     }
 
     /**
@@ -44,8 +111,16 @@ public class PositionService {
      * @return String: null if valid, or error message if invalid
      */
     public String validateNextPositionAngle(NextPositionRequest positionRequest) {
-        double angle = positionRequest.angle();
-        if (angle % 22.5 != 0) return "Angle not multiple of 22.5: " + angle;
+        return validateAngle(positionRequest.angle());
+    }
+
+    /**
+     * Validates a move angle: it must be one of the 16 directions of the {@link Directions} table.
+     * @param angle the angle in degrees
+     * @return String: null if valid, or error message if invalid
+     */
+    public String validateAngle(double angle) {
+        if (Directions.indexOf(angle) < 0) return "Angle not multiple of 22.5: " + angle;
         return null;
     }
 
@@ -53,15 +128,76 @@ public class PositionService {
      * Calculates the drone's next position from the start position at a given angle.
      * The step size is 0.00015°. Angles are interpreted as:
      * 0° = East, 90° = North, 180° = West, 270° = South.
+     * The legal angles use the precomputed deltas of the {@link Directions} table.
      * @param positionRequest the NextPositionRequest containing the start position and angle
      * @return the next Position of the drone
      */
     public Position calculateNextPosition(NextPositionRequest positionRequest) {
-        final double STEP_SIZE = 0.00015;
-        double radians = Math.toRadians(positionRequest.angle());
-        double endLng = positionRequest.start().lng() + STEP_SIZE * Math.cos(radians); // cos(angle) adjusts longitude
-        double endLat = positionRequest.start().lat() + STEP_SIZE * Math.sin(radians); // sin(angle) adjusts latitude
-        return new Position(endLng, endLat);
+        double[] next = new double[2];
+        GeometryCore.nextPosition(positionRequest.start().lng(), positionRequest.start().lat(), positionRequest.angle(), next, 0);
+        return new Position(next[0], next[1]);
+    }
+
+    /**
+     * Calculates the next positions for a batch of requests in one pass.
+     * @param positionRequests the (already validated) NextPositionRequests
+     * @return Position[]: the next position for each request, in the same order
+     */
+    public Position[] calculateNextPositions(List<NextPositionRequest> positionRequests) {
+        Position[] positions = new Position[positionRequests.size()];
+        int i = 0;
+        for (NextPositionRequest positionRequest : positionRequests) {
+            positions[i++] = calculateNextPosition(positionRequest);
+        }
+        return positions;
+    }
+
+    /**
+     * Calculates the next positions for a batch of start positions and angles packed into one array,
+     * as decoded from the binary wire format. See {@link #calculateNextPosition(NextPositionRequest)}.
+     * @param records (lng, lat, angle) for each request
+     * @return double[]: the next (lng, lat) for each request, in the same order
+     */
+    public double[] calculateNextPositionsPacked(double[] records) {
+        double[] positions = new double[records.length / 3 * 2];
+        GeometryCore.nextPositions(records, positions);
+        return positions;
+    }
+
+    /**
+     * Validates the angles of a TrajectoryRequest: each must be within [0, 360], as for nextPosition,
+     * and one of the 16 directions.
+     * @param trajectoryRequest the TrajectoryRequest to validate
+     * @return String: null if valid, or error message for the first invalid angle
+     */
+    public String validateTrajectory(TrajectoryRequest trajectoryRequest) {
+        double[] angles = trajectoryRequest.angles();
+        for (int i = 0; i < angles.length; i++) {
+            // Directions.indexOf would wrap e.g. -22.5 or 720 into a direction
+            String errorMsg = angles[i] >= 0 && angles[i] <= 360 ? validateAngle(angles[i])
+                    : "Angle not within [0, 360]: " + angles[i];
+            if (errorMsg != null) return "Move " + i + ": " + errorMsg;
+        }
+        return null;
+    }
+
+    /**
+     * Calculates all positions of a flight from the start position and a sequence of (validated) angles.
+     * The positions are written straight into primitive arrays, without a Position per step.
+     * @param trajectoryRequest the TrajectoryRequest containing the start position and angles
+     * @return the Trajectory: the start position followed by the position after each move
+     */
+    public Trajectory calculateTrajectory(TrajectoryRequest trajectoryRequest) {
+        double[] angles = trajectoryRequest.angles();
+        double[] lng = new double[angles.length + 1], lat = new double[angles.length + 1];
+        lng[0] = trajectoryRequest.start().lng();
+        lat[0] = trajectoryRequest.start().lat();
+        for (int i = 0; i < angles.length; i++) {
+            int direction = Directions.indexOf(angles[i]);
+            lng[i + 1] = lng[i] + Directions.deltaLng(direction);
+            lat[i + 1] = lat[i] + Directions.deltaLat(direction);
+        }
+        return new Trajectory(lng, lat);
     }
 
     /**
@@ -72,14 +208,33 @@ public class PositionService {
      * @return String: null if valid, or error message if invalid
      */
     public String validateRegion(RegionRequest regionRequest) {
-        List<Position> vertices = regionRequest.region().vertices();
+        return validatePolygon(regionRequest.region());
+    }
+
+    /**
+     * Validates the polygon of a region on its own, see {@link #validateRegion(RegionRequest)}.
+     * @param region the Region to validate
+     * @return String: null if valid, or error message if invalid
+     */
+    public String validatePolygon(Region region) {
+        List<Position> vertices = region.vertices();
         Position first = vertices.getFirst(), last = vertices.getLast();
-        if (!first.lng().equals(last.lng()) || !first.lat().equals(last.lat())) {
+        if (!GeometryCore.samePosition(first.lng(), first.lat(), last.lng(), last.lat())) {
             return "Polygon must be closed!";
         }
         return null;
     }
 
+    /**
+     * Validates a polygon given as flat (lng, lat) pairs, see {@link #validatePolygon(Region)}.
+     * @param coords the vertex coordinates (at least one vertex)
+     * @return String: null if valid, or error message if invalid
+     */
+    public String validatePolygonCoords(double[] coords) {
+        if (!GeometryCore.isClosed(coords)) return "Polygon must be closed!";
+        return null;
+    }
+
     /**
      * Checks if the position is inside (or on the border) of the region from the regionRequest.
      * Uses the Ray-Casting algorithm (even–odd rule):
@@ -92,39 +247,70 @@ public class PositionService {
      * Special cases:
      * - If the point matches a vertex = inside.
      * - If the point lies exactly on an edge = inside.
+     * The polygon is taken from the {@link PreparedPolygonCache}, see {@link PreparedPolygon#contains}
+     * (or {@link FixedPointPolygon#contains} in fixed-point mode).
      * @param regionRequest the regionRequest containing the region and position to check
      * @return true if position is inside the region, false otherwise
      */
     public boolean isInRegion(RegionRequest regionRequest) {
         Position position = regionRequest.position();
-        List<Position> vertices = regionRequest.region().vertices();
-        if (vertices.contains(position)) return true; // If the position is a vertex of the region, it is inside.
-
-        int n = vertices.size();
-        double x = position.lng(), y = position.lat();
-        int count = 0;
-        // Loop through all edges of the polygon
-        for (int current = 0, previous = n-1; current < n; previous = current++) {
-            double currentX = vertices.get(current).lng(), currentY = vertices.get(current).lat();
-            double previousX = vertices.get(previous).lng(), previousY = vertices.get(previous).lat();
-
-            // Check if the point lies exactly on an edge using cross product
-            // Use a small epsilon (1e-12) to account for floating-point rounding errors
-            double cross = (y - currentY) * (previousX - currentX) - (previousY - currentY) * (x - currentX);
-            if (Math.abs(cross) < 1e-12 && // nearly collinear
-                    // Check if the point is between the vertices
-                    x >= Math.min(currentX, previousX) - 1e-12 && x <= Math.max(currentX, previousX) + 1e-12 &&
-                    y >= Math.min(currentY, previousY) - 1e-12 && y <= Math.max(currentY, previousY) + 1e-12) {
-                return true; // lies exactly on edge
-            }
-
-            // Ray-cast
-            boolean rayBetweenEdgeY = (y < currentY) != (y < previousY); // Ray is between the edge's y-coords
-            // The x-coordinate where the edge intersects the ray
-            double xIntersect = currentX + ((y - currentY) / (previousY - currentY)) * (previousX - currentX);
-            boolean leftOfIntersect = (x < xIntersect);
-            if (rayBetweenEdgeY && leftOfIntersect) count += 1;
+        // The prepared polygon runs the same ray cast, but only over the edges whose y-interval contains the point
+        PolygonContainment polygon = prepareRegion(regionRequest.region());
+        return polygon.contains(position.lng(), position.lat());
+    }
+
+    /**
+     * Returns the prepared polygon of a (validated) region, for callers that test many points against one region.
+     * @param region the region
+     * @return the PreparedPolygon, or the FixedPointPolygon in fixed-point mode
+     */
+    public PolygonContainment prepareRegion(Region region) {
+        return fixedPoint ? polygonCache.getFixedPoint(region) : polygonCache.get(region);
+    }
+
+    /**
+     * Checks if a position is inside (or on the border) of a polygon given as flat (lng, lat) pairs,
+     * see {@link #isInRegion(RegionRequest)}.
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param coords the (validated) vertex coordinates; kept by the polygon cache, so must not be modified
+     * @return true if position is inside the polygon, false otherwise
+     */
+    public boolean isInRegion(double lng, double lat, double[] coords) {
+        PolygonContainment polygon = fixedPoint ? polygonCache.getFixedPoint(coords) : polygonCache.get(coords);
+        return polygon.contains(lng, lat);
+    }
+
+    /**
+     * Finds the first segment of a path that enters one of the restricted areas, see {@link PathValidator}.
+     * The areas are taken from the {@link PreparedPolygonCache}.
+     * @param pathRequest the (validated) path and restricted areas, all of them closed polygons
+     * @return the first violating segment and area, or a valid result if the path enters none
+     */
+    public PathValidation validatePath(PathValidationRequest pathRequest) {
+        List<Region> areas = pathRequest.restrictedAreas();
+        PreparedPolygon[] polygons = new PreparedPolygon[areas.size()];
+        for (int i = 0; i < polygons.length; i++) polygons[i] = polygonCache.get(areas.get(i));
+
+        List<Position> path = pathRequest.path();
+        PathValidator.Violation violation = new PathValidator(polygons).firstViolation(toCoords(path));
+        if (violation == null) return PathValidation.ok();
+        int segment = violation.segment();
+        Position from = path.get(segment), to = path.get(Math.min(segment + 1, path.size() - 1));
+        Region area = areas.get(violation.polygon());
+        return new PathValidation(false, segment, from, to, violation.polygon(), area.name());
+    }
+
+    /**
+     * Flattens positions into (lng, lat) pairs; for a PositionList this is its own array, which is only read.
+     */
+    private static double[] toCoords(List<Position> positions) {
+        if (positions instanceof PositionList positionList) return positionList.coords();
+        double[] coords = new double[2 * positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            coords[2 * i] = positions.get(i).lng();
+            coords[2 * i + 1] = positions.get(i).lat();
         }
-        return count % 2 == 1; // If the count is odd, the point is inside the region
+        return coords;
     }
 }
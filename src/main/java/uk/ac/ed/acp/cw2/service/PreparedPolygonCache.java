@@ -0,0 +1,216 @@
+package uk.ac.ed.acp.cw2.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of {@link PreparedPolygon}s, keyed by the content (the vertices) of a {@link Region}.
+ * The region name is not part of the key, so the same polygon sent under different names is prepared once.
+ * {@link FixedPointPolygon}s are cached the same way, in an LRU of their own with the same bounds.
+ * Each LRU is bounded by its number of polygons and by their total number of vertices, which is what the memory of a
+ * prepared polygon grows with; a polygon with more vertices than the whole budget is prepared but never cached.
+ * Hits, misses and evictions are published as Micrometer counters.
+ */
+@Component
+public class PreparedPolygonCache implements MeterBinder {
+    // The largest number of polygons kept by each LRU
+    private final int maxSize;
+    // The largest total number of vertices kept by each LRU
+    private final long maxVertices;
+    private final Lru<PreparedPolygon> polygons = new Lru<>();
+    private final Lru<FixedPointPolygon> fixedPointPolygons = new Lru<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public PreparedPolygonCache(@Value("${ilp.geometry.polygon-cache.max-size:256}") int maxSize,
+                                @Value("${ilp.geometry.polygon-cache.max-vertices:100000}") long maxVertices) {
+        this.maxSize = maxSize;
+        this.maxVertices = maxVertices;
+    }
+
+    /**
+     * Returns the prepared polygon for the vertices of a region, preparing and caching it on a miss.
+     * @param region the region to prepare
+     * @return the prepared polygon
+     */
+    public PreparedPolygon get(Region region) {
+        return get(toCoords(region.vertices()));
+    }
+
+    /**
+     * Returns the prepared polygon for flat vertex coordinates, preparing and caching it on a miss.
+     * @param coords the vertices as (lng, lat) pairs; the cache keeps a copy, so the array may be reused afterwards
+     * @return the prepared polygon
+     */
+    public PreparedPolygon get(double[] coords) {
+        return get(polygons, coords, PreparedPolygon::new);
+    }
+
+    /**
+     * Returns the fixed-point polygon for the vertices of a region, preparing and caching it on a miss.
+     * @param region the (validated) region to prepare
+     * @return the fixed-point polygon
+     */
+    public FixedPointPolygon getFixedPoint(Region region) {
+        return getFixedPoint(toCoords(region.vertices()));
+    }
+
+    /**
+     * Returns the fixed-point polygon for flat vertex coordinates, preparing and caching it on a miss.
+     * @param coords the (validated) vertices as (lng, lat) pairs; the cache keeps a copy
+     * @return the fixed-point polygon
+     */
+    public FixedPointPolygon getFixedPoint(double[] coords) {
+        return get(fixedPointPolygons, coords, FixedPointPolygon::new);
+    }
+
+    private <P> P get(Lru<P> cache, double[] coords, Function<double[], P> prepare) {
+        if (coords.length / 2 > maxVertices) {
+            // Too large to ever be cached: neither looked up nor copied into a key
+            misses.incrementAndGet();
+            return prepare.apply(coords.clone());
+        }
+        PolygonKey key = new PolygonKey(coords);
+        synchronized (cache) {
+            P polygon = cache.get(key);
+            if (polygon != null) {
+                hits.incrementAndGet();
+                return polygon;
+            }
+        }
+        misses.incrementAndGet();
+        // The key and the polygon outlive the call, so they get their own copy of the caller's array
+        PolygonKey owned = key.copy();
+        // Prepare outside the lock; if two threads race on the same polygon the second one simply overwrites it
+        P polygon = prepare.apply(owned.coords);
+        synchronized (cache) {
+            P replaced = cache.put(owned, polygon);
+            if (replaced == null) cache.vertices += owned.vertices();
+            evictOverBudget(cache);
+        }
+        return polygon;
+    }
+
+    /**
+     * Evicts least recently used polygons until the cache is within both its size and its vertex budget.
+     * The caller holds the lock of the cache.
+     */
+    private void evictOverBudget(Lru<?> cache) {
+        Iterator<PolygonKey> eldest = cache.keySet().iterator();
+        while (cache.size() > maxSize || cache.vertices > maxVertices) {
+            cache.vertices -= eldest.next().vertices();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public long hitCount() { return hits.get(); }
+    public long missCount() { return misses.get(); }
+    public long evictionCount() { return evictions.get(); }
+
+    public int size() {
+        int size;
+        synchronized (polygons) {
+            size = polygons.size();
+        }
+        synchronized (fixedPointPolygons) {
+            return size + fixedPointPolygons.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("ilp.polygon.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").description("Prepared polygon cache hits").register(registry);
+        FunctionCounter.builder("ilp.polygon.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").description("Prepared polygon cache misses").register(registry);
+        FunctionCounter.builder("ilp.polygon.cache.evictions", evictions, AtomicLong::get)
+                .description("Prepared polygons evicted from the cache").register(registry);
+        Gauge.builder("ilp.polygon.cache.size", this, PreparedPolygonCache::size)
+                .description("Number of cached prepared polygons").register(registry);
+    }
+
+    /**
+     * Flattens the vertices of a region into (lng, lat) pairs.
+     * @param vertices the vertices
+     * @return double[]: the flat coordinates. For a PositionList this is its own array, not a copy: callers only read
+     * it, and a holder that keeps it beyond the call (the cache, the region registry) keeps it with the immutable list
+     * or copies it.
+     */
+    static double[] toCoords(List<Position> vertices) {
+        // Deserialized regions already hold their vertices as flat coordinates
+        if (vertices instanceof PositionList positionList) return positionList.coords();
+        double[] coords = new double[vertices.size() * 2];
+        int i = 0;
+        for (Position vertex : vertices) {
+            coords[i++] = vertex.lng();
+            coords[i++] = vertex.lat();
+        }
+        return coords;
+    }
+
+    /**
+     * Access-ordered LinkedHashMap, so the eldest entry is the least recently used one, counting its vertices.
+     */
+    private static final class Lru<P> extends LinkedHashMap<PolygonKey, P> {
+        // Total number of vertices of the cached polygons
+        private long vertices;
+
+        private Lru() {
+            super(16, 0.75f, true);
+        }
+    }
+
+    /**
+     * Cache key comparing polygons by their coordinates, with the content hash computed once.
+     */
+    private static final class PolygonKey {
+        private final double[] coords;
+        private final int hash;
+
+        private PolygonKey(double[] coords) {
+            this(coords, Arrays.hashCode(coords));
+        }
+
+        private PolygonKey(double[] coords, int hash) {
+            this.coords = coords;
+            this.hash = hash;
+        }
+
+        private int vertices() {
+            return coords.length / 2;
+        }
+
+        private PolygonKey copy() {
+            return new PolygonKey(coords.clone(), hash);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PolygonKey key && hash == key.hash && Arrays.equals(coords, key.coords);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
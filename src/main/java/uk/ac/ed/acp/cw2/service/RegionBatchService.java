@@ -0,0 +1,80 @@
+package uk.ac.ed.acp.cw2.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.BulkContainment;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+/**
+ * Service class for checking many positions against one region at once, with the {@link BulkContainment} engine.
+ * The results are identical to calling {@link PositionService#isInRegion} for each position.
+ */
+@Service
+public class RegionBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(RegionBatchService.class);
+
+    // Prepared polygons of recently seen regions, shared with PositionService
+    private final PreparedPolygonCache polygonCache;
+    private final BulkContainment bulkContainment;
+    // Whether the regions are checked in fixed point, as PositionService does in the same mode
+    private final boolean fixedPoint;
+
+    /**
+     * @param polygonCache the prepared polygon cache
+     * @param parallelism the number of worker threads, or 0 for one per available processor
+     * @param useVector whether to use the Vector API when the JVM runs with --add-modules jdk.incubator.vector
+     * @param fixedPoint whether to check the regions as {@link FixedPointPolygon}s (without the vector kernel)
+     */
+    public RegionBatchService(PreparedPolygonCache polygonCache,
+                              @Value("${ilp.geometry.bulk.parallelism:0}") int parallelism,
+                              @Value("${ilp.geometry.bulk.vector:true}") boolean useVector,
+                              @Value("${ilp.geometry.fixed-point.enabled:false}") boolean fixedPoint) {
+        this.polygonCache = polygonCache;
+        this.fixedPoint = fixedPoint;
+        this.bulkContainment = new BulkContainment(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), useVector);
+        logger.info("Bulk isInRegion engine: {} workers, {} kernel", bulkContainment.parallelism(),
+                fixedPoint ? "fixed-point" : bulkContainment.vectorEnabled() ? "vector" : "scalar");
+    }
+
+    /**
+     * @return the largest number of workers a request can use
+     */
+    public int maxParallelism() {
+        return bulkContainment.parallelism();
+    }
+
+    /**
+     * Checks for every position if it is inside (or on the border) of a region, see {@link PreparedPolygon#contains}.
+     * @param region the (validated) region
+     * @param points the positions as (lng, lat) pairs
+     * @param parallelism the largest number of workers to use (at most {@link #maxParallelism()})
+     * @return boolean[]: true for each position inside the region, in the same order
+     */
+    public boolean[] isInRegion(Region region, double[] points, int parallelism) {
+        return isInRegion(PreparedPolygonCache.toCoords(region.vertices()), points, parallelism);
+    }
+
+    /**
+     * Checks for every position if it is inside (or on the border) of a polygon given as flat (lng, lat) pairs,
+     * see {@link #isInRegion(Region, double[], int)}.
+     * @param coords the (validated) vertex coordinates; kept by the polygon cache, so must not be modified
+     * @param points the positions as (lng, lat) pairs
+     * @param parallelism the largest number of workers to use (at most {@link #maxParallelism()})
+     * @return boolean[]: true for each position inside the polygon, in the same order
+     */
+    public boolean[] isInRegion(double[] coords, double[] points, int parallelism) {
+        if (fixedPoint) return bulkContainment.contains(polygonCache.getFixedPoint(coords), points, parallelism);
+        return bulkContainment.contains(polygonCache.get(coords), points, parallelism);
+    }
+
+    @PreDestroy
+    public void close() {
+        bulkContainment.close();
+    }
+}
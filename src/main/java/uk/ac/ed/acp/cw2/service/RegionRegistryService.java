@@ -0,0 +1,182 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.PolygonContainment;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+import uk.ac.ed.acp.cw2.geometry.StrRTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service class holding the server-side registry of named regions (no-fly zones, delivery areas, ...).
+ * The regions are indexed by an STR-packed R-tree over their bounding boxes, so a containment query
+ * only runs the exact point-in-polygon test for the regions whose box contains the point.
+ * Reads are lock-free: every change builds a new immutable snapshot and swaps it in. The snapshot keeps the
+ * prepared polygons of the unchanged regions, so a change only prepares the region it adds or replaces.
+ * With ilp.geometry.fixed-point.enabled the regions are {@link FixedPointPolygon}s, as in PositionService.
+ */
+@Service
+public class RegionRegistryService {
+
+    /**
+     * Immutable state of the registry. Index i of names, regions and polygons is id i in the tree.
+     */
+    private record Snapshot(Map<String, Region> byName, String[] names, PolygonContainment[] polygons,
+                            StrRTree tree) {}
+
+    // Whether the regions are checked in fixed point, as PositionService does in the same mode
+    private final boolean fixedPoint;
+    private final AtomicReference<Snapshot> snapshot;
+    // Increased on every change, so a change can be detected without comparing the regions
+    private final AtomicLong version = new AtomicLong();
+
+    public RegionRegistryService(@Value("${ilp.geometry.fixed-point.enabled:false}") boolean fixedPoint) {
+        this.fixedPoint = fixedPoint;
+        this.snapshot = new AtomicReference<>(build(new TreeMap<>(), null));
+    }
+
+    /**
+     * @return a number that increases whenever a region is added, replaced or removed
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns all registered regions, ordered by name.
+     * @return List<Region> of regions
+     */
+    public List<Region> getRegions() {
+        return List.copyOf(snapshot.get().byName().values());
+    }
+
+    /**
+     * Returns the region with the given name.
+     * @param name the region name
+     * @return the region, or empty if there is none with that name
+     */
+    public Optional<Region> getRegion(String name) {
+        return Optional.ofNullable(snapshot.get().byName().get(name));
+    }
+
+    /**
+     * Adds a region, or replaces the region with the same name.
+     * The region must already be validated (closed polygon).
+     * @param region the region to store
+     * @return true if the region is new, false if it replaced an existing one
+     */
+    public synchronized boolean putRegion(Region region) {
+        Map<String, Region> regions = new TreeMap<>(snapshot.get().byName());
+        boolean added = regions.put(region.name(), region) == null;
+        snapshot.set(build(regions, snapshot.get()));
+        version.incrementAndGet();
+        return added;
+    }
+
+    /**
+     * Adds a region unless one with the same name is registered; the check and the add are one atomic step.
+     * The region must already be validated (closed polygon).
+     * @param region the region to store
+     * @return true if the region was added, false if the name is taken
+     */
+    public synchronized boolean addRegion(Region region) {
+        if (snapshot.get().byName().containsKey(region.name())) return false;
+        return putRegion(region);
+    }
+
+    /**
+     * Adds regions restored from a local snapshot, keeping any region of the same name registered meanwhile.
+     * The regions must already be validated like those of {@link #putRegion} (see SnapshotService).
+     * @param restored the regions to add
+     */
+    public synchronized void restoreRegions(List<Region> restored) {
+        Map<String, Region> regions = new TreeMap<>(snapshot.get().byName());
+        for (Region region : restored) regions.putIfAbsent(region.name(), region);
+        snapshot.set(build(regions, snapshot.get()));
+        version.incrementAndGet();
+    }
+
+    /**
+     * Removes the region with the given name.
+     * @param name the region name
+     * @return true if a region was removed, false if there was none with that name
+     */
+    public synchronized boolean removeRegion(String name) {
+        if (!snapshot.get().byName().containsKey(name)) return false;
+        Map<String, Region> regions = new TreeMap<>(snapshot.get().byName());
+        regions.remove(name);
+        snapshot.set(build(regions, snapshot.get()));
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the names of all regions containing the position (vertices and edges count as inside,
+     * same as {@link PositionService#isInRegion}, in fixed point too).
+     * @param position the position to check
+     * @return List<String> of region names, ordered by name
+     */
+    public List<String> getRegionsContaining(Position position) {
+        Snapshot current = snapshot.get();
+        double x = position.lng(), y = position.lat();
+        List<String> names = new ArrayList<>();
+        current.tree().search(x, y, id -> {
+            if (current.polygons()[id].contains(x, y)) names.add(current.names()[id]);
+        });
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Builds the snapshot of the regions, reusing the polygon of every region the previous snapshot holds as is.
+     * @param regions the regions, ordered by name
+     * @param previous the current snapshot, or null if there is none
+     */
+    private Snapshot build(Map<String, Region> regions, Snapshot previous) {
+        int n = regions.size();
+        String[] names = new String[n];
+        PolygonContainment[] polygons = new PolygonContainment[n];
+        double[] minX = new double[n], minY = new double[n], maxX = new double[n], maxY = new double[n];
+        // Widen the boxes by the on-edge tolerance, or by the unit a point may be rounded by in fixed point,
+        // so points touching a border are still candidates
+        double margin = fixedPoint ? FixedPointPolygon.UNIT : PreparedPolygon.EPSILON;
+        int i = 0;
+        for (Region region : regions.values()) {
+            PolygonContainment polygon = previousPolygon(previous, region);
+            if (polygon == null) {
+                // The polygon may share the array of the region's PositionList, which is immutable and kept with it
+                double[] coords = PreparedPolygonCache.toCoords(region.vertices());
+                polygon = fixedPoint ? new FixedPointPolygon(coords) : new PreparedPolygon(coords);
+            }
+            names[i] = region.name();
+            polygons[i] = polygon;
+            minX[i] = polygon.minX() - margin;
+            minY[i] = polygon.minY() - margin;
+            maxX[i] = polygon.maxX() + margin;
+            maxY[i] = polygon.maxY() + margin;
+            i++;
+        }
+        return new Snapshot(Collections.unmodifiableMap(regions), names, polygons, new StrRTree(minX, minY, maxX, maxY));
+    }
+
+    /**
+     * Returns the polygon of the previous snapshot for a region, or null if the region is new or was replaced.
+     */
+    private static PolygonContainment previousPolygon(Snapshot previous, Region region) {
+        if (previous == null || previous.byName().get(region.name()) != region) return null;
+        // The names are ordered like the keys of the TreeMap they were taken from
+        return previous.polygons()[Arrays.binarySearch(previous.names(), region.name())];
+    }
+}
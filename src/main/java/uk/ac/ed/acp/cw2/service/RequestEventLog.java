@@ -0,0 +1,298 @@
+package uk.ac.ed.acp.cw2.service;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous log of access events and rejected requests.
+ * Request threads only decide whether an event is logged and put it in a {@link MpscRingBuffer}; a background
+ * thread formats the messages and writes them, so a burst of bad requests never makes a request thread wait on
+ * log output. The fields of an event are SLF4J key-value pairs, which the structured console formats
+ * (logging.structured.format.console) render as JSON fields.
+ * - Each kind of event is sampled: access events at ilp.logging.access.sample-rate, rejected requests at
+ *   ilp.logging.rejected.sample-rate. Logged events carry their sample rate, so counts can be scaled back up.
+ * - Sampled events are rate limited per reason, all access events sharing one budget. Events over the limit, and
+ *   events that find the buffer full, are suppressed: counted per reason, reported with the next logged event of
+ *   their reason and in a periodic summary line, and added to the ilp.log.suppressed counter.
+ * Access events come from the http.server.requests observations, in the Spring MVC and the reactive mode alike.
+ * Rejected requests are also counted in ilp.requests.rejected here, so the counter and the log share the endpoint
+ * and reason of every rejection.
+ */
+@Component
+public class RequestEventLog implements ObservationHandler<Observation.Context> {
+    private static final Logger logger = LoggerFactory.getLogger(RequestEventLog.class);
+    // The reason of access events, which share one rate limit
+    private static final String ACCESS = "access";
+    // Key of the start time of a request in its observation context
+    private static final String START = RequestEventLog.class.getName() + ".start";
+    // How long the writer sleeps when the buffer is empty
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ApiMetrics apiMetrics;
+    private final MpscRingBuffer<Event> buffer;
+    private final double accessSampleRate;
+    private final double rejectedSampleRate;
+    // Time between two events of a reason at the rate limit; a second's worth of events may come at once
+    private final long eventIntervalNanos;
+    private final long summaryIntervalNanos;
+    private final Map<String, Limiter> limiters = new ConcurrentHashMap<>();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public RequestEventLog(ApiMetrics apiMetrics,
+                           @Value("${ilp.logging.buffer-size:8192}") int bufferSize,
+                           @Value("${ilp.logging.access.sample-rate:0.01}") double accessSampleRate,
+                           @Value("${ilp.logging.rejected.sample-rate:1.0}") double rejectedSampleRate,
+                           @Value("${ilp.logging.rate-limit:20}") int rateLimit,
+                           @Value("${ilp.logging.summary-interval:PT10S}") Duration summaryInterval) {
+        if (rateLimit < 1) throw new IllegalArgumentException("The rate limit must allow at least one event per second");
+        this.apiMetrics = apiMetrics;
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.accessSampleRate = accessSampleRate;
+        this.rejectedSampleRate = rejectedSampleRate;
+        this.eventIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rateLimit;
+        this.summaryIntervalNanos = summaryInterval.toNanos();
+        this.writer = Thread.ofPlatform().name("request-event-log").daemon().start(this::drain);
+    }
+
+    /**
+     * Counts a rejected request, e.g. one that failed validation, in ilp.requests.rejected and logs it.
+     * The message is only formatted on the writer thread, so the arguments must not change afterwards.
+     * @param endpoint the path pattern of the endpoint, as tagged in http.server.requests, e.g. "/api/v1/isInRegion"
+     * @param reason the reason, e.g. "validation" or "invalid_angle"
+     * @param format the message, with {} placeholders as in SLF4J
+     * @param args the arguments of the placeholders
+     */
+    public void rejected(String endpoint, String reason, String format, Object... args) {
+        apiMetrics.recordRejected(endpoint, reason);
+        log(endpoint, reason, format, args);
+    }
+
+    /**
+     * Counts rejected items of a batch like {@link #rejected(String, String, String, Object...)}, logging them as
+     * one event.
+     * @param endpoint the endpoint
+     * @param reason the reason
+     * @param count the number of rejected items
+     * @param format the message
+     * @param args the arguments of the placeholders
+     */
+    public void rejected(String endpoint, String reason, int count, String format, Object... args) {
+        apiMetrics.recordRejected(endpoint, reason, count);
+        log(endpoint, reason, format, args);
+    }
+
+    /**
+     * Counts and logs a rejected request like {@link #rejected(String, String, String, Object...)}, with a message
+     * that is built on the writer thread, and only if the event is logged at all.
+     * @param endpoint the endpoint
+     * @param reason the reason
+     * @param message builds the message
+     */
+    public void rejected(String endpoint, String reason, Supplier<String> message) {
+        apiMetrics.recordRejected(endpoint, reason);
+        if (!logger.isWarnEnabled()) return;
+        Limiter limiter = admit(reason, rejectedSampleRate);
+        if (limiter == null) return;
+        offer(limiter, new Event(System.currentTimeMillis(), endpoint, reason, null, null, message, null, null, 0));
+    }
+
+    /**
+     * Logs a request that failed because the ILP REST Service is unavailable. It is not counted as rejected:
+     * the failed upstream calls are counted in ilp.upstream.errors.
+     * @param endpoint the endpoint
+     * @param format the message
+     * @param args the arguments of the placeholders
+     */
+    public void unavailable(String endpoint, String format, Object... args) {
+        log(endpoint, "upstream_unavailable", format, args);
+    }
+
+    private void log(String endpoint, String reason, String format, Object[] args) {
+        if (!logger.isWarnEnabled()) return;
+        Limiter limiter = admit(reason, rejectedSampleRate);
+        if (limiter == null) return;
+        offer(limiter, new Event(System.currentTimeMillis(), endpoint, reason, format, args, null, null, null, 0));
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return accessSampleRate > 0 && "http.server.requests".equals(context.getName());
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(START, System.nanoTime());
+    }
+
+    /**
+     * Logs the access event of a finished request, with the tags of the http.server.requests timer.
+     */
+    @Override
+    public void onStop(Observation.Context context) {
+        if (!logger.isInfoEnabled()) return;
+        Limiter limiter = admit(ACCESS, accessSampleRate);
+        if (limiter == null) return;
+        Long start = context.get(START);
+        long nanos = start == null ? 0 : System.nanoTime() - start;
+        offer(limiter, new Event(System.currentTimeMillis(), tag(context, "uri"), ACCESS, null, null, null,
+                tag(context, "method"), tag(context, "status"), nanos));
+    }
+
+    private static String tag(Observation.Context context, String key) {
+        KeyValue keyValue = context.getLowCardinalityKeyValue(key);
+        return keyValue == null ? "UNKNOWN" : keyValue.getValue();
+    }
+
+    /**
+     * Decides on a request thread whether an event is logged: sampled, then within the rate limit of its reason.
+     * @return the limiter of the reason if the event is to be logged, null if not
+     */
+    private Limiter admit(String reason, double sampleRate) {
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) return null;
+        Limiter limiter = limiters.computeIfAbsent(reason, key -> new Limiter());
+        if (limiter.tryAcquire()) return limiter;
+        limiter.suppressed.increment();
+        return null;
+    }
+
+    private void offer(Limiter limiter, Event event) {
+        if (!buffer.offer(event)) limiter.suppressed.increment();
+    }
+
+    /**
+     * The writer loop: writes the buffered events in order, sleeps while there are none,
+     * and logs the summary of suppressed events every summary interval.
+     */
+    private void drain() {
+        long nextSummary = System.nanoTime() + summaryIntervalNanos;
+        while (running) {
+            Event event = buffer.poll();
+            if (event != null) write(event);
+            if (System.nanoTime() - nextSummary >= 0) {
+                summarize();
+                nextSummary = System.nanoTime() + summaryIntervalNanos;
+            }
+            if (event == null) LockSupport.parkNanos(IDLE_NANOS);
+        }
+        for (Event event = buffer.poll(); event != null; event = buffer.poll()) write(event);
+        summarize();
+    }
+
+    private void write(Event event) {
+        try {
+            long suppressed = takeSuppressed(event.reason());
+            boolean access = event.method() != null;
+            String message;
+            LoggingEventBuilder builder;
+            if (access) {
+                double millis = event.nanos() / 1e6;
+                message = String.format("%s %s %s %.1f ms", event.method(), event.endpoint(), event.status(), millis);
+                builder = logger.atInfo()
+                        .addKeyValue("event", ACCESS)
+                        .addKeyValue("method", event.method())
+                        .addKeyValue("endpoint", event.endpoint())
+                        .addKeyValue("status", event.status())
+                        .addKeyValue("durationMs", millis)
+                        .addKeyValue("sampleRate", accessSampleRate);
+            } else {
+                message = event.message() != null ? event.message().get()
+                        : MessageFormatter.arrayFormat(event.format(), event.args()).getMessage();
+                builder = logger.atWarn()
+                        .addKeyValue("event", "rejected")
+                        .addKeyValue("endpoint", event.endpoint())
+                        .addKeyValue("reason", event.reason())
+                        .addKeyValue("sampleRate", rejectedSampleRate);
+            }
+            builder.addKeyValue("time", Instant.ofEpochMilli(event.epochMillis()));
+            if (suppressed > 0) {
+                builder.addKeyValue("suppressed", suppressed);
+                message += " (" + suppressed + " similar events suppressed)";
+            }
+            builder.log(message);
+        } catch (RuntimeException e) {
+            // Keep the writer alive whatever a message supplier or appender throws
+            logger.warn("Could not write a request log event: {}", e.toString());
+        }
+    }
+
+    /**
+     * Logs the suppressed events of every reason not reported with a logged event since the last summary.
+     */
+    private void summarize() {
+        Map<String, Long> suppressed = new TreeMap<>();
+        for (String reason : limiters.keySet()) {
+            long count = takeSuppressed(reason);
+            if (count > 0) suppressed.put(reason, count);
+        }
+        if (!suppressed.isEmpty()) {
+            logger.atWarn().addKeyValue("event", "suppressed").addKeyValue("suppressed", suppressed)
+                    .log("Suppressed request log events: {}", suppressed);
+        }
+    }
+
+    private long takeSuppressed(String reason) {
+        Limiter limiter = limiters.get(reason);
+        long count = limiter == null ? 0 : limiter.suppressed.sumThenReset();
+        if (count > 0) apiMetrics.recordSuppressedLogEvents(reason, count);
+        return count;
+    }
+
+    /**
+     * Stops the writer once it has written the buffered events.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * A logged event. Rejected requests have a reason and a message (format and arguments, or a supplier);
+     * access events have the method, status and duration, and "access" as reason.
+     */
+    private record Event(long epochMillis, String endpoint, String reason, String format, Object[] args,
+                         Supplier<String> message, String method, String status, long nanos) {
+    }
+
+    /**
+     * Rate limit (generic cell rate algorithm) and suppressed count of one reason.
+     */
+    private final class Limiter {
+        // When the next event would be due if events came exactly at the rate limit
+        private final AtomicLong due = new AtomicLong(System.nanoTime());
+        private final LongAdder suppressed = new LongAdder();
+
+        boolean tryAcquire() {
+            long now = System.nanoTime();
+            while (true) {
+                long current = due.get();
+                long next = Math.max(current, now) + eventIntervalNanos;
+                // At most a second's worth of events ahead of the rate
+                if (next - now > TimeUnit.SECONDS.toNanos(1)) return false;
+                if (due.compareAndSet(current, next)) return true;
+            }
+        }
+    }
+}
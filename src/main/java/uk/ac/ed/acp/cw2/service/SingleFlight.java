@@ -0,0 +1,106 @@
+package uk.ac.ed.acp.cw2.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one call: the first caller starts it, every caller arriving
+ * while it is in flight shares its result or its exception, and the first caller after it ended starts a new one.
+ * Each call has a deadline; once it passes, every caller of the call fails with a
+ * {@link java.util.concurrent.TimeoutException} and the key is released, even if the call has not returned yet.
+ * @param <K> the key of a call, e.g. the upstream resource
+ * @param <V> the result of a call
+ */
+public class SingleFlight<K, V> {
+    // The call in flight per key; removed as soon as it completes or times out
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+
+    public SingleFlight(Duration timeout) {
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    /**
+     * Returns the result of the call in flight for a key, or starts one on the calling thread and returns its result.
+     * @param key the key of the call
+     * @param call the call, only run if no call for the key is in flight
+     * @return the result of the call
+     * @throws RuntimeException the exception of the call, the same instance for all its callers,
+     *         or a CompletionException caused by a TimeoutException if the call passed its deadline
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = register(key, flight);
+        if (running != null) return await(running);
+        try {
+            flight.complete(call.get());
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+        }
+        // Not necessarily the value above: the deadline may have passed while the call was running
+        return await(flight);
+    }
+
+    /**
+     * Returns the result of the call in flight for a key, or starts one, without blocking.
+     * The future is this caller's own copy: completing or cancelling it (e.g. with a shorter deadline
+     * of the caller) does not affect the call or its other callers.
+     * @param key the key of the call
+     * @param call starts the call, only invoked if no call for the key is in flight
+     * @return the future result of the call
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletionStage<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = register(key, flight);
+        if (running != null) return running.copy();
+        try {
+            call.get().whenComplete((value, e) -> {
+                if (e == null) flight.complete(value);
+                else flight.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            });
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Installs flight as the call for a key, unless another call is in flight.
+     * @return the call in flight, or null if flight was installed and the caller has to start it
+     */
+    private CompletableFuture<V> register(K key, CompletableFuture<V> flight) {
+        while (true) {
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+            if (running == null) break;
+            if (!running.isDone()) return running;
+            // It has ended and is about to be removed; the next call is a new one
+            inFlight.remove(key, running);
+        }
+        flight.orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .whenComplete((value, e) -> inFlight.remove(key, flight));
+        return null;
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
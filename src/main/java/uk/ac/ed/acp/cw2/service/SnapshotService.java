@@ -0,0 +1,175 @@
+package uk.ac.ed.acp.cw2.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.SnapshotFile;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class keeping a local {@link SnapshotFile} of the drone catalog and the registered regions.
+ * At startup the snapshot is restored before the first upstream call, so a new instance serves the last-known
+ * drones even while the ILP REST service is slow or down; the scheduled refresh of {@link DroneService} then
+ * revalidates the restored catalog in the background. The snapshot is rewritten whenever the catalog version or
+ * the regions change, and on shutdown. An empty ilp.snapshot.path disables all of this.
+ */
+@Service
+public class SnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    private final DroneService droneService;
+    private final RegionRegistryService regionRegistryService;
+    // The restored regions go through the same checks as those registered with PUT
+    private final RequestValidator requestValidator;
+    private final PositionService positionService;
+    // The snapshot file (null if snapshots are disabled)
+    private final Path path;
+
+    // What the snapshot on disk holds, to skip writes when nothing changed
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private long savedCatalogVersion = -1;
+    private long savedRegionsVersion = -1;
+    // The catalog in the snapshot on disk, kept in the file while there is no live catalog (null if none or unknown)
+    private DroneCatalog savedCatalog;
+
+    public SnapshotService(DroneService droneService, RegionRegistryService regionRegistryService,
+                           RequestValidator requestValidator, PositionService positionService,
+                           @Value("${ilp.snapshot.path:}") String path) {
+        this.droneService = droneService;
+        this.regionRegistryService = regionRegistryService;
+        this.requestValidator = requestValidator;
+        this.positionService = positionService;
+        this.path = path == null || path.isBlank() ? null : Path.of(path);
+    }
+
+    /**
+     * Restores the catalog and regions from the snapshot file, if there is a valid one.
+     * A missing or corrupt snapshot is only logged: the service then starts empty, as without snapshots.
+     * A region the registry would not accept, e.g. an open polygon, is logged and skipped.
+     * @return true if a snapshot was restored
+     */
+    public boolean restore() {
+        if (path == null) return false;
+        long start = System.nanoTime();
+        SnapshotFile.Contents contents;
+        try {
+            contents = SnapshotFile.read(path);
+        } catch (NoSuchFileException e) {
+            logger.info("No snapshot at {}, starting without one", path);
+            return false;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable snapshot at {}: {}", path, e.toString());
+            return false;
+        }
+        DroneCatalog catalog = contents.catalog();
+        List<Region> regions = validRegions(contents.regions());
+        if (!regions.isEmpty()) regionRegistryService.restoreRegions(regions);
+        boolean restoredCatalog = catalog != null && droneService.restoreCatalog(catalog);
+        writeLock.lock();
+        try {
+            // The file already holds this state; a later change makes it differ again
+            if (restoredCatalog) savedCatalogVersion = catalog.version();
+            savedCatalog = catalog;
+            savedRegionsVersion = regionRegistryService.version();
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Restored snapshot from {} in {} ms: {} drones (catalog version {}), {} regions", path,
+                (System.nanoTime() - start) / 1_000_000, restoredCatalog ? catalog.drones().size() : 0,
+                restoredCatalog ? catalog.version() : "-", regions.size());
+        return true;
+    }
+
+    /**
+     * Returns the regions that pass the validation of the region endpoints, logging the others.
+     */
+    private List<Region> validRegions(List<Region> restored) {
+        List<Region> valid = new ArrayList<>(restored.size());
+        for (Region region : restored) {
+            List<RequestValidator.FieldViolation> violations = requestValidator.validate(region);
+            String errorMsg = violations.isEmpty() ? positionService.validatePolygon(region)
+                    : violations.getFirst().field() + ": " + violations.getFirst().message();
+            if (errorMsg == null) valid.add(region);
+            else logger.warn("Skipping invalid region {} of snapshot at {}: {}", region.name(), path, errorMsg);
+        }
+        return valid;
+    }
+
+    @PostConstruct
+    public void restoreOnStartup() {
+        restore();
+    }
+
+    /**
+     * Scheduled task which writes the snapshot if the catalog version or the regions changed since the last write.
+     */
+    @Scheduled(initialDelayString = "${ilp.snapshot.interval:PT30S}", fixedDelayString = "${ilp.snapshot.interval:PT30S}")
+    public void saveInBackground() {
+        try {
+            save(false);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Writing snapshot to {} failed: {}", path, e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        saveInBackground();
+    }
+
+    /**
+     * Writes the current catalog and regions to the snapshot file, replacing it atomically.
+     * @param force write even if nothing changed since the last write
+     * @return true if the snapshot was written
+     * @throws IOException if the file cannot be written
+     */
+    public boolean save(boolean force) throws IOException {
+        if (path == null) return false;
+        writeLock.lock();
+        try {
+            DroneCatalog catalog = droneService.getCachedCatalog();
+            long catalogVersion = catalog == null ? -1 : catalog.version();
+            long regionsVersion = regionRegistryService.version();
+            if (!force && catalogVersion == savedCatalogVersion && regionsVersion == savedRegionsVersion) return false;
+            // Without a catalog of its own, keep the catalog of the existing snapshot rather than drop it
+            DroneCatalog written = catalog != null ? catalog : catalogOnDisk();
+
+            SnapshotFile.write(path, new SnapshotFile.Contents(written, regionRegistryService.getRegions()));
+            savedCatalogVersion = catalogVersion;
+            savedCatalog = written;
+            savedRegionsVersion = regionsVersion;
+            logger.debug("Wrote snapshot to {}: catalog version {}, regions version {}", path, catalogVersion, regionsVersion);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the catalog of the snapshot on disk: the one last restored or written, or else the one in the file.
+     * An unreadable file has no catalog worth keeping.
+     */
+    private DroneCatalog catalogOnDisk() {
+        if (savedCatalog != null || !Files.exists(path)) return savedCatalog;
+        try {
+            return SnapshotFile.read(path).catalog();
+        } catch (IOException e) {
+            logger.warn("Replacing unreadable snapshot at {}: {}", path, e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package uk.ac.ed.acp.cw2.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to the ILP REST Service against its slow answers, so one stalled response does not hold
+ * up the requests waiting on it:
+ * - every call has a deadline; when it passes the call fails with an {@link UpstreamUnavailableException}
+ *   and its requests are cancelled;
+ * - if the first request of a call has not answered after a percentile (p95 by default) of the recent upstream
+ *   latencies, a second identical request is sent, and whichever answers first wins;
+ * - a circuit breaker keeps the outcomes of the last calls, failed or slower than a threshold counting as bad;
+ *   once too many are bad it opens and calls fail at once, and after the open duration a single trial call
+ *   decides whether it closes again. Each state change starts a new epoch; a call only counts in the epoch it
+ *   started in, so calls still running from before the breaker opened cannot decide the trial or reopen it.
+ * The state is published as the "upstreamPolicy" component of the actuator health endpoint, which reports
+ * {@link #DEGRADED} while the breaker is not closed.
+ */
+@Component
+public class UpstreamPolicy implements HealthIndicator {
+    /** Health status of a service that answers, but not as well as it should (e.g. from a stale cache). */
+    public static final Status DEGRADED = new Status("DEGRADED");
+    // Number of recent request latencies the hedging delay is taken from, and how many are needed to use them
+    private static final int LATENCY_SAMPLES = 100;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    public enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+    private final Duration deadline;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayNanos;
+    private final long hedgeMaxDelayNanos;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    // The breaker only opens once half of its window has been filled
+    private final int minimumCalls;
+
+    // Runs the blocking requests, and the timers of hedges and deadlines
+    private final ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Latencies of the last successful requests, as a ring buffer (guarded by this)
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyNext;
+
+    // Outcomes of the last calls, true if bad, as a ring buffer (guarded by this)
+    private final boolean[] outcomes;
+    private int outcomeCount;
+    private int outcomeNext;
+    private int badCount;
+    private BreakerState state = BreakerState.CLOSED;
+    private long openedAt;
+    // Increased on every change of the state; the outcomes of calls started in an earlier epoch are ignored
+    private long epoch;
+
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder deadlinesExceeded = new LongAdder();
+
+    public UpstreamPolicy(@Value("${ilp.upstream.call-timeout:PT10S}") Duration deadline,
+                          @Value("${ilp.upstream.hedge.enabled:true}") boolean hedgeEnabled,
+                          @Value("${ilp.upstream.hedge.percentile:0.95}") double hedgePercentile,
+                          @Value("${ilp.upstream.hedge.min-delay:PT0.05S}") Duration hedgeMinDelay,
+                          @Value("${ilp.upstream.hedge.max-delay:PT2S}") Duration hedgeMaxDelay,
+                          @Value("${ilp.upstream.breaker.window:10}") int window,
+                          @Value("${ilp.upstream.breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                          @Value("${ilp.upstream.breaker.slow-call-threshold:PT3S}") Duration slowCallThreshold,
+                          @Value("${ilp.upstream.breaker.open-duration:PT30S}") Duration openDuration) {
+        if (window < 1) throw new IllegalArgumentException("The breaker window must hold at least one call");
+        this.deadline = deadline;
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.hedgeMaxDelayNanos = hedgeMaxDelay.toNanos();
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.outcomes = new boolean[window];
+        this.minimumCalls = Math.max(1, window / 2);
+    }
+
+    /**
+     * Returns the deadline of a call, hedged request included.
+     */
+    public Duration deadline() {
+        return deadline;
+    }
+
+    /**
+     * Makes a call of non-blocking requests, e.g. WebClient requests converted with Mono.toFuture().
+     * The request supplier is invoked once, and once more for the hedged request; the request that loses,
+     * or every request when the deadline passes, is cancelled.
+     * @param request supplies a new request each time it is invoked
+     * @return the answer of the first successful request; fails with the error of the last request if all
+     *         of them failed, or with an UpstreamUnavailableException if the breaker is open or the deadline passed
+     */
+    public <T> CompletableFuture<T> execute(Supplier<? extends CompletableFuture<T>> request) {
+        long callEpoch = tryAcquire();
+        if (callEpoch < 0) {
+            rejectedCalls.increment();
+            return CompletableFuture.failedFuture(
+                    new UpstreamUnavailableException("Circuit breaker of the ILP REST Service is open"));
+        }
+        Call<T> call = new Call<>(callEpoch);
+        send(request, call, false);
+
+        if (hedgeEnabled) {
+            delayed(hedgeDelayNanos()).execute(() -> {
+                if (call.ended.get()) return;
+                call.pending.incrementAndGet();
+                hedgesSent.increment();
+                send(request, call, true);
+            });
+        }
+        delayed(deadline.toNanos()).execute(() -> call.end(null, new UpstreamUnavailableException(
+                "The ILP REST Service did not answer within " + deadline), deadlinesExceeded));
+        return call.result;
+    }
+
+    /**
+     * Makes a call of blocking requests, e.g. RestTemplate requests, like {@link #execute(Supplier)}.
+     * Each request runs on its own virtual thread, which is interrupted when the request is cancelled;
+     * the caller waits for the outcome of the call.
+     * @param request the blocking request, invoked once per request sent
+     * @return the answer of the first successful request
+     * @throws UpstreamUnavailableException if the breaker is open or the deadline passed
+     */
+    public <T> T executeBlocking(Supplier<T> request) {
+        try {
+            return execute(() -> onVirtualThread(request)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private <T> void send(Supplier<? extends CompletableFuture<T>> request, Call<T> call, boolean hedge) {
+        long sent = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        call.requests.add(future);
+        // The call may have ended while the request was created
+        if (call.ended.get()) future.cancel(true);
+        future.whenComplete((value, e) -> {
+            if (e == null) {
+                recordLatency(System.nanoTime() - sent);
+                call.end(value, null, hedge ? hedgesWon : null);
+            } else if (call.pending.decrementAndGet() == 0) {
+                call.end(null, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e, null);
+            }
+        });
+    }
+
+    /**
+     * One call: the requests sent for it, and its result, which the first answer, the failure of the last
+     * request or the deadline sets.
+     */
+    private final class Call<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<CompletableFuture<T>> requests = new CopyOnWriteArrayList<>();
+        // Requests sent that have not failed yet; the call fails when the last one does
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicBoolean ended = new AtomicBoolean();
+        private final long start = System.nanoTime();
+        // The breaker epoch the call was admitted in
+        private final long epoch;
+
+        private Call(long epoch) {
+            this.epoch = epoch;
+        }
+
+        /**
+         * Ends the call unless it has ended already. The breaker and the counter are updated and the other
+         * requests cancelled before the result is completed, so the caller sees them when it gets the answer.
+         * @param counter counts how the call ended, e.g. hedgesWon (null for none)
+         */
+        private void end(T value, Throwable error, LongAdder counter) {
+            if (!ended.compareAndSet(false, true)) return;
+            recordOutcome(epoch, error == null, System.nanoTime() - start);
+            if (counter != null) counter.increment();
+            for (CompletableFuture<T> sent : requests) sent.cancel(true);
+            if (error == null) result.complete(value);
+            else result.completeExceptionally(error);
+        }
+    }
+
+    private <T> CompletableFuture<T> onVirtualThread(Supplier<T> request) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> task = virtualThreads.submit(() -> {
+            try {
+                future.complete(request.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled()) task.cancel(true);
+        });
+        return future;
+    }
+
+    private Executor delayed(long nanos) {
+        return CompletableFuture.delayedExecutor(nanos, TimeUnit.NANOSECONDS, virtualThreads);
+    }
+
+    /**
+     * Returns how long a call waits for its first request before it sends the hedged one: the configured
+     * percentile of the recent latencies within the minimum and maximum delay, or the maximum delay
+     * while too few latencies were recorded.
+     * @return the delay in nanoseconds
+     */
+    public synchronized long hedgeDelayNanos() {
+        if (latencyCount < MIN_LATENCY_SAMPLES) return hedgeMaxDelayNanos;
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        long percentile = sorted[Math.min(latencyCount - 1, (int) Math.ceil(hedgePercentile * latencyCount) - 1)];
+        return Math.clamp(percentile, hedgeMinDelayNanos, hedgeMaxDelayNanos);
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyNext] = nanos;
+        latencyNext = (latencyNext + 1) % latencies.length;
+        latencyCount = Math.min(latencyCount + 1, latencies.length);
+    }
+
+    /**
+     * Decides whether a call may go ahead: always while the breaker is closed, never while it is open,
+     * and once it has been open for the open duration, for a single trial call.
+     * @return the epoch the call is admitted in, or -1 if it is rejected
+     */
+    private synchronized long tryAcquire() {
+        return switch (state) {
+            case CLOSED -> epoch;
+            case OPEN -> {
+                if (System.nanoTime() - openedAt < openNanos) yield -1;
+                // The trial call is the only one admitted in the half-open epoch
+                changeState(BreakerState.HALF_OPEN);
+                yield epoch;
+            }
+            // The trial call is in flight
+            case HALF_OPEN -> -1;
+        };
+    }
+
+    /**
+     * Records the outcome of a call admitted in the given epoch; outcomes of earlier epochs are ignored.
+     */
+    private synchronized void recordOutcome(long callEpoch, boolean success, long nanos) {
+        if (callEpoch != epoch) return;
+        boolean bad = !success || nanos > slowCallNanos;
+        if (state == BreakerState.HALF_OPEN) {
+            if (bad) {
+                open();
+            } else {
+                changeState(BreakerState.CLOSED);
+                outcomeCount = outcomeNext = badCount = 0;
+            }
+            return;
+        }
+        if (outcomeCount == outcomes.length && outcomes[outcomeNext]) badCount--;
+        outcomes[outcomeNext] = bad;
+        if (bad) badCount++;
+        outcomeNext = (outcomeNext + 1) % outcomes.length;
+        outcomeCount = Math.min(outcomeCount + 1, outcomes.length);
+        if (outcomeCount >= minimumCalls && badCount >= failureRateThreshold * outcomeCount) open();
+    }
+
+    private void open() {
+        // Opening again would move openedAt and keep the breaker open for as long as late outcomes arrive
+        if (state == BreakerState.OPEN) return;
+        changeState(BreakerState.OPEN);
+        openedAt = System.nanoTime();
+    }
+
+    private void changeState(BreakerState newState) {
+        state = newState;
+        epoch++;
+    }
+
+    /**
+     * Returns the state of the circuit breaker.
+     * An open breaker stays open until the first call after its open duration.
+     * @return the breaker state
+     */
+    public synchronized BreakerState getBreakerState() {
+        return state;
+    }
+
+    @Override
+    public Health health() {
+        BreakerState breakerState;
+        int calls;
+        int bad;
+        synchronized (this) {
+            breakerState = state;
+            calls = outcomeCount;
+            bad = badCount;
+        }
+        return (breakerState == BreakerState.CLOSED ? Health.up() : Health.status(DEGRADED))
+                .withDetail("circuitBreaker", breakerState)
+                .withDetail("recentCalls", calls)
+                .withDetail("badCallRate", calls == 0 ? 0.0 : (double) bad / calls)
+                .withDetail("hedgeDelayMillis", TimeUnit.NANOSECONDS.toMillis(hedgeEnabled ? hedgeDelayNanos() : 0))
+                .withDetail("hedgesSent", hedgesSent.sum())
+                .withDetail("hedgesWon", hedgesWon.sum())
+                .withDetail("rejectedCalls", rejectedCalls.sum())
+                .withDetail("deadlinesExceeded", deadlinesExceeded.sum())
+                .build();
+    }
+}
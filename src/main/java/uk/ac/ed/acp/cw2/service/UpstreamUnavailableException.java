@@ -0,0 +1,13 @@
+package uk.ac.ed.acp.cw2.service;
+
+/**
+ * Thrown when a call to the ILP REST Service is not attempted because the circuit breaker is open,
+ * or is given up because it did not answer within its deadline.
+ * Handled by the exception handlers as HTTP 503 (Service Unavailable).
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package uk.ac.ed.acp.cw2.validation;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when a request body fails the {@link RequestValidator} checks.
+ * Handled by the RestExceptionHandler like a failed @Valid: HTTP 400 and a log line per field.
+ */
+@Getter
+public class InvalidRequestException extends RuntimeException {
+    // The name of the request object, e.g. "distanceRequest"
+    private final String objectName;
+    private final List<RequestValidator.FieldViolation> violations;
+
+    public InvalidRequestException(String objectName, List<RequestValidator.FieldViolation> violations) {
+        super("Invalid " + objectName + ": " + violations.size() + " violation(s)");
+        this.objectName = objectName;
+        this.violations = violations;
+    }
+}
@@ -0,0 +1,237 @@
+package uk.ac.ed.acp.cw2.validation;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.acp.cw2.dto.DeliveryCostRequest;
+import uk.ac.ed.acp.cw2.dto.DistanceRequest;
+import uk.ac.ed.acp.cw2.dto.NextPositionRequest;
+import uk.ac.ed.acp.cw2.dto.PathValidationRequest;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.dto.RegionBatchRequest;
+import uk.ac.ed.acp.cw2.dto.RegionRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written validation of the geometry DTOs, equivalent to their Bean Validation annotations.
+ * Checks fields directly instead of walking the constraint metadata by reflection, which dominates the cost
+ * of small requests such as distanceTo. Field paths and messages are the same as Bean Validation would report;
+ * any other type falls back to the Bean Validation {@link Validator}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestValidator {
+    // Messages of the constraints without an explicit message (Hibernate Validator defaults)
+    static final String ANGLE_MIN_MESSAGE = "must be greater than or equal to 0";
+    static final String ANGLE_MAX_MESSAGE = "must be less than or equal to 360";
+
+    // Fallback for types without a hand-written check
+    private final Validator validator;
+
+    /**
+     * A failed constraint.
+     * @param field the property path, e.g. "position1.lat" or "region.vertices[2].lng"
+     * @param message the constraint message
+     */
+    public record FieldViolation(String field, String message) {}
+
+    /**
+     * Validates a request and throws if it is invalid.
+     * @param request the request body
+     * @param objectName the name of the request object used in the log, e.g. "distanceRequest"
+     * @throws InvalidRequestException if any constraint fails
+     */
+    public void requireValid(Object request, String objectName) {
+        List<FieldViolation> violations = validate(request);
+        if (!violations.isEmpty()) throw new InvalidRequestException(objectName, violations);
+    }
+
+    /**
+     * Validates a request.
+     * @param request the request body (not null)
+     * @return the failed constraints, empty if the request is valid
+     */
+    public List<FieldViolation> validate(Object request) {
+        List<FieldViolation> violations = new ArrayList<>(0);
+        switch (request) {
+            case Position position -> validatePosition(position, "", violations);
+            case DistanceRequest distanceRequest -> {
+                validateNestedPosition(distanceRequest.position1(), "position1", "Position1 is required!", violations);
+                validateNestedPosition(distanceRequest.position2(), "position2", "Position2 is required!", violations);
+            }
+            case NextPositionRequest positionRequest -> {
+                validateNestedPosition(positionRequest.start(), "start", "Position is required!", violations);
+                validateAngle(positionRequest.angle(), violations);
+            }
+            case RegionRequest regionRequest -> {
+                validateNestedPosition(regionRequest.position(), "position", "Position is required!", violations);
+                if (regionRequest.region() == null) violations.add(new FieldViolation("region", "Region is required!"));
+                else validateRegion(regionRequest.region(), "region.", violations);
+            }
+            case Region region -> validateRegion(region, "", violations);
+            case RegionBatchRequest batchRequest -> {
+                if (batchRequest.region() == null) violations.add(new FieldViolation("region", "Region is required!"));
+                else validateRegion(batchRequest.region(), "region.", violations);
+                // The positions themselves are validated one by one by the controller
+                if (batchRequest.positions() == null) violations.add(new FieldViolation("positions", "Positions are required!"));
+            }
+            case DeliveryCostRequest costRequest -> {
+                validateNestedPosition(costRequest.from(), "from", "From position is required!", violations);
+                validateNestedPosition(costRequest.to(), "to", "To position is required!", violations);
+                Double capacity = costRequest.capacity();
+                if (capacity == null) violations.add(new FieldViolation("capacity", "Capacity is required!"));
+                // Like @PositiveOrZero, which also rejects -0.0 and NaN
+                else if (capacity.isNaN() || Double.compare(capacity, 0.0) < 0) violations.add(new FieldViolation("capacity", "Capacity cannot be negative!"));
+            }
+            case PathValidationRequest pathRequest -> {
+                if (pathRequest.path() == null) violations.add(new FieldViolation("path", "Path is required!"));
+                else validatePath(pathRequest.path(), violations);
+                List<Region> areas = pathRequest.restrictedAreas();
+                if (areas == null) violations.add(new FieldViolation("restrictedAreas", "Restricted areas are required!"));
+                else {
+                    for (int i = 0; i < areas.size(); i++) {
+                        // Null areas are rejected by the controller, as Bean Validation does not cascade into them
+                        if (areas.get(i) != null) validateRegion(areas.get(i), "restrictedAreas[" + i + "].", violations);
+                    }
+                }
+            }
+            default -> {
+                for (ConstraintViolation<Object> violation : validator.validate(request)) {
+                    violations.add(new FieldViolation(violation.getPropertyPath().toString(), violation.getMessage()));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static void validateNestedPosition(Position position, String field, String requiredMessage,
+                                               List<FieldViolation> violations) {
+        if (position == null) violations.add(new FieldViolation(field, requiredMessage));
+        else validatePosition(position, field + ".", violations);
+    }
+
+    private static void validatePosition(Position position, String prefix, List<FieldViolation> violations) {
+        if (isValid(position)) return;
+        Double lng = position.lng(), lat = position.lat();
+        if (lng == null) violations.add(new FieldViolation(prefix + "lng", "Longitude must be provided!"));
+        else validateLng(lng, prefix, violations);
+        if (lat == null) violations.add(new FieldViolation(prefix + "lat", "Latitude must be provided!"));
+        else validateLat(lat, prefix, violations);
+    }
+
+    /**
+     * Quick check for the common case, so valid positions cost no string concatenation.
+     */
+    private static boolean isValid(Position position) {
+        Double lng = position.lng(), lat = position.lat();
+        return lng != null && lat != null && isValidCoordinate(lng, lat);
+    }
+
+    /**
+     * Checks the range of a coordinate pair, as the annotations of {@link Position} do.
+     * @param lng the longitude
+     * @param lat the latitude
+     * @return true if both are in range (and not NaN)
+     */
+    public static boolean isValidCoordinate(double lng, double lat) {
+        return lng >= -180 && lng <= 180 && lat >= -90 && lat <= 90;
+    }
+
+    /**
+     * Validates a coordinate pair that cannot be null, e.g. one decoded from a binary request.
+     * @param lng the longitude
+     * @param lat the latitude
+     * @param prefix the property path of the position followed by a dot, e.g. "position1."
+     * @param violations the list to add the failed constraints to
+     */
+    public static void validateCoordinate(double lng, double lat, String prefix, List<FieldViolation> violations) {
+        if (isValidCoordinate(lng, lat)) return;
+        validateLng(lng, prefix, violations);
+        validateLat(lat, prefix, violations);
+    }
+
+    // Written as !(x >= min) so that NaN fails both bounds, like @Min/@Max do
+    private static void validateLng(double lng, String prefix, List<FieldViolation> violations) {
+        if (!(lng >= -180)) violations.add(new FieldViolation(prefix + "lng", "Longitude cannot be under -180!"));
+        if (!(lng <= 180)) violations.add(new FieldViolation(prefix + "lng", "Longitude cannot be over 180!"));
+    }
+
+    private static void validateLat(double lat, String prefix, List<FieldViolation> violations) {
+        if (!(lat >= -90)) violations.add(new FieldViolation(prefix + "lat", "Latitude cannot be under 90!"));
+        if (!(lat <= 90)) violations.add(new FieldViolation(prefix + "lat", "Latitude cannot be over 90!"));
+    }
+
+    private static void validateAngle(Double angle, List<FieldViolation> violations) {
+        if (angle == null) violations.add(new FieldViolation("angle", "Angle is required!"));
+        else validateAngle(angle.doubleValue(), violations);
+    }
+
+    /**
+     * Validates the range of the angle of a next position request (not whether it is a legal direction).
+     * @param angle the angle in degrees
+     * @param violations the list to add the failed constraints to
+     */
+    public static void validateAngle(double angle, List<FieldViolation> violations) {
+        if (!(angle >= 0)) violations.add(new FieldViolation("angle", ANGLE_MIN_MESSAGE));
+        if (!(angle <= 360)) violations.add(new FieldViolation("angle", ANGLE_MAX_MESSAGE));
+    }
+
+    private static void validateRegion(Region region, String prefix, List<FieldViolation> violations) {
+        if (region.name() == null) violations.add(new FieldViolation(prefix + "name", "Region name is required!"));
+        List<Position> vertices = region.vertices();
+        if (vertices == null) {
+            violations.add(new FieldViolation(prefix + "vertices", "Vertices are required!"));
+            return;
+        }
+        if (vertices instanceof PositionList positionList) {
+            // No null vertices or coordinates possible, so only the ranges need checking
+            validateVertices(positionList.coords(), prefix, violations);
+            return;
+        }
+        if (vertices.size() < 4) violations.add(new FieldViolation(prefix + "vertices", "Region must have at least 4 vertices!"));
+        for (int i = 0; i < vertices.size(); i++) {
+            Position vertex = vertices.get(i);
+            // Bean Validation does not cascade into null elements, so neither does this
+            if (vertex != null && !isValid(vertex)) {
+                validatePosition(vertex, prefix + "vertices[" + i + "].", violations);
+            }
+        }
+    }
+
+    private static void validatePath(List<Position> path, List<FieldViolation> violations) {
+        if (path.isEmpty()) violations.add(new FieldViolation("path", "Path must have at least 1 position!"));
+        if (path instanceof PositionList positionList) {
+            double[] coords = positionList.coords();
+            for (int i = 0; i + 1 < coords.length; i += 2) {
+                if (!isValidCoordinate(coords[i], coords[i + 1])) {
+                    validateCoordinate(coords[i], coords[i + 1], "path[" + i / 2 + "].", violations);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < path.size(); i++) {
+            Position position = path.get(i);
+            if (position != null && !isValid(position)) validatePosition(position, "path[" + i + "].", violations);
+        }
+    }
+
+    /**
+     * Validates the vertices of a region given as flat (lng, lat) pairs, e.g. decoded from a binary request.
+     * @param coords the vertex coordinates
+     * @param prefix the property path of the region followed by a dot, e.g. "region."
+     * @param violations the list to add the failed constraints to
+     */
+    public static void validateVertices(double[] coords, String prefix, List<FieldViolation> violations) {
+        if (coords.length < 8) violations.add(new FieldViolation(prefix + "vertices", "Region must have at least 4 vertices!"));
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            if (!isValidCoordinate(coords[i], coords[i + 1])) {
+                validateCoordinate(coords[i], coords[i + 1], prefix + "vertices[" + i / 2 + "].", violations);
+            }
+        }
+    }
+}
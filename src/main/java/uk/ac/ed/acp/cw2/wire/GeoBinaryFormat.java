@@ -0,0 +1,270 @@
+package uk.ac.ed.acp.cw2.wire;
+
+import org.springframework.http.MediaType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary wire format for the geometry endpoints, as an alternative to JSON for service-to-service traffic.
+ * Everything is little-endian; doubles are IEEE 754 (8 bytes) and counts are signed 32-bit ints.
+ * <pre>
+ * distanceTo / isCloseTo request      lng1 lat1 lng2 lat2                   (4 doubles)
+ * nextPosition request                lng lat angle                         (3 doubles)
+ * isInRegion request                  lng lat, int n, n x (lng lat)
+ * batch request                       int count, count x record
+ * batch isInRegion request            int n, n x (lng lat), int count, count x (lng lat)
+ *
+ * distanceTo response                 distance                              (1 double)
+ * nextPosition response               lng lat                               (2 doubles)
+ * isCloseTo / isInRegion response     0 or 1                                (1 byte)
+ * batch response                      int count, count x status byte, count x result
+ * </pre>
+ * A batch item whose status is not {@link #STATUS_OK} has NaN (or 0 for booleans) as its result.
+ * Requests decode straight into flat double arrays, without Position objects or boxed doubles.
+ */
+public final class GeoBinaryFormat {
+    public static final String MEDIA_TYPE_VALUE = "application/x-ilp-geo";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    // Record sizes in doubles
+    public static final int DISTANCE_RECORD = 4;
+    public static final int NEXT_POSITION_RECORD = 3;
+    public static final int POSITION_RECORD = 2;
+
+    // Status of a batch item, the binary counterpart of the error codes of BatchResult
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_INVALID_REQUEST = 1;
+    public static final byte STATUS_INVALID_ANGLE = 2;
+
+    /**
+     * A decoded isInRegion request.
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param coords the vertices as (lng, lat) pairs
+     */
+    public record RegionFrame(double lng, double lat, double[] coords) {}
+
+    /**
+     * A decoded batch isInRegion request.
+     * @param coords the vertices as (lng, lat) pairs
+     * @param points the positions to check as (lng, lat) pairs
+     */
+    public record RegionBatchFrame(double[] coords, double[] points) {}
+
+    /**
+     * A decoded batch response.
+     * @param status the status of each item
+     * @param values the results as doubles ({@code resultSize} per item); booleans are 0 or 1
+     */
+    public record BatchFrame(byte[] status, double[] values) {}
+
+    private GeoBinaryFormat() {}
+
+    private static ByteBuffer wrap(byte[] body) {
+        return ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer allocate(long size) {
+        return ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void expectLength(byte[] body, long expected, String what) {
+        if (body.length != expected) {
+            throw new GeoBinaryFormatException("Expected " + expected + " bytes for " + what + " but got " + body.length);
+        }
+    }
+
+    private static int readCount(ByteBuffer buffer, String what) {
+        if (buffer.remaining() < Integer.BYTES) throw new GeoBinaryFormatException("Missing count of " + what);
+        int count = buffer.getInt();
+        if (count < 0) throw new GeoBinaryFormatException("Negative count of " + what + ": " + count);
+        return count;
+    }
+
+    /**
+     * Decodes a body of exactly one record.
+     * @param body the request body
+     * @param recordSize the number of doubles in the record
+     * @return double[]: the record
+     */
+    public static double[] decodeRecord(byte[] body, int recordSize) {
+        expectLength(body, (long) recordSize * Double.BYTES, "a record");
+        double[] record = new double[recordSize];
+        wrap(body).asDoubleBuffer().get(record);
+        return record;
+    }
+
+    /**
+     * Decodes a batch of records.
+     * @param body the request body
+     * @param recordSize the number of doubles in each record
+     * @return double[]: the records one after the other
+     */
+    public static double[] decodeBatch(byte[] body, int recordSize) {
+        ByteBuffer buffer = wrap(body);
+        int count = readCount(buffer, "records");
+        expectLength(body, Integer.BYTES + (long) count * recordSize * Double.BYTES, count + " records");
+        double[] records = new double[count * recordSize];
+        buffer.asDoubleBuffer().get(records);
+        return records;
+    }
+
+    /**
+     * Decodes an isInRegion request.
+     * @param body the request body
+     * @return the RegionFrame
+     */
+    public static RegionFrame decodeRegion(byte[] body) {
+        ByteBuffer buffer = wrap(body);
+        if (buffer.remaining() < POSITION_RECORD * Double.BYTES) throw new GeoBinaryFormatException("Missing position");
+        double lng = buffer.getDouble(), lat = buffer.getDouble();
+        int vertices = readCount(buffer, "vertices");
+        expectLength(body, POSITION_RECORD * Double.BYTES + Integer.BYTES + (long) vertices * POSITION_RECORD * Double.BYTES,
+                vertices + " vertices");
+        double[] coords = new double[vertices * POSITION_RECORD];
+        buffer.asDoubleBuffer().get(coords);
+        return new RegionFrame(lng, lat, coords);
+    }
+
+    /**
+     * Decodes a batch isInRegion request.
+     * @param body the request body
+     * @return the RegionBatchFrame
+     */
+    public static RegionBatchFrame decodeRegionBatch(byte[] body) {
+        ByteBuffer buffer = wrap(body);
+        int vertices = readCount(buffer, "vertices");
+        if (buffer.remaining() < (long) vertices * POSITION_RECORD * Double.BYTES) {
+            throw new GeoBinaryFormatException("Expected " + vertices + " vertices but got " + buffer.remaining() + " bytes");
+        }
+        double[] coords = new double[vertices * POSITION_RECORD];
+        buffer.asDoubleBuffer().get(coords);
+        buffer.position(buffer.position() + coords.length * Double.BYTES);
+        int count = readCount(buffer, "positions");
+        expectLength(body, 2L * Integer.BYTES + ((long) vertices + count) * POSITION_RECORD * Double.BYTES,
+                vertices + " vertices and " + count + " positions");
+        double[] points = new double[count * POSITION_RECORD];
+        buffer.asDoubleBuffer().get(points);
+        return new RegionBatchFrame(coords, points);
+    }
+
+    /**
+     * Encodes doubles without a count: a single request record or a single double result.
+     * @param values the doubles
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeDoubles(double... values) {
+        ByteBuffer buffer = allocate((long) values.length * Double.BYTES);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes a batch of request records.
+     * @param records the records one after the other
+     * @param recordSize the number of doubles in each record
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeBatch(double[] records, int recordSize) {
+        if (records.length % recordSize != 0) throw new IllegalArgumentException("Incomplete record");
+        ByteBuffer buffer = allocate(Integer.BYTES + (long) records.length * Double.BYTES);
+        buffer.putInt(records.length / recordSize);
+        buffer.asDoubleBuffer().put(records);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes an isInRegion request.
+     * @param lng the longitude of the position
+     * @param lat the latitude of the position
+     * @param coords the vertices as (lng, lat) pairs
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeRegion(double lng, double lat, double[] coords) {
+        ByteBuffer buffer = allocate(POSITION_RECORD * Double.BYTES + Integer.BYTES + (long) coords.length * Double.BYTES);
+        buffer.putDouble(lng).putDouble(lat).putInt(coords.length / POSITION_RECORD);
+        buffer.asDoubleBuffer().put(coords);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes a batch isInRegion request.
+     * @param coords the vertices as (lng, lat) pairs
+     * @param points the positions to check as (lng, lat) pairs
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeRegionBatch(double[] coords, double[] points) {
+        ByteBuffer buffer = allocate(2L * Integer.BYTES + ((long) coords.length + points.length) * Double.BYTES);
+        buffer.putInt(coords.length / POSITION_RECORD);
+        buffer.asDoubleBuffer().put(coords);
+        buffer.position(buffer.position() + coords.length * Double.BYTES);
+        buffer.putInt(points.length / POSITION_RECORD);
+        buffer.asDoubleBuffer().put(points);
+        return buffer.array();
+    }
+
+    public static byte[] encodeBoolean(boolean value) {
+        return new byte[]{(byte) (value ? 1 : 0)};
+    }
+
+    public static boolean decodeBoolean(byte[] body) {
+        expectLength(body, 1, "a boolean");
+        return body[0] != 0;
+    }
+
+    public static double[] decodeDoubles(byte[] body) {
+        if (body.length % Double.BYTES != 0) throw new GeoBinaryFormatException("Incomplete double: " + body.length + " bytes");
+        double[] values = new double[body.length / Double.BYTES];
+        wrap(body).asDoubleBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Encodes a batch response with double results.
+     * @param status the status of each item
+     * @param values the results, values.length / status.length per item
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeBatchResult(byte[] status, double[] values) {
+        ByteBuffer buffer = allocate(Integer.BYTES + status.length + (long) values.length * Double.BYTES);
+        buffer.putInt(status.length).put(status);
+        buffer.asDoubleBuffer().put(values);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes a batch response with boolean results (one byte each).
+     * @param status the status of each item
+     * @param values the results
+     * @return byte[]: the encoded body
+     */
+    public static byte[] encodeBatchResult(byte[] status, boolean[] values) {
+        ByteBuffer buffer = allocate(Integer.BYTES + 2L * status.length);
+        buffer.putInt(status.length).put(status);
+        for (boolean value : values) buffer.put((byte) (value ? 1 : 0));
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a batch response.
+     * @param body the response body
+     * @param resultSize the number of doubles per result, or 0 for boolean results
+     * @return the BatchFrame
+     */
+    public static BatchFrame decodeBatchResult(byte[] body, int resultSize) {
+        ByteBuffer buffer = wrap(body);
+        int count = readCount(buffer, "results");
+        long resultBytes = resultSize == 0 ? count : (long) count * resultSize * Double.BYTES;
+        expectLength(body, Integer.BYTES + count + resultBytes, count + " results");
+        byte[] status = new byte[count];
+        buffer.get(status);
+        double[] values = new double[resultSize == 0 ? count : count * resultSize];
+        if (resultSize == 0) {
+            for (int i = 0; i < count; i++) values[i] = buffer.get();
+        } else {
+            buffer.asDoubleBuffer().get(values);
+        }
+        return new BatchFrame(status, values);
+    }
+}
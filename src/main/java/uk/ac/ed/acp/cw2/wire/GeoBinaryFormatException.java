@@ -0,0 +1,11 @@
+package uk.ac.ed.acp.cw2.wire;
+
+/**
+ * Thrown when a body in the {@link GeoBinaryFormat} does not have the expected layout.
+ * Handled by the RestExceptionHandler like malformed JSON: HTTP 400.
+ */
+public class GeoBinaryFormatException extends RuntimeException {
+    public GeoBinaryFormatException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,30 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link ApiMetrics}.
+ */
+public class ApiMetricsTest {
+
+    @Test
+    void recordRejected_countsByEndpointAndReason() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ApiMetrics apiMetrics = new ApiMetrics(registry);
+
+        apiMetrics.recordRejected("/api/v1/isInRegion", "open_polygon");
+        apiMetrics.recordRejected("/api/v1/isInRegion", "open_polygon", 3);
+        apiMetrics.recordRejected("/api/v1/isInRegion", "validation");
+        apiMetrics.recordRejected("/api/v1/batch/isInRegion", "open_polygon");
+
+        assertEquals(3, registry.find("ilp.requests.rejected").counters().size());
+        assertEquals(4.0, registry.get("ilp.requests.rejected").tag("endpoint", "/api/v1/isInRegion")
+                .tag("reason", "open_polygon").counter().count());
+        assertEquals(1.0, registry.get("ilp.requests.rejected").tag("endpoint", "/api/v1/batch/isInRegion")
+                .counter().count());
+    }
+}
@@ -0,0 +1,126 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Request;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.function.IntFunction;
+
+/**
+ * A request to every /api/v1 endpoint, for {@link LoadGenerator}: single requests, batches of 100 items,
+ * the binary and NDJSON variants, the region registry, the drone queries and the path endpoints.
+ * The region endpoints expect the region "central", which {@link #setUp()} registers.
+ */
+public final class ApiRequests {
+    private static final double[] CENTRAL = {
+            -3.192473, 55.946233, -3.192473, 55.942617, -3.184319, 55.942617,
+            -3.184319, 55.946233, -3.192473, 55.946233};
+    private static final String BINARY = GeoBinaryFormat.MEDIA_TYPE_VALUE;
+    private static final int BATCH = 100;
+
+    private ApiRequests() {
+    }
+
+    /**
+     * Returns the requests that have to succeed once before the mix runs.
+     */
+    public static List<Request> setUp() {
+        return List.of(Request.json("PUT", "/api/v1/regions/central", region("central"), 201));
+    }
+
+    /**
+     * Returns one request per endpoint.
+     */
+    public static List<Request> all() {
+        Random random = new Random(42);
+        double[] points = new double[2 * BATCH];
+        for (int i = 0; i < points.length; i += 2) {
+            points[i] = -3.195 + random.nextDouble() * 0.014;
+            points[i + 1] = 55.940 + random.nextDouble() * 0.008;
+        }
+        String distance = "{\"position1\": " + position(points, 0) + ", \"position2\": " + position(points, 1) + "}";
+        String move = "{\"start\": " + position(points, 0) + ", \"angle\": 45}";
+        String inRegion = "{\"position\": " + position(points, 0) + ", \"region\": " + region("central") + "}";
+        StringBuilder stream = new StringBuilder(region("central")).append('\n');
+        for (int i = 0; i < BATCH; i++) stream.append(position(points, i)).append('\n');
+
+        double[] distanceRecords = new double[4 * BATCH];
+        double[] moveRecords = new double[3 * BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            System.arraycopy(points, 2 * i, distanceRecords, 4 * i, 2);
+            System.arraycopy(points, 2 * ((i + 1) % BATCH), distanceRecords, 4 * i + 2, 2);
+            System.arraycopy(points, 2 * i, moveRecords, 3 * i, 2);
+            moveRecords[3 * i + 2] = 22.5 * (i % 16);
+        }
+
+        return List.of(
+                Request.get("/api/v1/"),
+                Request.get("/api/v1/uid"),
+                Request.json("POST", "/api/v1/distanceTo", distance, 200),
+                Request.json("POST", "/api/v1/isCloseTo", distance, 200),
+                Request.json("POST", "/api/v1/nextPosition", move, 200),
+                Request.json("POST", "/api/v1/isInRegion", inRegion, 200),
+                Request.of("POST", "/api/v1/isInRegion", "application/x-ndjson", bytes(stream.toString()), 200),
+                Request.json("POST", "/api/v1/batch/distanceTo", list(i -> "{\"position1\": " + position(points, i)
+                        + ", \"position2\": " + position(points, (i + 1) % BATCH) + "}"), 200),
+                Request.json("POST", "/api/v1/batch/isCloseTo", list(i -> "{\"position1\": " + position(points, i)
+                        + ", \"position2\": " + position(points, (i + 1) % BATCH) + "}"), 200),
+                Request.json("POST", "/api/v1/batch/nextPosition", list(i -> "{\"start\": " + position(points, i)
+                        + ", \"angle\": " + 22.5 * (i % 16) + "}"), 200),
+                Request.json("POST", "/api/v1/batch/isInRegion", "{\"region\": " + region("central")
+                        + ", \"positions\": " + list(i -> position(points, i)) + "}", 200),
+                Request.of("POST", "/api/v1/distanceTo", BINARY, GeoBinaryFormat.encodeDoubles(-3.19, 55.94, -3.18, 55.95), 200),
+                Request.of("POST", "/api/v1/isCloseTo", BINARY, GeoBinaryFormat.encodeDoubles(-3.19, 55.94, -3.18, 55.95), 200),
+                Request.of("POST", "/api/v1/nextPosition", BINARY, GeoBinaryFormat.encodeDoubles(-3.19, 55.94, 90), 200),
+                Request.of("POST", "/api/v1/isInRegion", BINARY, GeoBinaryFormat.encodeRegion(-3.188, 55.944, CENTRAL), 200),
+                Request.of("POST", "/api/v1/batch/distanceTo", BINARY,
+                        GeoBinaryFormat.encodeBatch(distanceRecords, GeoBinaryFormat.DISTANCE_RECORD), 200),
+                Request.of("POST", "/api/v1/batch/isCloseTo", BINARY,
+                        GeoBinaryFormat.encodeBatch(distanceRecords, GeoBinaryFormat.DISTANCE_RECORD), 200),
+                Request.of("POST", "/api/v1/batch/nextPosition", BINARY,
+                        GeoBinaryFormat.encodeBatch(moveRecords, GeoBinaryFormat.NEXT_POSITION_RECORD), 200),
+                Request.of("POST", "/api/v1/batch/isInRegion", BINARY, GeoBinaryFormat.encodeRegionBatch(CENTRAL, points), 200),
+                Request.get("/api/v1/regions"),
+                Request.get("/api/v1/regions/central"),
+                Request.json("POST", "/api/v1/regions", region("central"), 409),
+                Request.json("PUT", "/api/v1/regions/central", region("central"), 200),
+                Request.of("DELETE", "/api/v1/regions/missing", null, new byte[0], 404),
+                Request.json("POST", "/api/v1/regions/containing", position(points, 0), 200),
+                Request.json("POST", "/api/v1/dronesWithCooling/true", "", 200),
+                Request.get("/api/v1/drones/query?cooling=true&minCapacity=8"),
+                Request.json("POST", "/api/v1/drones/query", "{\"heating\": true, \"maxCostPerMove\": 0.03}", 200),
+                Request.json("POST", "/api/v1/batch/deliveryCost", list(i -> "{\"from\": " + position(points, i)
+                        + ", \"to\": " + position(points, (i + 7) % BATCH) + ", \"capacity\": " + i % 10
+                        + ", \"cooling\": " + (i % 3 == 0) + "}"), 200),
+                Request.json("POST", "/api/v1/calcDeliveryPath", "{\"from\": {\"lng\": -3.195, \"lat\": 55.944}, "
+                        + "\"to\": {\"lng\": -3.181, \"lat\": 55.944}, \"restrictedAreas\": [" + region("central") + "]}", 200),
+                Request.json("POST", "/api/v1/trajectory", "{\"start\": " + position(points, 0) + ", \"angles\": "
+                        + list(i -> String.valueOf(22.5 * (i % 16))) + "}", 200),
+                Request.json("POST", "/api/v1/validatePath", "{\"path\": " + list(i -> position(points, i))
+                        + ", \"restrictedAreas\": [" + region("central") + "]}", 200));
+    }
+
+    private static String position(double[] points, int index) {
+        return String.format(Locale.ROOT, "{\"lng\": %.6f, \"lat\": %.6f}", points[2 * index], points[2 * index + 1]);
+    }
+
+    private static String region(String name) {
+        StringJoiner vertices = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < CENTRAL.length / 2; i++) vertices.add(position(CENTRAL, i));
+        return "{\"name\": \"" + name + "\", \"vertices\": " + vertices + "}";
+    }
+
+    private static String list(IntFunction<String> item) {
+        StringJoiner items = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < BATCH; i++) items.add(item.apply(i));
+        return items.toString();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import uk.ac.ed.acp.cw2.Application;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The application started in a separate JVM with the test classpath, so a load test measures the server alone
+ * and not the load generator running next to it. Starts without a snapshot and with WARN logging.
+ */
+public class ApplicationProcess implements AutoCloseable {
+    private final Process process;
+    private final int port;
+
+    /**
+     * Starts the application and waits until it accepts connections.
+     * @param profile the Spring profile
+     * @param environment extra environment variables, e.g. ILP_ENDPOINT
+     * @param args extra application arguments
+     */
+    public ApplicationProcess(String profile, Map<String, String> environment, String... args) throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "--add-modules", "jdk.incubator.vector", "-cp", System.getProperty("java.class.path"),
+                Application.class.getName(), "--spring.profiles.active=" + profile, "--server.port=" + port,
+                "--ilp.snapshot.path=", "--logging.level.root=WARN"));
+        command.addAll(List.of(args));
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.environment().putAll(environment);
+        process = builder.start();
+        try {
+            awaitStarted();
+        } catch (Exception e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int port() {
+        return port;
+    }
+
+    private void awaitStarted() throws InterruptedException {
+        while (true) {
+            try (Socket socket = new Socket("localhost", port)) {
+                return;
+            } catch (IOException e) {
+                if (!process.isAlive()) throw new IllegalStateException("The application exited with " + process.exitValue());
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) process.destroyForcibly();
+    }
+}
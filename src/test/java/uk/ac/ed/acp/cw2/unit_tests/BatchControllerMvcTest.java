@@ -0,0 +1,99 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.BatchController;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for {@link BatchController}.
+ * Tests the batch endpoints using MockMvc with mocked PositionService.
+ */
+@Import({RequestValidator.class, RequestEventLog.class})
+@WebMvcTest(BatchController.class)
+public class BatchControllerMvcTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private PositionService positionService;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    @Test
+    void distanceTo_mixedBatch_returnsResultPerItem() throws Exception {
+        List<DistanceRequest> requests = Arrays.asList(
+                new DistanceRequest(new Position(0.0, 0.0), new Position(0.0, 1.0)),
+                new DistanceRequest(null, new Position(0.0, 0.0)) // invalid: position1 missing
+        );
+        when(positionService.calculateDistances(any())).thenReturn(new double[]{1.0});
+
+        mockMvc.perform(post("/api/v1/batch/distanceTo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(1.0))
+                .andExpect(jsonPath("$[1].errorCode").value("INVALID_REQUEST"))
+                .andExpect(jsonPath("$[1].value").doesNotExist());
+    }
+
+    @Test
+    void isCloseTo_validBatch_returnsBooleans() throws Exception {
+        List<DistanceRequest> requests = List.of(
+                new DistanceRequest(new Position(0.0, 0.0), new Position(0.0, 0.0)),
+                new DistanceRequest(new Position(0.0, 0.0), new Position(1.0, 1.0))
+        );
+        when(positionService.areCloseTo(any(), anyDouble())).thenReturn(new boolean[]{true, false});
+
+        mockMvc.perform(post("/api/v1/batch/isCloseTo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].value").value(true))
+                .andExpect(jsonPath("$[1].value").value(false));
+    }
+
+    @Test
+    void nextPosition_invalidAngle_returnsAngleError() throws Exception {
+        List<NextPositionRequest> requests = List.of(new NextPositionRequest(new Position(0.0, 0.0), 15.0));
+        when(positionService.validateNextPositionAngle(any())).thenReturn("Angle not multiple of 22.5: 15.0");
+        when(positionService.calculateNextPositions(any())).thenReturn(new Position[0]);
+
+        mockMvc.perform(post("/api/v1/batch/nextPosition")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].errorCode").value("INVALID_ANGLE"));
+    }
+
+    @Test
+    void distanceTo_malformedBody_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/batch/distanceTo")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"position1\": 1}"))
+                .andExpect(status().isBadRequest());
+    }
+}
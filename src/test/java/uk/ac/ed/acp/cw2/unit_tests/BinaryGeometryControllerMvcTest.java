@@ -0,0 +1,197 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.BatchController;
+import uk.ac.ed.acp.cw2.controller.BinaryGeometryController;
+import uk.ac.ed.acp.cw2.controller.ServiceController;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static uk.ac.ed.acp.cw2.wire.GeoBinaryFormat.*;
+
+/**
+ * Compatibility tests for {@link BinaryGeometryController}.
+ * Sends the same requests as JSON and in the binary format to the real PositionService and compares the answers.
+ */
+@WebMvcTest({ServiceController.class, BatchController.class, BinaryGeometryController.class})
+@Import({PositionService.class, PreparedPolygonCache.class, RequestValidator.class, RequestEventLog.class})
+public class BinaryGeometryControllerMvcTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private DroneService droneService;
+
+    @MockitoBean
+    private URL serviceUrl;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    private static final double[][] POSITIONS = {
+            {-3.192473, 55.946233}, {-3.184319, 55.942617}, {-3.19, 55.94}, {-3.19, 55.94 + 0.0001}, {0.0, 0.0}
+    };
+    private static final double[] ANGLES = {0, 22.5, 90, 180, 337.5, 360};
+
+    private byte[] postBinary(String path, byte[] body) throws Exception {
+        return mockMvc.perform(post(path).contentType(MEDIA_TYPE).accept(MEDIA_TYPE).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private JsonNode postJson(String path, Object request) throws Exception {
+        String response = mockMvc.perform(post(path).contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private static Position position(double[] p) {
+        return new Position(p[0], p[1]);
+    }
+
+    @Test
+    void distanceTo_and_isCloseTo_matchJson() throws Exception {
+        for (double[] a : POSITIONS) {
+            for (double[] b : POSITIONS) {
+                DistanceRequest request = new DistanceRequest(position(a), position(b));
+                byte[] body = encodeDoubles(a[0], a[1], b[0], b[1]);
+                assertEquals(postJson("/api/v1/distanceTo", request).asDouble(), decodeDoubles(postBinary("/api/v1/distanceTo", body))[0]);
+                assertEquals(postJson("/api/v1/isCloseTo", request).asBoolean(), decodeBoolean(postBinary("/api/v1/isCloseTo", body)));
+            }
+        }
+    }
+
+    @Test
+    void nextPosition_matchesJson() throws Exception {
+        for (double angle : ANGLES) {
+            JsonNode json = postJson("/api/v1/nextPosition", new NextPositionRequest(position(POSITIONS[0]), angle));
+            double[] binary = decodeDoubles(postBinary("/api/v1/nextPosition", encodeDoubles(POSITIONS[0][0], POSITIONS[0][1], angle)));
+            assertArrayEquals(new double[]{json.get("lng").asDouble(), json.get("lat").asDouble()}, binary);
+        }
+    }
+
+    @Test
+    void isInRegion_matchesJson() throws Exception {
+        List<Position> vertices = List.of(new Position(-3.192473, 55.946233), new Position(-3.192473, 55.942617),
+                new Position(-3.184319, 55.942617), new Position(-3.184319, 55.946233), new Position(-3.192473, 55.946233));
+        double[] coords = PreparedPolygonTest.toCoords(vertices);
+        for (double[] p : POSITIONS) {
+            boolean json = postJson("/api/v1/isInRegion", new RegionRequest(position(p), new Region("central", vertices))).asBoolean();
+            assertEquals(json, decodeBoolean(postBinary("/api/v1/isInRegion", encodeRegion(p[0], p[1], coords))));
+        }
+    }
+
+    @Test
+    void batches_matchJson() throws Exception {
+        List<DistanceRequest> distanceRequests = new ArrayList<>();
+        List<Double> distanceRecords = new ArrayList<>();
+        for (double[] a : POSITIONS) {
+            for (double[] b : POSITIONS) {
+                distanceRequests.add(new DistanceRequest(position(a), position(b)));
+                distanceRecords.addAll(List.of(a[0], a[1], b[0], b[1]));
+            }
+        }
+        distanceRequests.add(new DistanceRequest(new Position(200.0, 0.0), new Position(0.0, 0.0)));
+        distanceRecords.addAll(List.of(200.0, 0.0, 0.0, 0.0));
+        byte[] body = encodeBatch(distanceRecords.stream().mapToDouble(Double::doubleValue).toArray(), DISTANCE_RECORD);
+
+        JsonNode jsonDistances = postJson("/api/v1/batch/distanceTo", distanceRequests);
+        BatchFrame binaryDistances = decodeBatchResult(postBinary("/api/v1/batch/distanceTo", body), 1);
+        JsonNode jsonClose = postJson("/api/v1/batch/isCloseTo", distanceRequests);
+        BatchFrame binaryClose = decodeBatchResult(postBinary("/api/v1/batch/isCloseTo", body), 0);
+        for (int i = 0; i < distanceRequests.size(); i++) {
+            boolean valid = !jsonDistances.get(i).has("errorCode");
+            assertEquals(valid, binaryDistances.status()[i] == STATUS_OK);
+            assertEquals(valid, binaryClose.status()[i] == STATUS_OK);
+            if (!valid) continue;
+            assertEquals(jsonDistances.get(i).get("value").asDouble(), binaryDistances.values()[i]);
+            assertEquals(jsonClose.get(i).get("value").asBoolean() ? 1.0 : 0.0, binaryClose.values()[i]);
+        }
+
+        List<NextPositionRequest> positionRequests = new ArrayList<>();
+        double[] positionRecords = new double[3 * (ANGLES.length + 2)];
+        double[] angles = {ANGLES[0], ANGLES[1], ANGLES[2], ANGLES[3], ANGLES[4], ANGLES[5], 10.0, 400.0};
+        for (int i = 0; i < angles.length; i++) {
+            positionRequests.add(new NextPositionRequest(position(POSITIONS[1]), angles[i]));
+            positionRecords[3 * i] = POSITIONS[1][0];
+            positionRecords[3 * i + 1] = POSITIONS[1][1];
+            positionRecords[3 * i + 2] = angles[i];
+        }
+        JsonNode jsonPositions = postJson("/api/v1/batch/nextPosition", positionRequests);
+        BatchFrame binaryPositions = decodeBatchResult(postBinary("/api/v1/batch/nextPosition",
+                encodeBatch(positionRecords, NEXT_POSITION_RECORD)), 2);
+        for (int i = 0; i < angles.length; i++) {
+            JsonNode json = jsonPositions.get(i);
+            byte expectedStatus = !json.has("errorCode") ? STATUS_OK
+                    : json.get("errorCode").asText().equals("INVALID_ANGLE") ? STATUS_INVALID_ANGLE : STATUS_INVALID_REQUEST;
+            assertEquals(expectedStatus, binaryPositions.status()[i], "angle " + angles[i]);
+            if (expectedStatus != STATUS_OK) continue;
+            assertEquals(json.get("value").get("lng").asDouble(), binaryPositions.values()[2 * i]);
+            assertEquals(json.get("value").get("lat").asDouble(), binaryPositions.values()[2 * i + 1]);
+        }
+    }
+
+    // Invalid binary requests behave like invalid JSON requests
+
+    @Test
+    void distanceTo_outOfRange_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/distanceTo").contentType(MEDIA_TYPE).accept(MEDIA_TYPE)
+                        .content(encodeDoubles(0, 95, 0, 0)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void distanceTo_truncatedBody_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/distanceTo").contentType(MEDIA_TYPE).accept(MEDIA_TYPE)
+                        .content(new byte[12]))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nextPosition_invalidAngle_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/nextPosition").contentType(MEDIA_TYPE).accept(MEDIA_TYPE)
+                        .content(encodeDoubles(0, 0, 10)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void isInRegion_openPolygon_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(MEDIA_TYPE).accept(MEDIA_TYPE)
+                        .content(encodeRegion(0, 0, new double[]{0, 0, 0, 1, 1, 1, 1, 0})))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void isInRegion_tooFewVertices_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(MEDIA_TYPE).accept(MEDIA_TYPE)
+                        .content(encodeRegion(0, 0, new double[]{0, 0, 0, 1, 0, 0})))
+                .andExpect(status().isBadRequest());
+    }
+}
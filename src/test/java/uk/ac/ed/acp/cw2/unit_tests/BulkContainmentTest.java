@@ -0,0 +1,128 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.geometry.BulkContainment;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for {@link BulkContainment}.
+ * The vector and scalar kernels, at every parallelism, must agree with {@link PreparedPolygon#contains} point for point,
+ * including points on vertices, on edges and within 1e-12 of them.
+ */
+public class BulkContainmentTest {
+    private static BulkContainment vector;
+    private static BulkContainment scalar;
+
+    @BeforeAll
+    static void setUp() {
+        vector = new BulkContainment(4, true);
+        scalar = new BulkContainment(4, false);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        vector.close();
+        scalar.close();
+    }
+
+    /**
+     * Random points around the polygon, plus its vertices, points on its edges and points just off them.
+     */
+    private static double[] testPoints(Random random, double[] coords, int count) {
+        double minX = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, minY = Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < coords.length; i += 2) {
+            minX = Math.min(minX, coords[i]); maxX = Math.max(maxX, coords[i]);
+            minY = Math.min(minY, coords[i + 1]); maxY = Math.max(maxY, coords[i + 1]);
+        }
+        int vertices = coords.length / 2;
+        double[] points = new double[2 * count];
+        for (int i = 0; i < count; i++) {
+            int vertex = random.nextInt(vertices - 1);
+            double x = coords[2 * vertex], y = coords[2 * vertex + 1];
+            double nextX = coords[2 * vertex + 2], nextY = coords[2 * vertex + 3];
+            double t = random.nextDouble();
+            switch (i % 8) {
+                case 0 -> {} // on the vertex
+                case 1 -> { x += t * (nextX - x); y += t * (nextY - y); } // on the edge, up to rounding
+                case 2 -> { x += t * (nextX - x) + (random.nextDouble() - 0.5) * 4e-12; y += t * (nextY - y); }
+                case 3 -> x = minX + random.nextDouble() * (maxX - minX); // on the same y as a vertex
+                case 4 -> { x = random.nextBoolean() ? minX - 1e-12 : maxX + 2e-12; y = minY + t * (maxY - minY); }
+                default -> {
+                    x = minX + (random.nextDouble() * 1.2 - 0.1) * (maxX - minX);
+                    y = minY + (random.nextDouble() * 1.2 - 0.1) * (maxY - minY);
+                }
+            }
+            points[2 * i] = x;
+            points[2 * i + 1] = y;
+        }
+        return points;
+    }
+
+    private static void assertSameAsPrepared(double[] coords, double[] points) {
+        PreparedPolygon polygon = new PreparedPolygon(coords);
+        boolean[] expected = new boolean[points.length / 2];
+        for (int i = 0; i < expected.length; i++) expected[i] = polygon.contains(points[2 * i], points[2 * i + 1]);
+        for (int parallelism : new int[]{1, 2, 3, 4}) {
+            assertArrayEquals(expected, vector.contains(polygon, points, parallelism), "vector, parallelism " + parallelism);
+            assertArrayEquals(expected, scalar.contains(polygon, points, parallelism), "scalar, parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    void randomPolygons_matchPreparedPolygon() {
+        Random random = new Random(11);
+        for (int n : new int[]{3, 4, 17, 500, 20_000}) {
+            double[] coords = PreparedPolygonTest.toCoords(PreparedPolygonTest.randomStar(random, n, -3.19, 55.94, 0.01));
+            assertSameAsPrepared(coords, testPoints(random, coords, 30_001));
+        }
+    }
+
+    @Test
+    void axisAlignedPolygon_matchesReference() {
+        // Horizontal and vertical edges, collinear vertices and a notch: rays through vertices and along edges
+        List<Position> vertices = List.of(new Position(0.0, 0.0), new Position(0.0, 2.0), new Position(1.0, 2.0),
+                new Position(1.0, 1.0), new Position(2.0, 1.0), new Position(2.0, 2.0), new Position(3.0, 2.0),
+                new Position(3.0, 0.0), new Position(1.5, 0.0), new Position(0.0, 0.0));
+        double[] coords = PreparedPolygonTest.toCoords(vertices);
+        double[] points = new double[2 * 41 * 25];
+        int p = 0;
+        for (int i = 0; i <= 40; i++) {
+            for (int j = 0; j < 25; j++) {
+                points[p++] = -0.5 + i * 0.1;
+                points[p++] = -0.2 + j * 0.1;
+            }
+        }
+        assertSameAsPrepared(coords, points);
+        boolean[] inside = vector.contains(new PreparedPolygon(coords), points, 1);
+        for (int i = 0; i < inside.length; i++) {
+            Position point = new Position(points[2 * i], points[2 * i + 1]);
+            assertEquals(PreparedPolygonTest.referenceIsInRegion(vertices, point), inside[i], point.toString());
+        }
+    }
+
+    @Test
+    void vectorKernel_isAvailableWithIncubatorModule() {
+        assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), "run without the Vector API module");
+        assertTrue(BulkContainment.vectorAvailable());
+        assertTrue(vector.vectorEnabled());
+        assertFalse(scalar.vectorEnabled());
+    }
+
+    @Test
+    void emptyAndTinyBatches() {
+        PreparedPolygon polygon = new PreparedPolygon(new double[]{0, 0, 0, 1, 1, 1, 1, 0, 0, 0});
+        assertEquals(0, vector.contains(polygon, new double[0], 4).length);
+        assertArrayEquals(new boolean[]{true, false}, vector.contains(polygon, new double[]{0.5, 0.5, 2, 0.5}, 4));
+        assertArrayEquals(new boolean[]{true, false}, scalar.contains(polygon, new double[]{0.5, 0.5, 2, 0.5}, 4));
+        assertThrows(IllegalArgumentException.class, () -> vector.contains(polygon, new double[3], 1));
+    }
+}
@@ -0,0 +1,110 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.DeliveryCostController;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.CostEstimatorService;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for {@link DeliveryCostController}.
+ * Uses the real CostEstimatorService on a fixed drone catalog.
+ */
+@WebMvcTest(DeliveryCostController.class)
+@Import({CostEstimatorService.class, RequestValidator.class, RequestEventLog.class})
+@TestPropertySource(properties = "ilp.cost.max-orders=3")
+public class DeliveryCostControllerMvcTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private DroneService droneService;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    private static final Position APPLETON = new Position(-3.186874, 55.944494);
+
+    @BeforeEach
+    void setUp() {
+        List<Drone> drones = List.of(
+                new Drone(1L, "Drone 1", new Drone.Capability(true, false, 4.0, 2000, 0.01, 4.3, 6.5)),
+                new Drone(2L, "Drone 2", new Drone.Capability(false, true, 8.0, 1000, 0.03, 2.6, 5.4)));
+        when(droneService.getCatalog()).thenReturn(new DroneCatalog(drones, 1, null, null, Instant.now()));
+    }
+
+    private JsonNode postOrders(List<DeliveryCostRequest> orders) throws Exception {
+        String response = mockMvc.perform(post("/api/v1/batch/deliveryCost")
+                        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(orders)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    @Test
+    void orders_getCheapestDroneOrError() throws Exception {
+        // About 100 steps east of Appleton Tower
+        Position to = new Position(APPLETON.lng() + 0.015, APPLETON.lat());
+        List<DeliveryCostRequest> orders = Arrays.asList(
+                new DeliveryCostRequest(APPLETON, to, 2.0, null, null),
+                new DeliveryCostRequest(APPLETON, to, 2.0, true, null),
+                new DeliveryCostRequest(APPLETON, to, 6.0, true, null));
+        JsonNode results = postOrders(orders);
+        int moves = CostEstimatorService.estimateMoves(orders.getFirst());
+
+        // Drone 2 costs less for long deliveries, but only drone 1 has cooling
+        assertEquals(2, results.get(0).get("value").get("droneId").asLong());
+        assertEquals(moves, results.get(0).get("value").get("moves").asInt());
+        assertEquals(8.0 + 0.03 * moves, results.get(0).get("value").get("cost").asDouble(), 1e-9);
+        assertEquals(1, results.get(1).get("value").get("droneId").asLong());
+        assertEquals(10.8 + 0.01 * moves, results.get(1).get("value").get("cost").asDouble(), 1e-9);
+        assertEquals("NO_ELIGIBLE_DRONE", results.get(2).get("errorCode").asText());
+    }
+
+    @Test
+    void invalidOrders_getErrorResults() throws Exception {
+        JsonNode results = postOrders(Arrays.asList(
+                new DeliveryCostRequest(APPLETON, new Position(0.0, 95.0), 1.0, null, null),
+                null,
+                new DeliveryCostRequest(APPLETON, APPLETON, -1.0, null, null)));
+
+        assertEquals("INVALID_REQUEST", results.get(0).get("errorCode").asText());
+        assertEquals("to.lat: Latitude cannot be over 90!", results.get(0).get("errorMessage").asText());
+        assertEquals("INVALID_REQUEST", results.get(1).get("errorCode").asText());
+        assertEquals("capacity: Capacity cannot be negative!", results.get(2).get("errorMessage").asText());
+    }
+
+    @Test
+    void tooManyOrders_returns400() throws Exception {
+        DeliveryCostRequest order = new DeliveryCostRequest(APPLETON, APPLETON, 1.0, null, null);
+        mockMvc.perform(post("/api/v1/batch/deliveryCost").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(order, order, order, order))))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,102 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.DroneCostTable;
+import uk.ac.ed.acp.cw2.dto.Drone;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DroneCostTable}.
+ * The pruned search is compared with a linear scan over all drones, including drones with missing values and ties.
+ */
+public class DroneCostTableTest {
+
+    private record Choice(Long droneId, double cost) {}
+
+    /**
+     * The reference: the cost of every eligible drone, keeping the first drone of the lowest cost.
+     */
+    private static Choice scan(List<Drone> drones, int moves, double capacity, boolean cooling, boolean heating) {
+        Choice best = null;
+        for (Drone drone : drones) {
+            Drone.Capability c = drone.capability();
+            if (c == null || c.costPerMove() == null || c.costInitial() == null || c.costFinal() == null
+                    || c.capacity() == null || c.maxMoves() == null) continue;
+            if (!(c.capacity() >= capacity) || c.maxMoves() < moves) continue;
+            if (cooling && !Boolean.TRUE.equals(c.cooling())) continue;
+            if (heating && !Boolean.TRUE.equals(c.heating())) continue;
+            double cost = c.costInitial() + c.costFinal() + c.costPerMove() * moves;
+            if (best == null || cost < best.cost()) best = new Choice(drone.id(), cost);
+        }
+        return best;
+    }
+
+    private static Choice cheapest(DroneCostTable table, int moves, double capacity, boolean cooling, boolean heating) {
+        int entry = table.cheapest(moves, capacity, cooling, heating);
+        return entry < 0 ? null : new Choice(table.droneId(entry), table.cost(entry, moves));
+    }
+
+    // Few distinct costs per move, and few missing values, so equal costs of eligible drones are common
+    private static final RandomDrones DRONES = new RandomDrones(10, 6);
+
+    @Test
+    void randomOrders_matchLinearScan() {
+        Random random = new Random(16);
+        for (int count : new int[]{0, 1, 10, 1000}) {
+            List<Drone> drones = DRONES.drones(random, count);
+            DroneCostTable table = DroneCostTable.of(RandomDrones.catalog(drones, 1), null);
+            for (int i = 0; i < 5000; i++) {
+                int moves = random.nextInt(3200);
+                double capacity = random.nextInt(14);
+                boolean cooling = random.nextBoolean(), heating = random.nextBoolean();
+                assertEquals(scan(drones, moves, capacity, cooling, heating), cheapest(table, moves, capacity, cooling, heating),
+                        moves + " moves, capacity " + capacity + ", cooling " + cooling + ", heating " + heating);
+            }
+        }
+    }
+
+    @Test
+    void cheapest_tradesFixedCostAgainstCostPerMove() {
+        List<Drone> drones = List.of(
+                new Drone(1L, "cheap start", new Drone.Capability(true, false, 4.0, 2000, 0.05, 1.0, 1.0)),
+                new Drone(2L, "cheap moves", new Drone.Capability(false, true, 8.0, 2000, 0.01, 5.0, 5.0)),
+                new Drone(3L, "no costs", new Drone.Capability(true, true, 20.0, 2000, null, 0.0, 0.0)),
+                new Drone(4L, "same as 2", new Drone.Capability(true, true, 8.0, 2000, 0.01, 5.0, 5.0)));
+        DroneCostTable table = DroneCostTable.of(RandomDrones.catalog(drones, 1), null);
+        assertEquals(new Choice(1L, 3.0), cheapest(table, 20, 1.0, false, false));
+        // Equal costs go to the first drone in the catalog
+        assertEquals(new Choice(1L, 12.0), cheapest(table, 200, 1.0, false, false));
+        assertEquals(new Choice(2L, 13.0), cheapest(table, 300, 1.0, false, false));
+        assertEquals(new Choice(4L, 13.0), cheapest(table, 300, 1.0, true, false));
+        assertNull(cheapest(table, 300, 10.0, false, false));
+        assertNull(cheapest(table, 2001, 1.0, false, false));
+        assertNull(cheapest(table, 10, Double.NaN, false, false));
+    }
+
+    @Test
+    void cheapest_withCostOverflowingToInfinity_skipsThatDrone() {
+        List<Drone> drones = List.of(
+                new Drone(1L, "huge cost", new Drone.Capability(false, false, 4.0, 2000, Double.MAX_VALUE, 1.0, 1.0)),
+                new Drone(2L, "small", new Drone.Capability(false, false, 2.0, 2000, 0.01, 1.0, 1.0)));
+        DroneCostTable table = DroneCostTable.of(RandomDrones.catalog(drones, 1), null);
+
+        assertNull(cheapest(table, 2, 3.0, false, false));
+        assertEquals(new Choice(2L, 2.02), cheapest(table, 2, 1.0, false, false));
+        // Finite for one move, so it is still priced
+        assertEquals(1L, cheapest(table, 1, 3.0, false, false).droneId());
+    }
+
+    @Test
+    void catalogVersion_reusesTable() {
+        List<Drone> drones = DRONES.drones(new Random(17), 50);
+        DroneCostTable first = DroneCostTable.of(RandomDrones.catalog(drones, 1), null);
+        assertSame(first, DroneCostTable.of(RandomDrones.catalog(drones, 1), first));
+        DroneCostTable second = DroneCostTable.of(RandomDrones.catalog(drones.subList(1, 50), 2), first);
+        assertNotSame(first, second);
+        assertEquals(2, second.version());
+    }
+}
@@ -0,0 +1,114 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.data.DroneIndex;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link DroneIndex}.
+ * Every query is compared with a linear scan over the drones, including drones with missing values.
+ */
+public class DroneIndexTest {
+
+    private static boolean inRange(Number value, Number min, Number max) {
+        if (min == null && max == null) return true;
+        if (value == null) return false;
+        double v = value.doubleValue();
+        return (min == null || v >= min.doubleValue()) && (max == null || v <= max.doubleValue());
+    }
+
+    /**
+     * The reference: a linear scan with the semantics documented on DroneQuery.
+     */
+    private static List<Long> scan(List<Drone> drones, DroneQuery query) {
+        List<Long> ids = new ArrayList<>();
+        for (Drone drone : drones) {
+            Drone.Capability c = drone.capability() != null ? drone.capability()
+                    : new Drone.Capability(null, null, null, null, null, null, null);
+            if (query.cooling() != null && !query.cooling().equals(c.cooling())) continue;
+            if (query.heating() != null && !query.heating().equals(c.heating())) continue;
+            if (!inRange(c.capacity(), query.minCapacity(), query.maxCapacity())) continue;
+            if (!inRange(c.maxMoves(), query.minMaxMoves(), query.maxMaxMoves())) continue;
+            if (!inRange(c.costPerMove(), query.minCostPerMove(), query.maxCostPerMove())) continue;
+            if (!inRange(c.costInitial(), query.minCostInitial(), query.maxCostInitial())) continue;
+            if (!inRange(c.costFinal(), query.minCostFinal(), query.maxCostFinal())) continue;
+            ids.add(drone.id());
+        }
+        return ids;
+    }
+
+    private static final RandomDrones DRONES = new RandomDrones(4, 10);
+
+    private static DroneQuery randomQuery(Random random) {
+        return new DroneQuery(DRONES.maybe(random, random.nextBoolean()), DRONES.maybe(random, random.nextBoolean()),
+                DRONES.maybe(random, (double) random.nextInt(13)), DRONES.maybe(random, (double) random.nextInt(13)),
+                DRONES.maybe(random, 500 * random.nextInt(7)), DRONES.maybe(random, 500 * random.nextInt(7)),
+                DRONES.maybe(random, random.nextInt(10) / 100.0), DRONES.maybe(random, random.nextInt(10) / 100.0),
+                DRONES.maybe(random, random.nextInt(5) + 0.5), DRONES.maybe(random, random.nextInt(5) + 0.5),
+                DRONES.maybe(random, random.nextInt(5) + 0.25), DRONES.maybe(random, random.nextInt(5) + 0.25));
+    }
+
+    @Test
+    void randomQueries_matchLinearScan() {
+        Random random = new Random(15);
+        for (int count : new int[]{0, 1, 10, 500}) {
+            List<Drone> drones = DRONES.drones(random, count);
+            DroneIndex index = DroneIndex.of(RandomDrones.catalog(drones, 1), null);
+            for (int i = 0; i < 2000; i++) {
+                DroneQuery query = randomQuery(random);
+                assertEquals(scan(drones, query), index.query(query), query.toString());
+            }
+        }
+    }
+
+    @Test
+    void compoundQuery_fromDispatcher() {
+        List<Drone> drones = List.of(
+                new Drone(1L, "a", new Drone.Capability(true, true, 8.0, 1500, 0.05, 1.0, 1.0)),
+                new Drone(2L, "b", new Drone.Capability(true, true, 12.0, 2000, 0.02, 1.0, 1.0)),
+                new Drone(3L, "c", new Drone.Capability(true, false, 20.0, 3000, 0.01, 1.0, 1.0)),
+                new Drone(4L, "d", new Drone.Capability(true, true, 7.5, 5000, 0.01, 1.0, 1.0)),
+                new Drone(5L, "e", new Drone.Capability(true, true, 9.0, 1499, 0.01, 1.0, 1.0)),
+                new Drone(6L, "f", new Drone.Capability(true, true, 9.0, 1600, 0.0500001, 1.0, 1.0)));
+        DroneIndex index = DroneIndex.of(RandomDrones.catalog(drones, 1), null);
+        DroneQuery query = new DroneQuery(true, true, 8.0, null, 1500, null, null, 0.05, null, null, null, null);
+        assertEquals(List.of(1L, 2L), index.query(query));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), index.withCooling(true));
+        assertEquals(List.of(), index.withCooling(false));
+        assertEquals(List.of(), index.query(new DroneQuery(null, null, Double.NaN, null, null, null, null, null, null, null, null, null)));
+        assertEquals(List.of(), index.query(new DroneQuery(null, null, 10.0, 9.0, null, null, null, null, null, null, null, null)));
+    }
+
+    @Test
+    void catalogChanges_updateIndex() {
+        Random random = new Random(16);
+        List<Drone> drones = DRONES.drones(random, 200);
+        DroneIndex first = DroneIndex.of(RandomDrones.catalog(drones, 1), null);
+        assertSame(first, DroneIndex.of(RandomDrones.catalog(drones, 1), first));
+
+        // One attribute changes and the first drone is removed
+        List<Drone> changed = new ArrayList<>(drones);
+        for (int i = 0; i < changed.size(); i += 3) {
+            Drone drone = changed.get(i);
+            Drone.Capability c = drone.capability();
+            if (c == null) continue;
+            changed.set(i, new Drone(drone.id(), drone.name(), new Drone.Capability(c.cooling(), c.heating(), c.capacity(),
+                    c.maxMoves(), random.nextInt(10) / 100.0, c.costInitial(), c.costFinal())));
+        }
+        changed.removeFirst();
+        DroneIndex second = DroneIndex.of(RandomDrones.catalog(changed, 2), first);
+        assertEquals(2, second.version());
+        for (int i = 0; i < 2000; i++) {
+            DroneQuery query = randomQuery(random);
+            assertEquals(scan(changed, query), second.query(query), query.toString());
+            assertEquals(scan(drones, query), first.query(query), query.toString());
+        }
+    }
+}
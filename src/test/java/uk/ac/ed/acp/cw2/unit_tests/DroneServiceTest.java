@@ -0,0 +1,343 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.DroneIndex;
+import uk.ac.ed.acp.cw2.dto.DroneQuery;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.UpstreamPolicy;
+import uk.ac.ed.acp.cw2.service.UpstreamUnavailableException;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for {@link DroneService}.
+ * The ILP REST Service is replaced by a MockRestServiceServer, and for the reactive methods by a stub
+ * exchange function of the WebClient.
+ */
+public class DroneServiceTest {
+    private static final String DRONES_URL = "http://ilp.test/drones";
+    private static final String DRONES_JSON = """
+            [{"id": 1, "name": "Drone 1", "capability": {"cooling": true, "heating": false, "capacity": 4.0,
+              "maxMoves": 2000, "costPerMove": 0.01, "costInitial": 4.3, "costFinal": 6.5}},
+             {"id": 2, "name": "Drone 2", "capability": {"cooling": false, "heating": true, "capacity": 8.0,
+              "maxMoves": 1000, "costPerMove": 0.03, "costInitial": 2.6, "costFinal": 5.4}}]
+            """;
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private SimpleMeterRegistry registry;
+    private DroneService service;
+    // Requests sent through the WebClient, and the responses they get in order
+    private final Queue<ClientRequest> webRequests = new ConcurrentLinkedQueue<>();
+    private final Queue<Mono<ClientResponse>> webResponses = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        registry = new SimpleMeterRegistry();
+        service = newService(Duration.ofMinutes(10), UpstreamPolicyTest.withoutHedging(10));
+    }
+
+    private DroneService newService(Duration maxStaleness, UpstreamPolicy upstreamPolicy) throws Exception {
+        WebClient webClient = WebClient.builder().exchangeFunction(request -> {
+            webRequests.add(request);
+            return webResponses.remove();
+        }).build();
+        return new DroneService(new URI("http://ilp.test").toURL(), restTemplate, webClient, new ApiMetrics(registry),
+                upstreamPolicy, maxStaleness);
+    }
+
+    private static ClientResponse.Builder webResponse(HttpStatus status) {
+        return ClientResponse.create(status).header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    @Test
+    void getDronesWithCooling_fetchesOnceThenServesFromCache() {
+        server.expect(requestTo(DRONES_URL)).andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+
+        assertEquals(List.of(1L), service.getDronesWithCooling(true));
+        assertEquals(List.of(2L), service.getDronesWithCooling(false));
+        server.verify();
+    }
+
+    @Test
+    void getDronesWithCooling_concurrentCallers_shareOneUpstreamCall() throws Exception {
+        int callers = 1000;
+        CountDownLatch started = new CountDownLatch(callers);
+        List<CompletableFuture<List<Long>>> reactive = new ArrayList<>();
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(request -> {
+            try {
+                // Hold the call until every caller has asked for the drones
+                started.await();
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            // A reactive caller arriving now joins the same call instead of using the WebClient
+            reactive.add(service.getDronesWithCoolingAsync(true).toFuture());
+            return withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON).createResponse(request);
+        });
+
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return service.getDronesWithCooling(true);
+                }));
+            }
+        }
+        for (Future<List<Long>> result : results) assertEquals(List.of(1L), result.get());
+        assertEquals(List.of(1L), reactive.get(0).join());
+        server.verify();
+        assertEquals(0, webRequests.size());
+        assertEquals(1, registry.get("ilp.upstream.requests").timer().count());
+    }
+
+    @Test
+    void getCatalog_whenSharedCallFails_allCallersGetItsError() throws Exception {
+        CountDownLatch started = new CountDownLatch(50);
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(request -> {
+            try {
+                started.await();
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return withStatus(HttpStatus.SERVICE_UNAVAILABLE).createResponse(request);
+        });
+
+        List<Future<DroneCatalog>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return service.getCatalog();
+                }));
+            }
+        }
+        for (Future<DroneCatalog> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(HttpServerErrorException.class, e.getCause());
+        }
+        server.verify();
+        assertEquals(1.0, registry.get("ilp.upstream.errors").counter().count());
+    }
+
+    @Test
+    void refresh_withEtag_revalidatesAndKeepsVersion() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v1\"");
+        server.expect(requestTo(DRONES_URL))
+                .andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON).headers(headers));
+        server.expect(requestTo(DRONES_URL)).andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        DroneCatalog first = service.refresh();
+        DroneCatalog second = service.refresh();
+        server.verify();
+
+        assertEquals(first.version(), second.version());
+        assertEquals(2, second.drones().size());
+        assertFalse(second.fetchedAt().isBefore(first.fetchedAt()));
+    }
+
+    @Test
+    void refresh_withChangedContent_increasesVersion() {
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        long first = service.refresh().version();
+        long unchanged = service.refresh().version();
+        long changed = service.refresh().version();
+        server.verify();
+
+        assertEquals(first, unchanged);
+        assertEquals(first + 1, changed);
+        assertEquals(List.of(), service.getDronesWithCooling(true));
+    }
+
+    @Test
+    void refreshInBackground_whenUpstreamFails_keepsPreviousCatalog() {
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(DRONES_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        service.refreshInBackground();
+        service.refreshInBackground();
+        server.verify();
+
+        assertEquals(List.of(1L), service.getDronesWithCooling(true));
+        assertEquals(1, registry.get("ilp.upstream.requests").tag("outcome", "error").timer().count());
+        assertEquals(1.0, registry.get("ilp.upstream.errors").counter().count());
+    }
+
+    @Test
+    void queryDrones_combinesCriteria_andFollowsCatalogChanges() {
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON.replace("0.03", "0.005"), MediaType.APPLICATION_JSON));
+
+        service.refresh();
+        DroneQuery cheap = new DroneQuery(null, null, null, null, null, null, null, 0.02, null, null, null, null);
+        assertEquals(List.of(1L), service.queryDrones(cheap));
+        assertEquals(List.of(2L), service.queryDrones(
+                new DroneQuery(false, true, 8.0, null, 1000, 1000, null, null, null, null, null, 5.4)));
+        DroneIndex index = service.getIndex();
+        assertSame(index, service.getIndex());
+
+        service.refresh();
+        assertNotSame(index, service.getIndex());
+        assertEquals(List.of(1L, 2L), service.queryDrones(cheap));
+        server.verify();
+    }
+
+    @Test
+    void getCatalogAsync_sharesOneUpstreamCall_thenServesFromCache() {
+        Sinks.One<ClientResponse> response = Sinks.one();
+        webResponses.add(response.asMono());
+
+        CompletableFuture<List<Long>> first = service.getDronesWithCoolingAsync(true).toFuture();
+        CompletableFuture<List<Long>> second = service.queryDronesAsync(
+                new DroneQuery(null, null, 8.0, null, null, null, null, null, null, null, null, null)).toFuture();
+        // Both wait for the same upstream call
+        assertFalse(first.isDone());
+        assertEquals(1, webRequests.size());
+        response.tryEmitValue(webResponse(HttpStatus.OK).header(HttpHeaders.ETAG, "\"v1\"").body(DRONES_JSON).build());
+
+        assertEquals(List.of(1L), first.join());
+        assertEquals(List.of(2L), second.join());
+        // Fresh now, so neither the WebClient nor the RestTemplate is used
+        assertEquals(List.of(2L), service.getDronesWithCooling(false));
+        assertEquals(1, webRequests.size());
+        server.verify();
+    }
+
+    @Test
+    void refreshAsync_withEtag_revalidatesAndKeepsVersion() {
+        webResponses.add(Mono.just(webResponse(HttpStatus.OK).header(HttpHeaders.ETAG, "\"v1\"").body(DRONES_JSON).build()));
+        webResponses.add(Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build()));
+
+        DroneCatalog first = service.refreshAsync().block();
+        DroneCatalog second = service.refreshAsync().block();
+
+        assertEquals(first.version(), second.version());
+        assertEquals(2, second.drones().size());
+        ClientRequest revalidation = webRequests.toArray(ClientRequest[]::new)[1];
+        assertEquals(URI.create(DRONES_URL), revalidation.url());
+        assertEquals("\"v1\"", revalidation.headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(1, registry.get("ilp.upstream.requests").tag("outcome", "not_modified").timer().count());
+    }
+
+    @Test
+    void refreshAsync_whenUpstreamFails_reportsErrorAndRetriesNextTime() {
+        webResponses.add(Mono.just(webResponse(HttpStatus.SERVICE_UNAVAILABLE).build()));
+        webResponses.add(Mono.just(webResponse(HttpStatus.OK).body(DRONES_JSON).build()));
+
+        assertThrows(RuntimeException.class, () -> service.getCatalogAsync().block());
+        assertNull(service.getCachedCatalog());
+        assertEquals(1.0, registry.get("ilp.upstream.errors").counter().count());
+
+        assertEquals(List.of(1L), service.getDronesWithCoolingAsync(true).block());
+        assertEquals(2, webRequests.size());
+    }
+
+    @Test
+    void getDronesWithCooling_whenRefreshFails_servesLastGoodCatalogAsStale() throws Exception {
+        // Every catalog is stale at once, and one bad call of two opens the breaker
+        service = newService(Duration.ZERO, UpstreamPolicyTest.withoutHedging(2));
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON));
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        service.refresh();
+        Thread.sleep(5);
+
+        assertEquals(List.of(1L), service.getDronesWithCooling(true));
+        assertTrue(service.isServingStale());
+        // The breaker is open now: answered without an upstream call
+        assertEquals(List.of(2L), service.getDronesWithCooling(false));
+        server.verify();
+
+        assertEquals(2.0, registry.get("ilp.upstream.stale").counter().count());
+        Health health = service.health();
+        assertEquals(UpstreamPolicy.DEGRADED, health.getStatus());
+        assertEquals(true, health.getDetails().get("stale"));
+        assertEquals(1L, health.getDetails().get("catalogVersion"));
+    }
+
+    @Test
+    void getCatalogAsync_whenRefreshFails_servesLastGoodCatalog() throws Exception {
+        service = newService(Duration.ZERO, UpstreamPolicyTest.withoutHedging(10));
+        webResponses.add(Mono.just(webResponse(HttpStatus.OK).body(DRONES_JSON).build()));
+        webResponses.add(Mono.just(webResponse(HttpStatus.SERVICE_UNAVAILABLE).build()));
+        DroneCatalog first = service.refreshAsync().block();
+        Thread.sleep(5);
+
+        assertSame(first, service.getCatalogAsync().block());
+        assertEquals(2, webRequests.size());
+        assertTrue(service.isServingStale());
+        assertEquals(1.0, registry.get("ilp.upstream.stale").counter().count());
+    }
+
+    @Test
+    void getCatalog_withoutCatalog_whenBreakerOpen_failsUnavailable() throws Exception {
+        service = newService(Duration.ofMinutes(10), UpstreamPolicyTest.withoutHedging(1));
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(HttpServerErrorException.class, () -> service.getCatalog());
+        assertThrows(UpstreamUnavailableException.class, () -> service.getCatalog());
+        server.verify();
+        assertFalse(service.isServingStale());
+        assertEquals(Health.unknown().build().getStatus(), service.health().getStatus());
+    }
+
+    @Test
+    void getCatalog_withoutCatalog_whenDeadlinePasses_failsUnavailable() throws Exception {
+        service = newService(Duration.ofMinutes(10), new UpstreamPolicy(Duration.ofMillis(300), false, 0.95,
+                Duration.ofMillis(50), Duration.ofSeconds(2), 10, 0.5, Duration.ofSeconds(3), Duration.ofSeconds(30)));
+        server.expect(ExpectedCount.once(), requestTo(DRONES_URL)).andRespond(request -> {
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                // Cancelled at the deadline
+            }
+            return withSuccess(DRONES_JSON, MediaType.APPLICATION_JSON).createResponse(request);
+        });
+        webResponses.add(Mono.never());
+
+        // The deadline of the policy, not a timeout of the shared call, so the handlers answer 503
+        assertThrows(UpstreamUnavailableException.class, () -> service.getCatalog());
+        CompletionException async = assertThrows(CompletionException.class,
+                () -> service.getCatalogAsync().toFuture().join());
+        assertInstanceOf(UpstreamUnavailableException.class, async.getCause());
+        assertNull(service.getCachedCatalog());
+    }
+}
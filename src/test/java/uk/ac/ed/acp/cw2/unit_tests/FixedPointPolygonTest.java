@@ -0,0 +1,172 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.dto.RegionRequest;
+import uk.ac.ed.acp.cw2.geometry.BulkContainment;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.geometry.GeometryCore;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FixedPointPolygon}, differential against the double-precision containment check.
+ * The polygons and points lie on the fixed-point grid, so quantizing them loses nothing and both modes must agree,
+ * except where the 1e-12 tolerance of the double mode takes a point just off an edge as on it.
+ */
+public class FixedPointPolygonTest {
+
+    /**
+     * Snaps a coordinate to the nearest multiple of {@code units} fixed-point units.
+     */
+    private static double snap(double degrees, int units) {
+        return Math.round(degrees * FixedPointPolygon.SCALE / units) * units * FixedPointPolygon.UNIT;
+    }
+
+    /**
+     * A random star around Edinburgh with every vertex on a multiple of 8 units, so edges can be split in 8 exactly.
+     */
+    private static double[] gridStar(Random random, int n) {
+        double[] coords = PreparedPolygonTest.toCoords(PreparedPolygonTest.randomStar(random, n, -3.19, 55.94, 0.01));
+        for (int i = 0; i < coords.length; i++) coords[i] = snap(coords[i], 8);
+        return coords;
+    }
+
+    @Nested
+    class DifferentialTests {
+        @Test
+        void randomGridPoints_matchDoublePrecision() {
+            Random random = new Random(42);
+            for (int n : new int[]{4, 7, 50, 1000}) {
+                double[] coords = gridStar(random, n);
+                PreparedPolygon prepared = new PreparedPolygon(coords);
+                FixedPointPolygon fixedPoint = new FixedPointPolygon(coords);
+                for (int i = 0; i < 5000; i++) {
+                    double x = snap(-3.19 + (random.nextDouble() - 0.5) * 0.025, 1);
+                    double y = snap(55.94 + (random.nextDouble() - 0.5) * 0.025, 1);
+                    boolean expected = GeometryCore.contains(coords, x, y);
+                    assertEquals(expected, prepared.contains(x, y));
+                    assertEquals(expected, fixedPoint.contains(x, y), "n=" + n + " point=(" + x + ", " + y + ")");
+                }
+            }
+        }
+
+        @Test
+        void verticesAndPointsOnEdges_areInsideInBothModes() {
+            Random random = new Random(7);
+            double[] coords = gridStar(random, 100);
+            PreparedPolygon prepared = new PreparedPolygon(coords);
+            FixedPointPolygon fixedPoint = new FixedPointPolygon(coords);
+            for (int i = 1; i < coords.length / 2; i++) {
+                double ax = coords[2 * i - 2], ay = coords[2 * i - 1], bx = coords[2 * i], by = coords[2 * i + 1];
+                for (int j = 0; j < 8; j++) {
+                    // Exactly on the edge in fixed point; within rounding of it in double precision
+                    double x = snap(ax + (bx - ax) * j / 8, 1), y = snap(ay + (by - ay) * j / 8, 1);
+                    assertTrue(prepared.contains(x, y), "edge " + i + " at " + j + "/8");
+                    assertTrue(fixedPoint.contains(x, y), "edge " + i + " at " + j + "/8");
+                }
+            }
+        }
+
+        @Test
+        void bulkFixedPoint_matchesPointByPoint() {
+            Random random = new Random(3);
+            double[] coords = gridStar(random, 200);
+            FixedPointPolygon polygon = new FixedPointPolygon(coords);
+            double[] points = new double[2 * 20_000];
+            for (int i = 0; i < points.length; i += 2) {
+                points[i] = -3.19 + (random.nextDouble() - 0.5) * 0.025;
+                points[i + 1] = 55.94 + (random.nextDouble() - 0.5) * 0.025;
+            }
+            try (BulkContainment bulk = new BulkContainment(4, false)) {
+                for (int parallelism : new int[]{1, 4}) {
+                    boolean[] inside = bulk.contains(polygon, points, parallelism);
+                    for (int i = 0; i < inside.length; i++) {
+                        assertEquals(polygon.contains(points[2 * i], points[2 * i + 1]), inside[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Nested
+    class ExactnessTests {
+        private static final int X = -31_900_000, Y = 559_400_000;
+
+        private static double[] triangle(int size) {
+            return new double[]{X * FixedPointPolygon.UNIT, Y * FixedPointPolygon.UNIT,
+                    (X + size) * FixedPointPolygon.UNIT, Y * FixedPointPolygon.UNIT,
+                    X * FixedPointPolygon.UNIT, (Y + size) * FixedPointPolygon.UNIT,
+                    X * FixedPointPolygon.UNIT, Y * FixedPointPolygon.UNIT};
+        }
+
+        @Test
+        void pointJustOffATinyEdge_isOutside_whereTheToleranceTakesItAsOnIt() {
+            // A right triangle with legs of 4 units; (3, 3) is 1.4 units beyond its hypotenuse
+            double[] coords = triangle(4);
+            double x = (X + 3) * FixedPointPolygon.UNIT, y = (Y + 3) * FixedPointPolygon.UNIT;
+            FixedPointPolygon fixedPoint = new FixedPointPolygon(coords);
+
+            assertTrue(new PreparedPolygon(coords).contains(x, y));
+            assertFalse(fixedPoint.contains(x, y));
+            assertTrue(fixedPoint.containsFixed(X + 2, Y + 2));
+        }
+
+        @Test
+        void pointOnALongDiagonalEdge_isInside() {
+            double[] coords = triangle(1_000_000);
+            // On the hypotenuse x + y = size, far from the vertices
+            assertTrue(new FixedPointPolygon(coords).containsFixed(X + 123_457, Y + 876_543));
+            assertFalse(new FixedPointPolygon(coords).containsFixed(X + 123_457, Y + 876_544));
+            assertTrue(new FixedPointPolygon(coords).containsFixed(X + 123_457, Y + 876_542));
+        }
+
+        @Test
+        void outOfRangeCoordinates_areRejected_orOutside() {
+            assertThrows(IllegalArgumentException.class, () -> new FixedPointPolygon(new double[]{0, 91, 1, 0, 0, 91}));
+            assertThrows(IllegalArgumentException.class, () -> FixedPointPolygon.toFixed(Double.NaN));
+            FixedPointPolygon polygon = new FixedPointPolygon(
+                    new double[]{-180, -90, 180, -90, 180, 90, -180, 90, -180, -90});
+            assertTrue(polygon.contains(0, 0));
+            assertTrue(polygon.contains(180, 90));
+            assertFalse(polygon.contains(Double.NaN, 0));
+            assertFalse(polygon.contains(180.5, 0));
+        }
+
+        @Test
+        void vertices_takeHalfTheMemory() {
+            double[] coords = gridStar(new Random(5), 1000);
+            PreparedPolygon prepared = new PreparedPolygon(coords);
+            FixedPointPolygon fixedPoint = new FixedPointPolygon(coords);
+
+            assertTrue(fixedPoint.footprintBytes() < prepared.footprintBytes());
+            assertEquals(prepared.vertexCount(), fixedPoint.vertexCount());
+            assertEquals(prepared.lng(17), fixedPoint.lng(17), FixedPointPolygon.UNIT / 2);
+        }
+    }
+
+    @Nested
+    class ServiceTests {
+        @Test
+        void fixedPointMode_usesTheFixedPointPolygons() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(4, 100_000);
+            PositionService service = new PositionService(cache, true);
+            Region square = new Region("square", List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                    new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0)));
+
+            assertTrue(service.isInRegion(new RegionRequest(new Position(0.5, 1.0), square)));
+            assertFalse(service.isInRegion(new RegionRequest(new Position(0.5, 1.0 + 1e-6), square)));
+            assertInstanceOf(FixedPointPolygon.class, service.prepareRegion(square));
+            assertSame(cache.getFixedPoint(square), service.prepareRegion(square));
+            assertEquals(1, cache.missCount());
+        }
+    }
+}
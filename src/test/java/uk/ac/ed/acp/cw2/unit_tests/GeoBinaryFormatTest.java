@@ -0,0 +1,135 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormatException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static uk.ac.ed.acp.cw2.wire.GeoBinaryFormat.*;
+
+/**
+ * Unit tests for {@link GeoBinaryFormat}.
+ * Checks that everything decodes to exactly what was encoded (bit for bit), the byte layout, and malformed bodies.
+ */
+public class GeoBinaryFormatTest {
+    private static final double[] SPECIAL = {0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE,
+            -3.1863580788986368, 55.94468066708487, 180.0, -90.0, Math.nextUp(180.0)};
+
+    private static double[] random(int length, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) values[i] = (random.nextDouble() - 0.5) * 360;
+        return values;
+    }
+
+    private static void assertBitsEqual(double[] expected, double[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]), "index " + i);
+        }
+    }
+
+    @Test
+    void record_roundTrip() {
+        double[] record = {-3.192473, 55.946233, -3.184319, 55.942617};
+        byte[] body = encodeDoubles(record);
+        assertEquals(32, body.length);
+        assertBitsEqual(record, decodeRecord(body, DISTANCE_RECORD));
+    }
+
+    @Test
+    void record_specialValues_roundTrip() {
+        for (int i = 0; i + NEXT_POSITION_RECORD <= SPECIAL.length; i++) {
+            double[] record = Arrays.copyOfRange(SPECIAL, i, i + NEXT_POSITION_RECORD);
+            assertBitsEqual(record, decodeRecord(encodeDoubles(record), NEXT_POSITION_RECORD));
+        }
+    }
+
+    @Test
+    void regionBatch_roundTrip() {
+        for (int count : new int[]{0, 1, 1000}) {
+            double[] coords = random(10, 5), points = random(2 * count, count);
+            byte[] body = encodeRegionBatch(coords, points);
+            assertEquals(8 + 80 + count * 16, body.length);
+            RegionBatchFrame frame = decodeRegionBatch(body);
+            assertBitsEqual(coords, frame.coords());
+            assertBitsEqual(points, frame.points());
+            assertThrows(GeoBinaryFormatException.class, () -> decodeRegionBatch(Arrays.copyOf(body, body.length - 1)));
+        }
+        assertThrows(GeoBinaryFormatException.class, () -> decodeRegionBatch(new byte[]{5, 0, 0, 0}));
+    }
+
+    @Test
+    void batch_roundTrip() {
+        for (int count : new int[]{0, 1, 7, 10_000}) {
+            double[] records = random(count * DISTANCE_RECORD, count);
+            byte[] body = encodeBatch(records, DISTANCE_RECORD);
+            assertEquals(4 + count * 32, body.length);
+            assertBitsEqual(records, decodeBatch(body, DISTANCE_RECORD));
+        }
+    }
+
+    @Test
+    void region_roundTrip() {
+        double[] coords = random(2 * 1000, 42);
+        RegionFrame frame = decodeRegion(encodeRegion(SPECIAL[5], SPECIAL[6], coords));
+        assertEquals(SPECIAL[5], frame.lng());
+        assertEquals(SPECIAL[6], frame.lat());
+        assertBitsEqual(coords, frame.coords());
+    }
+
+    @Test
+    void batchResult_doubles_roundTrip() {
+        byte[] status = {STATUS_OK, STATUS_INVALID_REQUEST, STATUS_INVALID_ANGLE};
+        double[] values = {1.5, -2.5, Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+        BatchFrame frame = decodeBatchResult(encodeBatchResult(status, values), 2);
+        assertArrayEquals(status, frame.status());
+        assertBitsEqual(values, frame.values());
+    }
+
+    @Test
+    void batchResult_booleans_roundTrip() {
+        byte[] status = {STATUS_OK, STATUS_OK, STATUS_INVALID_REQUEST};
+        BatchFrame frame = decodeBatchResult(encodeBatchResult(status, new boolean[]{true, false, false}), 0);
+        assertArrayEquals(status, frame.status());
+        assertArrayEquals(new double[]{1, 0, 0}, frame.values());
+    }
+
+    @Test
+    void boolean_roundTrip() {
+        assertTrue(decodeBoolean(encodeBoolean(true)));
+        assertFalse(decodeBoolean(encodeBoolean(false)));
+    }
+
+    @Test
+    void layout_isLittleEndian() {
+        byte[] body = encodeBatch(new double[]{1.0, 2.0}, POSITION_RECORD);
+        ByteBuffer buffer = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(1, buffer.getInt());
+        assertEquals(1.0, buffer.getDouble());
+        assertEquals(2.0, buffer.getDouble());
+        assertEquals(1, body[0]);
+    }
+
+    @Test
+    void malformedBodies_throw() {
+        assertThrows(GeoBinaryFormatException.class, () -> decodeRecord(new byte[31], DISTANCE_RECORD));
+        assertThrows(GeoBinaryFormatException.class, () -> decodeRecord(new byte[40], DISTANCE_RECORD));
+        assertThrows(GeoBinaryFormatException.class, () -> decodeBatch(new byte[2], DISTANCE_RECORD));
+        byte[] truncated = Arrays.copyOf(encodeBatch(new double[8], DISTANCE_RECORD), 4 + 32);
+        assertThrows(GeoBinaryFormatException.class, () -> decodeBatch(truncated, DISTANCE_RECORD));
+        byte[] negative = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(-1).array();
+        assertThrows(GeoBinaryFormatException.class, () -> decodeBatch(negative, DISTANCE_RECORD));
+        byte[] huge = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.MAX_VALUE).array();
+        assertThrows(GeoBinaryFormatException.class, () -> decodeBatch(huge, DISTANCE_RECORD));
+        assertThrows(GeoBinaryFormatException.class, () -> decodeRegion(new byte[10]));
+        byte[] region = encodeRegion(0, 0, new double[8]);
+        assertThrows(GeoBinaryFormatException.class, () -> decodeRegion(Arrays.copyOf(region, region.length - 1)));
+        assertThrows(GeoBinaryFormatException.class, () -> decodeBoolean(new byte[0]));
+    }
+}
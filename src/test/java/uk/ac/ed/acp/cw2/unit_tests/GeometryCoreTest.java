@@ -0,0 +1,99 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.geometry.GeometryCore;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link GeometryCore}.
+ * The flat-array operations are compared with the original calculations on Position objects.
+ */
+public class GeometryCoreTest {
+    private static final double STEP = 0.00015;
+
+    @Test
+    void distance_matchesOriginalFormula() {
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            double lng1 = random.nextDouble() * 360 - 180, lat1 = random.nextDouble() * 180 - 90;
+            double lng2 = random.nextDouble() * 360 - 180, lat2 = random.nextDouble() * 180 - 90;
+            double expected = Math.sqrt((lng1 - lng2) * (lng1 - lng2) + (lat1 - lat2) * (lat1 - lat2));
+            assertEquals(expected, GeometryCore.distance(lng1, lat1, lng2, lat2));
+        }
+        assertTrue(GeometryCore.isCloseTo(0, 0, 0, STEP / 2, STEP));
+        assertFalse(GeometryCore.isCloseTo(0, 0, 0, STEP, STEP));
+    }
+
+    @Test
+    void distances_matchSingleCalculation() {
+        double[] records = {0, 0, 3, 4, -3.19, 55.94, -3.18, 55.95};
+        double[] distances = new double[2];
+        GeometryCore.distances(records, distances);
+        assertEquals(5.0, distances[0]);
+        assertEquals(GeometryCore.distance(-3.19, 55.94, -3.18, 55.95), distances[1]);
+    }
+
+    @Test
+    void nextPosition_matchesTrigonometry() {
+        double[] next = new double[2];
+        for (double angle = 0; angle <= 360; angle += 7.5) {
+            GeometryCore.nextPosition(-3.19, 55.94, angle, next, 0);
+            double radians = Math.toRadians(angle);
+            assertEquals(-3.19 + STEP * Math.cos(radians), next[0], 1e-15, "angle " + angle);
+            assertEquals(55.94 + STEP * Math.sin(radians), next[1], 1e-15, "angle " + angle);
+        }
+    }
+
+    @Test
+    void nextPositions_matchSingleCalculation() {
+        double[] records = {0, 0, 90, 1, 1, 10};
+        double[] positions = new double[4], single = new double[2];
+        GeometryCore.nextPositions(records, positions);
+        GeometryCore.nextPosition(1, 1, 10, single, 0);
+        assertEquals(0.0, positions[0], 1e-15);
+        assertEquals(STEP, positions[1], 1e-15);
+        assertEquals(single[0], positions[2]);
+        assertEquals(single[1], positions[3]);
+    }
+
+    @Test
+    void isClosed_usesDoubleEquals() {
+        assertTrue(GeometryCore.isClosed(new double[]{1, 2, 3, 4, 1, 2}));
+        assertFalse(GeometryCore.isClosed(new double[]{1, 2, 3, 4, 1, 2.0000001}));
+        assertFalse(GeometryCore.isClosed(new double[]{0.0, 0, 1, 1, -0.0, 0}));
+        assertTrue(GeometryCore.isClosed(new double[]{Double.NaN, 0, 1, 1, Double.NaN, 0}));
+    }
+
+    @Test
+    void contains_matchesReferenceAndPreparedPolygon() {
+        Random random = new Random(42);
+        for (int n : new int[]{4, 9, 100, 2000}) {
+            List<Position> vertices = PreparedPolygonTest.randomStar(random, n, -3.19, 55.94, 0.01);
+            double[] coords = PreparedPolygonTest.toCoords(vertices);
+            PreparedPolygon prepared = new PreparedPolygon(coords);
+            for (int i = 0; i < 2000; i++) {
+                Position point = i % 50 == 0 ? vertices.get(i % n)
+                        : new Position(-3.19 + (random.nextDouble() - 0.5) * 0.025, 55.94 + (random.nextDouble() - 0.5) * 0.025);
+                boolean expected = PreparedPolygonTest.referenceIsInRegion(vertices, point);
+                assertEquals(expected, GeometryCore.contains(coords, point.lng(), point.lat()), "n=" + n + " point=" + point);
+                assertEquals(expected, prepared.contains(point.lng(), point.lat()), "n=" + n + " point=" + point);
+            }
+        }
+    }
+
+    @Test
+    void contains_pointsOnEdgesAreInside() {
+        double[] square = {0, 0, 0, 1, 1, 1, 1, 0, 0, 0};
+        assertTrue(GeometryCore.contains(square, 0.5, 0));
+        assertTrue(GeometryCore.contains(square, 1, 0.25));
+        assertTrue(GeometryCore.contains(square, 1, 1));
+        assertTrue(GeometryCore.contains(square, 0.5, 0.5));
+        assertFalse(GeometryCore.contains(square, 1.0001, 0.5));
+    }
+}
@@ -0,0 +1,139 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the ILP REST Service: serves GET /drones from a fixed list of drones, with a latency and a
+ * failure rate that can be changed while it runs. Answers If-None-Match with 304 Not Modified like the real service.
+ * Point the application at it with ILP_ENDPOINT=http://localhost:{port}, or run it on its own:
+ * java -cp {test classpath} uk.ac.ed.acp.cw2.unit_tests.IlpStubServer [port] [latency, e.g. PT0.05S] [failure rate]
+ */
+public class IlpStubServer implements AutoCloseable {
+    static final String ETAG = "\"stub-1\"";
+    static final byte[] DRONES_JSON = drones(20);
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Injected faults, read by every request
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile double failureRate;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Starts the stub on localhost.
+     * @param port the port, 0 for any free one
+     */
+    public IlpStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.setExecutor(executor);
+        server.createContext("/drones", this::drones);
+        server.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        IlpStubServer stub = new IlpStubServer(args.length > 0 ? Integer.parseInt(args[0]) : 8089);
+        if (args.length > 1) stub.setLatency(Duration.parse(args[1]), Duration.ZERO);
+        if (args.length > 2) stub.setFailureRate(Double.parseDouble(args[2]));
+        System.out.println("ILP stub listening, start the application with ILP_ENDPOINT=" + stub.url());
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every response by latency plus a uniformly distributed share of jitter.
+     */
+    public void setLatency(Duration latency, Duration jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Answers this fraction of the requests (0 to 1) with 503 Service Unavailable, after the latency.
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Returns the number of requests received, including failed ones.
+     */
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of requests answered with an injected failure.
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    private void drones(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            long delay = latency.toNanos() + (jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toNanos()));
+            if (delay > 0) Thread.sleep(Duration.ofNanos(delay));
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+            } else if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failures.increment();
+                exchange.sendResponseHeaders(503, -1);
+            } else if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("ETag", ETAG);
+                exchange.sendResponseHeaders(200, DRONES_JSON.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(DRONES_JSON);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns a JSON list of drones with ids 1 to count and varied capabilities.
+     */
+    private static byte[] drones(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int id = 1; id <= count; id++) {
+            if (id > 1) json.append(',');
+            json.append(String.format(Locale.ROOT, """
+                    {"id": %d, "name": "Drone %d", "capability": {"cooling": %b, "heating": %b, "capacity": %.1f,
+                    "maxMoves": %d, "costPerMove": %.3f, "costInitial": %.2f, "costFinal": %.2f}}""",
+                    id, id, id % 2 == 1, id % 3 == 0, 4.0 + id % 5 * 2, 1000 + id % 4 * 500,
+                    0.01 + id % 3 * 0.01, 1.5 + id % 4, 2.5 + id % 6));
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,309 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP/1.1 load generator for a server on localhost. Every keep-alive connection sends a mix of requests in turn.
+ * It runs either as a closed loop or as an open loop:
+ * - Closed loop: a connection sends its next request as soon as the previous answer arrives.
+ * - Open loop: requests are due on a fixed schedule at a total rate, however long the answers take.
+ * Latencies are recorded per request in HdrHistograms, after a warm-up, in two forms:
+ * - raw: from sending a request to its answer.
+ * - corrected for coordinated omission. A stalled connection does not send the requests that fall due meanwhile,
+ *   so raw latencies leave out the worst waits. In an open loop the latency is therefore measured from the time
+ *   the request was due. In a closed loop the histogram is corrected afterwards, with the mean latency of the
+ *   warm-up as the expected interval between requests.
+ * A response with another status than the expected one is an error. A connection that fails is not reopened.
+ */
+public class LoadGenerator {
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * A request to send.
+     * @param name the name its results are reported under
+     * @param bytes the request line, headers and body
+     * @param expectedStatus the status of a successful answer
+     */
+    public record Request(String name, byte[] bytes, int expectedStatus) {
+        public static Request get(String path) {
+            return of("GET", path, null, new byte[0], 200);
+        }
+
+        public static Request json(String method, String path, String body, int expectedStatus) {
+            return of(method, path, "application/json", body.getBytes(StandardCharsets.UTF_8), expectedStatus);
+        }
+
+        public static Request of(String method, String path, String contentType, byte[] body, int expectedStatus) {
+            StringBuilder head = new StringBuilder(method).append(' ').append(path).append(" HTTP/1.1\r\nHost: localhost\r\n");
+            if (contentType != null) head.append("Content-Type: ").append(contentType).append("\r\n");
+            if (body.length > 0 || !method.equals("GET")) head.append("Content-Length: ").append(body.length).append("\r\n");
+            byte[] headBytes = head.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII);
+            byte[] bytes = new byte[headBytes.length + body.length];
+            System.arraycopy(headBytes, 0, bytes, 0, headBytes.length);
+            System.arraycopy(body, 0, bytes, headBytes.length, body.length);
+            String name = method + " " + path.replaceFirst("^/api/v1", "")
+                    + (contentType == null || contentType.equals("application/json") ? "" : " (" + contentType + ")");
+            return new Request(name, bytes, expectedStatus);
+        }
+    }
+
+    /**
+     * The measured requests of one kind.
+     * @param name the request name
+     * @param errors the number of answers with an unexpected status
+     * @param raw the latencies from sending to the answer, in nanoseconds
+     * @param corrected the latencies corrected for coordinated omission, in nanoseconds
+     */
+    public record Result(String name, long errors, Histogram raw, Histogram corrected) {}
+
+    /**
+     * The results of a run.
+     * @param duration the measured part of the run
+     * @param connected the number of connections that were opened
+     * @param connectionErrors the number of connections that failed (refused, reset or timed out)
+     * @param results the results per request, in the order of the mix
+     */
+    public record Report(Duration duration, int connected, long connectionErrors, List<Result> results) {
+        /**
+         * Returns the results of all requests together.
+         */
+        public Result total() {
+            Histogram raw = new Histogram(3);
+            Histogram corrected = new Histogram(3);
+            long errors = 0;
+            for (Result result : results) {
+                raw.add(result.raw());
+                corrected.add(result.corrected());
+                errors += result.errors();
+            }
+            return new Result("total", errors, raw, corrected);
+        }
+
+        public void print(PrintStream out, String title) {
+            out.printf("%n%s: %d connections, %d failed, %s measured%n", title, connected, connectionErrors, duration);
+            out.printf("%-50s %9s %9s %7s %9s %9s %9s %9s %11s%n",
+                    "request", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "raw p99 ms");
+            for (Result result : results) print(out, result);
+            print(out, total());
+        }
+
+        private void print(PrintStream out, Result result) {
+            Histogram corrected = result.corrected();
+            out.printf("%-50s %9d %9.0f %7d %9.1f %9.1f %9.1f %9.1f %11.1f%n", result.name(), result.raw().getTotalCount(),
+                    result.raw().getTotalCount() / (duration.toNanos() / 1e9), result.errors(),
+                    millis(corrected, 50), millis(corrected, 99), millis(corrected, 99.9),
+                    corrected.getMaxValue() / 1e6, millis(result.raw(), 99));
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * Recorders of one request of the mix, shared by all connections.
+     */
+    private static final class Endpoint {
+        final Request request;
+        final Recorder warmup = new Recorder(3);
+        final Recorder raw = new Recorder(3);
+        final Recorder fromDue = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+
+        Endpoint(Request request) {
+            this.request = request;
+        }
+
+        void record(long due, long sent, long answered, boolean ok, long measureFrom) {
+            if (due < measureFrom) {
+                warmup.recordValue(answered - sent);
+                return;
+            }
+            raw.recordValue(answered - sent);
+            fromDue.recordValue(answered - due);
+            if (!ok) errors.increment();
+        }
+
+        Result result(boolean openLoop) {
+            Histogram rawHistogram = raw.getIntervalHistogram();
+            if (openLoop) return new Result(request.name(), errors.sum(), rawHistogram, fromDue.getIntervalHistogram());
+            long expectedInterval = (long) warmup.getIntervalHistogram().getMean();
+            Histogram corrected = expectedInterval > 0
+                    ? rawHistogram.copyCorrectedForCoordinatedOmission(expectedInterval) : rawHistogram.copy();
+            return new Result(request.name(), errors.sum(), rawHistogram, corrected);
+        }
+    }
+
+    private record Response(int status, boolean close) {}
+
+    private final int port;
+    private final List<Request> requests;
+
+    /**
+     * @param port the port of the server on localhost
+     * @param requests the mix of requests every connection sends in turn
+     */
+    public LoadGenerator(int port, List<Request> requests) {
+        this.port = port;
+        this.requests = List.copyOf(requests);
+    }
+
+    /**
+     * Sends a single request on a new connection, e.g. to set up state that the mix depends on.
+     * @return the status of the answer
+     */
+    public int send(Request request) throws IOException {
+        try (Socket socket = open()) {
+            socket.getOutputStream().write(request.bytes());
+            return readResponse(new BufferedInputStream(socket.getInputStream())).status();
+        }
+    }
+
+    /**
+     * Runs the mix in a closed loop: each connection sends its next request when the previous answer arrived.
+     */
+    public Report closedLoop(int connections, Duration warmup, Duration duration) throws InterruptedException {
+        return run(connections, 0, warmup, duration);
+    }
+
+    /**
+     * Runs the mix in an open loop: the connections together send rate requests per second on a fixed schedule.
+     * A connection that falls behind sends its overdue requests back to back.
+     */
+    public Report openLoop(int connections, double rate, Duration warmup, Duration duration) throws InterruptedException {
+        return run(connections, (long) (connections * 1e9 / rate), warmup, duration);
+    }
+
+    private Report run(int connections, long interval, Duration warmup, Duration duration) throws InterruptedException {
+        List<Endpoint> endpoints = requests.stream().map(Endpoint::new).toList();
+        LongAdder connected = new LongAdder();
+        LongAdder connectionErrors = new LongAdder();
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                int connection = i;
+                // Open loop: the first requests of the connections are spread over one interval
+                long firstDue = start + interval * i / connections;
+                executor.submit(() -> {
+                    try {
+                        connection(endpoints, connection % endpoints.size(), firstDue, interval, measureFrom, end, connected);
+                    } catch (IOException e) {
+                        connectionErrors.increment();
+                    }
+                });
+            }
+        }
+        List<Result> results = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) results.add(endpoint.result(interval > 0));
+        return new Report(duration, connected.intValue(), connectionErrors.sum(), results);
+    }
+
+    /**
+     * Sends requests over one connection until the end of the run, reconnecting if the server closed it.
+     * @param interval the time between two requests of an open loop, 0 for a closed loop
+     */
+    private void connection(List<Endpoint> endpoints, int next, long due, long interval, long measureFrom, long end,
+                            LongAdder connected) throws IOException {
+        Socket socket = null;
+        InputStream input = null;
+        boolean opened = false;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (interval == 0) due = now;
+                if (due >= end) return;
+                while (due > now) {
+                    LockSupport.parkNanos(due - now);
+                    now = System.nanoTime();
+                }
+                if (socket == null) {
+                    socket = open();
+                    input = new BufferedInputStream(socket.getInputStream());
+                    if (!opened) connected.increment();
+                    opened = true;
+                }
+                Endpoint endpoint = endpoints.get(next);
+                next = (next + 1) % endpoints.size();
+                long sent = System.nanoTime();
+                socket.getOutputStream().write(endpoint.request.bytes());
+                Response response = readResponse(input);
+                endpoint.record(due, sent, System.nanoTime(), response.status() == endpoint.request.expectedStatus(), measureFrom);
+                if (response.close()) {
+                    socket.close();
+                    socket = null;
+                }
+                due += interval;
+            }
+        } finally {
+            if (socket != null) socket.close();
+        }
+    }
+
+    private Socket open() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress("localhost", port), TIMEOUT_MILLIS);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+            return socket;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads one HTTP/1.1 response with a Content-Length, a chunked or no body.
+     */
+    private static Response readResponse(InputStream input) throws IOException {
+        String statusLine = readLine(input);
+        long contentLength = 0;
+        boolean chunked = false;
+        boolean close = false;
+        String header;
+        while (!(header = readLine(input)).isEmpty()) {
+            int colon = header.indexOf(':');
+            String name = header.substring(0, colon).trim();
+            String value = header.substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) contentLength = Long.parseLong(value);
+            if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked")) chunked = true;
+            if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) close = true;
+        }
+        if (chunked) {
+            long size;
+            while ((size = Long.parseLong(readLine(input).split(";")[0].trim(), 16)) > 0) {
+                input.skipNBytes(size);
+                readLine(input);
+            }
+            readLine(input);
+        } else {
+            input.skipNBytes(contentLength);
+        }
+        return new Response(Integer.parseInt(statusLine.substring(9, 12)), close);
+    }
+
+    private static String readLine(InputStream input) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = input.read()) != '\n') {
+            if (c < 0) throw new EOFException("Connection closed");
+            if (c != '\r') line.append((char) c);
+        }
+        return line.toString();
+    }
+}
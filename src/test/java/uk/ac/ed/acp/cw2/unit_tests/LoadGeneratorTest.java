@@ -0,0 +1,101 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Report;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Request;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Result;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the load-testing harness: {@link LoadGenerator} with the {@link ApiRequests} mix against the running
+ * application, whose ILP REST Service is an {@link IlpStubServer} selected through ILP_ENDPOINT, and against the
+ * stub itself for the latency correction and the failure injection.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "ilp.snapshot.path=")
+public class LoadGeneratorTest {
+    private static final IlpStubServer stub = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    private static IlpStubServer startStub() {
+        try {
+            return new IlpStubServer(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void ilpEndpoint(DynamicPropertyRegistry registry) {
+        registry.add("ILP_ENDPOINT", stub::url);
+    }
+
+    @AfterEach
+    void resetStub() {
+        stub.setLatency(Duration.ZERO, Duration.ZERO);
+        stub.setFailureRate(0);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void everyEndpoint_answersUnderLoad() throws Exception {
+        LoadGenerator generator = new LoadGenerator(port, ApiRequests.all());
+        for (Request request : ApiRequests.setUp()) assertEquals(2, generator.send(request) / 100, request.name());
+        for (Request request : ApiRequests.all()) assertEquals(request.expectedStatus(), generator.send(request), request.name());
+
+        Report report = generator.closedLoop(4, Duration.ofMillis(500), Duration.ofSeconds(2));
+
+        assertEquals(4, report.connected());
+        assertEquals(0, report.connectionErrors());
+        assertTrue(report.total().raw().getTotalCount() > 0);
+        for (Result result : report.results()) assertEquals(0, result.errors(), result.name());
+        // The drones came from the stub
+        assertTrue(stub.requests() > 0);
+    }
+
+    @Test
+    void openLoop_measuresFromTheScheduledTime() throws Exception {
+        // 100 requests per second on one connection, but each answer takes 50ms: the requests queue up
+        stub.setLatency(Duration.ofMillis(50), Duration.ZERO);
+        LoadGenerator generator = new LoadGenerator(stub.port(), List.of(Request.get("/drones")));
+
+        Result result = generator.openLoop(1, 100, Duration.ZERO, Duration.ofSeconds(1)).total();
+
+        Histogram raw = result.raw();
+        Histogram corrected = result.corrected();
+        assertTrue(raw.getValueAtPercentile(99) < Duration.ofMillis(500).toNanos(), "raw p99 " + raw.getValueAtPercentile(99));
+        assertTrue(corrected.getValueAtPercentile(99) > 4 * raw.getValueAtPercentile(99),
+                "corrected p99 " + corrected.getValueAtPercentile(99));
+        assertEquals(0, result.errors());
+    }
+
+    @Test
+    void injectedFailures_areCountedAsErrors() throws Exception {
+        stub.setFailureRate(1);
+        LoadGenerator generator = new LoadGenerator(stub.port(), List.of(Request.get("/drones")));
+
+        Result result = generator.closedLoop(2, Duration.ZERO, Duration.ofMillis(500)).total();
+
+        assertTrue(result.raw().getTotalCount() > 0);
+        assertEquals(result.raw().getTotalCount(), result.errors());
+        assertTrue(stub.failures() >= result.errors());
+    }
+}
@@ -0,0 +1,59 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Report;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Request;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Result;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test of every /api/v1 endpoint ({@link ApiRequests}) against the application in a separate JVM, with the
+ * ILP REST Service replaced by an {@link IlpStubServer} through ILP_ENDPOINT. The drone catalog is revalidated every
+ * second, so the injected upstream latency and failures show up while the mix runs. Runs the mix in a closed loop,
+ * then in an open loop at a fixed rate, and prints throughput and latency percentiles per endpoint.
+ * Disabled by default:
+ * mvn test -Dtest=LoadTest -Dilp.loadtest=true [-Dilp.loadtest.connections=64 -Dilp.loadtest.duration=PT30S
+ *     -Dilp.loadtest.rate=2000 -Dilp.loadtest.stub-latency=PT0.05S -Dilp.loadtest.stub-failure-rate=0.1]
+ */
+@EnabledIfSystemProperty(named = "ilp.loadtest", matches = "true")
+public class LoadTest {
+    private static final int CONNECTIONS = Integer.getInteger("ilp.loadtest.connections", 64);
+    private static final Duration DURATION = Duration.parse(System.getProperty("ilp.loadtest.duration", "PT30S"));
+    private static final Duration WARMUP = DURATION.dividedBy(3);
+    // Requests per second of the open loop
+    private static final double RATE = Double.parseDouble(System.getProperty("ilp.loadtest.rate", "2000"));
+    private static final Duration STUB_LATENCY = Duration.parse(System.getProperty("ilp.loadtest.stub-latency", "PT0.05S"));
+    private static final double STUB_FAILURE_RATE = Double.parseDouble(System.getProperty("ilp.loadtest.stub-failure-rate", "0.1"));
+
+    @Test
+    void everyEndpoint_closedAndOpenLoop() throws Exception {
+        try (IlpStubServer stub = new IlpStubServer(0);
+             ApplicationProcess application = new ApplicationProcess("default", Map.of("ILP_ENDPOINT", stub.url()),
+                     "--ilp.drones.cache.ttl=PT1S")) {
+            stub.setLatency(STUB_LATENCY, STUB_LATENCY.dividedBy(2));
+            stub.setFailureRate(STUB_FAILURE_RATE);
+            LoadGenerator generator = new LoadGenerator(application.port(), ApiRequests.all());
+            for (Request request : ApiRequests.setUp()) assertEquals(2, generator.send(request) / 100, request.name());
+
+            Report closed = generator.closedLoop(CONNECTIONS, WARMUP, DURATION);
+            closed.print(System.out, "closed loop");
+            Report open = generator.openLoop(CONNECTIONS, RATE, WARMUP, DURATION);
+            open.print(System.out, String.format("open loop at %.0f requests/s", RATE));
+            System.out.printf("%nILP stub: %d requests, %d injected failures%n", stub.requests(), stub.failures());
+
+            for (Report report : new Report[]{closed, open}) {
+                assertEquals(0, report.connectionErrors());
+                for (Result result : report.results()) {
+                    assertTrue(result.raw().getTotalCount() > 0, result.name());
+                    assertEquals(0, result.errors(), result.name());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.service.MpscRingBuffer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link MpscRingBuffer}: order, capacity and concurrent producers.
+ */
+public class MpscRingBufferTest {
+
+    @Test
+    void capacity_isRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new MpscRingBuffer<>(1).capacity());
+        assertEquals(8, new MpscRingBuffer<>(5).capacity());
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(0));
+    }
+
+    @Test
+    void poll_returnsElementsInOrder_andNullWhenEmpty() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        assertNull(buffer.poll());
+
+        // Wraps around the ring several times
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) assertTrue(buffer.offer(round * 10 + i));
+            for (int i = 0; i < 3; i++) assertEquals(round * 10 + i, buffer.poll());
+            assertNull(buffer.poll());
+        }
+    }
+
+    @Test
+    void offer_whenFull_returnsFalseUntilAnElementIsTaken() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(2);
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+
+        assertFalse(buffer.offer("c"));
+        assertEquals("a", buffer.poll());
+        assertTrue(buffer.offer("c"));
+        assertEquals("b", buffer.poll());
+        assertEquals("c", buffer.poll());
+    }
+
+    @Test
+    void offer_fromManyThreads_losesNothing_andKeepsEachProducersOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new long[]{producer, i})) Thread.yield();
+                }
+            }));
+        }
+        start.countDown();
+
+        long[] next = new long[producers];
+        Set<Long> finished = new HashSet<>();
+        int received = 0;
+        while (received < producers * perProducer) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) element[0];
+            assertEquals(next[producer], element[1]);
+            if (++next[producer] == perProducer) finished.add(element[0]);
+            received++;
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(producers, finished.size());
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+import uk.ac.ed.acp.cw2.service.PathPlannerService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PathPlannerService}.
+ * Checks that planned paths are made of legal moves, end close to the target and avoid restricted areas.
+ */
+public class PathPlannerServiceTest {
+    private static final double STEP = 0.00015;
+    private final PathPlannerService service =
+            new PathPlannerService(new PreparedPolygonCache(16, 100_000), 200_000, 5_000, 1.2);
+
+    private static void assertLegalPath(DeliveryPath result, Position to, List<Region> restrictedAreas) {
+        assertTrue(result.found());
+        List<Position> path = result.path();
+        assertEquals(result.moves() + 1, path.size());
+        for (int i = 1; i < path.size(); i++) {
+            Position a = path.get(i - 1), b = path.get(i);
+            assertEquals(STEP, Math.hypot(b.lng() - a.lng(), b.lat() - a.lat()), 1e-12);
+            assertEquals(0.0, result.angles()[i - 1] % 22.5);
+            for (Region region : restrictedAreas) {
+                PreparedPolygon polygon = new PreparedPolygon(PreparedPolygonTest.toCoords(region.vertices()));
+                assertFalse(polygon.intersectsSegment(a.lng(), a.lat(), b.lng(), b.lat()), "move " + i + " enters " + region.name());
+            }
+        }
+        Position last = path.getLast();
+        assertTrue(Math.hypot(last.lng() - to.lng(), last.lat() - to.lat()) < STEP);
+    }
+
+    @Test
+    void withoutObstacles_findsNearlyStraightPath() {
+        Position from = new Position(-3.1863580788986368, 55.94468066708487);
+        Position to = new Position(-3.1883580788986368, 55.94268066708487);
+        DeliveryPath result = service.calculateDeliveryPath(new DeliveryPathRequest(from, to, List.of()));
+
+        assertLegalPath(result, to, List.of());
+        double straightMoves = Math.hypot(to.lng() - from.lng(), to.lat() - from.lat()) / STEP;
+        assertTrue(result.moves() <= Math.ceil(straightMoves) + 2, "moves=" + result.moves());
+    }
+
+    @Test
+    void withWallInTheWay_goesAround() {
+        Position from = new Position(0.0, 0.0);
+        Position to = new Position(0.003, 0.0);
+        Region wall = new Region("wall", List.of(new Position(0.0014, -0.001), new Position(0.0014, 0.001),
+                new Position(0.0016, 0.001), new Position(0.0016, -0.001), new Position(0.0014, -0.001)));
+        DeliveryPath result = service.calculateDeliveryPath(new DeliveryPathRequest(from, to, List.of(wall)));
+
+        assertLegalPath(result, to, List.of(wall));
+        assertTrue(result.moves() > 0.003 / STEP);
+    }
+
+    @Test
+    void targetInsideClosedArea_runsOutOfBudget() {
+        PathPlannerService smallBudget = new PathPlannerService(new PreparedPolygonCache(16, 100_000), 500, 5_000, 1.2);
+        Position from = new Position(0.0, 0.0);
+        Position to = new Position(0.01, 0.01);
+        Region box = new Region("box", List.of(new Position(0.009, 0.009), new Position(0.009, 0.011),
+                new Position(0.011, 0.011), new Position(0.011, 0.009), new Position(0.009, 0.009)));
+        DeliveryPath result = smallBudget.calculateDeliveryPath(new DeliveryPathRequest(from, to, List.of(box)));
+
+        assertFalse(result.found());
+        assertTrue(result.path().isEmpty());
+        assertTrue(result.nodesExpanded() <= 500);
+    }
+}
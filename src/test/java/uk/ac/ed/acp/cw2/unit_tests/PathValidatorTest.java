@@ -0,0 +1,103 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.geometry.Directions;
+import uk.ac.ed.acp.cw2.geometry.PathValidator;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PathValidator}.
+ * The grid lookup is compared with testing every segment against every polygon,
+ * on random walks of drone moves among random polygons.
+ */
+public class PathValidatorTest {
+
+    /**
+     * The reference: the first segment that enters any polygon, with the lowest polygon.
+     */
+    private static PathValidator.Violation scan(double[] path, PreparedPolygon[] polygons) {
+        int positions = path.length / 2;
+        for (int segment = 0; segment < Math.max(positions - 1, 1) && positions > 0; segment++) {
+            int end = Math.min(segment + 1, positions - 1);
+            for (int p = 0; p < polygons.length; p++) {
+                if (polygons[p].intersectsSegment(path[2 * segment], path[2 * segment + 1], path[2 * end], path[2 * end + 1])) {
+                    return new PathValidator.Violation(segment, p);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A closed, rotated regular polygon; with few vertices and a random radius these overlap now and then.
+     */
+    private static PreparedPolygon randomPolygon(Random random, double centerX, double centerY) {
+        int vertices = 3 + random.nextInt(8);
+        double radius = 0.0002 + random.nextDouble() * 0.001, rotation = random.nextDouble() * 2 * Math.PI;
+        double[] coords = new double[2 * (vertices + 1)];
+        for (int i = 0; i < vertices; i++) {
+            double angle = rotation + 2 * Math.PI * i / vertices;
+            coords[2 * i] = centerX + radius * Math.cos(angle);
+            coords[2 * i + 1] = centerY + radius * Math.sin(angle);
+        }
+        coords[2 * vertices] = coords[0];
+        coords[2 * vertices + 1] = coords[1];
+        return new PreparedPolygon(coords);
+    }
+
+    private static double[] randomWalk(Random random, int moves) {
+        double[] path = new double[2 * (moves + 1)];
+        for (int i = 1; i <= moves; i++) {
+            int direction = random.nextInt(Directions.COUNT);
+            path[2 * i] = path[2 * i - 2] + Directions.deltaLng(direction);
+            path[2 * i + 1] = path[2 * i - 1] + Directions.deltaLat(direction);
+        }
+        return path;
+    }
+
+    @Test
+    void randomWalks_matchScan() {
+        Random random = new Random(17);
+        for (int polygonCount : new int[]{0, 1, 5, 40}) {
+            for (int trial = 0; trial < 50; trial++) {
+                PreparedPolygon[] polygons = new PreparedPolygon[polygonCount];
+                for (int p = 0; p < polygonCount; p++) {
+                    polygons[p] = randomPolygon(random, (random.nextDouble() - 0.5) * 0.01, (random.nextDouble() - 0.5) * 0.01);
+                }
+                PathValidator validator = new PathValidator(polygons);
+                double[] path = randomWalk(random, random.nextInt(2000));
+                assertEquals(scan(path, polygons), validator.firstViolation(path), "trial " + trial);
+            }
+        }
+    }
+
+    @Test
+    void segmentCrossingThinPolygon_isViolation() {
+        // A wall thinner than one move: both ends of the crossing segment are outside
+        PreparedPolygon wall = new PreparedPolygon(new double[]{0.0005, -0.001, 0.0005, 0.001, 0.00051, 0.001,
+                0.00051, -0.001, 0.0005, -0.001});
+        PreparedPolygon far = new PreparedPolygon(new double[]{1, 1, 1, 2, 2, 2, 1, 1});
+        PathValidator validator = new PathValidator(new PreparedPolygon[]{far, wall});
+        double[] path = new double[2 * 6];
+        for (int i = 0; i < 6; i++) path[2 * i] = i * Directions.STEP_SIZE;
+
+        assertEquals(new PathValidator.Violation(3, 1), validator.firstViolation(path));
+        assertNull(validator.firstViolation(new double[]{0, 0, 0.00015, 0}));
+    }
+
+    @Test
+    void startInsideOrSinglePosition_isSegmentZero() {
+        PreparedPolygon square = new PreparedPolygon(new double[]{0, 0, 0, 1, 1, 1, 1, 0, 0, 0});
+        PathValidator validator = new PathValidator(new PreparedPolygon[]{square});
+
+        assertEquals(new PathValidator.Violation(0, 0), validator.firstViolation(new double[]{0.5, 0.5, 2, 0.5}));
+        assertEquals(new PathValidator.Violation(0, 0), validator.firstViolation(new double[]{1, 1}));
+        assertEquals(new PathValidator.Violation(1, 0), validator.firstViolation(new double[]{2, 2, 1.5, 1.5, 1, 1}));
+        assertNull(validator.firstViolation(new double[]{2, 2}));
+        assertNull(validator.firstViolation(new double[0]));
+    }
+}
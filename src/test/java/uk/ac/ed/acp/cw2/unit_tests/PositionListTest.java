@@ -0,0 +1,121 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.PositionList;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PositionList} and the binding of {@link Region} vertices to it.
+ */
+public class PositionListTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void region_bindsVerticesToFlatList() throws Exception {
+        String json = "{\"name\":\"r\",\"vertices\":[{\"lng\":0,\"lat\":0},{\"lng\":0,\"lat\":1},"
+                + "{\"lng\":\"1.5\",\"lat\":1,\"alt\":3},{\"lng\":0,\"lat\":0}]}";
+        Region region = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .readValue(json, Region.class);
+
+        PositionList vertices = assertInstanceOf(PositionList.class, region.vertices());
+        assertArrayEquals(new double[]{0, 0, 0, 1, 1.5, 1, 0, 0}, vertices.coords());
+        assertEquals(List.of(new Position(0.0, 0.0), new Position(0.0, 1.0), new Position(1.5, 1.0), new Position(0.0, 0.0)), vertices);
+        assertEquals(new Region("r", vertices), new Region("r", List.copyOf(vertices)));
+        assertEquals(List.copyOf(vertices).hashCode(), vertices.hashCode());
+    }
+
+    @Test
+    void hashCode_matchesPlainList() {
+        PositionList vertices = new PositionList(new double[]{-3.19, 55.94, 0.0, -0.0, Double.NaN, 1e-300, 180, -90});
+        List<Position> plain = List.copyOf(vertices);
+
+        assertEquals(plain, vertices);
+        assertEquals(plain.hashCode(), vertices.hashCode());
+        assertEquals(List.of().hashCode(), new PositionList(new double[0]).hashCode());
+        assertNotEquals(vertices.hashCode(), new PositionList(new double[]{55.94, -3.19}).hashCode());
+    }
+
+    @Test
+    void region_serializesLikePlainList() throws Exception {
+        Region plain = new Region("r", List.of(new Position(-3.19, 55.94), new Position(-3.18, 55.95),
+                new Position(-3.17, 55.94), new Position(-3.19, 55.94)));
+        String json = objectMapper.writeValueAsString(plain);
+        Region bound = objectMapper.readValue(json, Region.class);
+        assertEquals(json, objectMapper.writeValueAsString(bound));
+        assertEquals(plain, bound);
+    }
+
+    @Test
+    void nullVertices_fallBackToPlainList_withSameViolations() throws Exception {
+        String json = "{\"name\":\"r\",\"vertices\":[{\"lng\":0,\"lat\":0},null,{\"lng\":0},{\"lng\":200,\"lat\":0}]}";
+        Region region = objectMapper.readValue(json, Region.class);
+
+        assertFalse(region.vertices() instanceof PositionList);
+        assertEquals(4, region.vertices().size());
+        assertNull(region.vertices().get(1));
+        assertEquals(new Position(0.0, 0.0), region.vertices().get(0));
+        assertEquals(violations(region), fastViolations(region));
+    }
+
+    @Test
+    void flatList_hasSameViolationsAsBeanValidation() throws Exception {
+        String json = "{\"vertices\":[{\"lng\":0,\"lat\":0},{\"lng\":-181,\"lat\":91}]}";
+        Region region = objectMapper.readValue(json, Region.class);
+        assertInstanceOf(PositionList.class, region.vertices());
+        assertEquals(violations(region), fastViolations(region));
+    }
+
+    @Test
+    void nullOrMalformedVertices() throws Exception {
+        assertNull(objectMapper.readValue("{\"name\":\"r\",\"vertices\":null}", Region.class).vertices());
+        assertThrows(MismatchedInputException.class, () -> objectMapper.readValue("{\"name\":\"r\",\"vertices\":{}}", Region.class));
+    }
+
+    @Test
+    void get_outOfRange_throws() {
+        PositionList list = new PositionList(new double[]{1, 2});
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+        assertThrows(IllegalArgumentException.class, () -> new PositionList(new double[3]));
+    }
+
+    private static Set<String> violations(Region region) {
+        return validator.validate(region).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> fastViolations(Region region) {
+        return new RequestValidator(validator).validate(region).stream()
+                .map(violation -> violation.field() + ": " + violation.message())
+                .collect(Collectors.toSet());
+    }
+}
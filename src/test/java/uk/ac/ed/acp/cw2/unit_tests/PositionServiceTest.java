@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import uk.ac.ed.acp.cw2.dto.*;
 import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
 
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -17,7 +18,7 @@ import static org.junit.jupiter.api.Assertions.*;
  * and region-related functionality.
  */
 public class PositionServiceTest {
-    private final PositionService service = new PositionService();
+    private final PositionService service = new PositionService(new PreparedPolygonCache(16, 100_000), false);
 
     @Nested
     class CalculateDistanceTests {
@@ -67,6 +68,54 @@ public class PositionServiceTest {
             assertTrue(next.lng() > start.lng());
             assertEquals(start.lat(), next.lat(), 1e-12);
         }
+
+        @Test
+        void calculateNextPosition_matchesTrigonometryForEveryDirection() {
+            Position start = new Position(-3.19, 55.94);
+            for (double angle = 0; angle < 360; angle += 22.5) {
+                Position next = service.calculateNextPosition(new NextPositionRequest(start, angle));
+                double radians = Math.toRadians(angle);
+                assertEquals(start.lng() + 0.00015 * Math.cos(radians), next.lng(), 0.0);
+                assertEquals(start.lat() + 0.00015 * Math.sin(radians), next.lat(), 0.0);
+            }
+        }
+
+        @Test
+        void calculateTrajectory_matchesChainedNextPositions() {
+            double[] angles = new double[2000];
+            for (int i = 0; i < angles.length; i++) angles[i] = (i * 7 % 16) * 22.5;
+            Position start = new Position(-3.19, 55.94);
+            TrajectoryRequest request = new TrajectoryRequest(start, angles);
+            assertNull(service.validateTrajectory(request));
+
+            Trajectory trajectory = service.calculateTrajectory(request);
+            assertEquals(angles.length + 1, trajectory.lng().length);
+            Position current = start;
+            for (int i = 0; i < angles.length; i++) {
+                current = service.calculateNextPosition(new NextPositionRequest(current, angles[i]));
+                assertEquals(current.lng(), trajectory.lng()[i + 1], 0.0);
+                assertEquals(current.lat(), trajectory.lat()[i + 1], 0.0);
+            }
+        }
+
+        @Test
+        void validateTrajectory_withInvalidAngle_returnsError() {
+            TrajectoryRequest request = new TrajectoryRequest(new Position(0.0, 0.0), new double[]{0.0, 45.0, 10.0});
+            String error = service.validateTrajectory(request);
+            assertNotNull(error);
+            assertTrue(error.startsWith("Move 2"));
+        }
+
+        @Test
+        void validateTrajectory_withAngleOutOfRange_returnsError() {
+            for (double angle : new double[]{-22.5, 382.5, 720.0, Double.NaN}) {
+                TrajectoryRequest request = new TrajectoryRequest(new Position(0.0, 0.0), new double[]{0.0, angle});
+                String error = service.validateTrajectory(request);
+                assertNotNull(error, "angle " + angle);
+                assertTrue(error.startsWith("Move 1"));
+            }
+            assertNull(service.validateTrajectory(new TrajectoryRequest(new Position(0.0, 0.0), new double[]{0.0, 360.0})));
+        }
     }
 
     @Nested
@@ -142,4 +191,35 @@ public class PositionServiceTest {
         }
     }
 
+    @Nested
+    class ValidatePathTests {
+        private final Region square = new Region("square", List.of(
+                new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0)));
+        private final Region triangle = new Region("triangle", List.of(
+                new Position(2.0, 0.0), new Position(3.0, 0.0), new Position(2.5, 1.0), new Position(2.0, 0.0)));
+
+        @Test
+        void pathAroundRegions_isValid() {
+            List<Position> path = List.of(new Position(-0.5, -0.5), new Position(-0.5, 1.5), new Position(3.5, 1.5));
+            PathValidation result = service.validatePath(new PathValidationRequest(path, List.of(square, triangle)));
+
+            assertTrue(result.valid());
+            assertNull(result.segment());
+        }
+
+        @Test
+        void pathCuttingCorner_reportsFirstSegment() {
+            // Both positions of the second segment are outside, but it cuts through the triangle
+            List<Position> path = List.of(new Position(1.5, 1.5), new Position(1.5, 0.5), new Position(3.5, 0.5));
+            PathValidation result = service.validatePath(new PathValidationRequest(path, List.of(square, triangle)));
+
+            assertFalse(result.valid());
+            assertEquals(1, result.segment());
+            assertEquals(path.get(1), result.from());
+            assertEquals(path.get(2), result.to());
+            assertEquals(1, result.areaIndex());
+            assertEquals("triangle", result.areaName());
+        }
+    }
 }
@@ -0,0 +1,184 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.geometry.PreparedPolygon;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PreparedPolygon} and {@link PreparedPolygonCache}.
+ * The prepared polygon is compared against the original ray-casting loop on random polygons and points.
+ */
+public class PreparedPolygonTest {
+
+    /**
+     * The original ray-casting loop of PositionService.isInRegion, kept as the reference.
+     */
+    static boolean referenceIsInRegion(List<Position> vertices, Position position) {
+        if (vertices.contains(position)) return true;
+        int n = vertices.size();
+        double x = position.lng(), y = position.lat();
+        int count = 0;
+        for (int current = 0, previous = n-1; current < n; previous = current++) {
+            double currentX = vertices.get(current).lng(), currentY = vertices.get(current).lat();
+            double previousX = vertices.get(previous).lng(), previousY = vertices.get(previous).lat();
+            double cross = (y - currentY) * (previousX - currentX) - (previousY - currentY) * (x - currentX);
+            if (Math.abs(cross) < 1e-12 &&
+                    x >= Math.min(currentX, previousX) - 1e-12 && x <= Math.max(currentX, previousX) + 1e-12 &&
+                    y >= Math.min(currentY, previousY) - 1e-12 && y <= Math.max(currentY, previousY) + 1e-12) {
+                return true;
+            }
+            boolean rayBetweenEdgeY = (y < currentY) != (y < previousY);
+            double xIntersect = currentX + ((y - currentY) / (previousY - currentY)) * (previousX - currentX);
+            boolean leftOfIntersect = (x < xIntersect);
+            if (rayBetweenEdgeY && leftOfIntersect) count += 1;
+        }
+        return count % 2 == 1;
+    }
+
+    /**
+     * Builds a closed star-shaped polygon around (centerX, centerY) with random radii, so it is concave.
+     */
+    static List<Position> randomStar(Random random, int n, double centerX, double centerY, double radius) {
+        List<Position> vertices = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double r = radius * (0.3 + 0.7 * random.nextDouble());
+            vertices.add(new Position(centerX + r * Math.cos(angle), centerY + r * Math.sin(angle)));
+        }
+        vertices.add(vertices.getFirst());
+        return vertices;
+    }
+
+    static double[] toCoords(List<Position> vertices) {
+        double[] coords = new double[vertices.size() * 2];
+        for (int i = 0; i < vertices.size(); i++) {
+            coords[2 * i] = vertices.get(i).lng();
+            coords[2 * i + 1] = vertices.get(i).lat();
+        }
+        return coords;
+    }
+
+    @Nested
+    class ContainsTests {
+        @Test
+        void randomPolygons_matchReference() {
+            Random random = new Random(42);
+            for (int n : new int[]{4, 7, 50, 1000}) {
+                List<Position> vertices = randomStar(random, n, -3.19, 55.94, 0.01);
+                PreparedPolygon polygon = new PreparedPolygon(toCoords(vertices));
+                for (int i = 0; i < 2000; i++) {
+                    Position point = new Position(-3.19 + (random.nextDouble() - 0.5) * 0.025,
+                            55.94 + (random.nextDouble() - 0.5) * 0.025);
+                    assertEquals(referenceIsInRegion(vertices, point), polygon.contains(point.lng(), point.lat()),
+                            "n=" + n + " point=" + point);
+                }
+            }
+        }
+
+        @Test
+        void verticesAndEdgeMidpoints_areInside() {
+            Random random = new Random(7);
+            List<Position> vertices = randomStar(random, 100, 0.0, 0.0, 1.0);
+            PreparedPolygon polygon = new PreparedPolygon(toCoords(vertices));
+            for (int i = 1; i < vertices.size(); i++) {
+                Position a = vertices.get(i - 1), b = vertices.get(i);
+                assertTrue(polygon.contains(a.lng(), a.lat()));
+                Position mid = new Position((a.lng() + b.lng()) / 2, (a.lat() + b.lat()) / 2);
+                assertEquals(referenceIsInRegion(vertices, mid), polygon.contains(mid.lng(), mid.lat()));
+            }
+        }
+
+        @Test
+        void axisAlignedSquare_handlesHorizontalEdges() {
+            List<Position> square = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                    new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+            PreparedPolygon polygon = new PreparedPolygon(toCoords(square));
+            assertTrue(polygon.contains(0.5, 1.0));
+            assertTrue(polygon.contains(0.5, 0.5));
+            assertFalse(polygon.contains(-0.5, 0.5));
+            assertFalse(polygon.contains(0.5, 1.0 + 1e-9));
+        }
+    }
+
+    @Nested
+    class CacheTests {
+        @Test
+        void sameVertices_hitRegardlessOfName() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(4, 100_000);
+            List<Position> vertices = randomStar(new Random(1), 10, 0.0, 0.0, 1.0);
+            PreparedPolygon first = cache.get(new Region("a", vertices));
+            PreparedPolygon second = cache.get(new Region("b", new ArrayList<>(vertices)));
+            assertSame(first, second);
+            assertEquals(1, cache.hitCount());
+            assertEquals(1, cache.missCount());
+        }
+
+        @Test
+        void cachedPolygon_keepsACopyOfTheCallersArray() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(4, 100_000);
+            double[] square = {0, 0, 0, 1, 1, 1, 1, 0, 0, 0};
+            double[] reused = square.clone();
+            PreparedPolygon first = cache.get(reused);
+
+            // A caller reusing its buffer changes neither the cached polygon nor its key
+            reused[4] = 5;
+            assertTrue(first.contains(0.5, 0.5));
+            assertSame(first, cache.get(square.clone()));
+            assertEquals(1, cache.hitCount());
+        }
+
+        @Test
+        void overCapacity_evictsLeastRecentlyUsed() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(2, 100_000);
+            Random random = new Random(3);
+            Region a = new Region("a", randomStar(random, 5, 0.0, 0.0, 1.0));
+            Region b = new Region("b", randomStar(random, 5, 0.0, 0.0, 1.0));
+            Region c = new Region("c", randomStar(random, 5, 0.0, 0.0, 1.0));
+            cache.get(a);
+            cache.get(b);
+            cache.get(a); // a is now more recently used than b
+            cache.get(c); // evicts b
+            assertEquals(1, cache.evictionCount());
+            assertEquals(2, cache.size());
+            cache.get(a);
+            assertEquals(2, cache.hitCount());
+        }
+
+        @Test
+        void overVertexBudget_evictsLeastRecentlyUsed() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(16, 25);
+            Random random = new Random(4);
+            Region a = new Region("a", randomStar(random, 10, 0.0, 0.0, 1.0));
+            Region b = new Region("b", randomStar(random, 10, 0.0, 0.0, 1.0));
+            cache.get(a);
+            cache.get(b); // a and b together are within the budget
+            assertEquals(0, cache.evictionCount());
+            cache.get(new Region("c", randomStar(random, 10, 0.0, 0.0, 1.0))); // evicts a
+            assertEquals(1, cache.evictionCount());
+            assertEquals(2, cache.size());
+            cache.get(b);
+            assertEquals(1, cache.hitCount());
+        }
+
+        @Test
+        void polygonOverVertexBudget_isNotCached() {
+            PreparedPolygonCache cache = new PreparedPolygonCache(16, 8);
+            Region large = new Region("large", randomStar(new Random(5), 10, 0.0, 0.0, 1.0));
+            PreparedPolygon first = cache.get(large);
+            PreparedPolygon second = cache.get(large);
+            assertNotSame(first, second);
+            assertTrue(first.contains(0.0, 0.0));
+            assertEquals(0, cache.size());
+            assertEquals(2, cache.missCount());
+        }
+    }
+}
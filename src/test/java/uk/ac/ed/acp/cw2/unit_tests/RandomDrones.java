@@ -0,0 +1,53 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.dto.Drone;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random drones for the tests comparing the drone indexes with a linear scan.
+ * The values come from a few steps each, so equal values and costs are common, and each may be missing.
+ * One drone in 20 has no capability at all.
+ */
+final class RandomDrones {
+    // A value is missing with a probability of 1 in this
+    private final int nullOneIn;
+    // The number of distinct costs per move, in steps of 0.01
+    private final int costPerMoveSteps;
+
+    RandomDrones(int nullOneIn, int costPerMoveSteps) {
+        this.nullOneIn = nullOneIn;
+        this.costPerMoveSteps = costPerMoveSteps;
+    }
+
+    /**
+     * Returns the value, or null with a probability of 1 in {@link #nullOneIn}.
+     */
+    <T> T maybe(Random random, T value) {
+        return random.nextInt(nullOneIn) == 0 ? null : value;
+    }
+
+    /**
+     * Returns random drones with the ids 100, 101, ...
+     */
+    List<Drone> drones(Random random, int count) {
+        List<Drone> drones = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Drone.Capability capability = random.nextInt(20) == 0 ? null : new Drone.Capability(
+                    maybe(random, random.nextBoolean()), maybe(random, random.nextBoolean()),
+                    maybe(random, (double) random.nextInt(13)), maybe(random, 500 * random.nextInt(7)),
+                    maybe(random, random.nextInt(costPerMoveSteps) / 100.0), maybe(random, random.nextInt(5) + 0.5),
+                    maybe(random, random.nextInt(5) + 0.25));
+            drones.add(new Drone((long) i + 100, "Drone " + i, capability));
+        }
+        return drones;
+    }
+
+    static DroneCatalog catalog(List<Drone> drones, long version) {
+        return new DroneCatalog(drones, version, null, null, Instant.now());
+    }
+}
@@ -0,0 +1,154 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import uk.ac.ed.acp.cw2.controller.ReactiveDroneController;
+import uk.ac.ed.acp.cw2.controller.ReactiveExceptionHandler;
+import uk.ac.ed.acp.cw2.controller.ReactiveRegionStreamController;
+import uk.ac.ed.acp.cw2.controller.ServiceController;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.net.URL;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the reactive mode: a controller shared with Spring MVC ({@link ServiceController}),
+ * {@link ReactiveDroneController}, {@link ReactiveRegionStreamController} and the 400 answers of
+ * {@link ReactiveExceptionHandler}, using WebTestClient.
+ */
+@WebFluxTest({ServiceController.class, ReactiveDroneController.class, ReactiveRegionStreamController.class})
+@Import({PositionService.class, PreparedPolygonCache.class, RequestValidator.class, RequestEventLog.class})
+public class ReactiveControllerTest {
+    private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+    private static final Region CENTRAL = new Region("central", List.of(
+            new Position(-3.192473, 55.946233), new Position(-3.192473, 55.942617), new Position(-3.184319, 55.942617),
+            new Position(-3.184319, 55.946233), new Position(-3.192473, 55.946233)));
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PositionService positionService;
+
+    @MockitoBean
+    private DroneService droneService;
+
+    @MockitoBean
+    private URL serviceUrl;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    @Test
+    void distanceTo_validRequest_returnsDistance() {
+        DistanceRequest request = new DistanceRequest(new Position(0.0, 0.0), new Position(3.0, 4.0));
+        webTestClient.post().uri("/api/v1/distanceTo").contentType(MediaType.APPLICATION_JSON).bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Double.class).isEqualTo(5.0);
+    }
+
+    @Test
+    void invalidRequests_return400AndAreCounted() {
+        webTestClient.post().uri("/api/v1/distanceTo").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DistanceRequest(new Position(0.0, 95.0), new Position(0.0, 0.0)))
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(apiMetrics).recordRejected("/api/v1/distanceTo", "validation");
+
+        webTestClient.post().uri("/api/v1/isCloseTo").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"position1\": ")
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(apiMetrics).recordRejected("/api/v1/isCloseTo", "malformed_json");
+
+        webTestClient.post().uri("/api/v1/nextPosition").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new NextPositionRequest(new Position(0.0, 0.0), 10.0))
+                .exchange()
+                .expectStatus().isBadRequest();
+        verify(apiMetrics).recordRejected("/api/v1/nextPosition", "invalid_angle");
+    }
+
+    @Test
+    void droneQueries_useTheAsyncMethods() {
+        when(droneService.getDronesWithCoolingAsync(true)).thenReturn(Mono.just(List.of(1L, 5L)));
+        when(droneService.queryDronesAsync(any())).thenReturn(Mono.just(List.of(4L, 9L)));
+
+        webTestClient.post().uri("/api/v1/dronesWithCooling/true").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("[1,5]");
+        webTestClient.get().uri("/api/v1/drones/query?cooling=true&minCapacity=8").exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("[4,9]");
+        webTestClient.post().uri("/api/v1/drones/query").contentType(MediaType.APPLICATION_JSON).bodyValue("{\"heating\": true}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("[4,9]");
+    }
+
+    private String[] stream(String body) {
+        String response = webTestClient.post().uri("/api/v1/isInRegion").contentType(NDJSON).accept(NDJSON).bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+        return response == null ? new String[0] : response.split("\n");
+    }
+
+    @Test
+    void regionStream_matchesSingleRequests() throws Exception {
+        Random random = new Random(7);
+        StringBuilder body = new StringBuilder(objectMapper.writeValueAsString(CENTRAL)).append('\n');
+        Position[] positions = new Position[1000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new Position(-3.195 + random.nextDouble() * 0.014, 55.940 + random.nextDouble() * 0.008);
+            body.append(objectMapper.writeValueAsString(positions[i])).append('\n');
+        }
+        body.append("{\"lng\": -3.188, \"lat\": 95}\n\nnot json\n");
+
+        String[] lines = stream(body.toString());
+        assertEquals(positions.length + 2, lines.length);
+        for (int i = 0; i < positions.length; i++) {
+            boolean expected = positionService.isInRegion(new RegionRequest(positions[i], CENTRAL));
+            assertEquals(expected, objectMapper.readTree(lines[i]).get("value").asBoolean(), "position " + i);
+        }
+        assertEquals("lat: Latitude cannot be over 90!", objectMapper.readTree(lines[positions.length]).get("errorMessage").asText());
+        assertEquals("INVALID_REQUEST", objectMapper.readTree(lines[positions.length + 1]).get("errorCode").asText());
+        verify(apiMetrics).recordRejected("/api/v1/isInRegion", "invalid_item", 2);
+        assertEquals(0, stream(objectMapper.writeValueAsString(CENTRAL)).length);
+    }
+
+    @Test
+    void regionStream_invalidRegion_returns400() throws Exception {
+        Region open = new Region("open", CENTRAL.vertices().subList(0, 4));
+        Region tooSmall = new Region("small", List.of(new Position(0.0, 0.0), new Position(0.0, 0.0)));
+        for (String body : new String[]{objectMapper.writeValueAsString(open), objectMapper.writeValueAsString(tooSmall),
+                "", "not json\n{\"lng\": 0, \"lat\": 0}"}) {
+            webTestClient.post().uri("/api/v1/isInRegion").contentType(NDJSON).bodyValue(body)
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+        verify(apiMetrics).recordRejected("/api/v1/isInRegion", "open_polygon");
+        verify(apiMetrics).recordRejected("/api/v1/isInRegion", "validation");
+    }
+}
@@ -0,0 +1,52 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Report;
+import uk.ac.ed.acp.cw2.unit_tests.LoadGenerator.Request;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test comparing the Spring MVC mode with the reactive mode: many keep-alive connections, each sending
+ * isInRegion requests one after the other, against the application started in a separate JVM.
+ * Reports how many connections were served, the throughput and the latency percentiles of each mode.
+ * Disabled by default; the client and the server each need a file descriptor per connection:
+ * mvn test -Dtest=ReactiveLoadTest -Dilp.loadtest=true [-Dilp.loadtest.connections=10000 -Dilp.loadtest.duration=PT30S]
+ */
+@EnabledIfSystemProperty(named = "ilp.loadtest", matches = "true")
+public class ReactiveLoadTest {
+    private static final int CONNECTIONS = Integer.getInteger("ilp.loadtest.connections", 10_000);
+    private static final Duration DURATION = Duration.parse(System.getProperty("ilp.loadtest.duration", "PT30S"));
+    // Connections are opened and the servers warmed up before latencies are recorded
+    private static final Duration WARMUP = DURATION.dividedBy(3);
+
+    private static final Request REQUEST = Request.json("POST", "/api/v1/isInRegion", """
+            {"position": {"lng": -3.188, "lat": 55.944}, "region": {"name": "central", "vertices": [
+            {"lng": -3.192473, "lat": 55.946233}, {"lng": -3.192473, "lat": 55.942617}, {"lng": -3.184319, "lat": 55.942617},
+            {"lng": -3.184319, "lat": 55.946233}, {"lng": -3.192473, "lat": 55.946233}]}}""", 200);
+
+    @Test
+    void mvcAndReactive_underManyConnections() throws Exception {
+        Report mvc = run("default");
+        Report reactive = run("reactive");
+
+        System.out.printf("%n%d connections, %s measured after %s warm-up%n", CONNECTIONS, DURATION, WARMUP);
+        mvc.print(System.out, "mvc");
+        reactive.print(System.out, "reactive");
+        assertTrue(mvc.total().raw().getTotalCount() > 0 && reactive.total().raw().getTotalCount() > 0);
+    }
+
+    /**
+     * Starts the application with the given Spring profile and puts it under load.
+     */
+    private static Report run(String profile) throws Exception {
+        try (ApplicationProcess application = new ApplicationProcess(profile, Map.of())) {
+            return new LoadGenerator(application.port(), List.of(REQUEST)).closedLoop(CONNECTIONS, WARMUP, DURATION);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.RegionBatchController;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.service.RegionBatchService;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+import uk.ac.ed.acp.cw2.wire.GeoBinaryFormat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for {@link RegionBatchController}.
+ * Compares every result of the JSON and binary batch endpoints with the single isInRegion calculation.
+ */
+@WebMvcTest(RegionBatchController.class)
+@Import({PositionService.class, PreparedPolygonCache.class, RequestValidator.class, RegionBatchService.class,
+        RequestEventLog.class})
+@TestPropertySource(properties = {"ilp.geometry.bulk.parallelism=4", "ilp.geometry.bulk.max-positions=50000"})
+public class RegionBatchControllerMvcTest {
+    private static final MediaType GEO = GeoBinaryFormat.MEDIA_TYPE;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PositionService positionService;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    private static final Region CENTRAL = new Region("central", List.of(
+            new Position(-3.192473, 55.946233), new Position(-3.192473, 55.942617), new Position(-3.184319, 55.942617),
+            new Position(-3.184319, 55.946233), new Position(-3.192473, 55.946233)));
+
+    private static List<Position> randomPositions(int count) {
+        Random random = new Random(3);
+        List<Position> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 100 == 0) positions.add(CENTRAL.vertices().get(i / 100 % 4)); // vertices count as inside
+            else positions.add(new Position(-3.195 + random.nextDouble() * 0.014, 55.940 + random.nextDouble() * 0.008));
+        }
+        return positions;
+    }
+
+    private JsonNode postJson(Object body, String query) throws Exception {
+        String response = mockMvc.perform(post("/api/v1/batch/isInRegion" + query)
+                        .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    @Test
+    void positions_matchSingleRequests() throws Exception {
+        List<Position> positions = randomPositions(20_000);
+        for (String query : new String[]{"", "?parallelism=1", "?parallelism=64"}) {
+            JsonNode results = postJson(new RegionBatchRequest(CENTRAL, positions), query);
+            assertEquals(positions.size(), results.size());
+            for (int i = 0; i < positions.size(); i++) {
+                boolean expected = positionService.isInRegion(new RegionRequest(positions.get(i), CENTRAL));
+                assertEquals(expected, results.get(i).get("value").asBoolean(), "position " + i + query);
+            }
+        }
+    }
+
+    @Test
+    void invalidPositions_getErrorResults() throws Exception {
+        List<Position> positions = Arrays.asList(new Position(-3.188, 55.944), new Position(-3.188, 95.0), null,
+                new Position(0.0, 0.0));
+        JsonNode results = postJson(new RegionBatchRequest(CENTRAL, positions), "");
+        assertTrue(results.get(0).get("value").asBoolean());
+        assertEquals("INVALID_REQUEST", results.get(1).get("errorCode").asText());
+        assertEquals("lat: Latitude cannot be over 90!", results.get(1).get("errorMessage").asText());
+        assertEquals("INVALID_REQUEST", results.get(2).get("errorCode").asText());
+        assertFalse(results.get(3).get("value").asBoolean());
+    }
+
+    @Test
+    void binary_matchesJson() throws Exception {
+        List<Position> positions = new ArrayList<>(randomPositions(5000));
+        positions.set(7, new Position(-181.0, 55.94));
+        double[] coords = PreparedPolygonTest.toCoords(CENTRAL.vertices());
+        double[] points = PreparedPolygonTest.toCoords(positions);
+
+        JsonNode json = postJson(new RegionBatchRequest(CENTRAL, positions), "?parallelism=2");
+        byte[] response = mockMvc.perform(post("/api/v1/batch/isInRegion?parallelism=2").contentType(GEO).accept(GEO)
+                        .content(GeoBinaryFormat.encodeRegionBatch(coords, points)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(GEO))
+                .andReturn().getResponse().getContentAsByteArray();
+        GeoBinaryFormat.BatchFrame frame = GeoBinaryFormat.decodeBatchResult(response, 0);
+
+        assertEquals(positions.size(), frame.status().length);
+        for (int i = 0; i < positions.size(); i++) {
+            if (json.get(i).has("errorCode")) {
+                assertEquals(GeoBinaryFormat.STATUS_INVALID_REQUEST, frame.status()[i], "position " + i);
+            } else {
+                assertEquals(GeoBinaryFormat.STATUS_OK, frame.status()[i], "position " + i);
+                assertEquals(json.get(i).get("value").asBoolean(), frame.values()[i] == 1, "position " + i);
+            }
+        }
+    }
+
+    @Test
+    void invalidRegionOrBatch_returns400() throws Exception {
+        Region open = new Region("open", CENTRAL.vertices().subList(0, 4));
+        Region tooSmall = new Region("small", List.of(new Position(0.0, 0.0), new Position(0.0, 0.0)));
+        List<Object> invalid = List.of(new RegionBatchRequest(open, List.of()), new RegionBatchRequest(tooSmall, List.of()),
+                new RegionBatchRequest(CENTRAL, randomPositions(50_001)), Map.of("region", CENTRAL));
+        for (Object body : invalid) {
+            mockMvc.perform(post("/api/v1/batch/isInRegion")
+                            .contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(body)))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(post("/api/v1/batch/isInRegion").contentType(GEO)
+                        .content(GeoBinaryFormat.encodeRegionBatch(PreparedPolygonTest.toCoords(open.vertices()), new double[2])))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/batch/isInRegion").contentType(GEO).content(new byte[]{1, 0, 0, 0}))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.RegionController;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.service.RegionRegistryService;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Unit tests for {@link RegionController}.
+ * Uses the real RegionRegistryService, which the tests share through the cached context,
+ * so each test uses its own region names and area.
+ */
+@WebMvcTest(RegionController.class)
+@Import({PositionService.class, PreparedPolygonCache.class, RegionRegistryService.class, RequestValidator.class,
+        RequestEventLog.class})
+public class RegionControllerMvcTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    private static final List<Position> SQUARE = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+            new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+
+    @Test
+    void createRegion_returns201_thenConflict() throws Exception {
+        String region = json(new Region("square", SQUARE));
+        mockMvc.perform(post("/api/v1/regions").contentType(MediaType.APPLICATION_JSON).content(region))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.name").value("square"));
+
+        mockMvc.perform(post("/api/v1/regions").contentType(MediaType.APPLICATION_JSON).content(region))
+                .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/v1/regions/square"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vertices.length()").value(5));
+    }
+
+    @Test
+    void createRegion_withOpenPolygon_returns400() throws Exception {
+        Region open = new Region("open", SQUARE.subList(0, 4));
+        mockMvc.perform(post("/api/v1/regions").contentType(MediaType.APPLICATION_JSON).content(json(open)))
+                .andExpect(status().isBadRequest());
+
+        verify(apiMetrics).recordRejected("/api/v1/regions", "open_polygon");
+        mockMvc.perform(get("/api/v1/regions/open")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void putRegion_createsThenReplaces_andChecksTheName() throws Exception {
+        String region = json(new Region("zone", SQUARE));
+        mockMvc.perform(put("/api/v1/regions/zone").contentType(MediaType.APPLICATION_JSON).content(region))
+                .andExpect(status().isCreated());
+        mockMvc.perform(put("/api/v1/regions/zone").contentType(MediaType.APPLICATION_JSON).content(region))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/v1/regions/other").contentType(MediaType.APPLICATION_JSON).content(region))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deleteRegion_returns204_then404() throws Exception {
+        mockMvc.perform(post("/api/v1/regions").contentType(MediaType.APPLICATION_JSON)
+                .content(json(new Region("gone", SQUARE)))).andExpect(status().isCreated());
+
+        mockMvc.perform(delete("/api/v1/regions/gone")).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/v1/regions/gone")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/regions/gone")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void regionsContaining_returnsTheMatchingNames() throws Exception {
+        List<Position> left = SQUARE.stream().map(p -> new Position(p.lng() + 10, p.lat())).toList();
+        List<Position> right = SQUARE.stream().map(p -> new Position(p.lng() + 10.5, p.lat())).toList();
+        for (Region region : List.of(new Region("left", left), new Region("right", right))) {
+            mockMvc.perform(post("/api/v1/regions").contentType(MediaType.APPLICATION_JSON).content(json(region)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(post("/api/v1/regions/containing").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new Position(10.75, 0.5))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0]").value("left"))
+                .andExpect(jsonPath("$[1]").value("right"));
+        mockMvc.perform(post("/api/v1/regions/containing").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new Position(10.25, 0.5))))
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(post("/api/v1/regions/containing").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new Position(10.25, 95.0))))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,154 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.dto.RegionRequest;
+import uk.ac.ed.acp.cw2.geometry.FixedPointPolygon;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.service.RegionRegistryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RegionRegistryService}.
+ * The R-tree query is compared against testing every registered region, in double precision and in fixed point.
+ */
+public class RegionRegistryServiceTest {
+    private final RegionRegistryService registry = new RegionRegistryService(false);
+
+    @Test
+    void regionsContaining_matchesTestingEveryRegion() {
+        Random random = new Random(11);
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Region region = new Region(String.format("zone-%03d", i), PreparedPolygonTest.randomStar(random, 4 + random.nextInt(30),
+                    random.nextDouble(), random.nextDouble(), 0.02 + random.nextDouble() * 0.1));
+            regions.add(region);
+            registry.putRegion(region);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            Position point = new Position(random.nextDouble(), random.nextDouble());
+            List<String> expected = new ArrayList<>();
+            for (Region region : regions) {
+                if (PreparedPolygonTest.referenceIsInRegion(region.vertices(), point)) expected.add(region.name());
+            }
+            assertEquals(expected, registry.getRegionsContaining(point));
+        }
+    }
+
+    @Test
+    void regionsContaining_afterEachChange_matchesTestingEveryRegion() {
+        // Changes keep the polygons of the other regions; a replaced region must not keep its old polygon
+        Random random = new Random(12);
+        Map<String, Region> regions = new TreeMap<>();
+        for (int change = 0; change < 300; change++) {
+            String name = "zone-" + random.nextInt(40);
+            if (random.nextInt(4) == 0) {
+                assertEquals(regions.remove(name) != null, registry.removeRegion(name));
+            } else {
+                Region region = new Region(name, PreparedPolygonTest.randomStar(random, 4 + random.nextInt(20),
+                        random.nextDouble(), random.nextDouble(), 0.05 + random.nextDouble() * 0.2));
+                regions.put(name, region);
+                registry.putRegion(region);
+            }
+            for (int i = 0; i < 20; i++) {
+                Position point = new Position(random.nextDouble(), random.nextDouble());
+                List<String> expected = new ArrayList<>();
+                for (Region region : regions.values()) {
+                    if (PreparedPolygonTest.referenceIsInRegion(region.vertices(), point)) expected.add(region.name());
+                }
+                assertEquals(expected, registry.getRegionsContaining(point), "after change " + change);
+            }
+        }
+    }
+
+    @Test
+    void vertexOfRegion_countsAsInside() {
+        List<Position> square = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+        registry.putRegion(new Region("square", square));
+        assertEquals(List.of("square"), registry.getRegionsContaining(new Position(1.0, 1.0)));
+        assertEquals(List.of("square"), registry.getRegionsContaining(new Position(0.5, 0.0)));
+        assertEquals(List.of(), registry.getRegionsContaining(new Position(1.5, 0.5)));
+    }
+
+    @Test
+    void putAndRemove_updateRegistry() {
+        List<Position> square = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+        assertTrue(registry.putRegion(new Region("a", square)));
+        assertFalse(registry.putRegion(new Region("a", square)));
+        assertTrue(registry.getRegion("a").isPresent());
+        assertEquals(1, registry.getRegions().size());
+
+        assertTrue(registry.removeRegion("a"));
+        assertFalse(registry.removeRegion("a"));
+        assertTrue(registry.getRegionsContaining(new Position(0.5, 0.5)).isEmpty());
+    }
+
+    @Test
+    void addRegion_fromManyThreads_addsTheNameOnce() throws Exception {
+        List<Position> square = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+        AtomicInteger added = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Region region = new Region("a", square);
+            threads.add(Thread.ofPlatform().start(() -> {
+                if (registry.addRegion(region)) added.incrementAndGet();
+            }));
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertEquals(1, added.get());
+        assertFalse(registry.addRegion(new Region("a", square)));
+        assertEquals(1, registry.getRegions().size());
+    }
+
+    @Test
+    void fixedPointMode_matchesIsInRegion() {
+        RegionRegistryService fixedPointRegistry = new RegionRegistryService(true);
+        PositionService positionService = new PositionService(new PreparedPolygonCache(16, 100_000), true);
+        Random random = new Random(13);
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Region region = new Region(String.format("zone-%03d", i), PreparedPolygonTest.randomStar(random,
+                    4 + random.nextInt(30), random.nextDouble(), random.nextDouble(), 0.02 + random.nextDouble() * 0.1));
+            regions.add(region);
+            fixedPointRegistry.putRegion(region);
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            Position point = new Position(random.nextDouble(), random.nextDouble());
+            List<String> expected = new ArrayList<>();
+            for (Region region : regions) {
+                if (positionService.isInRegion(new RegionRequest(point, region))) expected.add(region.name());
+            }
+            assertEquals(expected, fixedPointRegistry.getRegionsContaining(point));
+        }
+    }
+
+    @Test
+    void fixedPointMode_pointRoundedOntoTheBorder_isInside() {
+        RegionRegistryService fixedPointRegistry = new RegionRegistryService(true);
+        List<Position> square = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0), new Position(0.0, 0.0));
+        fixedPointRegistry.putRegion(new Region("square", square));
+        registry.putRegion(new Region("square", square));
+        // Less than half a unit beyond the box: outside in double precision, on the border once quantized
+        Position point = new Position(1.0 + 0.4 * FixedPointPolygon.UNIT, 0.5);
+
+        assertEquals(List.of("square"), fixedPointRegistry.getRegionsContaining(point));
+        assertEquals(List.of(), registry.getRegionsContaining(point));
+    }
+}
@@ -0,0 +1,127 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import uk.ac.ed.acp.cw2.controller.RegionStreamController;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for {@link RegionStreamController}.
+ * Streams positions against a region and compares each result line with the single isInRegion calculation.
+ */
+@WebMvcTest(RegionStreamController.class)
+@Import({PositionService.class, PreparedPolygonCache.class, RequestValidator.class, RequestEventLog.class})
+public class RegionStreamControllerMvcTest {
+    private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PositionService positionService;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
+    private static final Region CENTRAL = new Region("central", List.of(
+            new Position(-3.192473, 55.946233), new Position(-3.192473, 55.942617), new Position(-3.184319, 55.942617),
+            new Position(-3.184319, 55.946233), new Position(-3.192473, 55.946233)));
+
+    private String[] stream(String body) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/isInRegion").contentType(NDJSON).accept(NDJSON).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        return response.isEmpty() ? new String[0] : response.split("\n");
+    }
+
+    @Test
+    void positions_matchSingleRequests() throws Exception {
+        Random random = new Random(7);
+        StringBuilder body = new StringBuilder(objectMapper.writeValueAsString(CENTRAL)).append('\n');
+        Position[] positions = new Position[1000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = new Position(-3.195 + random.nextDouble() * 0.014, 55.940 + random.nextDouble() * 0.008);
+            if (i % 100 == 0) positions[i] = CENTRAL.vertices().get(i / 100 % 4); // vertices count as inside
+            body.append(objectMapper.writeValueAsString(positions[i])).append('\n');
+        }
+
+        String[] lines = stream(body.toString());
+        assertEquals(positions.length, lines.length);
+        for (int i = 0; i < positions.length; i++) {
+            boolean expected = positionService.isInRegion(new RegionRequest(positions[i], CENTRAL));
+            assertEquals(expected, objectMapper.readTree(lines[i]).get("value").asBoolean(), "position " + i);
+        }
+    }
+
+    @Test
+    void invalidPositions_getErrorLines() throws Exception {
+        String body = objectMapper.writeValueAsString(CENTRAL) + "\n"
+                + "{\"lng\": -3.188, \"lat\": 55.944}\n"
+                + "{\"lng\": -3.188, \"lat\": 95}\n"
+                + "\n"
+                + "not json\n"
+                + "{\"lng\": 0, \"lat\": 0}";
+
+        String[] lines = stream(body);
+        assertEquals(4, lines.length);
+        assertTrue(objectMapper.readTree(lines[0]).get("value").asBoolean());
+        assertEquals("INVALID_REQUEST", objectMapper.readTree(lines[1]).get("errorCode").asText());
+        assertEquals("lat: Latitude cannot be over 90!", objectMapper.readTree(lines[1]).get("errorMessage").asText());
+        assertEquals("INVALID_REQUEST", objectMapper.readTree(lines[2]).get("errorCode").asText());
+        assertFalse(objectMapper.readTree(lines[3]).get("value").asBoolean());
+    }
+
+    @Test
+    void regionOnly_returnsEmptyStream() throws Exception {
+        assertEquals(0, stream(objectMapper.writeValueAsString(CENTRAL)).length);
+    }
+
+    @Test
+    void openPolygon_returns400() throws Exception {
+        Region open = new Region("open", CENTRAL.vertices().subList(0, 4));
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(NDJSON).content(objectMapper.writeValueAsString(open)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void invalidRegion_returns400() throws Exception {
+        Region tooSmall = new Region("small", List.of(new Position(0.0, 0.0), new Position(0.0, 0.0)));
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(NDJSON).content(objectMapper.writeValueAsString(tooSmall)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void missingOrMalformedRegion_returns400() throws Exception {
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(NDJSON).content(""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/isInRegion").contentType(NDJSON).content("{\"name\": \n"))
+                .andExpect(status().isBadRequest());
+    }
+}
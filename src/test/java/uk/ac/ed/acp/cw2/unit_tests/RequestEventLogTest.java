@@ -0,0 +1,201 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RequestEventLog}: the written events, the rate limit with its suppressed counts,
+ * sampling and the access events of observed requests. The log output is captured by a list appender.
+ */
+public class RequestEventLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RequestEventLog.class);
+    private ListAppender<ILoggingEvent> appender;
+    private SimpleMeterRegistry registry;
+    private RequestEventLog log;
+
+    @BeforeEach
+    void setUp() {
+        appender = new ListAppender<>();
+        appender.start();
+        logger.addAppender(appender);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (log != null) log.close();
+        logger.detachAppender(appender);
+    }
+
+    private RequestEventLog newLog(double accessSampleRate, double rejectedSampleRate, int rateLimit,
+                                   Duration summaryInterval) {
+        return new RequestEventLog(new ApiMetrics(registry), 64, accessSampleRate, rejectedSampleRate, rateLimit,
+                summaryInterval);
+    }
+
+    @Test
+    void rejected_writesTheFormattedMessageWithKeyValues() throws Exception {
+        log = newLog(0, 1.0, 20, Duration.ofHours(1));
+
+        log.rejected("/api/v1/isInRegion", "validation", "Rejected {} vertices: {}", 3, "region not closed");
+
+        ILoggingEvent event = awaitEvent(e -> true);
+        assertEquals("Rejected 3 vertices: region not closed", event.getFormattedMessage());
+        assertEquals("rejected", value(event, "event"));
+        assertEquals("/api/v1/isInRegion", value(event, "endpoint"));
+        assertEquals("validation", value(event, "reason"));
+        assertEquals(1.0, value(event, "sampleRate"));
+        assertNull(value(event, "suppressed"));
+    }
+
+    @Test
+    void rejected_countsUnderTheEndpointAndReasonOfTheLog_evenIfNotLogged() {
+        log = newLog(0, 0, 20, Duration.ofHours(1));
+
+        log.rejected("/api/v1/isInRegion", "open_polygon", "Invalid isInRegion request: {}", "open");
+        log.rejected("/api/v1/isInRegion", "open_polygon", 3, "Invalid items: {}", 3);
+        log.unavailable("/api/v1/dronesWithCooling/{state}", "ILP REST Service unavailable: {}", "timeout");
+
+        assertEquals(4.0, registry.get("ilp.requests.rejected").tag("endpoint", "/api/v1/isInRegion")
+                .tag("reason", "open_polygon").counter().count());
+        assertEquals(1, registry.find("ilp.requests.rejected").counters().size());
+    }
+
+    @Test
+    void rejected_overTheRateLimit_isSuppressedAndCounted() throws Exception {
+        log = newLog(0, 1.0, 1, Duration.ofMillis(50));
+        log.rejected("/api/v1/isInRegion", "validation", () -> "bad region");
+        awaitEvents(1);
+
+        // The limit allows one event per second; the rest is reported in the summary
+        for (int i = 0; i < 5; i++) log.rejected("/api/v1/isInRegion", "validation", () -> "bad region");
+
+        ILoggingEvent summary = awaitEvent(e -> "suppressed".equals(value(e, "event")));
+        assertEquals(Map.of("validation", 5L), value(summary, "suppressed"));
+        assertEquals("Suppressed request log events: {validation=5}", summary.getFormattedMessage());
+        assertEquals(1, events().stream().filter(e -> "rejected".equals(value(e, "event"))).count());
+        assertEquals(5.0, registry.get("ilp.log.suppressed").tag("reason", "validation").counter().count());
+    }
+
+    @Test
+    void rejected_afterSuppression_reportsTheCountWithTheNextEvent() throws Exception {
+        log = newLog(0, 1.0, 2, Duration.ofHours(1));
+        for (int i = 0; i < 5; i++) log.rejected("/api/v1/isInRegion", "validation", () -> "bad region");
+        awaitEvents(2);
+
+        // Once the limit allows another event, it carries the count of those suppressed in between
+        Thread.sleep(600);
+        log.rejected("/api/v1/isInRegion", "validation", () -> "bad region");
+
+        awaitEvents(3);
+        assertEquals(3, events().stream().mapToLong(RequestEventLogTest::suppressedCount).sum());
+        ILoggingEvent reporting = events().stream().filter(e -> suppressedCount(e) > 0).findFirst().orElseThrow();
+        assertTrue(reporting.getFormattedMessage().endsWith("similar events suppressed)"));
+    }
+
+    @Test
+    void rejected_withSampleRateZero_writesAndCountsNothing() throws Exception {
+        log = newLog(0, 0, 20, Duration.ofMillis(10));
+
+        for (int i = 0; i < 10; i++) log.rejected("/api/v1/isInRegion", "validation", () -> "bad region");
+        Thread.sleep(100);
+
+        assertTrue(events().isEmpty());
+        assertNull(registry.find("ilp.log.suppressed").counter());
+    }
+
+    @Test
+    void observedRequest_writesAnAccessEvent() throws Exception {
+        log = newLog(1.0, 1.0, 20, Duration.ofHours(1));
+        ObservationRegistry observations = ObservationRegistry.create();
+        observations.observationConfig().observationHandler(log);
+
+        Observation.createNotStarted("http.server.requests", observations)
+                .lowCardinalityKeyValue("uri", "/api/v1/isInRegion")
+                .lowCardinalityKeyValue("method", "POST")
+                .lowCardinalityKeyValue("status", "200")
+                .start()
+                .stop();
+        // Other observations are not access events
+        Observation.createNotStarted("http.client.requests", observations).start().stop();
+
+        ILoggingEvent event = awaitEvent(e -> true);
+        assertTrue(event.getFormattedMessage().startsWith("POST /api/v1/isInRegion 200 "));
+        assertEquals("access", value(event, "event"));
+        assertEquals("/api/v1/isInRegion", value(event, "endpoint"));
+        assertEquals("200", value(event, "status"));
+        assertInstanceOf(Double.class, value(event, "durationMs"));
+        Thread.sleep(50);
+        assertEquals(1, events().size());
+    }
+
+    @Test
+    void accessSampleRateZero_doesNotObserveRequests() {
+        log = newLog(0, 1.0, 20, Duration.ofHours(1));
+
+        Observation.Context context = new Observation.Context();
+        context.setName("http.server.requests");
+
+        assertFalse(log.supportsContext(context));
+    }
+
+    private static Object value(ILoggingEvent event, String key) {
+        List<KeyValuePair> pairs = event.getKeyValuePairs();
+        if (pairs == null) return null;
+        return pairs.stream().filter(pair -> pair.key.equals(key)).map(pair -> pair.value).findFirst().orElse(null);
+    }
+
+    private static long suppressedCount(ILoggingEvent event) {
+        Object value = value(event, "suppressed");
+        if (value instanceof Long count) return count;
+        if (value instanceof Map<?, ?> counts) {
+            return counts.values().stream().mapToLong(count -> (Long) count).sum();
+        }
+        return 0;
+    }
+
+    // The appender adds events on the writer thread, under its own lock
+    private List<ILoggingEvent> events() {
+        synchronized (appender) {
+            return List.copyOf(appender.list);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail("Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+
+    private ILoggingEvent awaitEvent(Predicate<ILoggingEvent> condition) throws InterruptedException {
+        await(() -> events().stream().anyMatch(condition));
+        return events().stream().filter(condition).findFirst().orElseThrow();
+    }
+
+    private void awaitEvents(int count) throws InterruptedException {
+        await(() -> events().size() >= count);
+        assertEquals(count, events().size());
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.validation.InvalidRequestException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link RequestValidator}.
+ * Compares the hand-written checks with Bean Validation on the annotated DTOs: both must report the same violations.
+ */
+public class RequestValidatorTest {
+    private static ValidatorFactory factory;
+    private static Validator beanValidator;
+    private static RequestValidator requestValidator;
+
+    @BeforeAll
+    static void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        beanValidator = factory.getValidator();
+        requestValidator = new RequestValidator(beanValidator);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factory.close();
+    }
+
+    private static Position square(double d) {
+        return new Position(d, d);
+    }
+
+    static Stream<Object> requests() {
+        Position valid = new Position(-3.19, 55.94);
+        List<Position> vertices = List.of(new Position(0.0, 0.0), new Position(0.0, 1.0), new Position(1.0, 1.0), new Position(0.0, 0.0));
+        return Stream.of(
+                valid,
+                new Position(null, null),
+                new Position(-180.0, 90.0),
+                new Position(-180.0000001, 90.0000001),
+                new Position(180.5, -90.5),
+                new Position(Double.NaN, 0.0),
+                new Position(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY),
+                new DistanceRequest(valid, valid),
+                new DistanceRequest(null, null),
+                new DistanceRequest(new Position(null, 0.0), new Position(0.0, 100.0)),
+                new NextPositionRequest(valid, 45.0),
+                new NextPositionRequest(valid, 360.0),
+                new NextPositionRequest(null, null),
+                new NextPositionRequest(valid, -0.5),
+                new NextPositionRequest(square(200), 360.5),
+                new NextPositionRequest(valid, Double.NaN),
+                new RegionRequest(valid, new Region("r", vertices)),
+                new RegionRequest(null, null),
+                new RegionRequest(valid, new Region(null, null)),
+                new RegionRequest(valid, new Region("r", List.of(valid))),
+                new RegionRequest(square(-200), new Region("r", Arrays.asList(valid, null, new Position(null, 0.0), square(95), valid))),
+                new Region("r", vertices),
+                new Region(null, List.of(square(-95), square(181))),
+                new RegionBatchRequest(new Region("r", vertices), Arrays.asList(valid, null, square(95))),
+                new RegionBatchRequest(null, null),
+                new RegionBatchRequest(new Region("r", List.of(valid)), List.of()),
+                new DeliveryCostRequest(valid, valid, 4.0, true, null),
+                new DeliveryCostRequest(null, null, null, null, null),
+                new DeliveryCostRequest(square(200), new Position(null, 0.0), -0.5, null, false),
+                new DeliveryCostRequest(valid, valid, -0.0, null, null),
+                new DeliveryCostRequest(valid, valid, Double.NaN, null, null),
+                new PathValidationRequest(List.of(valid, square(0)), List.of(new Region("r", vertices))),
+                new PathValidationRequest(null, null),
+                new PathValidationRequest(List.of(), Arrays.asList(null, new Region(null, List.of(valid)))),
+                new PathValidationRequest(Arrays.asList(valid, null, square(-200), new Position(null, 95.0)), List.of()),
+                new PathValidationRequest(new PositionList(new double[]{0, 0, 200, 0, 0, 95}), List.of())
+        );
+    }
+
+    private static Set<String> beanViolations(Object request) {
+        return beanValidator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> fastViolations(Object request) {
+        List<RequestValidator.FieldViolation> violations = requestValidator.validate(request);
+        Set<String> result = violations.stream()
+                .map(violation -> violation.field() + ": " + violation.message())
+                .collect(Collectors.toSet());
+        assertEquals(violations.size(), result.size(), "duplicate violations: " + violations);
+        return result;
+    }
+
+    @ParameterizedTest
+    @MethodSource("requests")
+    void validate_matchesBeanValidation(Object request) {
+        assertEquals(beanViolations(request), fastViolations(request));
+    }
+
+    @Test
+    void validate_otherType_fallsBackToBeanValidation() {
+        DeliveryPathRequest request = new DeliveryPathRequest(null, new Position(0.0, 100.0), null);
+        assertEquals(beanViolations(request), fastViolations(request));
+        assertFalse(fastViolations(request).isEmpty());
+    }
+
+    @Test
+    void requireValid_invalidRequest_throwsWithObjectName() {
+        InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+                () -> requestValidator.requireValid(new DistanceRequest(null, new Position(0.0, 0.0)), "distanceRequest"));
+        assertEquals("distanceRequest", exception.getObjectName());
+        assertEquals(List.of(new RequestValidator.FieldViolation("position1", "Position1 is required!")), exception.getViolations());
+    }
+
+    @Test
+    void requireValid_validRequest_doesNotThrow() {
+        assertDoesNotThrow(() -> requestValidator.requireValid(new Position(0.0, 0.0), "position"));
+    }
+}
@@ -5,13 +5,21 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.acp.cw2.controller.DroneController;
 import uk.ac.ed.acp.cw2.controller.ServiceController;
 import uk.ac.ed.acp.cw2.dto.*;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.RequestEventLog;
 import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.UpstreamUnavailableException;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
 
+import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
 
@@ -24,10 +32,11 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 /**
- * Unit tests for {@link ServiceController}.
+ * Unit tests for {@link ServiceController} and {@link DroneController}.
  * Tests the controller's endpoints using MockMvc with mocked PositionService.
  */
-@WebMvcTest(ServiceController.class)
+@Import({RequestValidator.class, RequestEventLog.class})
+@WebMvcTest({ServiceController.class, DroneController.class})
 public class ServiceControllerMvcTest {
     @Autowired
     private MockMvc mockMvc;
@@ -41,6 +50,15 @@ public class ServiceControllerMvcTest {
     @MockitoBean
     private PositionService positionService;
 
+    @MockitoBean
+    private DroneService droneService;
+
+    @MockitoBean
+    private URL serviceUrl;
+
+    @MockitoBean
+    private ApiMetrics apiMetrics;
+
     // Valid 200 OK requests
     @Test
     void uid_returnsStudentId() throws Exception {
@@ -180,4 +198,38 @@ public class ServiceControllerMvcTest {
                 .andExpect(status().isBadRequest());
     }
 
+
+    @Test
+    void queryDrones_bindsQueryParametersAndBody() throws Exception {
+        DroneQuery query = new DroneQuery(true, true, 8.0, null, 1500, null, null, 0.05, null, null, null, null);
+        when(droneService.queryDrones(query)).thenReturn(List.of(4L, 9L));
+
+        mockMvc.perform(get("/api/v1/drones/query?cooling=true&heating=true&minCapacity=8&minMaxMoves=1500&maxCostPerMove=0.05"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[4, 9]"));
+        mockMvc.perform(post("/api/v1/drones/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(query)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[4, 9]"));
+    }
+
+    @Test
+    void dronesWithCooling_fromStaleCatalog_addsWarning() throws Exception {
+        when(droneService.getDronesWithCooling(true)).thenReturn(List.of(1L));
+        when(droneService.isServingStale()).thenReturn(true);
+
+        mockMvc.perform(post("/api/v1/dronesWithCooling/true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Warning", "110 - \"Response is Stale\""))
+                .andExpect(content().json("[1]"));
+    }
+
+    @Test
+    void dronesWithCooling_whenUpstreamUnavailable_returnsServiceUnavailable() throws Exception {
+        when(droneService.getDronesWithCooling(true)).thenThrow(new UpstreamUnavailableException("breaker open"));
+
+        mockMvc.perform(post("/api/v1/dronesWithCooling/true"))
+                .andExpect(status().isServiceUnavailable());
+    }
 }
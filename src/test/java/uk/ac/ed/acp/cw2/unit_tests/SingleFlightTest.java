@@ -0,0 +1,118 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.acp.cw2.service.SingleFlight;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+    private final SingleFlight<String, Integer> flights = new SingleFlight<>(Duration.ofSeconds(10));
+
+    @Test
+    void execute_concurrentCallers_shareOneCallPerKey() throws Exception {
+        int callers = 1000;
+        CountDownLatch started = new CountDownLatch(callers);
+        AtomicInteger calls = new AtomicInteger();
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                String key = i % 2 == 0 ? "a" : "b";
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return flights.execute(key, () -> {
+                        calls.incrementAndGet();
+                        await(started);
+                        sleep(100);
+                        return key.equals("a") ? 1 : 2;
+                    });
+                }));
+            }
+        }
+        for (int i = 0; i < callers; i++) assertEquals(i % 2 == 0 ? 1 : 2, results.get(i).get());
+        assertEquals(2, calls.get());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void execute_failedCall_fansOutItsExceptionAndIsNotCached() throws Exception {
+        CountDownLatch started = new CountDownLatch(20);
+        IllegalStateException failure = new IllegalStateException("upstream down");
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    return flights.execute("a", () -> {
+                        await(started);
+                        sleep(100);
+                        throw failure;
+                    });
+                }));
+            }
+        }
+        for (Future<Integer> result : results) {
+            assertSame(failure, assertThrows(ExecutionException.class, result::get).getCause());
+        }
+        // The next caller starts a new call
+        assertEquals(3, flights.execute("a", () -> 3));
+    }
+
+    @Test
+    void execute_pastDeadline_failsAllCallersAndReleasesTheKey() throws Exception {
+        SingleFlight<String, Integer> shortFlights = new SingleFlight<>(Duration.ofMillis(100));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> shortFlights.execute("a", () -> {
+            await(release);
+            return 1;
+        }));
+        while (shortFlights.inFlight() == 0) Thread.onSpinWait();
+        CompletableFuture<Integer> waiter = shortFlights.executeAsync("a", () -> CompletableFuture.completedFuture(2));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        // Released while the timed-out call is still running
+        assertEquals(3, shortFlights.execute("a", () -> 3));
+        release.countDown();
+        e = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+    }
+
+    @Test
+    void executeAsync_cancelledCaller_doesNotAffectTheOthers() {
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CompletableFuture<Integer> first = flights.executeAsync("a", () -> upstream);
+        CompletableFuture<Integer> second = flights.executeAsync("a", () -> CompletableFuture.completedFuture(2));
+
+        first.cancel(true);
+        assertEquals(1, flights.inFlight());
+        upstream.complete(1);
+        assertEquals(1, second.join());
+        assertTrue(first.isCancelled());
+        assertEquals(0, flights.inFlight());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.SnapshotFile;
+import uk.ac.ed.acp.cw2.dto.Drone;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link SnapshotFile}.
+ * Round trips with missing values, and rejection of damaged files.
+ */
+public class SnapshotFileTest {
+    @TempDir
+    Path directory;
+
+    static final Region CENTRAL = new Region("central", List.of(
+            new Position(-3.192473, 55.946233), new Position(-3.192473, 55.942617), new Position(-3.184319, 55.942617),
+            new Position(-3.184319, 55.946233), new Position(-3.192473, 55.946233)));
+
+    static SnapshotFile.Contents sampleContents() {
+        List<Drone> drones = List.of(
+                new Drone(1L, "Drone 1", new Drone.Capability(true, false, 4.0, 2000, 0.01, 4.3, 6.5)),
+                new Drone(2L, "Dröne ✈", new Drone.Capability(null, true, null, 1000, null, 2.6, null)),
+                new Drone(null, null, null),
+                new Drone(4L, "", new Drone.Capability(false, null, -0.0, null, Double.NaN, null, 1e300)));
+        DroneCatalog catalog = new DroneCatalog(drones, 7, "\"v7\"", "Wed, 21 Oct 2026 07:28:00 GMT",
+                Instant.ofEpochMilli(1_790_000_000_123L));
+        return new SnapshotFile.Contents(catalog, List.of(CENTRAL, new Region("triangle", List.of(
+                new Position(0.0, 0.0), new Position(1.0, 0.0), new Position(0.5, 1.0), new Position(0.0, 0.0)))));
+    }
+
+    @Test
+    void roundTrip_keepsEverything() throws Exception {
+        Path path = directory.resolve("snapshot.bin");
+        SnapshotFile.Contents contents = sampleContents();
+        SnapshotFile.write(path, contents);
+        SnapshotFile.Contents read = SnapshotFile.read(path);
+
+        assertEquals(contents.catalog(), read.catalog());
+        assertEquals(contents.regions(), read.regions());
+        assertFalse(Files.exists(directory.resolve("snapshot.bin.tmp")));
+
+        SnapshotFile.write(path, new SnapshotFile.Contents(null, List.of()));
+        assertEquals(new SnapshotFile.Contents(null, List.of()), SnapshotFile.read(path));
+    }
+
+    @Test
+    void damagedFiles_areRejected() throws Exception {
+        Path path = directory.resolve("snapshot.bin");
+        SnapshotFile.write(path, sampleContents());
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path damaged = directory.resolve("damaged.bin");
+        for (int i = 0; i < bytes.length; i += 7) {
+            byte[] flipped = bytes.clone();
+            flipped[i] ^= 0x10;
+            Files.write(damaged, flipped);
+            assertThrows(StreamCorruptedException.class, () -> SnapshotFile.read(damaged), "byte " + i);
+        }
+        for (int length : new int[]{0, 3, 16, bytes.length - 1}) {
+            Files.write(damaged, Arrays.copyOf(bytes, length));
+            assertThrows(StreamCorruptedException.class, () -> SnapshotFile.read(damaged), "length " + length);
+        }
+        Files.write(damaged, Arrays.copyOf(bytes, bytes.length + 1));
+        assertThrows(StreamCorruptedException.class, () -> SnapshotFile.read(damaged));
+    }
+
+    @Test
+    void write_replacesExistingSnapshot() throws Exception {
+        Path path = directory.resolve("nested/snapshot.bin");
+        SnapshotFile.write(path, sampleContents());
+        // A leftover temporary file from a crashed write is simply overwritten
+        Files.write(directory.resolve("nested/snapshot.bin.tmp"), new byte[]{1, 2, 3});
+        SnapshotFile.Contents second = new SnapshotFile.Contents(null, List.of(CENTRAL));
+        SnapshotFile.write(path, second);
+
+        assertEquals(second, SnapshotFile.read(path));
+        assertFalse(Files.exists(directory.resolve("nested/snapshot.bin.tmp")));
+    }
+}
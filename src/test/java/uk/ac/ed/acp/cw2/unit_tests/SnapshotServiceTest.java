@@ -0,0 +1,184 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import uk.ac.ed.acp.cw2.data.DroneCatalog;
+import uk.ac.ed.acp.cw2.data.SnapshotFile;
+import uk.ac.ed.acp.cw2.dto.Position;
+import uk.ac.ed.acp.cw2.dto.Region;
+import uk.ac.ed.acp.cw2.service.ApiMetrics;
+import uk.ac.ed.acp.cw2.service.DroneService;
+import uk.ac.ed.acp.cw2.service.PositionService;
+import uk.ac.ed.acp.cw2.service.PreparedPolygonCache;
+import uk.ac.ed.acp.cw2.service.RegionRegistryService;
+import uk.ac.ed.acp.cw2.service.SnapshotService;
+import uk.ac.ed.acp.cw2.validation.RequestValidator;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for {@link SnapshotService}.
+ * The ILP REST Service is replaced by a MockRestServiceServer, and the snapshot lives in a temporary directory.
+ */
+public class SnapshotServiceTest {
+    private static final String DRONES_URL = "http://ilp.test/drones";
+
+    @TempDir
+    Path directory;
+
+    private Path path;
+    private MockRestServiceServer server;
+    private DroneService droneService;
+    private RegionRegistryService regionRegistryService;
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUpValidator() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDownValidator() {
+        factory.close();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        path = directory.resolve("snapshot.bin");
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        droneService = new DroneService(new URI("http://ilp.test").toURL(), restTemplate, WebClient.create(),
+                new ApiMetrics(new SimpleMeterRegistry()), UpstreamPolicyTest.withoutHedging(10),
+                Duration.ofMinutes(10));
+        regionRegistryService = new RegionRegistryService(false);
+    }
+
+    private SnapshotService newSnapshotService(String path) {
+        return new SnapshotService(droneService, regionRegistryService, new RequestValidator(validator),
+                new PositionService(new PreparedPolygonCache(4, 100_000), false), path);
+    }
+
+    @Test
+    void restore_servesSnapshotWithoutUpstreamCall() throws Exception {
+        SnapshotFile.Contents contents = SnapshotFileTest.sampleContents();
+        SnapshotFile.write(path, contents);
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+
+        assertTrue(snapshotService.restore());
+        // No request is expected by the mock server, so any upstream call would fail here
+        DroneCatalog catalog = droneService.getCatalog();
+        assertEquals(contents.catalog().drones(), catalog.drones());
+        assertEquals(7, catalog.version());
+        assertEquals(List.of(1L), droneService.getDronesWithCooling(true));
+        assertEquals(List.of("central", "triangle"), regionRegistryService.getRegions().stream().map(Region::name).toList());
+        // Nothing changed since the restore
+        assertFalse(snapshotService.save(false));
+        server.verify();
+    }
+
+    @Test
+    void restoredCatalog_isRevalidatedWithItsEtag() throws Exception {
+        SnapshotFile.write(path, SnapshotFileTest.sampleContents());
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+        snapshotService.restore();
+        server.expect(requestTo(DRONES_URL)).andExpect(header(HttpHeaders.IF_NONE_MATCH, "\"v7\""))
+                .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        assertEquals(7, droneService.refresh().version());
+        server.verify();
+    }
+
+    @Test
+    void restore_skipsInvalidRegions() throws Exception {
+        Region open = new Region("open", List.of(new Position(0.0, 0.0), new Position(0.0, 1.0),
+                new Position(1.0, 1.0), new Position(1.0, 0.0)));
+        Region outOfRange = new Region("far", List.of(new Position(0.0, 0.0), new Position(0.0, 100.0),
+                new Position(1.0, 1.0), new Position(0.0, 0.0)));
+        SnapshotFile.write(path, new SnapshotFile.Contents(SnapshotFileTest.sampleContents().catalog(),
+                List.of(open, SnapshotFileTest.CENTRAL, outOfRange)));
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+
+        assertTrue(snapshotService.restore());
+        assertEquals(List.of(SnapshotFileTest.CENTRAL), regionRegistryService.getRegions());
+        assertEquals(7, droneService.getCachedCatalog().version());
+    }
+
+    @Test
+    void corruptSnapshot_startsEmpty() throws Exception {
+        Files.write(path, new byte[]{'I', 'L', 'P', 'S', 0, 0, 0, 0});
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+
+        assertFalse(snapshotService.restore());
+        assertNull(droneService.getCachedCatalog());
+        assertFalse(newSnapshotService("").restore());
+    }
+
+    @Test
+    void save_writesOnlyChanges() throws Exception {
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+        server.expect(requestTo(DRONES_URL)).andRespond(withSuccess("""
+                [{"id": 1, "name": "Drone 1", "capability": {"cooling": true, "heating": false, "capacity": 4.0,
+                  "maxMoves": 2000, "costPerMove": 0.01, "costInitial": 4.3, "costFinal": 6.5}}]
+                """, MediaType.APPLICATION_JSON));
+        droneService.refresh();
+
+        assertTrue(snapshotService.save(false));
+        assertFalse(snapshotService.save(false));
+        regionRegistryService.putRegion(SnapshotFileTest.CENTRAL);
+        assertTrue(snapshotService.save(false));
+
+        SnapshotFile.Contents saved = SnapshotFile.read(path);
+        assertEquals(droneService.getCachedCatalog().drones(), saved.catalog().drones());
+        assertEquals(droneService.getCachedCatalog().version(), saved.catalog().version());
+        assertEquals(List.of(SnapshotFileTest.CENTRAL), saved.regions());
+    }
+
+    @Test
+    void save_withoutCatalog_writesRegionChangesAndKeepsTheCatalogOnDisk() throws Exception {
+        SnapshotFile.Contents existing = SnapshotFileTest.sampleContents();
+        SnapshotFile.write(path, existing);
+        SnapshotService snapshotService = newSnapshotService(path.toString());
+        Region added = new Region("added", SnapshotFileTest.CENTRAL.vertices());
+
+        assertNull(droneService.getCachedCatalog());
+        regionRegistryService.putRegion(added);
+        assertTrue(snapshotService.save(false));
+        assertFalse(snapshotService.save(false));
+
+        SnapshotFile.Contents saved = SnapshotFile.read(path);
+        assertEquals(List.of(added), saved.regions());
+        assertEquals(existing.catalog().drones(), saved.catalog().drones());
+        assertEquals(existing.catalog().version(), saved.catalog().version());
+
+        // Later changes keep the catalog last written
+        regionRegistryService.removeRegion("added");
+        assertTrue(snapshotService.save(false));
+        assertEquals(List.of(), SnapshotFile.read(path).regions());
+        assertEquals(existing.catalog().version(), SnapshotFile.read(path).catalog().version());
+    }
+}
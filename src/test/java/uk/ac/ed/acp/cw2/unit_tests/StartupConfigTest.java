@@ -0,0 +1,36 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the fast-startup profile: the application's beans stay eager while the rest is created on first use.
+ */
+@SpringBootTest
+@ActiveProfiles("fast-startup")
+@TestPropertySource(properties = "ilp.snapshot.path=")
+public class StartupConfigTest {
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    void applicationBeans_stayEager() {
+        for (String name : new String[]{"droneService", "snapshotService", "serviceController", "requestValidator"}) {
+            assertFalse(beanFactory.getBeanDefinition(name).isLazyInit(), name);
+            assertTrue(beanFactory.containsSingleton(name), name);
+        }
+    }
+
+    @Test
+    void otherBeans_areLazy() {
+        // The whitelabel error controller, which no request has needed yet
+        assertTrue(beanFactory.getBeanDefinition("basicErrorController").isLazyInit());
+        assertFalse(beanFactory.containsSingleton("basicErrorController"));
+    }
+}
@@ -0,0 +1,264 @@
+package uk.ac.ed.acp.cw2.unit_tests;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import uk.ac.ed.acp.cw2.service.UpstreamPolicy;
+import uk.ac.ed.acp.cw2.service.UpstreamPolicy.BreakerState;
+import uk.ac.ed.acp.cw2.service.UpstreamUnavailableException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link UpstreamPolicy}: the hedged request, the deadline and the circuit breaker.
+ * The upstream requests are futures completed by the tests.
+ */
+public class UpstreamPolicyTest {
+
+    /**
+     * Returns a policy with the default deadline and breaker thresholds, without hedged requests,
+     * so each call sends exactly one request.
+     * @param window the number of calls the breaker looks at
+     */
+    static UpstreamPolicy withoutHedging(int window) {
+        return new UpstreamPolicy(Duration.ofSeconds(10), false, 0.95, Duration.ofMillis(50), Duration.ofSeconds(2),
+                window, 0.5, Duration.ofSeconds(3), Duration.ofSeconds(30));
+    }
+
+    private static UpstreamPolicy hedgingAfter(Duration minDelay, Duration maxDelay) {
+        return new UpstreamPolicy(Duration.ofSeconds(10), true, 0.95, minDelay, maxDelay,
+                10, 0.5, Duration.ofSeconds(3), Duration.ofSeconds(30));
+    }
+
+    private static UpstreamPolicy breaker(int window, Duration slowCallThreshold, Duration openDuration) {
+        return new UpstreamPolicy(Duration.ofSeconds(10), false, 0.95, Duration.ofMillis(50), Duration.ofSeconds(2),
+                window, 0.5, slowCallThreshold, openDuration);
+    }
+
+    @Test
+    void execute_whenFirstRequestIsSlow_sendsHedgeAndFirstAnswerWins() {
+        UpstreamPolicy policy = hedgingAfter(Duration.ofMillis(20), Duration.ofMillis(20));
+        List<CompletableFuture<String>> requests = new CopyOnWriteArrayList<>();
+        CompletableFuture<String> result = policy.execute(() -> {
+            CompletableFuture<String> request = new CompletableFuture<>();
+            // The first request never answers, the hedged one does at once
+            if (!requests.isEmpty()) request.complete("hedge");
+            requests.add(request);
+            return request;
+        });
+
+        assertEquals("hedge", result.join());
+        assertEquals(2, requests.size());
+        // Cancelled once the call has ended
+        assertThrows(CancellationException.class, () -> requests.get(0).get(5, TimeUnit.SECONDS));
+        Health health = policy.health();
+        assertEquals(1L, health.getDetails().get("hedgesSent"));
+        assertEquals(1L, health.getDetails().get("hedgesWon"));
+    }
+
+    @Test
+    void execute_whenFirstRequestAnswersInTime_sendsNoHedge() throws Exception {
+        UpstreamPolicy policy = hedgingAfter(Duration.ofMillis(20), Duration.ofMillis(20));
+        AtomicInteger requests = new AtomicInteger();
+
+        assertEquals("first", policy.execute(() -> {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture("first");
+        }).join());
+        Thread.sleep(100);
+
+        assertEquals(1, requests.get());
+        assertEquals(0L, policy.health().getDetails().get("hedgesSent"));
+    }
+
+    @Test
+    void execute_whenBothRequestsFail_failsWithTheLastError() {
+        UpstreamPolicy policy = hedgingAfter(Duration.ofMillis(10), Duration.ofMillis(10));
+        AtomicInteger requests = new AtomicInteger();
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> result = policy.execute(() -> {
+            if (requests.incrementAndGet() == 1) return first;
+            first.completeExceptionally(new IllegalStateException("first"));
+            return CompletableFuture.failedFuture(new IllegalStateException("hedge"));
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, result::join);
+        assertEquals("hedge", e.getCause().getMessage());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void hedgeDelay_followsTheRecentLatencies() {
+        UpstreamPolicy policy = hedgingAfter(Duration.ofMillis(10), Duration.ofSeconds(2));
+        assertEquals(Duration.ofSeconds(2).toNanos(), policy.hedgeDelayNanos());
+
+        // Answers without delay pull the delay down to its minimum
+        for (int i = 0; i < 20; i++) policy.execute(() -> CompletableFuture.completedFuture("ok")).join();
+
+        assertEquals(Duration.ofMillis(10).toNanos(), policy.hedgeDelayNanos());
+        assertEquals(10L, policy.health().getDetails().get("hedgeDelayMillis"));
+    }
+
+    @Test
+    void execute_whenDeadlinePasses_failsUnavailableAndCancelsRequest() {
+        UpstreamPolicy policy = new UpstreamPolicy(Duration.ofMillis(50), false, 0.95, Duration.ofMillis(50),
+                Duration.ofSeconds(2), 10, 0.5, Duration.ofSeconds(3), Duration.ofSeconds(30));
+        CompletableFuture<String> request = new CompletableFuture<>();
+
+        CompletionException e = assertThrows(CompletionException.class, () -> policy.execute(() -> request).join());
+
+        assertInstanceOf(UpstreamUnavailableException.class, e.getCause());
+        assertThrows(CancellationException.class, () -> request.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, policy.health().getDetails().get("deadlinesExceeded"));
+    }
+
+    @Test
+    void executeBlocking_whenDeadlinePasses_interruptsRequest() throws Exception {
+        UpstreamPolicy policy = new UpstreamPolicy(Duration.ofMillis(50), false, 0.95, Duration.ofMillis(50),
+                Duration.ofSeconds(2), 10, 0.5, Duration.ofSeconds(3), Duration.ofSeconds(30));
+        CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+
+        assertThrows(UpstreamUnavailableException.class, () -> policy.executeBlocking(() -> {
+            try {
+                Thread.sleep(10_000);
+                interrupted.complete(false);
+            } catch (InterruptedException e) {
+                interrupted.complete(true);
+            }
+            return "late";
+        }));
+
+        assertTrue(interrupted.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeBlocking_rethrowsTheErrorOfTheRequest() {
+        UpstreamPolicy policy = withoutHedging(10);
+        IllegalStateException error = new IllegalStateException("upstream");
+
+        assertSame(error, assertThrows(IllegalStateException.class, () -> policy.executeBlocking(() -> {
+            throw error;
+        })));
+    }
+
+    @Test
+    void breaker_opensOnSlowCalls_andRejectsWithoutRequest() {
+        UpstreamPolicy policy = breaker(4, Duration.ofMillis(20), Duration.ofSeconds(30));
+        AtomicInteger requests = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            // Successful, but slower than the threshold
+            assertEquals("slow", policy.executeBlocking(() -> {
+                requests.incrementAndGet();
+                sleep(40);
+                return "slow";
+            }));
+        }
+
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+        assertThrows(UpstreamUnavailableException.class, () -> policy.executeBlocking(() -> {
+            requests.incrementAndGet();
+            return "rejected";
+        }));
+        assertEquals(2, requests.get());
+        Health health = policy.health();
+        assertEquals(UpstreamPolicy.DEGRADED, health.getStatus());
+        assertEquals(1.0, health.getDetails().get("badCallRate"));
+        assertEquals(1L, health.getDetails().get("rejectedCalls"));
+    }
+
+    @Test
+    void breaker_staysClosedWhileFewCallsFail() {
+        UpstreamPolicy policy = breaker(4, Duration.ofSeconds(3), Duration.ofSeconds(30));
+        policy.executeBlocking(() -> "ok");
+        policy.executeBlocking(() -> "ok");
+        policy.executeBlocking(() -> "ok");
+        assertThrows(IllegalStateException.class, () -> policy.executeBlocking(() -> {
+            throw new IllegalStateException("upstream");
+        }));
+
+        assertEquals(BreakerState.CLOSED, policy.getBreakerState());
+        assertEquals(Status.UP, policy.health().getStatus());
+    }
+
+    @Test
+    void breaker_afterOpenDuration_closesOnSuccessfulTrial_orOpensAgain() throws Exception {
+        UpstreamPolicy policy = breaker(2, Duration.ofSeconds(3), Duration.ofMillis(50));
+        assertThrows(IllegalStateException.class, () -> policy.executeBlocking(() -> {
+            throw new IllegalStateException("upstream");
+        }));
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+
+        Thread.sleep(60);
+        assertThrows(IllegalStateException.class, () -> policy.executeBlocking(() -> {
+            throw new IllegalStateException("still down");
+        }));
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+        assertThrows(UpstreamUnavailableException.class, () -> policy.executeBlocking(() -> "rejected"));
+
+        Thread.sleep(60);
+        assertEquals("ok", policy.executeBlocking(() -> "ok"));
+        assertEquals(BreakerState.CLOSED, policy.getBreakerState());
+        assertEquals(0, policy.health().getDetails().get("recentCalls"));
+    }
+
+    @Test
+    void breaker_whenHalfOpen_ignoresCallsStartedBeforeItOpened() throws Exception {
+        UpstreamPolicy policy = breaker(2, Duration.ofSeconds(3), Duration.ofMillis(50));
+        CompletableFuture<String> straggler = new CompletableFuture<>();
+        CompletableFuture<String> stragglerCall = policy.execute(() -> straggler);
+        assertThrows(CompletionException.class,
+                () -> policy.execute(() -> CompletableFuture.failedFuture(new IllegalStateException("down"))).join());
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+
+        Thread.sleep(60);
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        CompletableFuture<String> trialCall = policy.execute(() -> trial);
+        assertEquals(BreakerState.HALF_OPEN, policy.getBreakerState());
+
+        // Neither the success nor the failure of an older call decides the trial
+        straggler.complete("late");
+        assertEquals("late", stragglerCall.join());
+        assertEquals(BreakerState.HALF_OPEN, policy.getBreakerState());
+        trial.complete("ok");
+        assertEquals("ok", trialCall.join());
+        assertEquals(BreakerState.CLOSED, policy.getBreakerState());
+    }
+
+    @Test
+    void breaker_whenOpen_lateFailuresDoNotExtendTheOpenDuration() throws Exception {
+        UpstreamPolicy policy = breaker(2, Duration.ofSeconds(3), Duration.ofMillis(200));
+        CompletableFuture<String> straggler = new CompletableFuture<>();
+        CompletableFuture<String> stragglerCall = policy.execute(() -> straggler);
+        assertThrows(CompletionException.class,
+                () -> policy.execute(() -> CompletableFuture.failedFuture(new IllegalStateException("down"))).join());
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+
+        Thread.sleep(120);
+        straggler.completeExceptionally(new IllegalStateException("late"));
+        assertThrows(CompletionException.class, stragglerCall::join);
+        assertEquals(BreakerState.OPEN, policy.getBreakerState());
+
+        // The open duration still counts from the first opening
+        Thread.sleep(120);
+        assertEquals("ok", policy.executeBlocking(() -> "ok"));
+        assertEquals(BreakerState.CLOSED, policy.getBreakerState());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}